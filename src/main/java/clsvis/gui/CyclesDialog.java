@@ -0,0 +1,238 @@
+package clsvis.gui;
+
+import clsvis.model.Class_;
+import clsvis.model.ProjectSnapshot;
+import clsvis.model.RelationType;
+import clsvis.process.analysis.DependencyCycles;
+import clsvis.process.analysis.DependencyCycles.Cycle;
+import clsvis.process.analysis.DependencyCycles.Granularity;
+import java.awt.BorderLayout;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+
+/**
+ * Browser of dependency cycles between classes or packages of the snapshot published by the last import -
+ * see {@link DependencyCycles}.<br/>
+ * Cycles are found by a background thread for the chosen types of relations. The chosen cycle is opened in
+ * {@link MainFrame}: the first class of its example path is selected and classes of the path are highlighted
+ * in the relations diagram.
+ */
+final class CyclesDialog extends JDialog {
+
+    private static final Logger logger = Logger.getLogger( CyclesDialog.class.getName() );
+
+    private static final Set<RelationType> DEFAULT_RELATIONS = EnumSet.of(
+            RelationType.Association, RelationType.Dependency );
+
+    private final MainFrame mainFrame;
+    private final JComboBox<Granularity> granularityComboBox = new JComboBox<>( Granularity.values() );
+    private final Map<RelationType, JCheckBox> relationCheckBoxes = new EnumMap<>( RelationType.class );
+    private final JButton findButton = new JButton( "Find" );
+    private final JLabel statusLabel = new JLabel();
+    private final DefaultListModel<Cycle> cyclesListModel = new DefaultListModel<>();
+    private final JList<Cycle> cyclesList = new JList<>( cyclesListModel );
+    private final DefaultListModel<Class_> pathListModel = new DefaultListModel<>();
+    private final JList<Class_> pathList = new JList<>( pathListModel );
+    /** Results of the last search, or null */
+    private DependencyCycles dependencyCycles;
+
+    CyclesDialog(MainFrame mainFrame) {
+        super( mainFrame, "Dependency Cycles", false );
+        this.mainFrame = mainFrame;
+        setDefaultCloseOperation( HIDE_ON_CLOSE );
+
+        // Criteria
+        JPanel criteriaPanel = new JPanel( new FlowLayout( FlowLayout.LEADING ) );
+        granularityComboBox.setToolTipText( "Nodes of cycles: top-level classes (with inner classes) or packages" );
+        granularityComboBox.addActionListener( e -> showCycles() );
+        criteriaPanel.add( granularityComboBox );
+        for (RelationType relationType : DependencyCycles.DEPENDENCY_RELATIONS) {
+            JCheckBox relationCheckBox = new JCheckBox(
+                    relationType.name(), DEFAULT_RELATIONS.contains( relationType ) );
+            relationCheckBoxes.put( relationType, relationCheckBox );
+            criteriaPanel.add( relationCheckBox );
+        }
+        findButton.setToolTipText( "Find cycles of dependencies given by the chosen types of relations" );
+        findButton.addActionListener( e -> findCycles() );
+        criteriaPanel.add( findButton );
+        criteriaPanel.add( statusLabel );
+
+        // Results
+        cyclesList.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+        cyclesList.setToolTipText( "<html>Select cycle to see its example path.<br>"
+                + "Double click on cycle to open it in the diagram." );
+        cyclesList.addListSelectionListener( e -> {
+            if (!e.getValueIsAdjusting()) {
+                showPath();
+            }
+        } );
+        pathList.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+        pathList.setToolTipText( "<html>Each class depends on the next one, the last one on the first one.<br>"
+                + "Double click on class to open it in the diagram." );
+        cyclesList.addMouseListener( new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openCycle( 0 );
+                }
+            }
+        } );
+        pathList.addMouseListener( new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openCycle( Math.max( pathList.getSelectedIndex(), 0 ) );
+                }
+            }
+        } );
+        JSplitPane resultsSplitPane = new JSplitPane( JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane( cyclesList ), new JScrollPane( pathList ) );
+        resultsSplitPane.setResizeWeight( 0.5 );
+        resultsSplitPane.setPreferredSize( new Dimension( 900, 450 ) );
+        getContentPane().add( criteriaPanel, BorderLayout.PAGE_START );
+        getContentPane().add( resultsSplitPane, BorderLayout.CENTER );
+
+        // Keys
+        getRootPane().registerKeyboardAction( e -> setVisible( false ),
+                KeyStroke.getKeyStroke( KeyEvent.VK_ESCAPE, 0 ), JComponent.WHEN_IN_FOCUSED_WINDOW );
+        cyclesList.registerKeyboardAction( e -> openCycle( 0 ),
+                KeyStroke.getKeyStroke( KeyEvent.VK_ENTER, 0 ), JComponent.WHEN_FOCUSED );
+        pathList.registerKeyboardAction( e -> openCycle( Math.max( pathList.getSelectedIndex(), 0 ) ),
+                KeyStroke.getKeyStroke( KeyEvent.VK_ENTER, 0 ), JComponent.WHEN_FOCUSED );
+        addComponentListener( new ComponentAdapter() {
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                mainFrame.highlightClasses( Collections.emptySet() );
+            }
+        } );
+        pack();
+    }
+
+    /**
+     * Shows the dialog - cycles are found again, if a new snapshot was published since the last search.
+     */
+    void showDialog() {
+        setLocationRelativeTo( mainFrame );
+        if (dependencyCycles == null || dependencyCycles.getSnapshot() != getSnapshot()) {
+            findCycles();
+        }
+        setVisible( true );
+    }
+
+    private ProjectSnapshot getSnapshot() {
+        return mainFrame.getProjectImporter().getClassImporter().getSnapshot();
+    }
+
+    /**
+     * Finds cycles in the current snapshot by a background thread.
+     */
+    private void findCycles() {
+        Set<RelationType> relationTypes = EnumSet.noneOf( RelationType.class );
+        for (Map.Entry<RelationType, JCheckBox> entry : relationCheckBoxes.entrySet()) {
+            if (entry.getValue().isSelected()) {
+                relationTypes.add( entry.getKey() );
+            }
+        }
+        if (relationTypes.isEmpty()) {
+            statusLabel.setText( "Choose types of relations" );
+            return;
+        }
+        ProjectSnapshot snapshot = getSnapshot();
+        findButton.setEnabled( false );
+        statusLabel.setText( "Finding cycles ..." );
+        setCursor( Cursor.getPredefinedCursor( Cursor.WAIT_CURSOR ) );
+        long startTime = System.nanoTime();
+        new SwingWorker<DependencyCycles, Void>() {
+            @Override
+            protected DependencyCycles doInBackground() {
+                return DependencyCycles.find( snapshot, relationTypes );
+            }
+
+            @Override
+            protected void done() {
+                findButton.setEnabled( true );
+                setCursor( Cursor.getDefaultCursor() );
+                try {
+                    dependencyCycles = get();
+                    long timeMs = (System.nanoTime() - startTime) / 1_000_000;
+                    logger.log( Level.CONFIG, "Cycles between {0} classes found in {1} ms",
+                            new Object[]{ snapshot.size(), timeMs } );
+                    showCycles();
+                } catch (InterruptedException | ExecutionException e) {
+                    logger.log( Level.WARNING, "Problem during finding of cycles", e );
+                    statusLabel.setText( "Problem during finding of cycles" );
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows cycles of the chosen granularity.
+     */
+    private void showCycles() {
+        cyclesListModel.clear();
+        pathListModel.clear();
+        if (dependencyCycles == null) {
+            return;
+        }
+        Granularity granularity = (Granularity) granularityComboBox.getSelectedItem();
+        for (Cycle cycle : dependencyCycles.getCycles( granularity )) {
+            cyclesListModel.addElement( cycle );
+        }
+        statusLabel.setText( cyclesListModel.getSize() + " cycles between "
+                + (granularity == Granularity.Class ? "classes" : "packages") );
+        if (!cyclesListModel.isEmpty()) {
+            cyclesList.setSelectedIndex( 0 );
+        }
+    }
+
+    private void showPath() {
+        pathListModel.clear();
+        Cycle cycle = cyclesList.getSelectedValue();
+        if (cycle != null) {
+            for (Class_ class_ : cycle.path) {
+                pathListModel.addElement( class_ );
+            }
+        }
+    }
+
+    /**
+     * Opens the selected cycle in {@link MainFrame} at the given class of its path.
+     */
+    private void openCycle(int pathIndex) {
+        Cycle cycle = cyclesList.getSelectedValue();
+        if (cycle != null) {
+            mainFrame.selectClass( cycle.path.get( pathIndex ), MainFrame.ADD_CLASS_TO_HISTORY );
+            mainFrame.highlightClasses( new HashSet<>( cycle.path ) );
+        }
+    }
+}
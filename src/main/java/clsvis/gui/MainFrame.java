@@ -5,14 +5,19 @@ import clsvis.gui.model.ClassPresentationWrapper;
 import clsvis.gui.model.ClassesTableModel;
 import clsvis.gui.renderer.ClassesTableCellRenderer;
 import clsvis.gui.renderer.CustomTreeCellRenderer;
+import clsvis.gui.worker.BaseTask;
 import clsvis.gui.worker.SaveProjectTask;
 import clsvis.gui.worker.ClassProcessorTask;
+import clsvis.gui.worker.ReloadProjectTask;
 import clsvis.logging.GUIHandler;
+import clsvis.model.Annotation_;
 import clsvis.model.Class_;
 import clsvis.model.ElementModifier;
 import clsvis.model.ProjectConfig;
+import clsvis.model.ProjectSnapshot;
 import clsvis.model.RelationDirection;
 import clsvis.model.RelationType;
+import clsvis.model.SymbolTable;
 import clsvis.process.importer.BaseProjectImporter;
 import clsvis.process.importer.CompiledClassImporter;
 import java.awt.BorderLayout;
@@ -32,7 +37,13 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.lang.reflect.AccessibleObject;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import javax.swing.GroupLayout;
 import javax.swing.JComponent;
@@ -58,8 +69,6 @@ import javax.swing.JTree;
 import javax.swing.KeyStroke;
 import javax.swing.LayoutStyle;
 import javax.swing.ListSelectionModel;
-import javax.swing.RowFilter;
-import javax.swing.RowFilter.Entry;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
 import javax.swing.TransferHandler;
@@ -72,7 +81,6 @@ import javax.swing.event.ListSelectionListener;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.table.TableRowSorter;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeModel;
@@ -95,18 +103,30 @@ public class MainFrame extends JFrame {
     private Object viewedClass_;
 
     /* History of browsed classes. */
-    private static final boolean ADD_CLASS_TO_HISTORY = true;
+    static final boolean ADD_CLASS_TO_HISTORY = true;
     private static final boolean ADD_CLASS_TO_HISTORY_DISABLED = false;
     private ClassesTableModel historyTableModel = new ClassesTableModel();
     /** Pointer to the location of {@link #currentClass_} in the {@link #historyTableModel}. */
     private int currentClassHistoryIndex = -1;
 
-    private final ClassesTableRowFilter classesTableRowFilter = new ClassesTableRowFilter();
 
     private ProjectConfig projectConfig = new ProjectConfig();
 
     private BaseProjectImporter projectImporter = new BaseProjectImporter();
 
+    /** Model of {@link #classesTable} - it grows while classes are published by running import. */
+    private ClassesTableModel classesTableModel;
+    /** Index of nodes of {@link #classesTree} by classes - created when classes are published by running import. */
+    private Map<Class_, ClassPresentationWrapper> classesTreeNodes;
+
+    /** Dialog of quick open of classes - created on first use. */
+    private QuickOpenDialog quickOpenDialog;
+    /** Dialog of dependency cycles - created on first use. */
+    private CyclesDialog cyclesDialog;
+
+    /** Task executed most recently - it can be cancelled by Esc, if still running. */
+    private BaseTask<?, ?> runningTask;
+
     /* Fields related to JFileChooser. */
     private static final boolean MULTI_SELECTION_ENABLED = true;
     private static final boolean MULTI_SELECTION_DISABLED = false;
@@ -208,6 +228,8 @@ public class MainFrame extends JFrame {
         backMenuItem = new JMenuItem();
         forwardMenuItem = new JMenuItem();
         locateClassInHierarchyMenuItem = new JMenuItem();
+        goToClassMenuItem = new JMenuItem();
+        dependencyCyclesMenuItem = new JMenuItem();
         helpMenu = new JMenu();
         aboutMenuItem = new JMenuItem();
 
@@ -486,6 +508,28 @@ public class MainFrame extends JFrame {
         });
         navigationMenu.add(locateClassInHierarchyMenuItem);
 
+        goToClassMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G, InputEvent.CTRL_MASK));
+        goToClassMenuItem.setMnemonic('g');
+        goToClassMenuItem.setText("Go to Class ...");
+        goToClassMenuItem.setToolTipText("Find class by prefix or camel humps of its name");
+        goToClassMenuItem.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent evt) {
+                goToClassMenuItemActionPerformed(evt);
+            }
+        });
+        navigationMenu.add(goToClassMenuItem);
+
+        dependencyCyclesMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_MASK));
+        dependencyCyclesMenuItem.setMnemonic('d');
+        dependencyCyclesMenuItem.setText("Dependency Cycles ...");
+        dependencyCyclesMenuItem.setToolTipText("Find cycles of dependencies between classes or packages");
+        dependencyCyclesMenuItem.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent evt) {
+                dependencyCyclesMenuItemActionPerformed(evt);
+            }
+        });
+        navigationMenu.add(dependencyCyclesMenuItem);
+
         menuBar.add(navigationMenu);
 
         helpMenu.setMnemonic('h');
@@ -593,7 +637,26 @@ public class MainFrame extends JFrame {
         selectClassOnClassesTree( viewedClass_ );
     }//GEN-LAST:event_locateClassInHierarchyMenuItemActionPerformed
 
+    private void goToClassMenuItemActionPerformed(ActionEvent evt) {//GEN-FIRST:event_goToClassMenuItemActionPerformed
+        if (quickOpenDialog == null) {
+            quickOpenDialog = new QuickOpenDialog( this );
+        }
+        quickOpenDialog.showDialog();
+    }//GEN-LAST:event_goToClassMenuItemActionPerformed
+
+    private void dependencyCyclesMenuItemActionPerformed(ActionEvent evt) {//GEN-FIRST:event_dependencyCyclesMenuItemActionPerformed
+        if (cyclesDialog == null) {
+            cyclesDialog = new CyclesDialog( this );
+        }
+        cyclesDialog.showDialog();
+    }//GEN-LAST:event_dependencyCyclesMenuItemActionPerformed
+
     private void reloadProjectMenuItemActionPerformed(ActionEvent evt) {//GEN-FIRST:event_reloadProjectMenuItemActionPerformed
+        if (!projectImporter.getImportedPaths().isEmpty()) {
+            // Re-import only changed classes
+            executeWorker( new ReloadProjectTask( this ) );
+            return;
+        }
         File projectPath = projectConfig.path;
         resetProject( projectPath );
         executeWorker( new ClassProcessorTask( this, new ProjectConfig( projectPath ) ) );
@@ -626,6 +689,7 @@ public class MainFrame extends JFrame {
     private JTextArea consoleTextArea;
     private JLabel consoleTitle;
     private JMenuItem copyMenuItem;
+    private JMenuItem dependencyCyclesMenuItem;
     private JMenu editMenu;
     private JMenuItem exitMenuItem;
     private JMenu fileMenu;
@@ -634,6 +698,7 @@ public class MainFrame extends JFrame {
     private JLabel filterLabel;
     private JPanel filterPanel;
     private JMenuItem forwardMenuItem;
+    private JMenuItem goToClassMenuItem;
     private JScrollPane graphScrollPane;
     private JMenu helpMenu;
     private JScrollPane historyScrollPane;
@@ -684,6 +749,11 @@ public class MainFrame extends JFrame {
     private void postInitComponents() {
         stopProgress();
 
+        // Cancellation of running task
+        getRootPane().registerKeyboardAction( e -> cancelRunningTask(),
+                KeyStroke.getKeyStroke( KeyEvent.VK_ESCAPE, 0 ), JComponent.WHEN_IN_FOCUSED_WINDOW );
+        progressBar.setToolTipText( "Press Esc to cancel" );
+
         // Logging
         GUIHandler.setTextArea( consoleTextArea );
 
@@ -738,14 +808,20 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * Resets the state of the application - has to be done before new project is loaded.
+     * Resets the state of the application - has to be done before new project is loaded.<br/>
+     * The running task is cancelled and awaited before, as it still uses the current project and tables of names
+     * shared by all projects.
      */
     private void resetProject(File path) {
+        cancelAndAwaitRunningTask();
         projectConfig = new ProjectConfig();
         projectConfig.path = path;
         projectImporter = new BaseProjectImporter();
+        SymbolTable.clear();
+        Annotation_.clear();
         CompiledClassImporter classImporter = projectImporter.getClassImporter();
         classImporter.importClass( AccessibleObject.class );
+        classImporter.freezeModel();
 
         // Reset UI
         showClasses();
@@ -762,17 +838,58 @@ public class MainFrame extends JFrame {
      * Shows imported classes.
      */
     public void showClasses() {
+        showClasses( false );
+    }
+
+    /**
+     * Shows imported classes - from the snapshot published after import.
+     *
+     * @param keepSelectedClass if true, the selected class stays selected - i.e. one selected while classes were
+     * published by import
+     */
+    public void showClasses(boolean keepSelectedClass) {
         getRootPane().setCursor( Cursor.getPredefinedCursor( Cursor.WAIT_CURSOR ) );
         CompiledClassImporter classImporter = projectImporter.getClassImporter();
-        classesTable.setModel( new ClassesTableModel( classImporter.getImportedClasses() ) );
-        TreeNode buildClassesTreeNode = StructureBuilder.buildClassesTreeNode2( classImporter.getImportedClassesRoot(), null );
+        ProjectSnapshot snapshot = classImporter.getSnapshot();
+        classesTableModel = new ClassesTableModel( snapshot.getClasses() );
+        classesTableModel.setFilter( classesTableFilterTextField.getText() );
+        classesTable.setModel( classesTableModel );
+        TreeNode buildClassesTreeNode = StructureBuilder.buildClassesTreeNode2(
+                classImporter.getImportedClassesRoot(), null, snapshot );
         reloadTree( classesTree, buildClassesTreeNode );
+        classesTreeNodes = null;
+        Object selectedClass = keepSelectedClass && currentClass_ != null
+                ? currentClass_ : classImporter.getImportedSimpleClass();
         currentClass_ = null;
         viewedClass_ = null;
-        selectClass( classImporter.getImportedSimpleClass(), ADD_CLASS_TO_HISTORY_DISABLED );
+        selectClass( selectedClass, ADD_CLASS_TO_HISTORY_DISABLED );
         getRootPane().setCursor( null );
     }
 
+    /**
+     * Adds the given classes, published by running import, to the classes table and the classes tree -
+     * without rebuilding them.
+     */
+    public void addImportedClasses(List<Class_> classes) {
+        classesTableModel.addRows( classes );
+        DefaultTreeModel classesTreeModel = (DefaultTreeModel) classesTree.getModel();
+        if (classesTreeNodes == null) {
+            classesTreeNodes = new HashMap<>( 0x1000 );
+            StructureBuilder.indexClassesTreeNodes(
+                    (ClassPresentationWrapper) classesTreeModel.getRoot(), classesTreeNodes );
+        }
+        for (Class_ class_ : classes) {
+            StructureBuilder.addClassesTreeNode( class_, classesTreeNodes, classesTreeModel );
+        }
+    }
+
+    /**
+     * Highlights the given classes (i.e. members of a cycle) in the relations diagram.
+     */
+    void highlightClasses(Collection<Class_> classes) {
+        graphComponent.setHighlightedClasses( classes );
+    }
+
     /**
      * Process action: select class (anywhere).
      */
@@ -794,7 +911,9 @@ public class MainFrame extends JFrame {
         graphComponent.setMainClass( class_ );
 
         // Members tree
-        reloadTree( membersTree, StructureBuilder.buildMembersTreeNode( class_ ) );
+        CompiledClassImporter classImporter = projectImporter.getClassImporter();
+        reloadTree( membersTree, StructureBuilder.buildMembersTreeNode(
+                class_, classImporter.getSnapshot(), classImporter.getHierarchyIndex() ) );
         // Expand subnodes
         membersTree.expandRow( membersTree.getRowCount() - 1 ); // Relations
         membersTree.expandRow( 1 ); // Content
@@ -815,11 +934,10 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * Updates value of filter object and refreshes {@link #classesTable} accordingly.
+     * Updates filter of {@link #classesTable} - only rows matching it are presented by its model.
      */
     void classesTableRowFilterUpdated() {
-        classesTableRowFilter.filter = classesTableFilterTextField.getText();
-        ((TableRowSorter) classesTable.getRowSorter()).setRowFilter( classesTableRowFilter );
+        classesTableModel.setFilter( classesTableFilterTextField.getText() );
     }
 
     private void addTableSelectionListener(JTable table) {
@@ -869,10 +987,11 @@ public class MainFrame extends JFrame {
         ArrayList<Class_> classPath = new ArrayList<>();
         do {
             classPath.add( class_ );
-            if (class_.relationsMap.get( RelationDirection.Outbound ).get( RelationType.SuperClass ).isEmpty()) {
+            Collection<Class_> superClasses = class_.getRelations( RelationType.SuperClass, RelationDirection.Outbound );
+            if (superClasses.isEmpty()) {
                 break;
             }
-            class_ = class_.relationsMap.get( RelationDirection.Outbound ).get( RelationType.SuperClass ).iterator().next();
+            class_ = superClasses.iterator().next();
         } while (true);
         Collections.reverse( classPath );
         // build equivalent path from TreeNodes
@@ -892,9 +1011,43 @@ public class MainFrame extends JFrame {
     }
 
     private void executeWorker(SwingWorker<?, ?> worker) {
+        if (worker instanceof BaseTask) {
+            runningTask = (BaseTask<?, ?>) worker;
+        }
         worker.execute();
     }
 
+    /**
+     * Requests cancellation of the running task, if it's cancellable.
+     */
+    private void cancelRunningTask() {
+        if (runningTask != null && !runningTask.isDone() && runningTask.requestCancel()) {
+            String message = "Cancelling...";
+            setStatusMessage( message );
+            logger.info( message );
+        }
+    }
+
+    /**
+     * Requests cancellation of the running task, if it's cancellable, and waits until it's finished.
+     */
+    private void cancelAndAwaitRunningTask() {
+        if (runningTask == null || runningTask.isDone()) {
+            return;
+        }
+        getRootPane().setCursor( Cursor.getPredefinedCursor( Cursor.WAIT_CURSOR ) );
+        cancelRunningTask();
+        try {
+            runningTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // Reported by the task itself
+        } finally {
+            getRootPane().setCursor( null );
+        }
+    }
+
     private int showFileChooser(
             FileChooserType dialogType,
             FileFilter fileFilter,
@@ -956,19 +1109,6 @@ public class MainFrame extends JFrame {
     }
 
 
-    /**
-     * Filters classes table by the given filter value (full class name containing filter).
-     */
-    private static class ClassesTableRowFilter extends RowFilter<ClassesTableModel, Integer> {
-        private String filter = "";
-
-        @Override
-        public boolean include(Entry<? extends ClassesTableModel, ? extends Integer> entry) {
-            return entry.getModel().getRow(entry.getIdentifier()).fullTypeName.contains(filter);
-        }
-    } //class
-
-
     /**
      * Shows overview of selected class.
      */
@@ -0,0 +1,204 @@
+package clsvis.gui;
+
+import clsvis.model.Class_;
+import clsvis.model.ProjectSnapshot;
+import clsvis.process.search.CamelCaseIndex;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.DefaultListModel;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Quick open of a class by its simple name: by prefix or by camel humps ("CCI" → CompiledClassImporter).<br/>
+ * Classes of the snapshot published by the last import are indexed and searched by a background thread -
+ * the query superseded by the next keystroke is cancelled. The best prefix matches are shown before camel humps
+ * are searched. The chosen class is selected in {@link MainFrame}.
+ */
+final class QuickOpenDialog extends JDialog {
+
+    private static final Logger logger = Logger.getLogger( QuickOpenDialog.class.getName() );
+
+    private static final int MAX_RESULTS = 50;
+
+    /**
+     * Index of simple names of classes of a snapshot.
+     */
+    private static final class SnapshotIndex {
+
+        final ProjectSnapshot snapshot;
+        final List<Class_> classes;
+        final CamelCaseIndex index;
+
+        SnapshotIndex(ProjectSnapshot snapshot) {
+            this.snapshot = snapshot;
+            classes = snapshot.getClasses();
+            List<String> simpleNames = new ArrayList<>( classes.size() );
+            for (Class_ class_ : classes) {
+                String name = class_.name;
+                simpleNames.add( name.substring( Math.max( name.lastIndexOf( '.' ), name.lastIndexOf( '$' ) ) + 1 ) );
+            }
+            index = new CamelCaseIndex( simpleNames );
+        }
+    } //class
+
+    private final MainFrame mainFrame;
+    private final JTextField queryTextField = new JTextField( 40 );
+    private final DefaultListModel<Class_> resultsListModel = new DefaultListModel<>();
+    private final JList<Class_> resultsList = new JList<>( resultsListModel );
+    /** Thread building the index and running queries - in order of their submission */
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "Quick open search" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+    private Future<?> searchFuture;
+    /** Generation of the current query - results of superseded queries are ignored */
+    private int queryGeneration;
+    /** Index of the last searched snapshot - accessed only by {@link #searchExecutor} */
+    private SnapshotIndex snapshotIndex;
+
+    QuickOpenDialog(MainFrame mainFrame) {
+        super( mainFrame, "Go to Class", false );
+        this.mainFrame = mainFrame;
+        setDefaultCloseOperation( HIDE_ON_CLOSE );
+
+        queryTextField.setToolTipText( "Prefix or camel humps of class name, i.e. CCI for CompiledClassImporter" );
+        queryTextField.getDocument().addDocumentListener( new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                search();
+            }
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                search();
+            }
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                search();
+            }
+        } );
+        queryTextField.addActionListener( e -> openSelectedClass() );
+        resultsList.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+        resultsList.addMouseListener( new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelectedClass();
+                }
+            }
+        } );
+        JScrollPane resultsScrollPane = new JScrollPane( resultsList );
+        resultsScrollPane.setPreferredSize( new Dimension( 700, 400 ) );
+        getContentPane().add( queryTextField, BorderLayout.PAGE_START );
+        getContentPane().add( resultsScrollPane, BorderLayout.CENTER );
+
+        // Keys
+        getRootPane().registerKeyboardAction( e -> setVisible( false ),
+                KeyStroke.getKeyStroke( KeyEvent.VK_ESCAPE, 0 ), JComponent.WHEN_IN_FOCUSED_WINDOW );
+        getRootPane().registerKeyboardAction( e -> openSelectedClass(),
+                KeyStroke.getKeyStroke( KeyEvent.VK_ENTER, 0 ), JComponent.WHEN_IN_FOCUSED_WINDOW );
+        queryTextField.registerKeyboardAction( e -> moveSelection( 1 ),
+                KeyStroke.getKeyStroke( KeyEvent.VK_DOWN, 0 ), JComponent.WHEN_FOCUSED );
+        queryTextField.registerKeyboardAction( e -> moveSelection( -1 ),
+                KeyStroke.getKeyStroke( KeyEvent.VK_UP, 0 ), JComponent.WHEN_FOCUSED );
+        pack();
+    }
+
+    /**
+     * Shows the dialog with the previous query selected - results are refreshed for the current snapshot.
+     */
+    void showDialog() {
+        setLocationRelativeTo( mainFrame );
+        queryTextField.selectAll();
+        search();
+        setVisible( true );
+        queryTextField.requestFocusInWindow();
+    }
+
+    /**
+     * Cancels the running query and submits the current one.
+     */
+    private void search() {
+        String query = queryTextField.getText().trim();
+        int generation = ++queryGeneration;
+        if (searchFuture != null) {
+            searchFuture.cancel( true );
+        }
+        ProjectSnapshot snapshot = mainFrame.getProjectImporter().getClassImporter().getSnapshot();
+        searchFuture = searchExecutor.submit( () -> {
+            try {
+                if (snapshotIndex == null || snapshotIndex.snapshot != snapshot) {
+                    long startTime = System.nanoTime();
+                    snapshotIndex = new SnapshotIndex( snapshot );
+                    logger.log( Level.CONFIG, "Names of {0} classes indexed in {1} ms",
+                            new Object[]{ snapshot.size(), (System.nanoTime() - startTime) / 1_000_000 } );
+                }
+                SnapshotIndex currIndex = snapshotIndex;
+                int[] rows = currIndex.index.find( query, MAX_RESULTS,
+                        partialRows -> showResults( generation, currIndex.classes, partialRows ) );
+                if (rows != null) {
+                    showResults( generation, currIndex.classes, rows );
+                }
+            } catch (RuntimeException e) {
+                logger.log( Level.WARNING, "Problem during search of " + query, e );
+            }
+        } );
+    }
+
+    /**
+     * Shows classes of the given rows, if they are results of the current query.
+     */
+    private void showResults(int generation, List<Class_> classes, int[] rows) {
+        List<Class_> results = new ArrayList<>( rows.length );
+        for (int row : rows) {
+            results.add( classes.get( row ) );
+        }
+        SwingUtilities.invokeLater( () -> {
+            if (generation != queryGeneration) {
+                return;
+            }
+            resultsListModel.clear();
+            for (Class_ class_ : results) {
+                resultsListModel.addElement( class_ );
+            }
+            if (!results.isEmpty()) {
+                resultsList.setSelectedIndex( 0 );
+            }
+        } );
+    }
+
+    private void moveSelection(int delta) {
+        int index = resultsList.getSelectedIndex() + delta;
+        if (index >= 0 && index < resultsListModel.getSize()) {
+            resultsList.setSelectedIndex( index );
+            resultsList.ensureIndexIsVisible( index );
+        }
+    }
+
+    private void openSelectedClass() {
+        Class_ class_ = resultsList.getSelectedValue();
+        if (class_ != null) {
+            setVisible( false );
+            mainFrame.selectClass( class_, MainFrame.ADD_CLASS_TO_HISTORY );
+        }
+    }
+}
@@ -8,15 +8,18 @@ import clsvis.model.ElementKind;
 import clsvis.model.LangElement;
 import clsvis.model.Operation;
 import clsvis.model.ParameterizableElement;
+import clsvis.model.ProjectSnapshot;
 import clsvis.model.RelationDirection;
+import clsvis.process.analysis.HierarchyIndex;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
 
 /**
  * Builds various graphical structures: trees, table.
@@ -27,16 +30,22 @@ public abstract class StructureBuilder {
 
     // Class Hierarchy Tree
     
-    public static ClassPresentationWrapper buildClassesTreeNode2(Class_ class_, ClassPresentationWrapper parent) {
-        ClassPresentationWrapper classNode = new ClassPresentationWrapper( class_, null );
-        Collection<Class_> subClasses = class_.getRelations( RelationType.SuperClass, RelationDirection.Inbound );
+    /**
+     * Builds the classes tree of the given class from the given snapshot.
+     */
+    public static ClassPresentationWrapper buildClassesTreeNode2(Class_ class_, ClassPresentationWrapper parent,
+            ProjectSnapshot snapshot) {
+        ClassPresentationWrapper classNode = new ClassPresentationWrapper( class_, null,
+                snapshot.contains( class_ ) ? snapshot.isRelationsProcessed( class_ ) : class_.relationsProcessed );
+        Collection<Class_> subClasses = getRelations(
+                class_, RelationType.SuperClass, RelationDirection.Inbound, snapshot );
         if (subClasses.isEmpty()) {
             classNode.children = Collections.EMPTY_LIST;
         } else {
             int subtreeCount = 0;
             ArrayList<ClassPresentationWrapper> subClassNodes = new ArrayList<>( subClasses.size() );
             for (Class_ subClass : subClasses) {
-                ClassPresentationWrapper subNode = buildClassesTreeNode2( subClass, classNode );
+                ClassPresentationWrapper subNode = buildClassesTreeNode2( subClass, classNode, snapshot );
                 subClassNodes.add( subNode );
                 subtreeCount += subNode.subtreeClassesCount + 1;
             }
@@ -46,6 +55,67 @@ public abstract class StructureBuilder {
         return classNode;
     }
 
+    /**
+     * Indexes nodes of the classes tree built by {@link #buildClassesTreeNode2} by their classes.
+     */
+    public static void indexClassesTreeNodes(ClassPresentationWrapper classNode,
+            Map<Class_, ClassPresentationWrapper> classNodes) {
+        classNodes.put( classNode.class_, classNode );
+        for (ClassPresentationWrapper subNode : classNode.children) {
+            indexClassesTreeNodes( subNode, classNodes );
+        }
+    }
+
+    /**
+     * Adds node of the given class to the classes tree, with nodes of its super classes missing in the tree.
+     * Nodes are found by the given index of the tree, which is updated, and changes are reported to the given model.
+     * Classes not derived from the root of the tree (i.e. interfaces) are skipped.
+     */
+    public static void addClassesTreeNode(Class_ class_, Map<Class_, ClassPresentationWrapper> classNodes,
+            DefaultTreeModel treeModel) {
+        ClassPresentationWrapper classNode = classNodes.get( class_ );
+        if (classNode != null) {
+            // Added as a super class before - it's processed now
+            treeModel.nodeChanged( classNode );
+            return;
+        }
+        List<Class_> missingClasses = new ArrayList<>();
+        ClassPresentationWrapper parentNode = null;
+        for (Class_ currClass = class_; currClass != null && parentNode == null;) {
+            missingClasses.add( currClass );
+            Collection<Class_> superClasses = currClass.getRelations( RelationType.SuperClass, RelationDirection.Outbound );
+            currClass = superClasses.isEmpty() ? null : superClasses.iterator().next();
+            parentNode = classNodes.get( currClass );
+        }
+        if (parentNode == null) {
+            return;
+        }
+
+        ClassPresentationWrapper topNode = null;
+        ClassPresentationWrapper currParentNode = parentNode;
+        for (int i = missingClasses.size() - 1; i >= 0; i--) {
+            ClassPresentationWrapper node = new ClassPresentationWrapper( missingClasses.get( i ), currParentNode );
+            node.children = Collections.emptyList();
+            node.subtreeClassesCount = i;
+            if (currParentNode.children.isEmpty()) {
+                currParentNode.children = new ArrayList<>( 2 );
+            }
+            int nodeIdx = -Collections.binarySearch( currParentNode.children, node,
+                    (node1, node2) -> node1.class_.compareTo( node2.class_ ) ) - 1;
+            currParentNode.children.add( nodeIdx, node );
+            classNodes.put( node.class_, node );
+            if (topNode == null) {
+                topNode = node;
+            }
+            currParentNode = node;
+        }
+        treeModel.nodesWereInserted( parentNode, new int[]{ parentNode.getIndex( topNode ) } );
+        for (ClassPresentationWrapper node = parentNode; node != null; node = node.parent) {
+            node.subtreeClassesCount += missingClasses.size();
+            treeModel.nodeChanged( node );
+        }
+    }
+
     
     // Class Members Tree
     
@@ -67,14 +137,24 @@ public abstract class StructureBuilder {
         { RelationType.DependencyAnnotation, RelationDirection.Inbound, "Dependency Usages (Annotated)" },
         { RelationType.DependencyThrows, RelationDirection.Inbound, "Dependency Usages (Thrown By)" }, };
 
-    public static DefaultMutableTreeNode buildMembersTreeNode(Class_ class_) {
+    /**
+     * Builds the members tree of the given class from the given snapshot - see {@link #getRelations}.
+     * All subtypes (transitive) of the class are found by the given index of the hierarchy.
+     */
+    public static DefaultMutableTreeNode buildMembersTreeNode(Class_ class_, ProjectSnapshot snapshot,
+            HierarchyIndex hierarchyIndex) {
         DefaultMutableTreeNode classNode = new DefaultMutableTreeNode( class_ );
         DefaultMutableTreeNode contentNode = new DefaultMutableTreeNode( "<html>&ni; Content" );
         buildElementTreeNode( class_.annotations,
                 MEMBERS_TREE_NODE_SUBTITLE_PREFIX + ElementKind.Annotations.titleWithSymbolStr, contentNode, false );
-        for (Entry<ElementKind, List<ParameterizableElement>> entry : class_.membersMap.entrySet()) {
-            buildElementTreeNode( entry.getValue(),
-                    MEMBERS_TREE_NODE_SUBTITLE_PREFIX + entry.getKey().titleWithSymbolStr, contentNode, true );
+        boolean frozen = snapshot.contains( class_ );
+        for (ElementKind elementKind : ElementKind.values()) {
+            Collection<ParameterizableElement> members = frozen
+                    ? snapshot.getMembers( class_, elementKind ) : class_.getMembers( elementKind );
+            if (members != null) {
+                buildElementTreeNode( members,
+                        MEMBERS_TREE_NODE_SUBTITLE_PREFIX + elementKind.titleWithSymbolStr, contentNode, true );
+            }
         }
         if (!contentNode.isLeaf()) {
             classNode.add( contentNode );
@@ -85,10 +165,15 @@ public abstract class StructureBuilder {
             RelationType relationType = (RelationType) nodeDef[ 0 ];
             RelationDirection relationDirection = (RelationDirection) nodeDef[ 1 ];
             String title = (String) nodeDef[ 2 ];
-            buildElementTreeNode( class_.getRelations( relationType, relationDirection ),
+            buildElementTreeNode( getRelations( class_, relationType, relationDirection, snapshot ),
                     MEMBERS_TREE_NODE_SUBTITLE_PREFIX + relationType.asString.get( relationDirection ) + title,
                     relationsNode, false );
         }
+        if (hierarchyIndex.getSnapshot().contains( class_ )) {
+            buildElementTreeNode( hierarchyIndex.getSubtypes( class_ ), MEMBERS_TREE_NODE_SUBTITLE_PREFIX
+                    + RelationType.SuperClass.asString.get( RelationDirection.Inbound ) + "All Subtypes (Transitive)",
+                    relationsNode, false );
+        }
         if (!relationsNode.isLeaf()) {
             classNode.add( relationsNode );
         }
@@ -96,6 +181,17 @@ public abstract class StructureBuilder {
         return classNode;
     }
 
+    /**
+     * Returns classes related to the given class, frozen in the given snapshot - or live ones, if the class is not
+     * frozen in it (i.e. it was published by running import).
+     */
+    private static Collection<Class_> getRelations(Class_ class_, RelationType relationType,
+            RelationDirection relationDirection, ProjectSnapshot snapshot) {
+        return snapshot.contains( class_ )
+                ? snapshot.getRelations( class_, relationType, relationDirection )
+                : class_.getRelations( relationType, relationDirection );
+    }
+
     private static void buildElementTreeNode(
             Collection<? extends LangElement> elements, String title, DefaultMutableTreeNode parentNode,
             boolean withAnnotations) {
@@ -130,9 +226,9 @@ public abstract class StructureBuilder {
     public static String buildClassUMLTable(Class_ class_) {
         String namespace = class_.getNamespaceUml();
         // Existing parents
-        Collection<Class_> parents = class_.relationsMap.get( RelationDirection.Outbound ).get( RelationType.SuperClass );
+        Collection<Class_> parents = class_.getRelations( RelationType.SuperClass, RelationDirection.Outbound );
         if (parents.isEmpty()) {
-            parents = class_.relationsMap.get( RelationDirection.Outbound ).get( RelationType.SuperInterface );
+            parents = class_.getRelations( RelationType.SuperInterface, RelationDirection.Outbound );
         }
         StringBuilder parentsSB = new StringBuilder( 0x80 );
         for (Class_ parent : parents) {
@@ -234,10 +330,14 @@ public abstract class StructureBuilder {
         }
         int parents = class_.getRelations( RelationType.SuperClass, RelationDirection.Outbound ).size()
                 + class_.getRelations( RelationType.SuperInterface, RelationDirection.Outbound ).size();
-        int usedBy = class_.relationsToCheck.get( RelationDirection.Inbound ).size()
+        int usedBy = class_.getRelations( RelationType.InnerClass, RelationDirection.Inbound ).size()
+                + class_.getRelations( RelationType.Association, RelationDirection.Inbound ).size()
+                + class_.getRelations( RelationType.Dependency, RelationDirection.Inbound ).size()
                 + class_.getRelations( RelationType.DependencyThrows, RelationDirection.Inbound ).size()
                 + class_.getRelations( RelationType.DependencyAnnotation, RelationDirection.Inbound ).size();
-        int uses = class_.relationsToCheck.get( RelationDirection.Outbound ).size()
+        int uses = class_.getRelations( RelationType.InnerClass, RelationDirection.Outbound ).size()
+                + class_.getRelations( RelationType.Association, RelationDirection.Outbound ).size()
+                + class_.getRelations( RelationType.Dependency, RelationDirection.Outbound ).size()
                 + class_.getRelations( RelationType.DependencyThrows, RelationDirection.Outbound ).size()
                 + class_.getRelations( RelationType.DependencyAnnotation, RelationDirection.Outbound ).size();
         int children = class_.getRelations( RelationType.SuperClass, RelationDirection.Inbound ).size()
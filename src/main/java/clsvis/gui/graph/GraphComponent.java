@@ -23,6 +23,7 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
@@ -66,10 +67,12 @@ public final class GraphComponent extends JPanel implements Scrollable {
     private final Font classFont = new Font( Font.SANS_SERIF, Font.BOLD, size );
     private final Font abstractClassFont = new Font( Font.SANS_SERIF, Font.BOLD | Font.ITALIC, size );
     private final Color selectedClassForeground = Color.red; // foreground for selected vertex
+    private final Color highlightedClassForeground = Color.orange; // foreground for highlighted vertices
     private final Color classForeground = new Color( ColorContext.ClassProcessed.colorInt );
     private final Color classUnprocessedForeground = new Color( ColorContext.ClassUnprocessed.colorInt );
 
     private Class_ mainClass;
+    private Collection<Class_> highlightedClasses = Collections.emptySet();
     private Vertex selectedVertex;
     private Vertex prevSelectedVertex;
     private PaintAction paintAction;
@@ -183,7 +186,9 @@ public final class GraphComponent extends JPanel implements Scrollable {
     }
 
     private void drawVertexOutline(Graphics2D g2, Vertex vertex) {
-        g2.setColor( vertex == selectedVertex ? selectedClassForeground : classForeground );
+        g2.setColor( vertex == selectedVertex ? selectedClassForeground
+                : vertex.isRepresentsClass() && highlightedClasses.contains( vertex.class_ )
+                ? highlightedClassForeground : classForeground );
         g2.draw( vertex );
     }
 
@@ -241,6 +246,15 @@ public final class GraphComponent extends JPanel implements Scrollable {
         repaint();
     }
 
+    /**
+     * Sets classes to be highlighted (i.e. members of a cycle) and causes repainting of the component.
+     */
+    public void setHighlightedClasses(Collection<Class_> highlightedClasses) {
+        this.highlightedClasses = highlightedClasses;
+        paintAction = PaintAction.GRAPH;
+        repaint();
+    }
+
     /**
      * Selects visually vertex at the given point and returns class representing by it. No painting and returning null,
      * if no vertex at that point.
@@ -19,15 +19,23 @@ public class ClassPresentationWrapper implements TreeNode {
     public int subtreeClassesCount;
     public List<ClassPresentationWrapper> children;
 
+    /** Value of {@link Class_#relationsProcessed} presented by the node - i.e. frozen in a snapshot */
+    public final boolean relationsProcessed;
+
     public ClassPresentationWrapper(Class_ class_, ClassPresentationWrapper parent) {
+        this( class_, parent, class_.relationsProcessed );
+    }
+
+    public ClassPresentationWrapper(Class_ class_, ClassPresentationWrapper parent, boolean relationsProcessed) {
         this.class_ = class_;
         this.parent = parent;
+        this.relationsProcessed = relationsProcessed;
     }
 
     @Override
     public String toString() {
         return String.format( "<html><span color=#%s>%s%s<b>%s</b>%s%s</span> (%s) %s",
-                class_.relationsProcessed ? ColorContext.ClassProcessed.colorStr : ColorContext.ClassUnprocessed.colorStr,
+                relationsProcessed ? ColorContext.ClassProcessed.colorStr : ColorContext.ClassUnprocessed.colorStr,
                 class_.isStatic() ? "<u>" : "",
                 class_.isAbstract() ? "<i>" : "",
                 class_.name,
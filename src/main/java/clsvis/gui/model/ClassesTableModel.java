@@ -1,12 +1,18 @@
 package clsvis.gui.model;
 
 import clsvis.model.Class_;
+import clsvis.process.search.TrigramIndex;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import javax.swing.table.AbstractTableModel;
 
 /**
- * Model for classes tables.
+ * Model for classes tables.<br/>
+ * Full list of classes can be filtered by a substring of full class names - see {@link #setFilter(String)}.
+ * It's kept sorted by the model itself - a row sorter of the table is not needed.
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
@@ -15,6 +21,11 @@ public class ClassesTableModel extends AbstractTableModel {
     private static final String[] COLUMN_NAMES = { "Name", "Full Name" };
 
     private final ArrayList<Class_> classes_;
+    /** Index of full names of {@link #classes_} - added rows are inserted to it */
+    private TrigramIndex fullNamesIndex;
+    private String filter = "";
+    /** Rows of {@link #classes_} matching {@link #filter}, ascending - or null, if all rows are presented */
+    private int[] filteredRows;
 
     /**
      * Constructor for keeping of history.
@@ -29,11 +40,40 @@ public class ClassesTableModel extends AbstractTableModel {
     public ClassesTableModel(Collection<Class_> classes_) {
         this.classes_ = new ArrayList<>( classes_ );
         this.classes_.sort( null );
+        fullNamesIndex = buildFullNamesIndex();
+    }
+
+    private TrigramIndex buildFullNamesIndex() {
+        List<String> fullNames = new ArrayList<>( classes_.size() );
+        for (Class_ class_ : classes_) {
+            fullNames.add( class_.fullTypeName );
+        }
+        return new TrigramIndex( fullNames );
+    }
+
+    /**
+     * Presents only classes, whose full names contain the given filter - all classes, if it's empty.<br/>
+     * Rows are found by the index of full names; results of the previous filter are just refined, if the given one
+     * contains it (i.e. while typing).
+     */
+    public void setFilter(String filter) {
+        if (filter.isEmpty()) {
+            filteredRows = null;
+        } else {
+            if (fullNamesIndex == null) {
+                fullNamesIndex = buildFullNamesIndex();
+            }
+            filteredRows = filteredRows != null && filter.contains( this.filter )
+                    ? fullNamesIndex.filter( filteredRows, filter )
+                    : fullNamesIndex.find( filter );
+        }
+        this.filter = filter;
+        fireTableDataChanged();
     }
 
     @Override
     public int getRowCount() {
-        return classes_.size();
+        return filteredRows != null ? filteredRows.length : classes_.size();
     }
 
     @Override
@@ -53,7 +93,7 @@ public class ClassesTableModel extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        Class_ class_ = classes_.get( rowIndex );
+        Class_ class_ = getRow( rowIndex );
         return new String[]{ class_.name, class_.fullTypeName }[ columnIndex ];
     }
 
@@ -65,7 +105,79 @@ public class ClassesTableModel extends AbstractTableModel {
         classes_.add( class_ );
     }
 
+    /**
+     * Adds the given classes, which are not presented yet, keeping presented classes sorted.<br/>
+     * Classes are merged in place; only the added classes are indexed and checked against the filter.
+     */
+    public void addRows(Collection<Class_> newClasses_) {
+        List<Class_> addedClasses_ = new ArrayList<>( newClasses_.size() );
+        for (Class_ newClass_ : newClasses_) {
+            if (Collections.binarySearch( classes_, newClass_ ) < 0) {
+                addedClasses_.add( newClass_ );
+            }
+        }
+        if (addedClasses_.isEmpty()) {
+            return;
+        }
+        addedClasses_.sort( null );
+        for (int i = addedClasses_.size() - 1; i > 0; i--) {
+            if (addedClasses_.get( i ).compareTo( addedClasses_.get( i - 1 ) ) == 0) {
+                addedClasses_.remove( i );
+            }
+        }
+
+        // Merge from the end - each presented class is moved once
+        int oldSize = classes_.size();
+        int[] addedRows = new int[ addedClasses_.size() ];
+        classes_.addAll( addedClasses_ );
+        for (int row = classes_.size() - 1, i = oldSize - 1, j = addedRows.length - 1; j >= 0; row--) {
+            if (i >= 0 && classes_.get( i ).compareTo( addedClasses_.get( j ) ) > 0) {
+                classes_.set( row, classes_.get( i-- ) );
+            } else {
+                classes_.set( row, addedClasses_.get( j ) );
+                addedRows[ j-- ] = row;
+            }
+        }
+        List<String> addedFullNames = new ArrayList<>( addedRows.length );
+        for (Class_ addedClass_ : addedClasses_) {
+            addedFullNames.add( addedClass_.fullTypeName );
+        }
+        if (fullNamesIndex != null) {
+            fullNamesIndex = fullNamesIndex.insert( addedRows, addedFullNames );
+        }
+
+        // Presented rows: shifted filtered rows merged with added rows matching the filter
+        int[] presentedAddedRows = addedRows;
+        if (filteredRows != null) {
+            int[] rows = new int[ filteredRows.length + addedRows.length ];
+            presentedAddedRows = new int[ addedRows.length ];
+            int rowsCount = 0;
+            int presentedCount = 0;
+            for (int i = 0, j = 0, shift = 0; i < filteredRows.length || j < addedRows.length;) {
+                if (j < addedRows.length && (i == filteredRows.length || addedRows[ j ] <= filteredRows[ i ] + shift)) {
+                    if (addedFullNames.get( j ).contains( filter )) {
+                        presentedAddedRows[ presentedCount++ ] = rowsCount;
+                        rows[ rowsCount++ ] = addedRows[ j ];
+                    }
+                    j++;
+                    shift++;
+                } else {
+                    rows[ rowsCount++ ] = filteredRows[ i++ ] + shift;
+                }
+            }
+            filteredRows = Arrays.copyOf( rows, rowsCount );
+            presentedAddedRows = Arrays.copyOf( presentedAddedRows, presentedCount );
+        }
+        // Ranges of inserted rows, ascending - positions are final ones, as each range precedes the next one
+        for (int from = 0, to = 0; from < presentedAddedRows.length; from = ++to) {
+            while (to + 1 < presentedAddedRows.length && presentedAddedRows[ to + 1 ] == presentedAddedRows[ to ] + 1) {
+                to++;
+            }
+            fireTableRowsInserted( presentedAddedRows[ from ], presentedAddedRows[ to ] );
+        }
+    }
+
     public Class_ getRow(int idx) {
-        return classes_.get( idx );
+        return classes_.get( filteredRows != null ? filteredRows[ idx ] : idx );
     }
 }
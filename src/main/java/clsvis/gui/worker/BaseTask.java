@@ -76,6 +76,15 @@ public abstract class BaseTask<T, V> extends SwingWorker<T, V> {
     protected void onSuccessGuiUpdate(T result) {
     }
 
+    /**
+     * Requests cancellation of the task - a cancellable task finishes as soon as possible with partial results.
+     *
+     * @return true, if the task is cancellable
+     */
+    public boolean requestCancel() {
+        return false;
+    }
+
     protected void onFailureGuiUpdate(Exception cause) {
         logSevere( Utils.rootCauseAsString( cause ) );
         logger.throwing( "", "", cause );
@@ -4,11 +4,13 @@ import clsvis.ProjectConfigIO;
 import clsvis.Utils;
 import clsvis.gui.ConstantValues;
 import clsvis.gui.MainFrame;
+import clsvis.model.Class_;
 import clsvis.model.ProjectConfig;
 import clsvis.process.importer.BaseProjectImporter;
 import clsvis.process.importer.CompiledClassImporter;
 import clsvis.process.importer.ImportProgressListener;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Class processor, responsible for the following tasks (executed sequentially):
@@ -18,13 +20,15 @@ import java.io.IOException;
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
-public class ClassProcessorTask extends BaseTask<Void, Void> implements ImportProgressListener {
+public class ClassProcessorTask extends BaseTask<Void, Class_> implements ImportProgressListener {
 
     private final ProjectConfig config;
     private final ProjectConfig mainProjectConfig;
     private final BaseProjectImporter projectImporter;
     private boolean somethingToBeDone;
     private boolean refreshUI;
+    /** If true, imported classes were published to the UI, while import was running - see {@link #process(java.util.List)} */
+    private boolean classesPublished;
     private String projectTitle;
     private String errorMessage;
 
@@ -37,6 +41,15 @@ public class ClassProcessorTask extends BaseTask<Void, Void> implements ImportPr
 
     @Override
     protected Void doInBackground() throws Exception {
+        try {
+            processProject();
+        } finally {
+            projectImporter.cleanupAfterImport();
+        }
+        return null;
+    }
+
+    private void processProject() throws IOException {
         if (config.isPathToBeUsedForProjectLoad()) {
             loadProjectConfig();
             projectTitle = config.path.toString();
@@ -59,7 +72,6 @@ public class ClassProcessorTask extends BaseTask<Void, Void> implements ImportPr
         if (!somethingToBeDone) {
             logWarning( "Nothing to be done" );
         }
-        return null;
     }
 
     /** Sets the given error message only if {@link #errorMessage} is null. */
@@ -111,29 +123,42 @@ public class ClassProcessorTask extends BaseTask<Void, Void> implements ImportPr
         int endClassesCount = classImporter.getImportedClasses().size();
         int failedClassesCount = classImporter.getNotImportedClassesCount();
         int delta = endClassesCount - startClassesCount;
+        String stopReason = classImporter.getStopReason();
+        int skippedRelationsCount = classImporter.getSkippedRelationsCount();
 
         if (delta > 0) {
             mainProjectConfig.addContent( config );
             refreshUI = true;
-            String msg = failedClassesCount == 0
-                    ? String.format(
-                            "Project imported successfully: %d classes within %.3fs.", delta, durationSeconds )
-                    : String.format( "Project imported with some problems: %d classes within %.3fs (%d classes not imported). "
-                            + "HINT: Add missing dependencies with 'File -> Add Required Libraries'",
-                            delta, durationSeconds, failedClassesCount );
-            logInfo( msg );
+            if (stopReason != null) {
+                projectTitle += " (partial)";
+                logWarning( String.format( "Import stopped (%s): partial project of %d classes within %.3fs.%s",
+                        stopReason, delta, durationSeconds,
+                        CompiledClassImporter.IMPORT_CANCELLED.equals( stopReason ) ? ""
+                                : " HINT: Increase heap with -Xmx or import fewer paths" ) );
+            } else {
+                String msg = failedClassesCount == 0
+                        ? String.format(
+                                "Project imported successfully: %d classes within %.3fs.", delta, durationSeconds )
+                        : String.format( "Project imported with some problems: %d classes within %.3fs (%d classes not imported). "
+                                + "HINT: Add missing dependencies with 'File -> Add Required Libraries'",
+                                delta, durationSeconds, failedClassesCount );
+                logInfo( msg );
+            }
+            if (skippedRelationsCount > 0) {
+                logWarning( String.format( "Heap usage close to its limit: %d relations to not imported classes "
+                        + "skipped", skippedRelationsCount ) );
+            }
         } else {
-            logWarning( "No classes imported" );
+            logWarning( stopReason != null ? "No classes imported - import stopped (" + stopReason + ")"
+                    : "No classes imported" );
         }
-
-        projectImporter.cleanupAfterImport();
     }
 
     @Override
     protected void onSuccessGuiUpdate(Void result) {
-        if (refreshUI) {
+        if (refreshUI && !isProjectReset()) {
             mainFrame.setTitle( projectTitle );
-            mainFrame.showClasses();
+            mainFrame.showClasses( classesPublished );
         }
     }
 
@@ -142,7 +167,12 @@ public class ClassProcessorTask extends BaseTask<Void, Void> implements ImportPr
         logSevere( errorMessage + Utils.rootCauseAsString( cause ) );
         logger.throwing( "", "", cause );
         config.path = null;
-        projectImporter.cleanupAfterImport();
+    }
+
+    @Override
+    public boolean requestCancel() {
+        projectImporter.getClassImporter().cancelImport();
+        return true;
     }
 
     @Override
@@ -151,11 +181,42 @@ public class ClassProcessorTask extends BaseTask<Void, Void> implements ImportPr
         System.gc();
     }
 
+    /**
+     * Adds classes published by {@link #classImported(clsvis.model.Class_)} to the UI, while import is running.
+     * Classes delivered after the project was reset are ignored.
+     */
+    @Override
+    protected void process(List<Class_> classes) {
+        if (isProjectReset()) {
+            return;
+        }
+        classesPublished = true;
+        mainFrame.addImportedClasses( classes );
+    }
+
+    /**
+     * Returns true, if the project of this task was replaced in the UI - i.e. by a new project.
+     */
+    private boolean isProjectReset() {
+        return projectImporter != mainFrame.getProjectImporter();
+    }
+
+    /**
+     * Progress listener implementation - hands off fully imported class to the UI.
+     */
+    @Override
+    public void classImported(Class_ class_) {
+        publish( class_ );
+    }
+
     /**
      * Progress listener implementation.
      */
     @Override
     public void importProgress(int importedCount, int totalCount) {
-        setProgress( importedCount * 100 / totalCount );
+        // Progress stays indeterminate, until all classes are discovered
+        if (totalCount != UNKNOWN_COUNT) {
+            setProgress( importedCount * 100 / totalCount );
+        }
     }
 }
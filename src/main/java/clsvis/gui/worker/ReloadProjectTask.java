@@ -0,0 +1,73 @@
+package clsvis.gui.worker;
+
+import clsvis.Utils;
+import clsvis.gui.MainFrame;
+import clsvis.process.importer.BaseProjectImporter;
+import clsvis.process.importer.ImportProgressListener;
+
+/**
+ * Reloads current project incrementally - re-imports only classes changed since the last import.
+ */
+public class ReloadProjectTask extends BaseTask<Integer, Void> implements ImportProgressListener {
+
+    private final BaseProjectImporter projectImporter;
+    private double durationSeconds;
+
+    public ReloadProjectTask(MainFrame mainFrame) {
+        super( mainFrame );
+        projectImporter = mainFrame.getProjectImporter();
+    }
+
+    @Override
+    protected Integer doInBackground() {
+        logInfo( "Reloading changed classes" );
+        projectImporter.getClassImporter().setImportProgressListener( this );
+
+        try {
+            long startTimeMs = System.currentTimeMillis();
+            int changedCount = projectImporter.reimportProject();
+            durationSeconds = (System.currentTimeMillis() - startTimeMs) / 1000.0;
+            return changedCount;
+        } finally {
+            projectImporter.cleanupAfterImport();
+        }
+    }
+
+    @Override
+    protected void onSuccessGuiUpdate(Integer changedCount) {
+        String stopReason = projectImporter.getClassImporter().getStopReason();
+        if (changedCount > 0 && stopReason != null) {
+            mainFrame.showClasses();
+            logWarning( String.format( "Project reload stopped (%s): partial project after %.3fs.",
+                    stopReason, durationSeconds ) );
+        } else if (changedCount > 0) {
+            mainFrame.showClasses();
+            logInfo( String.format( "Project reloaded: %d changed classes within %.3fs.", changedCount, durationSeconds ) );
+        } else {
+            logInfo( "Project reloaded: no changed classes" );
+        }
+    }
+
+    @Override
+    protected void onFailureGuiUpdate(Exception cause) {
+        logSevere( "Error during project reload: " + Utils.rootCauseAsString( cause ) );
+        logger.throwing( "", "", cause );
+    }
+
+    @Override
+    public boolean requestCancel() {
+        projectImporter.getClassImporter().cancelImport();
+        return true;
+    }
+
+    /**
+     * Progress listener implementation.
+     */
+    @Override
+    public void importProgress(int importedCount, int totalCount) {
+        // Progress stays indeterminate, until all classes are discovered
+        if (totalCount != UNKNOWN_COUNT) {
+            setProgress( importedCount * 100 / totalCount );
+        }
+    }
+}
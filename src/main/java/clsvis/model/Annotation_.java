@@ -1,12 +1,16 @@
 package clsvis.model;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents annotation.<br/>
  * This is simplified equivalent of {@link javax.lang.model.element.AnnotationMirror}.<br/>
  * Currently only string representation of annotation is kept.
- * This poor solution is caused by poor annotation API, not offering uniform access to parameters.
+ * This poor solution is caused by poor annotation API, not offering uniform access to parameters.<br/>
+ * Instances are immutable and shared by all annotated elements - see {@link #of(java.lang.String, java.lang.String,
+ * java.lang.Class)}.
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
@@ -14,10 +18,49 @@ public class Annotation_ extends LangElement {
 
     private static final String REPLACEMENT = "<br>&nbsp;&nbsp;&nbsp;&nbsp;";
 
+    /** Map[id] = canonical annotation */
+    private static final Map<String, Annotation_> annotations = new ConcurrentHashMap<>( 0x400 );
+
     public Annotation_(String id, String name, Class type) {
         super( id, name, type, type, Collections.EMPTY_LIST, ElementKind.Annotations, ElementVisibility.Local );
     }
 
+    public Annotation_(String id, String name, String fullTypeName, String shortTypeName, String originalTypeName) {
+        super( id, name, fullTypeName, shortTypeName, originalTypeName,
+                Collections.emptyList(), ElementKind.Annotations, ElementVisibility.Local );
+    }
+
+    /**
+     * Returns canonical annotation with the given id (string representation), creating it if needed.
+     */
+    public static Annotation_ of(String id, String name, Class<?> type) {
+        Annotation_ annotation = annotations.get( id );
+        return annotation != null ? annotation : canonical( new Annotation_( id, name, type ) );
+    }
+
+    /**
+     * Returns canonical annotation with the given id (string representation), creating it if needed.
+     */
+    public static Annotation_ of(
+            String id, String name, String fullTypeName, String shortTypeName, String originalTypeName) {
+        Annotation_ annotation = annotations.get( id );
+        return annotation != null
+                ? annotation
+                : canonical( new Annotation_( id, name, fullTypeName, shortTypeName, originalTypeName ) );
+    }
+
+    private static Annotation_ canonical(Annotation_ annotation) {
+        Annotation_ prevAnnotation = annotations.putIfAbsent( annotation.id, annotation );
+        return prevAnnotation != null ? prevAnnotation : annotation;
+    }
+
+    /**
+     * Removes all canonical annotations - i.e. before import of a new project.
+     */
+    public static void clear() {
+        annotations.clear();
+    }
+
     public String getShortName() {
         return id;
     }
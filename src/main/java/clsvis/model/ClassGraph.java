@@ -0,0 +1,63 @@
+package clsvis.model;
+
+import java.util.Arrays;
+
+/**
+ * Registry of classes related to each other - it assigns each {@link Class_} a dense int index.<br/>
+ * Relations of a class are stored by {@link Class_} as indexes of related classes, which are resolved back to classes
+ * by this registry.<br/>
+ * Classes can be added concurrently by many importing threads, while other threads resolve indexes.
+ */
+public final class ClassGraph {
+
+    /** Maximal count of classes - index has to fit in {@link Class_#INDEX_BITS}. */
+    private static final int MAX_SIZE = 1 << Class_.INDEX_BITS;
+
+    private volatile Class_[] classes = new Class_[ 0x1000 ];
+    private volatile int size;
+
+    /**
+     * Adds the given class and assigns it the next index.
+     *
+     * @throws IllegalStateException if the class is already added to a graph
+     */
+    public synchronized void add(Class_ class_) {
+        if (class_.graph != null) {
+            throw new IllegalStateException( "Class is already added to a graph: " + class_.id );
+        }
+        if (size == classes.length) {
+            if (size == MAX_SIZE) {
+                throw new IllegalStateException( "Too many classes: " + size );
+            }
+            classes = Arrays.copyOf( classes, Math.min( size * 2, MAX_SIZE ) );
+        }
+        class_.graph = this;
+        class_.index = size;
+        classes[ size ] = class_;
+        size++;
+    }
+
+    /**
+     * Removes the given class, which shouldn't have any relations anymore - see {@link Class_#detach()}.
+     * Index of the class is not reused.
+     */
+    public synchronized void remove(Class_ class_) {
+        if (class_.graph == this) {
+            classes[ class_.index ] = null;
+        }
+    }
+
+    /**
+     * Returns class with the given index, or null if it was removed.
+     */
+    public Class_ get(int index) {
+        return classes[ index ];
+    }
+
+    /**
+     * Returns count of indexes assigned so far - they are in range [0, size).
+     */
+    public int size() {
+        return size;
+    }
+}
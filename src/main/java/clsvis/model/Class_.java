@@ -3,7 +3,9 @@ package clsvis.model;
 import clsvis.gui.ColorContext;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -12,33 +14,70 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * Represents class, interface, enum.<br/>
  * This class is language-independent equivalent of {@link javax.lang.model.element.TypeElement}.<br/>
- * For instances of this class; id == fullTypeName and name == shortTypeName.
+ * For instances of this class; id == fullTypeName and name == shortTypeName.<br/>
+ * Relations are stored as indexes of related classes in {@link ClassGraph}, in compact arrays - one per direction.
+ * They can be added concurrently by many importing threads - their modifications are synchronized on the instance.
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
 public class Class_ extends ParameterizableElement {
 
+    /** Count of bits of {@link #index} - the rest of relation entry is used by relation type. */
+    static final int INDEX_BITS = 28;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int TYPE_BITS = 3;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+    /** Relations of a class without relations - see {@link #outboundRelations}. */
+    private static final int[] NO_RELATIONS = new int[ RELATION_TYPES.length + 1 ];
+    /** Min. count of added inbound relations, which causes their compaction instead of growth of the buffer. */
+    private static final int MIN_COMPACTION_COUNT = 0x100;
+
     private static final Set<RelationType> CHECKABLE_RELATIONS
             = EnumSet.of( RelationType.InnerClass, RelationType.Association, RelationType.Dependency );
-    private static final Set<RelationType> IMMUTABLE_RELATIONS
-            = EnumSet.of( RelationType.SuperClass, RelationType.SuperInterface, RelationType.InnerClass );
     private static final Set<ElementKind> MEMBER_KINDS_EXTENDED = EnumSet.of(
             ElementKind.Constants, ElementKind.Fields, ElementKind.Properties,
             ElementKind.Constructors, ElementKind.Methods,
             ElementKind.Extends, ElementKind.Implements );
 
+    static {
+        Arrays.fill( NO_RELATIONS, RELATION_TYPES.length + 1 );
+    }
+
     private final String typeParametersStr;
 
     public final Map<ElementKind, List<ParameterizableElement>> membersMap = new EnumMap<>( ElementKind.class );
-    public final Map<RelationDirection, Map<RelationType, Collection<Class_>>> relationsMap
-            = new EnumMap<>( RelationDirection.class );
-    public final Map<RelationDirection, Collection<Class_>> relationsToCheck = new EnumMap<>( RelationDirection.class );
+
+    /** Graph the class was added to - set by {@link ClassGraph#add(clsvis.model.Class_)}. */
+    ClassGraph graph;
+    /** Index of the class in its {@link #graph}. */
+    int index = -1;
+    /**
+     * Compacted outbound relations (CSR): indexes of classes related by relation type t are stored
+     * in range [outboundRelations[t], outboundRelations[t + 1]) of this array, sorted by the classes.
+     */
+    private int[] outboundRelations = NO_RELATIONS;
+    /** Outbound relations added since the last compaction: (type &lt;&lt; INDEX_BITS | index), or null. */
+    private int[] addedOutboundRelations;
+    private int addedOutboundRelationsCount;
+    /**
+     * Compacted inbound relations - like {@link #outboundRelations}, but sorted only if
+     * {@link #inboundRelationsSorted}.<br/>
+     * Hub classes (i.e. java.lang.String) get inbound relations from almost every class.
+     * Therefore they are just appended during import, and sorted when they are requested for the first time.
+     */
+    private int[] inboundRelations = NO_RELATIONS;
+    private boolean inboundRelationsSorted = true;
+    /** Inbound relations added since the last compaction - like {@link #addedOutboundRelations}. */
+    private int[] addedInboundRelations;
+    private int addedInboundRelationsCount;
 
     /** Indicates, if class was fully processed - with all its relations. */
     public boolean relationsProcessed;
@@ -66,16 +105,26 @@ public class Class_ extends ParameterizableElement {
         } else {
             typeParametersStr = "";
         }
+    }
 
-        // Init relationsMap, relationsToCheck
-        for (RelationDirection relationDirection : RelationDirection.values()) {
-            EnumMap<RelationType, Collection<Class_>> relationsSideMap = new EnumMap<>( RelationType.class );
-            for (RelationType relationType : RelationType.values()) {
-                relationsSideMap.put( relationType, new TreeSet<>() );
-            }
-            relationsMap.put( relationDirection, relationsSideMap );
-            relationsToCheck.put( relationDirection, new HashSet<>() );
-        }
+    /**
+     * Constructor for classes read without loading them, i.e. from class files.
+     *
+     * @param typeParametersStr type parameters in the form built by the constructor taking class,
+     * or empty string
+     */
+    public Class_(String id, String name, String fullTypeName, String shortTypeName, String originalTypeName,
+            String typeParametersStr, Collection<ElementModifier> modifiers, ElementKind kind,
+            ElementVisibility visibility) {
+        super( id, name, fullTypeName, shortTypeName, originalTypeName, modifiers, kind, visibility );
+        this.typeParametersStr = typeParametersStr;
+    }
+
+    /**
+     * Returns index of the class in its {@link ClassGraph}, or -1 if it was not added to any graph.
+     */
+    public int getIndex() {
+        return index;
     }
 
     public void addMember(ParameterizableElement element) {
@@ -92,37 +141,273 @@ public class Class_ extends ParameterizableElement {
         return membersMap.get( elementKind );
     }
 
+    /**
+     * Adds relation between this class and the given class - on both sides.
+     * Both classes have to be added to the same {@link ClassGraph}.
+     */
     public void addRelation(RelationType relType, Class_ class_) {
         if (class_ != this) {
+            checkGraph( class_ );
             addRelation( relType, class_, RelationDirection.Outbound );
             class_.addRelation( relType, this, RelationDirection.Inbound );
         }
     }
 
     public void addSuperInterface(Class_ class_) {
+        checkGraph( class_ );
         addRelation( RelationType.SuperInterface, class_, RelationDirection.Outbound );
         class_.addRelation(
                 modifiers.contains( ElementModifier.Interface ) ? RelationType.SuperInterface : RelationType.SuperClass,
                 this, RelationDirection.Inbound );
     }
 
-    private void addRelation(RelationType relType, Class_ class_, RelationDirection relDirection) {
-        // Checking, if relation already exists
-        if (CHECKABLE_RELATIONS.contains( relType ) && !relationsToCheck.get( relDirection ).add( class_ )) {
+    private void checkGraph(Class_ class_) {
+        if (graph == null || class_.graph != graph) {
+            throw new IllegalStateException( "Classes are not added to the same graph: " + id + ", " + class_.id );
+        }
+    }
+
+    /**
+     * Adds relation on this side. Relations are deduplicated during compaction - see
+     * {@link #compactRelations(int[], int[], int, boolean)}.
+     */
+    private synchronized void addRelation(RelationType relType, Class_ class_, RelationDirection relDirection) {
+        int entry = relType.ordinal() << INDEX_BITS | class_.index;
+        if (relDirection == RelationDirection.Outbound) {
+            addedOutboundRelations = ensureCapacity( addedOutboundRelations, addedOutboundRelationsCount );
+            addedOutboundRelations[ addedOutboundRelationsCount++ ] = entry;
+            return;
+        }
+        if (addedInboundRelations != null && addedInboundRelationsCount == addedInboundRelations.length
+                && addedInboundRelationsCount >= MIN_COMPACTION_COUNT
+                && addedInboundRelationsCount >= inboundRelations.length) {
+            // Many duplicates are expected - compaction without sorting is cheap
+            int capacity = addedInboundRelations.length;
+            compactInboundRelations( false );
+            addedInboundRelations = new int[ capacity ];
+        }
+        addedInboundRelations = ensureCapacity( addedInboundRelations, addedInboundRelationsCount );
+        addedInboundRelations[ addedInboundRelationsCount++ ] = entry;
+    }
+
+    /**
+     * Returns the given buffer, or its grown copy, having space for one more entry.
+     */
+    private static int[] ensureCapacity(int[] buffer, int count) {
+        if (buffer == null) {
+            return new int[ 4 ];
+        }
+        return count < buffer.length ? buffer : Arrays.copyOf( buffer, count * 2 );
+    }
+
+    private void compactOutboundRelations() {
+        if (addedOutboundRelationsCount > 0) {
+            outboundRelations = compactRelations(
+                    outboundRelations, addedOutboundRelations, addedOutboundRelationsCount, true );
+            addedOutboundRelations = null;
+            addedOutboundRelationsCount = 0;
+        }
+    }
+
+    /**
+     * @param sort if relations have to be sorted by classes - otherwise they are sorted by indexes
+     */
+    private void compactInboundRelations(boolean sort) {
+        if (addedInboundRelationsCount > 0 || sort && !inboundRelationsSorted) {
+            inboundRelations = compactRelations(
+                    inboundRelations, addedInboundRelations, addedInboundRelationsCount, sort );
+            inboundRelationsSorted = sort;
+            addedInboundRelations = null;
+            addedInboundRelationsCount = 0;
+        }
+    }
+
+    /**
+     * Merges the given added relations into the given compacted relations.<br/>
+     * Duplicates are removed. From checkable relations to the same class, only one of the lowest
+     * {@link RelationType} is kept.
+     *
+     * @param sort if relations have to be sorted by classes - otherwise they are sorted by indexes
+     * @return new compacted relations
+     */
+    private int[] compactRelations(int[] relations, int[] addedRelations, int addedRelationsCount, boolean sort) {
+        // Entry: index | type - sorted entries are grouped by related class
+        long[] entries = new long[ relations.length - RELATION_TYPES.length - 1 + addedRelationsCount ];
+        int entriesCount = 0;
+        for (int type = 0; type < RELATION_TYPES.length; type++) {
+            for (int i = relations[ type ]; i < relations[ type + 1 ]; i++) {
+                entries[ entriesCount++ ] = (long) relations[ i ] << TYPE_BITS | type;
+            }
+        }
+        for (int i = 0; i < addedRelationsCount; i++) {
+            entries[ entriesCount++ ] = (long) (addedRelations[ i ] & INDEX_MASK) << TYPE_BITS
+                    | addedRelations[ i ] >>> INDEX_BITS;
+        }
+        Arrays.sort( entries );
+
+        int[] typeOffsets = new int[ RELATION_TYPES.length + 1 ];
+        int uniqueCount = 0;
+        long prevEntry = -1;
+        boolean checkableFound = false;
+        for (int i = 0; i < entriesCount; i++) {
+            long entry = entries[ i ];
+            if (entry == prevEntry) {
+                continue;
+            }
+            if (entry >>> TYPE_BITS != prevEntry >>> TYPE_BITS) {
+                checkableFound = false;
+            }
+            prevEntry = entry;
+            int type = (int) entry & TYPE_MASK;
+            if (CHECKABLE_RELATIONS.contains( RELATION_TYPES[ type ] )) {
+                if (checkableFound) {
+                    continue;
+                }
+                checkableFound = true;
+            }
+            entries[ uniqueCount++ ] = entry;
+            typeOffsets[ type + 1 ]++;
+        }
+        if (uniqueCount == 0) {
+            return NO_RELATIONS;
+        }
+
+        int[] newRelations = new int[ RELATION_TYPES.length + 1 + uniqueCount ];
+        typeOffsets[ 0 ] = RELATION_TYPES.length + 1;
+        for (int type = 0; type < RELATION_TYPES.length; type++) {
+            typeOffsets[ type + 1 ] += typeOffsets[ type ];
+        }
+        System.arraycopy( typeOffsets, 0, newRelations, 0, RELATION_TYPES.length + 1 );
+        for (int i = 0; i < uniqueCount; i++) {
+            newRelations[ typeOffsets[ (int) entries[ i ] & TYPE_MASK ]++ ] = (int) (entries[ i ] >>> TYPE_BITS);
+        }
+        if (sort) {
+            for (int type = 0; type < RELATION_TYPES.length; type++) {
+                sortRelations( newRelations, newRelations[ type ], newRelations[ type + 1 ] );
+            }
+        }
+        return newRelations;
+    }
+
+    /**
+     * Sorts indexes of classes in the given range by the classes.
+     */
+    private void sortRelations(int[] indexes, int from, int to) {
+        if (to - from < 2) {
             return;
         }
-        relationsMap.get( relDirection ).get( relType ).add( class_ );
+        Class_[] classes = new Class_[ to - from ];
+        for (int i = from; i < to; i++) {
+            classes[ i - from ] = graph.get( indexes[ i ] );
+        }
+        Arrays.sort( classes );
+        for (int i = from; i < to; i++) {
+            indexes[ i ] = classes[ i - from ].index;
+        }
+    }
+
+    private synchronized void removeRelations(Class_ class_, RelationDirection relDirection) {
+        if (relDirection == RelationDirection.Outbound) {
+            compactOutboundRelations();
+            outboundRelations = removeRelations( outboundRelations, class_.index );
+        } else {
+            compactInboundRelations( false );
+            inboundRelations = removeRelations( inboundRelations, class_.index );
+        }
+    }
+
+    /**
+     * Returns the given compacted relations without relations to class with the given index.
+     */
+    private static int[] removeRelations(int[] relations, int index) {
+        int[] newRelations = new int[ relations.length ];
+        int pos = RELATION_TYPES.length + 1;
+        for (int type = 0; type < RELATION_TYPES.length; type++) {
+            newRelations[ type ] = pos;
+            for (int i = relations[ type ]; i < relations[ type + 1 ]; i++) {
+                if (relations[ i ] != index) {
+                    newRelations[ pos++ ] = relations[ i ];
+                }
+            }
+        }
+        newRelations[ RELATION_TYPES.length ] = pos;
+        return pos == RELATION_TYPES.length + 1 ? NO_RELATIONS : Arrays.copyOf( newRelations, pos );
+    }
+
+    /**
+     * Removes all relations between this class and other classes - on both sides.
+     * It's used, when the class is going to be replaced by its new version.<br/>
+     * It must not be invoked during import.
+     *
+     * @return Map[RelationType] = classes having outbound relations of the type to this class
+     */
+    public Map<RelationType, Collection<Class_>> detach() {
+        Set<Class_> sourceClasses = new HashSet<>();
+        for (RelationType relType : RELATION_TYPES) {
+            sourceClasses.addAll( getRelations( relType, RelationDirection.Inbound ) );
+        }
+        Map<RelationType, Collection<Class_>> sourceRelations = new EnumMap<>( RelationType.class );
+        for (Class_ sourceClass : sourceClasses) {
+            for (RelationType relType : RELATION_TYPES) {
+                if (sourceClass.getRelations( relType, RelationDirection.Outbound ).contains( this )) {
+                    sourceRelations.computeIfAbsent( relType, key -> new ArrayList<>() ).add( sourceClass );
+                }
+            }
+            sourceClass.removeRelations( this, RelationDirection.Outbound );
+        }
+        for (RelationType relType : RELATION_TYPES) {
+            for (Class_ targetClass : getRelations( relType, RelationDirection.Outbound )) {
+                targetClass.removeRelations( this, RelationDirection.Inbound );
+            }
+        }
+        synchronized (this) {
+            outboundRelations = NO_RELATIONS;
+            addedOutboundRelations = null;
+            addedOutboundRelationsCount = 0;
+            inboundRelations = NO_RELATIONS;
+            inboundRelationsSorted = true;
+            addedInboundRelations = null;
+            addedInboundRelationsCount = 0;
+        }
+        return sourceRelations;
+    }
+
+    /**
+     * Returns compacted relations in the given direction, in the form of {@link #outboundRelations} - inbound ones
+     * are not sorted for it. The returned array is never modified - changes of relations replace it.
+     */
+    synchronized int[] getCompactedRelations(RelationDirection relDirection) {
+        if (relDirection == RelationDirection.Outbound) {
+            compactOutboundRelations();
+            return outboundRelations;
+        }
+        compactInboundRelations( false );
+        return inboundRelations;
     }
 
-    public Collection<Class_> getRelations(RelationType relType, RelationDirection relDirection) {
-        return relationsMap.get( relDirection ).get( relType );
+    /**
+     * Returns read-only view of classes related to this class, sorted.
+     * The view doesn't reflect relations added after its creation.
+     */
+    public synchronized Collection<Class_> getRelations(RelationType relType, RelationDirection relDirection) {
+        int[] relations;
+        if (relDirection == RelationDirection.Outbound) {
+            compactOutboundRelations();
+            relations = outboundRelations;
+        } else {
+            compactInboundRelations( true );
+            relations = inboundRelations;
+        }
+        int from = relations[ relType.ordinal() ];
+        int to = relations[ relType.ordinal() + 1 ];
+        return from == to ? Collections.emptyList() : new RelatedClasses( graph, relations, from, to );
     }
 
     /**
      * Has to be invoked after object is fully initialized and set.
      * It does some post-initialization.
      */
-    public void membersFinished() {
+    public synchronized void membersFinished() {
         // members
         for (ElementKind elementKind : MEMBER_KINDS_EXTENDED) {
             List<ParameterizableElement> memberList = membersMap.get( elementKind );
@@ -133,29 +418,17 @@ public class Class_ extends ParameterizableElement {
             }
         }
         // super class, super ifaces, inner classes
-        for (RelationType relType : IMMUTABLE_RELATIONS) {
-            Collection<Class_> classesSet = relationsMap.get( RelationDirection.Outbound ).get( relType );
-            relationsMap.get( RelationDirection.Outbound ).put( relType,
-                    classesSet.isEmpty() ? Collections.EMPTY_LIST : new ArrayList<>( classesSet ) );
-        }
+        compactOutboundRelations();
     }
 
     /**
      * Has to be invoked after relations are set.
+     * Inbound relations are still not sorted - see {@link #inboundRelations}.
      */
-    public void relationsFinished() {
+    public synchronized void relationsFinished() {
         // mark full setup
         relationsProcessed = true;
-        // outer class
-        Collection<Class_> outerClassesSet = relationsMap.get( RelationDirection.Inbound ).get( RelationType.InnerClass );
-        relationsMap.get( RelationDirection.Inbound ).put( RelationType.InnerClass,
-                outerClassesSet.isEmpty() ? Collections.EMPTY_LIST : new ArrayList<>( outerClassesSet ) );
-        // outbound relations
-        for (RelationType relType : RelationType.values()) {
-            if (relationsMap.get( RelationDirection.Outbound ).get( relType ).isEmpty()) {
-                relationsMap.get( RelationDirection.Outbound ).put( relType, Collections.EMPTY_LIST );
-            }
-        }
+        compactOutboundRelations();
         // TODO: process inbounds according to final
     }
 
@@ -173,13 +446,20 @@ public class Class_ extends ParameterizableElement {
      * Returns short name following by type parameters (if exist).
      */
     public String getShortNameWithParams() {
-        return getWithParams( name ).replaceAll( "\\w+[\\.\\$](?!\\d+)", "" );
+        return SymbolTable.removePackages( getWithParams( name ) );
     }
 
     public String getFullNameWithParams() {
         return getWithParams( id );
     }
 
+    /**
+     * Returns type parameters of the class (i.e. "&amp;lt;T extends java.lang.Number>") or empty string.
+     */
+    public String getTypeParametersStr() {
+        return typeParametersStr;
+    }
+
     /**
      * Returns prefix following by type parameters (if exist).
      */
@@ -224,4 +504,53 @@ public class Class_ extends ParameterizableElement {
         );
     }
 
+    /**
+     * Read-only list of classes given by range of their indexes.
+     */
+    private static final class RelatedClasses extends AbstractList<Class_> implements RandomAccess {
+
+        private final ClassGraph graph;
+        private final int[] indexes;
+        private final int from;
+        private final int size;
+
+        RelatedClasses(ClassGraph graph, int[] indexes, int from, int to) {
+            this.graph = graph;
+            this.indexes = indexes;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public Class_ get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException( "Index: " + i + ", size: " + size );
+            }
+            return graph.get( indexes[ from + i ] );
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /** Classes are compared by identity - different versions of a class have the same id. */
+        @Override
+        public int indexOf(Object o) {
+            if (o instanceof Class_ && ((Class_) o).graph == graph) {
+                int index = ((Class_) o).index;
+                for (int i = 0; i < size; i++) {
+                    if (indexes[ from + i ] == index) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            return indexOf( o );
+        }
+    } //class
 }
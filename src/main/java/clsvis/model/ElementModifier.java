@@ -1,13 +1,17 @@
 package clsvis.model;
 
 import java.beans.Introspector;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Constants representing modifiers of language element.<br/>
- * This class is improved equivalent of {@link javax.lang.model.element.Modifier}.
+ * This class is improved equivalent of {@link javax.lang.model.element.Modifier}.<br/>
+ * Sets of modifiers of elements are shared - see {@link #setOf(int)}.
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  *
@@ -45,12 +49,63 @@ public enum ElementModifier {
     public static final Set<ElementModifier> visibilityModifiers = Collections.unmodifiableSet( EnumSet.of(
             ElementModifier.Private, ElementModifier.Protected, ElementModifier.Public ) );
 
+    private static final ElementModifier[] MODIFIERS = values();
+    /** Map[bits] = canonical immutable set of modifiers represented by the bits */
+    private static final Map<Integer, Set<ElementModifier>> modifierSets = new ConcurrentHashMap<>( 0x100 );
+
     private final String asString;
 
     private ElementModifier() {
         asString = Introspector.decapitalize( name() );
     }
 
+    /**
+     * Returns bit of this modifier - see {@link #setOf(int)}.
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns bits representing the given modifiers - see {@link #setOf(int)}.
+     */
+    public static int toBits(Collection<ElementModifier> modifiers) {
+        int bits = 0;
+        for (ElementModifier modifier : modifiers) {
+            bits |= modifier.bit();
+        }
+        return bits;
+    }
+
+    /**
+     * Returns canonical immutable set of modifiers represented by the given bits;
+     * modifier is represented by bit of index equal to its ordinal.
+     */
+    public static Set<ElementModifier> setOf(int bits) {
+        Set<ElementModifier> modifiers = modifierSets.get( bits );
+        if (modifiers == null) {
+            EnumSet<ElementModifier> newModifiers = EnumSet.noneOf( ElementModifier.class );
+            for (ElementModifier modifier : MODIFIERS) {
+                if ((bits & modifier.bit()) != 0) {
+                    newModifiers.add( modifier );
+                }
+            }
+            modifiers = Collections.unmodifiableSet( newModifiers );
+            Set<ElementModifier> prevModifiers = modifierSets.putIfAbsent( bits, modifiers );
+            if (prevModifiers != null) {
+                modifiers = prevModifiers;
+            }
+        }
+        return modifiers;
+    }
+
+    /**
+     * Returns canonical immutable set of the given modifiers.
+     */
+    public static Set<ElementModifier> setOf(Collection<ElementModifier> modifiers) {
+        return setOf( toBits( modifiers ) );
+    }
+
     @Override
     public String toString() {
         return asString;
@@ -5,12 +5,11 @@ import clsvis.gui.ColorContext;
 import java.beans.ConstructorProperties;
 import java.lang.reflect.Type;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.EnumSet;
 
 /**
  * Top level class representing language element.<br/>
- * This class is language-independent equivalent of {@link javax.lang.model.element.Element}.
+ * This class is language-independent equivalent of {@link javax.lang.model.element.Element}.<br/>
+ * Names are canonicalized by {@link SymbolTable}.
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
@@ -31,28 +30,55 @@ public abstract class LangElement implements Comparable<LangElement> {
     @ConstructorProperties( { "id", "name", "type", "genericType", "modifiers", "kind", "visibility" } )
     public LangElement(String id, String name, Class type, Type genericType,
             Collection<ElementModifier> modifiers, ElementKind kind, ElementVisibility visibility) {
-        this.id = id;
-        this.name = name;
+        this.id = SymbolTable.intern( id );
+        this.name = SymbolTable.intern( name );
         //this.type = type;
         //this.genericType = genericType;
         this.kind = kind;
         this.visibility = visibility;
-        this.modifiers = modifiers.isEmpty() ? Collections.EMPTY_SET : EnumSet.copyOf( modifiers );
+        this.modifiers = ElementModifier.setOf( modifiers );
         Class originalType = Utils.getClassType( type );
-        this.originalTypeName = originalType != null ? type.getName() : null;
+        this.originalTypeName = originalType != null ? SymbolTable.intern( type.getName() ) : null;
         //this.typeIsLoadable = Utils.getClassType(type) != null;
         String fullTypeName = (genericType instanceof Class) ? type.getCanonicalName() : genericType.toString();
         if (fullTypeName == null) {
             fullTypeName = type.getName(); // anonymous class
         }
-        this.fullTypeName = fullTypeName;
+        this.fullTypeName = SymbolTable.intern( fullTypeName );
         //this.fullTypeName = fullTypeName.replace(".", "::");
 
         String shortTypeName = (genericType instanceof Class) ? type.getSimpleName() : this.fullTypeName;
         if (shortTypeName == null || shortTypeName.length() == 0) {
             shortTypeName = this.fullTypeName; // anonymous class
-        }		// for generics and anonymous: remove all package paths
-        this.shortTypeName = shortTypeName.replaceAll( "\\w+[\\.\\$](?!\\d+)", "" );
+        }
+        this.shortTypeName = removePackages( shortTypeName );
+    }
+
+    /**
+     * Constructor for elements read without loading their types, i.e. from class files.
+     * Type names have to be given in the form produced by {@link #LangElement(java.lang.String, java.lang.String,
+     * java.lang.Class, java.lang.reflect.Type, java.util.Collection, clsvis.model.ElementKind,
+     * clsvis.model.ElementVisibility)}.
+     */
+    public LangElement(String id, String name, String fullTypeName, String shortTypeName, String originalTypeName,
+            Collection<ElementModifier> modifiers, ElementKind kind, ElementVisibility visibility) {
+        this.id = SymbolTable.intern( id );
+        this.name = SymbolTable.intern( name );
+        this.kind = kind;
+        this.visibility = visibility;
+        this.modifiers = ElementModifier.setOf( modifiers );
+        this.originalTypeName = SymbolTable.intern( originalTypeName );
+        this.fullTypeName = SymbolTable.intern( fullTypeName );
+        this.shortTypeName = SymbolTable.intern( shortTypeName );
+    }
+
+    /**
+     * Removes all package paths from the given type name - for generics and anonymous classes.
+     *
+     * @see SymbolTable#removePackages(java.lang.String)
+     */
+    public static String removePackages(String typeName) {
+        return SymbolTable.removePackages( typeName );
     }
 
     public boolean isAbstract() {
@@ -14,6 +14,8 @@ public class Operation extends ParameterizableElement {
 
     public final List<ParameterizableElement> parameters;
     public final List<ParameterizableElement> throwables;
+    /** Memoized result of {@link #getParametersAsString()}. */
+    private String parametersStr;
 
     public Operation(String id, String name, Class type, Type genericType,
             Collection<ElementModifier> modifiers, ElementKind kind, ElementVisibility visibility,
@@ -23,7 +25,36 @@ public class Operation extends ParameterizableElement {
         this.throwables = throwables;
     }
 
+    public Operation(String id, String name, String fullTypeName, String shortTypeName, String originalTypeName,
+            Collection<ElementModifier> modifiers, ElementKind kind, ElementVisibility visibility,
+            List<ParameterizableElement> parameters, List<ParameterizableElement> throwables) {
+        super( id, name, fullTypeName, shortTypeName, originalTypeName, modifiers, kind, visibility );
+        this.parameters = parameters;
+        this.throwables = throwables;
+    }
+
+    /**
+     * Freezes also parameters and throwables - lists of them are not modified after construction.
+     */
+    @Override
+    void freeze() {
+        super.freeze();
+        for (ParameterizableElement parameter : parameters) {
+            parameter.freeze();
+        }
+        for (ParameterizableElement throwable : throwables) {
+            throwable.freeze();
+        }
+    }
+
+    /**
+     * Returns short type names of parameters, separated by comma.
+     * It has to be invoked after parameters are set.
+     */
     public String getParametersAsString() {
+        if (parametersStr != null) {
+            return parametersStr;
+        }
         if (parameters.isEmpty()) {
             return "";
         }
@@ -36,7 +67,8 @@ public class Operation extends ParameterizableElement {
             //sb.append( String.format("%s : %s", parameter.name, parameter.shortTypeName) );
             sb.append( parameter.shortTypeName );
         }
-        return sb.toString();
+        parametersStr = SymbolTable.intern( sb.toString() );
+        return parametersStr;
     }
 
     @Override
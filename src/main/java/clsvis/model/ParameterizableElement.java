@@ -3,6 +3,7 @@ package clsvis.model;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Language element which can be parameterized by annotations or generic types.
@@ -13,10 +14,51 @@ import java.util.Collection;
 public class ParameterizableElement extends LangElement {
 
     public Collection<Annotation_> annotations = new ArrayList<>( 2 );
+    /** Names of types used as type parameters - they are released, when relations of the element are added
+     * - unless it's frozen. */
     public Collection<String> typeParameters = new ArrayList<>( 2 );
+    /**
+     * Indicates, if collections of the element are read-only - see {@link #freeze()}.
+     * It's read by imports running after freezing.
+     */
+    private volatile boolean frozen;
 
     public ParameterizableElement(String id, String name, Class type, Type genericType,
             Collection<ElementModifier> modifiers, ElementKind kind, ElementVisibility visibility) {
         super( id, name, type, genericType, modifiers, kind, visibility );
     }
+
+    public ParameterizableElement(String id, String name, String fullTypeName, String shortTypeName,
+            String originalTypeName, Collection<ElementModifier> modifiers, ElementKind kind,
+            ElementVisibility visibility) {
+        super( id, name, fullTypeName, shortTypeName, originalTypeName, modifiers, kind, visibility );
+    }
+
+    /**
+     * Returns true, if the element is frozen in a {@link ProjectSnapshot} - it must not be modified anymore.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Makes collections of the element read-only - it's done, when the element is frozen in {@link ProjectSnapshot}.
+     * The element is shared by snapshots, so import doesn't modify it afterwards (i.e. doesn't release its type
+     * parameters).
+     */
+    void freeze() {
+        if (frozen) {
+            return;
+        }
+        frozen = true;
+        annotations = freeze( annotations );
+        typeParameters = freeze( typeParameters );
+    }
+
+    private static <T> Collection<T> freeze(Collection<T> collection) {
+        if (collection.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList( new ArrayList<>( collection ) );
+    }
 }
@@ -0,0 +1,299 @@
+package clsvis.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable snapshot of imported classes: their members and relations, frozen after import.<br/>
+ * Live model is modified by import - relations are added to already imported classes and classes are replaced
+ * by re-import. Snapshot doesn't change, so any number of threads (i.e. UI, exporters, analyses) can traverse it
+ * without locking, while the next import runs. Import publishes a new snapshot when it's finished.<br/>
+ * Snapshot is compact: classes are sorted and numbered by their positions; members and relations are stored in
+ * shared arrays (CSR) - relations as positions of related classes. Relations to classes not present in the snapshot
+ * (i.e. removed due to import problems) are dropped. Relations are copied as they are kept by classes: inbound
+ * relations of hub classes (i.e. java.lang.String) are not sorted - each such list is sorted on its first access.<br/>
+ * Classes and their members are shared with the live model. Their collections are made read-only and import
+ * doesn't modify frozen elements - see {@link ParameterizableElement#freeze()}. But state of classes changed by import
+ * ({@link Class_#membersMap}, {@link Class_#relationsProcessed}, relations) has to be read by accessors of the
+ * snapshot.
+ */
+public final class ProjectSnapshot {
+
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+    private static final RelationDirection[] RELATION_DIRECTIONS = RelationDirection.values();
+    private static final ElementKind[] ELEMENT_KINDS = ElementKind.values();
+    private static final int RELATION_RANGES_PER_CLASS = RELATION_DIRECTIONS.length * RELATION_TYPES.length;
+
+    /** Snapshot without classes. */
+    public static final ProjectSnapshot EMPTY = new ProjectSnapshot( null, Collections.emptyList() );
+
+    /** Graph of frozen classes. */
+    private final ClassGraph graph;
+    /** Frozen classes, sorted. */
+    private final Class_[] classes;
+    /** Map[index of class in graph] = its position in {@link #classes}, or -1 */
+    private final int[] positions;
+    /** Bit per position: set if the class was fully processed - with all its relations */
+    private final long[] relationsProcessed;
+    /**
+     * Positions of related classes: classes related to class at position p by relation type t in direction d
+     * are stored in range [relationOffsets[r], relationOffsets[r + 1]) of {@link #relations},
+     * where r = (p * directions + d) * types + t.
+     */
+    private final int[] relationOffsets;
+    private final int[] relations;
+    /** Ranges of {@link #relations} not sorted during freezing, ascending */
+    private final int[] unsortedRanges;
+    /** Map[i] = true, if range unsortedRanges[i] was sorted already - guarded by this snapshot */
+    private final boolean[] unsortedRangesSorted;
+    /**
+     * Members of kind k of class at position p are stored in range [memberOffsets[m], memberOffsets[m + 1]) of
+     * {@link #members}, where m = p * kinds + k.
+     */
+    private final int[] memberOffsets;
+    private final ParameterizableElement[] members;
+
+    private ProjectSnapshot(ClassGraph graph, Collection<Class_> classes) {
+        this.graph = graph;
+        this.classes = classes.toArray( new Class_[ classes.size() ] );
+        Arrays.sort( this.classes );
+        positions = new int[ graph != null ? graph.size() : 0 ];
+        Arrays.fill( positions, -1 );
+        relationsProcessed = new long[ (this.classes.length + 63) >>> 6 ];
+        for (int position = 0; position < this.classes.length; position++) {
+            Class_ class_ = this.classes[ position ];
+            if (class_.graph != graph) {
+                throw new IllegalArgumentException( "Class is not added to the graph: " + class_.id );
+            }
+            positions[ class_.index ] = position;
+            if (class_.relationsProcessed) {
+                relationsProcessed[ position >>> 6 ] |= 1L << position;
+            }
+        }
+
+        relationOffsets = new int[ this.classes.length * RELATION_RANGES_PER_CLASS + 1 ];
+        int[] relationsBuffer = new int[ this.classes.length * 4 ];
+        int relationsCount = 0;
+        memberOffsets = new int[ this.classes.length * ELEMENT_KINDS.length + 1 ];
+        ParameterizableElement[] membersBuffer = new ParameterizableElement[ this.classes.length * 4 ];
+        int membersCount = 0;
+        int[] unsortedRangesBuffer = new int[ 0x10 ];
+        int unsortedRangesCount = 0;
+        for (int position = 0; position < this.classes.length; position++) {
+            Class_ class_ = this.classes[ position ];
+            class_.freeze();
+            int range = position * RELATION_RANGES_PER_CLASS;
+            for (RelationDirection direction : RELATION_DIRECTIONS) {
+                int[] classRelations = class_.getCompactedRelations( direction );
+                for (RelationType type : RELATION_TYPES) {
+                    boolean sorted = true;
+                    for (int i = classRelations[ type.ordinal() ]; i < classRelations[ type.ordinal() + 1 ]; i++) {
+                        int relatedIndex = classRelations[ i ];
+                        int relatedPosition = relatedIndex < positions.length ? positions[ relatedIndex ] : -1;
+                        if (relatedPosition >= 0) {
+                            if (relationsCount == relationsBuffer.length) {
+                                relationsBuffer = Arrays.copyOf( relationsBuffer, relationsCount * 2 );
+                            }
+                            sorted &= relationsCount == relationOffsets[ range ]
+                                    || relationsBuffer[ relationsCount - 1 ] < relatedPosition;
+                            relationsBuffer[ relationsCount++ ] = relatedPosition;
+                        }
+                    }
+                    if (!sorted) {
+                        if (unsortedRangesCount == unsortedRangesBuffer.length) {
+                            unsortedRangesBuffer = Arrays.copyOf( unsortedRangesBuffer, unsortedRangesCount * 2 );
+                        }
+                        unsortedRangesBuffer[ unsortedRangesCount++ ] = range;
+                    }
+                    relationOffsets[ ++range ] = relationsCount;
+                }
+            }
+            int memberRange = position * ELEMENT_KINDS.length;
+            for (ElementKind kind : ELEMENT_KINDS) {
+                Collection<ParameterizableElement> kindMembers = class_.getMembers( kind );
+                if (kindMembers != null) {
+                    if (membersCount + kindMembers.size() > membersBuffer.length) {
+                        membersBuffer = Arrays.copyOf( membersBuffer,
+                                Math.max( membersCount * 2, membersCount + kindMembers.size() ) );
+                    }
+                    for (ParameterizableElement member : kindMembers) {
+                        member.freeze();
+                        membersBuffer[ membersCount++ ] = member;
+                    }
+                }
+                memberOffsets[ ++memberRange ] = membersCount;
+            }
+        }
+        relations = Arrays.copyOf( relationsBuffer, relationsCount );
+        unsortedRanges = Arrays.copyOf( unsortedRangesBuffer, unsortedRangesCount );
+        unsortedRangesSorted = new boolean[ unsortedRangesCount ];
+        members = Arrays.copyOf( membersBuffer, membersCount );
+    }
+
+    /**
+     * Freezes the given classes of the given graph into a new snapshot.<br/>
+     * It must not be invoked during import - relations of classes have to be finished.
+     * Classes are not modified - their relations are not sorted.
+     */
+    public static ProjectSnapshot freeze(ClassGraph graph, Collection<Class_> classes) {
+        return new ProjectSnapshot( graph, classes );
+    }
+
+    /**
+     * Returns count of classes.
+     */
+    public int size() {
+        return classes.length;
+    }
+
+    /**
+     * Returns read-only list of classes, sorted.
+     */
+    public List<Class_> getClasses() {
+        return new ArraySlice<>( classes, 0, classes.length );
+    }
+
+    /**
+     * Returns true, if the given class (this version of it) is frozen in this snapshot.
+     */
+    public boolean contains(Class_ class_) {
+        return indexOf( class_ ) >= 0;
+    }
+
+    /**
+     * Returns position of the given class (this version of it) in {@link #getClasses()}, or -1 if it's not frozen
+     * in this snapshot.
+     */
+    public int indexOf(Class_ class_) {
+        if (class_.graph != graph || graph == null || class_.index >= positions.length) {
+            return -1;
+        }
+        int position = positions[ class_.index ];
+        return position >= 0 && classes[ position ] == class_ ? position : -1;
+    }
+
+    /**
+     * Returns true, if the given class was fully processed - with all its relations - when it was frozen.
+     *
+     * @throws IllegalArgumentException if the class is not frozen in this snapshot
+     */
+    public boolean isRelationsProcessed(Class_ class_) {
+        int position = checkPosition( class_ );
+        return (relationsProcessed[ position >>> 6 ] & 1L << position) != 0;
+    }
+
+    /**
+     * Returns read-only list of classes related to the given class, sorted.
+     *
+     * @throws IllegalArgumentException if the class is not frozen in this snapshot
+     */
+    public List<Class_> getRelations(Class_ class_, RelationType relType, RelationDirection relDirection) {
+        int range = (checkPosition( class_ ) * RELATION_DIRECTIONS.length + relDirection.ordinal())
+                * RELATION_TYPES.length + relType.ordinal();
+        int from = relationOffsets[ range ];
+        int to = relationOffsets[ range + 1 ];
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        int unsortedIndex = unsortedRanges.length > 0 ? Arrays.binarySearch( unsortedRanges, range ) : -1;
+        if (unsortedIndex >= 0) {
+            sortRelations( unsortedIndex, from, to );
+        }
+        return new RelatedClasses( classes, relations, from, to );
+    }
+
+    /**
+     * Sorts relations in the given range, which was not sorted during freezing - unless it's sorted already.
+     * Positions of classes are sorted as the classes.
+     */
+    private synchronized void sortRelations(int unsortedIndex, int from, int to) {
+        if (!unsortedRangesSorted[ unsortedIndex ]) {
+            Arrays.sort( relations, from, to );
+            unsortedRangesSorted[ unsortedIndex ] = true;
+        }
+    }
+
+    /**
+     * Returns read-only list of members of the given kind of the given class, sorted like in the class.
+     *
+     * @throws IllegalArgumentException if the class is not frozen in this snapshot
+     */
+    public List<ParameterizableElement> getMembers(Class_ class_, ElementKind elementKind) {
+        int range = checkPosition( class_ ) * ELEMENT_KINDS.length + elementKind.ordinal();
+        int from = memberOffsets[ range ];
+        int to = memberOffsets[ range + 1 ];
+        return from == to ? Collections.emptyList() : new ArraySlice<>( members, from, to );
+    }
+
+    private int checkPosition(Class_ class_) {
+        int position = indexOf( class_ );
+        if (position < 0) {
+            throw new IllegalArgumentException( "Class is not frozen in the snapshot: " + class_.id );
+        }
+        return position;
+    }
+
+    /**
+     * Read-only list of the given range of an array.
+     */
+    private static final class ArraySlice<T> extends AbstractList<T> implements RandomAccess {
+
+        private final T[] elements;
+        private final int from;
+        private final int size;
+
+        ArraySlice(T[] elements, int from, int to) {
+            this.elements = elements;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public T get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException( "Index: " + i + ", size: " + size );
+            }
+            return elements[ from + i ];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    } //class
+
+    /**
+     * Read-only list of classes given by range of their positions.
+     */
+    private static final class RelatedClasses extends AbstractList<Class_> implements RandomAccess {
+
+        private final Class_[] classes;
+        private final int[] positions;
+        private final int from;
+        private final int size;
+
+        RelatedClasses(Class_[] classes, int[] positions, int from, int to) {
+            this.classes = classes;
+            this.positions = positions;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public Class_ get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException( "Index: " + i + ", size: " + size );
+            }
+            return classes[ positions[ from + i ] ];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    } //class
+}
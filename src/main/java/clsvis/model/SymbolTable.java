@@ -0,0 +1,56 @@
+package clsvis.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Shared table of names used by the model: ids, names and type names of elements.<br/>
+ * The same names (i.e. "java.lang.String") are used by many elements - they are canonicalized here,
+ * so only one instance of each name is kept in memory. Names derived from type names are memoized.<br/>
+ * It can be used concurrently by many importing threads.
+ */
+public final class SymbolTable {
+
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile( "\\w+[\\.\\$](?!\\d+)" );
+
+    /** Map[name] = canonical instance of the name */
+    private static final Map<String, String> symbols = new ConcurrentHashMap<>( 0x10000 );
+    /** Map[type name] = canonical type name without packages */
+    private static final Map<String, String> namesWithoutPackages = new ConcurrentHashMap<>( 0x4000 );
+
+    private SymbolTable() {
+    }
+
+    /**
+     * Returns canonical instance of the given name - equal to it.
+     */
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String symbol = symbols.putIfAbsent( name, name );
+        return symbol != null ? symbol : name;
+    }
+
+    /**
+     * Returns canonical instance of the given type name without package paths - for generics and anonymous classes.
+     */
+    public static String removePackages(String typeName) {
+        String result = namesWithoutPackages.get( typeName );
+        if (result == null) {
+            result = intern( PACKAGE_PATTERN.matcher( typeName ).replaceAll( "" ) );
+            namesWithoutPackages.putIfAbsent( intern( typeName ), result );
+        }
+        return result;
+    }
+
+    /**
+     * Removes all names - i.e. before import of a new project.
+     * Elements created later don't share names with elements created before.
+     */
+    public static void clear() {
+        symbols.clear();
+        namesWithoutPackages.clear();
+    }
+}
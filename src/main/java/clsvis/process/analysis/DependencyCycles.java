@@ -0,0 +1,314 @@
+package clsvis.process.analysis;
+
+import clsvis.model.Class_;
+import clsvis.model.ProjectSnapshot;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency cycles between classes frozen in a {@link ProjectSnapshot} - for architecture reviews.<br/>
+ * Cycles are found at granularity of top-level classes (inner classes are merged into them, as their mutual
+ * dependencies are usual) and of packages. Classes and packages are nodes of a graph, with edges given by the chosen
+ * types of relations; its strongly connected components of more than one node are the cycles.
+ * They are found by {@link StronglyConnectedComponents}, in time linear to the size of the graph.<br/>
+ * Each cycle has an example path: the shortest closed path through its first node, found by BFS.<br/>
+ * Results are immutable - they can be browsed by many threads.
+ */
+public final class DependencyCycles {
+
+    /** Relation types of dependencies between classes. */
+    public static final Set<RelationType> DEPENDENCY_RELATIONS = Collections.unmodifiableSet( EnumSet.of(
+            RelationType.Association, RelationType.Dependency,
+            RelationType.DependencyThrows, RelationType.DependencyAnnotation ) );
+
+    /**
+     * Granularity of nodes of cycles.
+     */
+    public enum Granularity {
+        /** Top-level classes with their inner classes */
+        Class,
+        Package;
+    } //enum
+
+    /**
+     * Cycle of dependencies: strongly connected component of the graph of dependencies.
+     */
+    public static final class Cycle {
+
+        private static final int MAX_NAMES_SHOWN = 5;
+
+        public final Granularity granularity;
+        /** Names of top-level classes or packages forming the cycle, sorted */
+        public final List<String> names;
+        /**
+         * Example of closed path of dependencies: each class depends on a class of the next node of the cycle,
+         * the last one on a class of the first node.
+         */
+        public final List<Class_> path;
+
+        Cycle(Granularity granularity, List<String> names, List<Class_> path) {
+            this.granularity = granularity;
+            this.names = names;
+            this.path = path;
+        }
+
+        /**
+         * Returns count of nodes with their first names.
+         */
+        @Override
+        public String toString() {
+            return names.size() + " " + (granularity == Granularity.Class ? "classes" : "packages") + ": "
+                    + String.join( ", ", names.subList( 0, Math.min( names.size(), MAX_NAMES_SHOWN ) ) )
+                    + (names.size() > MAX_NAMES_SHOWN ? ", ..." : "");
+        }
+    } //class
+
+    private final ProjectSnapshot snapshot;
+    private final Set<RelationType> relationTypes;
+    private final Map<Granularity, List<Cycle>> cycles = new EnumMap<>( Granularity.class );
+
+    private DependencyCycles(ProjectSnapshot snapshot, Set<RelationType> relationTypes) {
+        this.snapshot = snapshot;
+        this.relationTypes = Collections.unmodifiableSet( EnumSet.copyOf( relationTypes ) );
+        for (Granularity granularity : Granularity.values()) {
+            cycles.put( granularity, Collections.unmodifiableList( new NodesGraph( granularity ).findCycles() ) );
+        }
+    }
+
+    /**
+     * Finds cycles of dependencies, given by the given types of relations, between classes frozen in the given
+     * snapshot.
+     */
+    public static DependencyCycles find(ProjectSnapshot snapshot, Collection<RelationType> relationTypes) {
+        if (relationTypes.isEmpty()) {
+            throw new IllegalArgumentException( "No relation types of dependencies" );
+        }
+        return new DependencyCycles( snapshot, EnumSet.copyOf( relationTypes ) );
+    }
+
+    /**
+     * Returns the snapshot of analyzed classes.
+     */
+    public ProjectSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns types of relations, which are dependencies.
+     */
+    public Set<RelationType> getRelationTypes() {
+        return relationTypes;
+    }
+
+    /**
+     * Returns read-only list of cycles of the given granularity - the biggest first.
+     */
+    public List<Cycle> getCycles(Granularity granularity) {
+        return cycles.get( granularity );
+    }
+
+    /**
+     * Returns name of node of the given granularity containing the given class.
+     */
+    private static String getNodeName(Class_ class_, Granularity granularity) {
+        String name = class_.originalTypeName != null ? class_.originalTypeName : class_.id;
+        int endIdx = granularity == Granularity.Class ? name.indexOf( '$' ) : name.lastIndexOf( '.' );
+        return endIdx < 0 ? (granularity == Granularity.Class ? name : "") : name.substring( 0, endIdx );
+    }
+
+    /**
+     * Graph of nodes of a granularity, in CSR form.
+     */
+    private final class NodesGraph {
+
+        final Granularity granularity;
+        final List<Class_> classes = snapshot.getClasses();
+        final String[] nodeNames;
+        /** Positions of classes of node n are stored in range [classOffsets[n], classOffsets[n + 1]) */
+        final int[] classOffsets;
+        final int[] nodeClasses;
+        /** Map[position] = node of class */
+        final int[] classNodes;
+        /** Targets of edges of node n are stored in range [edgeOffsets[n], edgeOffsets[n + 1]) */
+        final int[] edgeOffsets;
+        final int[] edgeTargets;
+
+        NodesGraph(Granularity granularity) {
+            this.granularity = granularity;
+            // Nodes - numbered in order of their first classes
+            Map<String, Integer> nodes = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            classNodes = new int[ classes.size() ];
+            for (int position = 0; position < classes.size(); position++) {
+                String name = getNodeName( classes.get( position ), granularity );
+                Integer node = nodes.get( name );
+                if (node == null) {
+                    node = names.size();
+                    nodes.put( name, node );
+                    names.add( name );
+                }
+                classNodes[ position ] = node;
+            }
+            nodeNames = names.toArray( new String[ names.size() ] );
+            int nodesCount = nodeNames.length;
+            classOffsets = new int[ nodesCount + 1 ];
+            for (int node : classNodes) {
+                classOffsets[ node + 1 ]++;
+            }
+            for (int node = 0; node < nodesCount; node++) {
+                classOffsets[ node + 1 ] += classOffsets[ node ];
+            }
+            nodeClasses = new int[ classes.size() ];
+            int[] nextClasses = Arrays.copyOf( classOffsets, nodesCount );
+            for (int position = 0; position < classes.size(); position++) {
+                nodeClasses[ nextClasses[ classNodes[ position ] ]++ ] = position;
+            }
+
+            // Edges - distinct, without loops
+            edgeOffsets = new int[ nodesCount + 1 ];
+            int[] targets = new int[ nodesCount * 4 ];
+            int edgesCount = 0;
+            int[] lastSources = new int[ nodesCount ];
+            Arrays.fill( lastSources, -1 );
+            for (int node = 0; node < nodesCount; node++) {
+                lastSources[ node ] = node;
+                for (int i = classOffsets[ node ]; i < classOffsets[ node + 1 ]; i++) {
+                    Class_ class_ = classes.get( nodeClasses[ i ] );
+                    for (RelationType relationType : relationTypes) {
+                        for (Class_ relatedClass : snapshot.getRelations(
+                                class_, relationType, RelationDirection.Outbound )) {
+                            int target = classNodes[ snapshot.indexOf( relatedClass ) ];
+                            if (lastSources[ target ] != node) {
+                                lastSources[ target ] = node;
+                                if (edgesCount == targets.length) {
+                                    targets = Arrays.copyOf( targets, edgesCount * 2 );
+                                }
+                                targets[ edgesCount++ ] = target;
+                            }
+                        }
+                    }
+                }
+                edgeOffsets[ node + 1 ] = edgesCount;
+            }
+            edgeTargets = Arrays.copyOf( targets, edgesCount );
+        }
+
+        List<Cycle> findCycles() {
+            StronglyConnectedComponents components = new StronglyConnectedComponents( edgeOffsets, edgeTargets );
+            int nodesCount = nodeNames.length;
+            // Nodes grouped by components, in CSR form
+            int[] componentOffsets = new int[ components.getComponentsCount() + 1 ];
+            for (int node = 0; node < nodesCount; node++) {
+                componentOffsets[ components.getComponent( node ) + 1 ]++;
+            }
+            for (int component = 0; component < components.getComponentsCount(); component++) {
+                componentOffsets[ component + 1 ] += componentOffsets[ component ];
+            }
+            int[] componentNodes = new int[ nodesCount ];
+            int[] nextNodes = Arrays.copyOf( componentOffsets, components.getComponentsCount() );
+            for (int node = 0; node < nodesCount; node++) {
+                componentNodes[ nextNodes[ components.getComponent( node ) ]++ ] = node;
+            }
+
+            List<Cycle> foundCycles = new ArrayList<>();
+            int[] parents = new int[ nodesCount ];
+            Arrays.fill( parents, -1 );
+            int[] queue = new int[ nodesCount ];
+            for (int component = 0; component < components.getComponentsCount(); component++) {
+                int from = componentOffsets[ component ];
+                int to = componentOffsets[ component + 1 ];
+                if (to - from < 2) {
+                    continue;
+                }
+                String[] names = new String[ to - from ];
+                for (int i = from; i < to; i++) {
+                    names[ i - from ] = nodeNames[ componentNodes[ i ] ];
+                }
+                Arrays.sort( names );
+                int[] pathNodes = findShortestCycle( componentNodes[ from ], components, parents, queue );
+                foundCycles.add( new Cycle( granularity, Collections.unmodifiableList( Arrays.asList( names ) ),
+                        Collections.unmodifiableList( findPathClasses( pathNodes ) ) ) );
+            }
+            foundCycles.sort( (cycle1, cycle2) -> cycle1.names.size() != cycle2.names.size()
+                    ? cycle2.names.size() - cycle1.names.size()
+                    : cycle1.names.get( 0 ).compareTo( cycle2.names.get( 0 ) ) );
+            return foundCycles;
+        }
+
+        /**
+         * Returns nodes of the shortest closed path through the given node, within its component - by BFS.
+         * The given parents have to be filled by -1; they are left so.
+         */
+        private int[] findShortestCycle(int start, StronglyConnectedComponents components, int[] parents,
+                int[] queue) {
+            int component = components.getComponent( start );
+            int queueSize = 0;
+            queue[ queueSize++ ] = start;
+            parents[ start ] = start;
+            int last = -1;
+            for (int i = 0; i < queueSize && last < 0; i++) {
+                int node = queue[ i ];
+                for (int e = edgeOffsets[ node ]; e < edgeOffsets[ node + 1 ]; e++) {
+                    int target = edgeTargets[ e ];
+                    if (target == start) {
+                        last = node;
+                        break;
+                    }
+                    if (parents[ target ] < 0 && components.getComponent( target ) == component) {
+                        parents[ target ] = node;
+                        queue[ queueSize++ ] = target;
+                    }
+                }
+            }
+            int pathLength = 1;
+            for (int node = last; node != start; node = parents[ node ]) {
+                pathLength++;
+            }
+            int[] pathNodes = new int[ pathLength ];
+            for (int node = last, i = pathLength - 1; i >= 0; node = parents[ node ], i--) {
+                pathNodes[ i ] = node;
+            }
+            for (int i = 0; i < queueSize; i++) {
+                parents[ queue[ i ] ] = -1;
+            }
+            return pathNodes;
+        }
+
+        /**
+         * Returns classes of the given nodes of closed path, depending on classes of the next nodes.
+         */
+        private List<Class_> findPathClasses(int[] pathNodes) {
+            List<Class_> pathClasses = new ArrayList<>( pathNodes.length );
+            for (int i = 0; i < pathNodes.length; i++) {
+                pathClasses.add( findDependentClass( pathNodes[ i ], pathNodes[ (i + 1) % pathNodes.length ] ) );
+            }
+            return pathClasses;
+        }
+
+        private Class_ findDependentClass(int node, int targetNode) {
+            for (int i = classOffsets[ node ]; i < classOffsets[ node + 1 ]; i++) {
+                Class_ class_ = classes.get( nodeClasses[ i ] );
+                for (RelationType relationType : relationTypes) {
+                    for (Class_ relatedClass : snapshot.getRelations(
+                            class_, relationType, RelationDirection.Outbound )) {
+                        if (classNodes[ snapshot.indexOf( relatedClass ) ] == targetNode) {
+                            return class_;
+                        }
+                    }
+                }
+            }
+            throw new IllegalStateException( "No dependency between nodes of path: " + nodeNames[ node ]
+                    + " -> " + nodeNames[ targetNode ] );
+        }
+    } //class
+}
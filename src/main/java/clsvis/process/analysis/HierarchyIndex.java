@@ -0,0 +1,427 @@
+package clsvis.process.analysis;
+
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.ProjectSnapshot;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Index of the type hierarchy of classes frozen in a {@link ProjectSnapshot} - it answers "is A a subtype of B"
+ * in constant time, without walking relations.<br/>
+ * Classes form a tree by their super classes: it's numbered in pre-order, so subclasses of a class (transitive)
+ * have numbers in the interval [pre-order number of the class, end of its subtree).<br/>
+ * Interfaces are numbered too - in pre-order of their hierarchy, so related interfaces get close numbers.
+ * Each type has a bitset of all its super interfaces (transitive, also by super classes); bitsets are compressed:
+ * only the range of their non-zero words is stored and equal bitsets (i.e. of subclasses not implementing
+ * new interfaces) are stored once. Implementors of an interface are found by a scan of these bitsets.<br/>
+ * Subtypes are determined by relations of the snapshot - types not frozen in it are not known.
+ * Index is immutable - it can be queried by many threads.
+ */
+public final class HierarchyIndex {
+
+    private static final int NO_POSITION = -1;
+    private static final RelationType[] HIERARCHY_RELATIONS = { RelationType.SuperClass, RelationType.SuperInterface };
+
+    private final ProjectSnapshot snapshot;
+    private final List<Class_> classes;
+    /** Positions of classes in pre-order of the tree of classes */
+    private final int[] preOrder;
+    /** Map[position] = number of class in {@link #preOrder} */
+    private final int[] preOrderNumbers;
+    /** Map[position] = number following numbers of all subclasses of class in {@link #preOrder} */
+    private final int[] subtreeEnds;
+    /** Map[position] = number of interface, or -1 for classes */
+    private final int[] interfaceNumbers;
+    /** Map[position] = id of bitset of super interfaces of class */
+    private final int[] superInterfaceSets;
+    /**
+     * Words of bitset with id s are stored in range [setOffsets[s], setOffsets[s + 1]) of {@link #setWords},
+     * the first of them is word setFirstWords[s] of the whole bitset.
+     */
+    private final int[] setOffsets;
+    private final int[] setFirstWords;
+    private final long[] setWords;
+
+    private HierarchyIndex(ProjectSnapshot snapshot) {
+        this.snapshot = snapshot;
+        classes = snapshot.getClasses();
+        int size = classes.size();
+
+        // Tree of classes: children of position p are stored in range [childOffsets[p], childOffsets[p + 1])
+        int[] superClasses = new int[ size ];
+        int[] childOffsets = new int[ size + 1 ];
+        for (int position = 0; position < size; position++) {
+            List<Class_> superClassList = snapshot.getRelations(
+                    classes.get( position ), RelationType.SuperClass, RelationDirection.Outbound );
+            superClasses[ position ] = superClassList.isEmpty()
+                    ? NO_POSITION : snapshot.indexOf( superClassList.get( 0 ) );
+            if (superClasses[ position ] != NO_POSITION) {
+                childOffsets[ superClasses[ position ] + 1 ]++;
+            }
+        }
+        for (int position = 0; position < size; position++) {
+            childOffsets[ position + 1 ] += childOffsets[ position ];
+        }
+        int[] children = new int[ childOffsets[ size ] ];
+        int[] nextChildren = Arrays.copyOf( childOffsets, size );
+        for (int position = 0; position < size; position++) {
+            if (superClasses[ position ] != NO_POSITION) {
+                children[ nextChildren[ superClasses[ position ] ]++ ] = position;
+            }
+        }
+
+        // Pre-order numbering of the tree - by iterative DFS
+        preOrder = new int[ size ];
+        preOrderNumbers = new int[ size ];
+        subtreeEnds = new int[ size ];
+        Arrays.fill( preOrderNumbers, NO_POSITION );
+        System.arraycopy( childOffsets, 0, nextChildren, 0, size );
+        int[] stack = new int[ size ];
+        int number = 0;
+        // Roots first; positions left unnumbered (in cycles of broken hierarchies) start their own trees
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < size; root++) {
+                if (preOrderNumbers[ root ] != NO_POSITION || pass == 0 && superClasses[ root ] != NO_POSITION) {
+                    continue;
+                }
+                int stackSize = 0;
+                stack[ stackSize++ ] = root;
+                preOrder[ number ] = root;
+                preOrderNumbers[ root ] = number++;
+                while (stackSize > 0) {
+                    int position = stack[ stackSize - 1 ];
+                    if (nextChildren[ position ] < childOffsets[ position + 1 ]) {
+                        int child = children[ nextChildren[ position ]++ ];
+                        if (preOrderNumbers[ child ] == NO_POSITION) {
+                            stack[ stackSize++ ] = child;
+                            preOrder[ number ] = child;
+                            preOrderNumbers[ child ] = number++;
+                        }
+                    } else {
+                        subtreeEnds[ position ] = number;
+                        stackSize--;
+                    }
+                }
+            }
+        }
+
+        interfaceNumbers = numberInterfaces();
+
+        // Bitsets of super interfaces - in topological order, super types first (Kahn)
+        int[] pendingSuperTypes = new int[ size ];
+        for (int position = 0; position < size; position++) {
+            Class_ class_ = classes.get( position );
+            pendingSuperTypes[ position ] = (superClasses[ position ] != NO_POSITION ? 1 : 0) + snapshot.getRelations(
+                    class_, RelationType.SuperInterface, RelationDirection.Outbound ).size();
+        }
+        int[] queue = new int[ size ];
+        int queueSize = 0;
+        for (int position = 0; position < size; position++) {
+            if (pendingSuperTypes[ position ] == 0) {
+                queue[ queueSize++ ] = position;
+            }
+        }
+        superInterfaceSets = new int[ size ];
+        SetsBuilder setsBuilder = new SetsBuilder( size );
+        for (int i = 0; i < queueSize; i++) {
+            int position = queue[ i ];
+            Class_ class_ = classes.get( position );
+            if (superClasses[ position ] != NO_POSITION) {
+                setsBuilder.addSuperType( superClasses[ position ], this );
+            }
+            for (Class_ superInterface : snapshot.getRelations(
+                    class_, RelationType.SuperInterface, RelationDirection.Outbound )) {
+                setsBuilder.addSuperType( snapshot.indexOf( superInterface ), this );
+            }
+            superInterfaceSets[ position ] = setsBuilder.finishSet();
+            for (RelationType relationType : HIERARCHY_RELATIONS) {
+                for (Class_ subType : snapshot.getRelations( class_, relationType, RelationDirection.Inbound )) {
+                    int subPosition = snapshot.indexOf( subType );
+                    if (--pendingSuperTypes[ subPosition ] == 0) {
+                        queue[ queueSize++ ] = subPosition;
+                    }
+                }
+            }
+        }
+        setOffsets = Arrays.copyOf( setsBuilder.offsets, setsBuilder.setsCount + 1 );
+        setFirstWords = Arrays.copyOf( setsBuilder.firstWords, setsBuilder.setsCount );
+        setWords = Arrays.copyOf( setsBuilder.words, setsBuilder.offsets[ setsBuilder.setsCount ] );
+    }
+
+    /**
+     * Builds index of the hierarchy of classes frozen in the given snapshot.
+     */
+    public static HierarchyIndex build(ProjectSnapshot snapshot) {
+        return new HierarchyIndex( snapshot );
+    }
+
+    private static boolean isInterface(Class_ class_) {
+        return class_.kind == ElementKind.Interface || class_.kind == ElementKind.AnnotationType;
+    }
+
+    /**
+     * Numbers interfaces in pre-order of their hierarchy - by iterative DFS from interfaces without super interfaces.
+     */
+    private int[] numberInterfaces() {
+        int[] numbers = new int[ classes.size() ];
+        Arrays.fill( numbers, NO_POSITION );
+        int[] stack = new int[ classes.size() ];
+        int[] nextSubTypes = new int[ classes.size() ];
+        int number = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < classes.size(); root++) {
+                Class_ rootClass = classes.get( root );
+                if (numbers[ root ] != NO_POSITION || !isInterface( rootClass ) || pass == 0 && !snapshot.getRelations(
+                        rootClass, RelationType.SuperInterface, RelationDirection.Outbound ).isEmpty()) {
+                    continue;
+                }
+                int stackSize = 0;
+                stack[ stackSize++ ] = root;
+                numbers[ root ] = number++;
+                while (stackSize > 0) {
+                    int position = stack[ stackSize - 1 ];
+                    List<Class_> subTypes = snapshot.getRelations(
+                            classes.get( position ), RelationType.SuperInterface, RelationDirection.Inbound );
+                    if (nextSubTypes[ position ] < subTypes.size()) {
+                        Class_ subType = subTypes.get( nextSubTypes[ position ]++ );
+                        int subPosition = snapshot.indexOf( subType );
+                        if (numbers[ subPosition ] == NO_POSITION && isInterface( subType )) {
+                            stack[ stackSize++ ] = subPosition;
+                            numbers[ subPosition ] = number++;
+                        }
+                    } else {
+                        stackSize--;
+                    }
+                }
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Builder of compressed bitsets of super interfaces - equal bitsets get the same id.
+     */
+    private static final class SetsBuilder {
+
+        /** Bitset being built - its words in range [firstWord, lastWord] can be non-zero */
+        final long[] buffer;
+        int firstWord = Integer.MAX_VALUE;
+        int lastWord = -1;
+        final Map<Long, int[]> setsByHash = new HashMap<>();
+        int setsCount;
+        int[] offsets = new int[ 0x100 ];
+        int[] firstWords = new int[ 0x100 ];
+        long[] words = new long[ 0x400 ];
+
+        SetsBuilder(int typesCount) {
+            buffer = new long[ (typesCount + 63) >>> 6 ];
+            finishSet(); // empty set has id 0
+        }
+
+        /**
+         * Adds the given super type and its super interfaces to the bitset being built.
+         */
+        void addSuperType(int superPosition, HierarchyIndex index) {
+            int set = index.superInterfaceSets[ superPosition ];
+            int from = offsets[ set ];
+            int count = offsets[ set + 1 ] - from;
+            if (count > 0) {
+                int first = firstWords[ set ];
+                for (int i = 0; i < count; i++) {
+                    buffer[ first + i ] |= words[ from + i ];
+                }
+                firstWord = Math.min( firstWord, first );
+                lastWord = Math.max( lastWord, first + count - 1 );
+            }
+            int interfaceNumber = index.interfaceNumbers[ superPosition ];
+            if (interfaceNumber != NO_POSITION) {
+                int word = interfaceNumber >>> 6;
+                buffer[ word ] |= 1L << interfaceNumber;
+                firstWord = Math.min( firstWord, word );
+                lastWord = Math.max( lastWord, word );
+            }
+        }
+
+        /**
+         * Stores the bitset being built, unless an equal one is already stored, clears it and returns its id.
+         */
+        int finishSet() {
+            int count = Math.max( lastWord - firstWord + 1, 0 );
+            long hash = firstWord;
+            for (int i = 0; i < count; i++) {
+                hash = hash * 31 + buffer[ firstWord + i ];
+            }
+            int[] candidates = setsByHash.get( hash );
+            if (candidates != null) {
+                for (int set : candidates) {
+                    if (isEqual( set, count )) {
+                        clear( count );
+                        return set;
+                    }
+                }
+            }
+            if (setsCount + 1 == offsets.length) {
+                offsets = Arrays.copyOf( offsets, offsets.length * 2 );
+                firstWords = Arrays.copyOf( firstWords, firstWords.length * 2 );
+            }
+            int from = offsets[ setsCount ];
+            if (from + count > words.length) {
+                words = Arrays.copyOf( words, Math.max( words.length * 2, from + count ) );
+            }
+            System.arraycopy( buffer, Math.min( firstWord, buffer.length ), words, from, count );
+            firstWords[ setsCount ] = count > 0 ? firstWord : 0;
+            offsets[ setsCount + 1 ] = from + count;
+            int set = setsCount++;
+            int[] newCandidates = candidates == null
+                    ? new int[ 1 ] : Arrays.copyOf( candidates, candidates.length + 1 );
+            newCandidates[ newCandidates.length - 1 ] = set;
+            setsByHash.put( hash, newCandidates );
+            clear( count );
+            return set;
+        }
+
+        private boolean isEqual(int set, int count) {
+            if (offsets[ set + 1 ] - offsets[ set ] != count || count > 0 && firstWords[ set ] != firstWord) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (words[ offsets[ set ] + i ] != buffer[ firstWord + i ]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void clear(int count) {
+            if (count > 0) {
+                Arrays.fill( buffer, firstWord, firstWord + count, 0 );
+            }
+            firstWord = Integer.MAX_VALUE;
+            lastWord = -1;
+        }
+    } //class
+
+    /**
+     * Returns the snapshot of indexed classes.
+     */
+    public ProjectSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns true, if the given type is the given super type, its subclass or its implementor (transitive).
+     *
+     * @throws IllegalArgumentException if any of types is not frozen in the snapshot
+     */
+    public boolean isSubtype(Class_ subType, Class_ superType) {
+        int subPosition = checkPosition( subType );
+        int superPosition = checkPosition( superType );
+        if (subPosition == superPosition) {
+            return true;
+        }
+        int interfaceNumber = interfaceNumbers[ superPosition ];
+        return interfaceNumber != NO_POSITION
+                ? hasSuperInterface( superInterfaceSets[ subPosition ], interfaceNumber )
+                : isInSubtree( subPosition, superPosition );
+    }
+
+    private boolean isInSubtree(int position, int rootPosition) {
+        int number = preOrderNumbers[ position ];
+        return preOrderNumbers[ rootPosition ] <= number && number < subtreeEnds[ rootPosition ];
+    }
+
+    private boolean hasSuperInterface(int set, int interfaceNumber) {
+        int word = (interfaceNumber >>> 6) - setFirstWords[ set ];
+        return word >= 0 && word < setOffsets[ set + 1 ] - setOffsets[ set ]
+                && (setWords[ setOffsets[ set ] + word ] & 1L << interfaceNumber) != 0;
+    }
+
+    /**
+     * Returns read-only list of all subclasses (transitive) of the given class, in pre-order of the tree of classes.
+     *
+     * @throws IllegalArgumentException if the class is not frozen in the snapshot
+     */
+    public List<Class_> getSubclasses(Class_ class_) {
+        int position = checkPosition( class_ );
+        int from = preOrderNumbers[ position ] + 1;
+        int to = subtreeEnds[ position ];
+        return from == to ? Collections.emptyList() : new ClassesOfPositions( preOrder, from, to );
+    }
+
+    /**
+     * Returns read-only list of all subtypes (transitive) of the given type: subclasses of a class, or interfaces
+     * and classes implementing an interface - sorted like in the snapshot.
+     *
+     * @throws IllegalArgumentException if the type is not frozen in the snapshot
+     */
+    public List<Class_> getSubtypes(Class_ type) {
+        int typePosition = checkPosition( type );
+        int interfaceNumber = interfaceNumbers[ typePosition ];
+        if (interfaceNumber == NO_POSITION) {
+            int[] positions = Arrays.copyOfRange( preOrder, preOrderNumbers[ typePosition ] + 1,
+                    subtreeEnds[ typePosition ] );
+            Arrays.sort( positions );
+            return positions.length == 0 ? Collections.emptyList()
+                    : new ClassesOfPositions( positions, 0, positions.length );
+        }
+        // Bitsets containing the interface are found first - they are shared by many types
+        boolean[] matchingSets = new boolean[ setFirstWords.length ];
+        for (int set = 0; set < matchingSets.length; set++) {
+            matchingSets[ set ] = hasSuperInterface( set, interfaceNumber );
+        }
+        int[] positions = new int[ classes.size() ];
+        int positionsCount = 0;
+        for (int position = 0; position < classes.size(); position++) {
+            if (matchingSets[ superInterfaceSets[ position ] ]) {
+                positions[ positionsCount++ ] = position;
+            }
+        }
+        return positionsCount == 0 ? Collections.emptyList()
+                : new ClassesOfPositions( positions, 0, positionsCount );
+    }
+
+    private int checkPosition(Class_ class_) {
+        int position = snapshot.indexOf( class_ );
+        if (position < 0) {
+            throw new IllegalArgumentException( "Class is not frozen in the snapshot: " + class_.id );
+        }
+        return position;
+    }
+
+    /**
+     * Read-only list of classes given by range of their positions.
+     */
+    private final class ClassesOfPositions extends AbstractList<Class_> implements RandomAccess {
+
+        private final int[] positions;
+        private final int from;
+        private final int size;
+
+        ClassesOfPositions(int[] positions, int from, int to) {
+            this.positions = positions;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public Class_ get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException( "Index: " + i + ", size: " + size );
+            }
+            return classes.get( positions[ from + i ] );
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    } //class
+}
@@ -0,0 +1,96 @@
+package clsvis.process.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a directed graph - found by Tarjan's algorithm.<br/>
+ * Graph is given in CSR form: nodes are numbered from 0, targets of edges of node n are stored in range
+ * [offsets[n], offsets[n + 1]) of targets. Algorithm is iterative - its stacks are arrays, so graphs of any depth
+ * (i.e. long chains of dependencies) are processed without overflow of the thread stack. It runs in O(nodes + edges).
+ */
+public final class StronglyConnectedComponents {
+
+    private static final int NOT_VISITED = -1;
+
+    /** Map[node] = id of its component */
+    private final int[] components;
+    private final int componentsCount;
+
+    /**
+     * Finds strongly connected components of the given graph.
+     *
+     * @param offsets offsets of edges of nodes, of length nodes + 1
+     * @param targets targets of edges
+     */
+    public StronglyConnectedComponents(int[] offsets, int[] targets) {
+        int nodesCount = offsets.length - 1;
+        components = new int[ nodesCount ];
+        Arrays.fill( components, NOT_VISITED );
+        int[] indexes = new int[ nodesCount ];
+        Arrays.fill( indexes, NOT_VISITED );
+        int[] lowLinks = new int[ nodesCount ];
+        int[] nextEdges = new int[ nodesCount ];
+        // Nodes of components being found - node is on this stack, if it's visited and without component
+        int[] componentStack = new int[ nodesCount ];
+        int componentStackSize = 0;
+        // Nodes being visited - replacement of recursion
+        int[] callStack = new int[ nodesCount ];
+        int index = 0;
+        int count = 0;
+
+        for (int start = 0; start < nodesCount; start++) {
+            if (indexes[ start ] != NOT_VISITED) {
+                continue;
+            }
+            int callStackSize = 0;
+            callStack[ callStackSize++ ] = start;
+            indexes[ start ] = lowLinks[ start ] = index++;
+            nextEdges[ start ] = offsets[ start ];
+            componentStack[ componentStackSize++ ] = start;
+            while (callStackSize > 0) {
+                int node = callStack[ callStackSize - 1 ];
+                if (nextEdges[ node ] < offsets[ node + 1 ]) {
+                    int target = targets[ nextEdges[ node ]++ ];
+                    if (indexes[ target ] == NOT_VISITED) {
+                        callStack[ callStackSize++ ] = target;
+                        indexes[ target ] = lowLinks[ target ] = index++;
+                        nextEdges[ target ] = offsets[ target ];
+                        componentStack[ componentStackSize++ ] = target;
+                    } else if (components[ target ] == NOT_VISITED) {
+                        lowLinks[ node ] = Math.min( lowLinks[ node ], indexes[ target ] );
+                    }
+                } else {
+                    callStackSize--;
+                    if (callStackSize > 0) {
+                        int parent = callStack[ callStackSize - 1 ];
+                        lowLinks[ parent ] = Math.min( lowLinks[ parent ], lowLinks[ node ] );
+                    }
+                    if (lowLinks[ node ] == indexes[ node ]) {
+                        int member;
+                        do {
+                            member = componentStack[ --componentStackSize ];
+                            components[ member ] = count;
+                        } while (member != node);
+                        count++;
+                    }
+                }
+            }
+        }
+        componentsCount = count;
+    }
+
+    /**
+     * Returns count of components.
+     */
+    public int getComponentsCount() {
+        return componentsCount;
+    }
+
+    /**
+     * Returns id of component of the given node. Components are numbered in reverse topological order:
+     * edges between different components lead from higher to lower ids.
+     */
+    public int getComponent(int node) {
+        return components[ node ];
+    }
+}
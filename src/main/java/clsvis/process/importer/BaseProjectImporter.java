@@ -1,26 +1,49 @@
 package clsvis.process.importer;
 
+import clsvis.model.Class_;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import clsvis.process.importer.ClassModelIO.ClassModel;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 /**
  * Base importing functionality:<br/>
- * Imports all classes included in provided path: jar file or directory.
+ * Imports all classes included in provided path: jar file or directory.<br/>
+ * Models of imported jars are kept in {@link JarModelCache} - unchanged jars are not imported again.<br/>
+ * Imported paths can be re-imported incrementally - see {@link #reimportProject()}.
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
@@ -30,32 +53,132 @@ public class BaseProjectImporter {
 
     public static final String jarFileName = ".jar";
     private static final String classFileSuffix = ".class";
+    private static final int CLASS_NAMES_QUEUE_CAPACITY = 0x400;
+    /** Interval of checks of cancellation, while waiting for child JVMs. */
+    private static final long CANCELLATION_CHECK_MS = 20;
 
-    protected final CompiledClassImporter classImporter = new CompiledClassImporter();
+    protected final CompiledClassImporter classImporter;
     protected Collection<File> classPaths = new LinkedHashSet<>();
-    protected final List<String> classNames = new ArrayList<>( 0x4000 );
+    protected final List<String> classNames = Collections.synchronizedList( new ArrayList<>( 0x4000 ) );
+    /** Map[jarFile] = top-level class names */
+    protected final Map<File, List<String>> jarClassNames = new ConcurrentHashMap<>();
+    private JarModelCache jarModelCache = JarModelCache.createDefault();
+    /** Budget of metaspace for one class loader in bytes; 0 means one class loader for the whole import. */
+    private long metaspaceBudget = ImportSettings.IMPORT_METASPACE_BUDGET_MB * 0x100000L;
+    /** Number of child JVMs importing classes; 0 means import in this JVM. */
+    private int processesCount = ImportSettings.IMPORT_PROCESSES;
+    /** Paths imported by {@link #importProject(java.util.Collection)}. */
+    protected final Collection<File> importedPaths = new LinkedHashSet<>();
+    /** Map[topLevelClassName] = stamp of class files of the class, detecting their modifications - of imported classes */
+    protected final Map<String, Long> classStamps = new ConcurrentHashMap<>( 0x4000 );
+    /**
+     * Stamps of classes found by the running import - they are committed to {@link #classStamps} for fully imported
+     * classes only, so classes not imported by a stopped or failed import are imported by the next reload.
+     */
+    private final Map<String, Long> foundClassStamps = new ConcurrentHashMap<>( 0x4000 );
+
+    public BaseProjectImporter() {
+        this( ImportSettings.IMPORT_CLASS_FILES ? new ClassFileImporter() : new CompiledClassImporter() );
+    }
+
+    public BaseProjectImporter(CompiledClassImporter classImporter) {
+        this.classImporter = classImporter;
+        classImporter.setThreadsCount( ImportSettings.IMPORT_THREADS );
+    }
 
     /**
      * Import project pointed by the given path.
      */
     public void importProject(Collection<File> paths) {
         classNames.clear();
+        jarClassNames.clear();
+        foundClassStamps.clear();
+        boolean finished = false;
 
         try {
-            findClassNames( paths );
+            for (File path : paths) {
+                checkPathSupported( path );
+            }
+            // Adding imported projects paths on the beginning of classpaths
+            Collection<File> originalClassPaths = classPaths;
+            classPaths = new LinkedHashSet<>(
+                    ((originalClassPaths.size() + paths.size()) * 4 + 2) / 3 );
+            classPaths.addAll( paths );
+            classPaths.addAll( originalClassPaths );
+            importedPaths.addAll( paths );
+
+            initClassLoader();
+            Map<File, String> notCachedJarKeys = new LinkedHashMap<>();
+            Set<File> cachedJars = importCachedJars( paths, notCachedJarKeys );
+            if (processesCount > 0) {
+                runClassesImportInProcesses( paths, cachedJars );
+            } else {
+                runClassesImport( paths, cachedJars );
+            }
             logger.log( Level.CONFIG, "Project size: {0} top-level classes", classNames.size() );
+            // Models of a stopped or degraded import are incomplete
+            if (classImporter.getStopReason() == null && classImporter.getSkippedRelationsCount() == 0) {
+                cacheImportedJars( notCachedJarKeys );
+            }
+            finished = true;
+        } catch (IOException e) {
+            logThrowable( e );
+            throw new ImportException( e );
+        } catch (ImportException e) {
+            // Already logged
+            throw e;
+        } catch (RuntimeException | Error e) {
+            logThrowable( e );
+            throw e;
+        } finally {
+            commitClassStamps( foundClassStamps.keySet(), finished );
+        }
+    }
 
-            if (!classNames.isEmpty()) {
-                // Adding imported projects paths on the beginning of classpaths
-                Collection<File> originalClassPaths = classPaths;
-                classPaths = new LinkedHashSet<>(
-                        ((originalClassPaths.size() + paths.size()) * 4 + 2) / 3 );
-                classPaths.addAll( paths );
-                classPaths.addAll( originalClassPaths );
+    /**
+     * Re-imports classes from {@link #importedPaths}, which were added, removed or modified since their last import.
+     * The other classes stay untouched - only their relations with changed classes are updated.
+     *
+     * @return number of changed top-level classes
+     */
+    public int reimportProject() {
+        classNames.clear();
+        jarClassNames.clear();
+        foundClassStamps.clear();
+        Set<String> changedClassNames = new HashSet<>();
+        boolean finished = false;
+
+        try {
+            findClassNames( importedPaths );
+            Collection<String> removedClassNames = new ArrayList<>();
+            Collection<String> newClassNames = new ArrayList<>();
+            for (String className : classNames) {
+                Long oldClassStamp = classStamps.get( className );
+                if (!foundClassStamps.get( className ).equals( oldClassStamp )) {
+                    newClassNames.add( className );
+                    // Modified, or left not fully imported by a stopped import
+                    if (oldClassStamp != null || classImporter.importedClasses.containsKey( className )) {
+                        removedClassNames.add( className );
+                    }
+                }
+            }
+            for (String className : classStamps.keySet()) {
+                if (!foundClassStamps.containsKey( className )) {
+                    removedClassNames.add( className );
+                }
+            }
+            changedClassNames.addAll( newClassNames );
+            changedClassNames.addAll( removedClassNames );
+            int changedCount = changedClassNames.size();
+            logger.log( Level.CONFIG, "Changed top-level classes: {0} added or modified, {1} removed or modified",
+                    new Object[]{ newClassNames.size(), removedClassNames.size() } );
 
+            if (changedCount > 0) {
                 initClassLoader();
-                runClassesImport();
+                classImporter.reimportClasses( removedClassNames, newClassNames );
             }
+            finished = true;
+            return changedCount;
         } catch (IOException e) {
             logThrowable( e );
             throw new ImportException( e );
@@ -65,11 +188,37 @@ public class BaseProjectImporter {
         } catch (RuntimeException | Error e) {
             logThrowable( e );
             throw e;
+        } finally {
+            commitClassStamps( changedClassNames, finished );
+        }
+    }
+
+    /**
+     * Commits found stamps of the given top-level classes to {@link #classStamps}, if the import is finished and
+     * complete. Otherwise, and for classes which could not be imported, stamps are dropped: the classes are imported
+     * again by the next reload.
+     */
+    private void commitClassStamps(Collection<String> topLevelClassNames, boolean finished) {
+        boolean complete = finished
+                && classImporter.getStopReason() == null && classImporter.getSkippedRelationsCount() == 0;
+        Set<String> notImportedClassNames = new HashSet<>();
+        for (String className : classImporter.getNotImportedClassNames()) {
+            notImportedClassNames.add( CompiledClassImporter.getTopLevelClassName( className ) );
+        }
+        for (String className : topLevelClassNames) {
+            Long classStamp = foundClassStamps.get( className );
+            if (complete && classStamp != null && !notImportedClassNames.contains( className )) {
+                classStamps.put( className, classStamp );
+            } else {
+                classStamps.remove( className );
+            }
         }
+        foundClassStamps.clear();
     }
 
     /**
-     * Does some memory cleanup after import.
+     * Does some memory cleanup after import - also after cancelled one, clearing its cancellation.
+     * Then publishes snapshot of imported classes - see {@link CompiledClassImporter#freezeModel()}.
      */
     public void cleanupAfterImport() {
         try {
@@ -84,12 +233,97 @@ public class BaseProjectImporter {
         classImporter.setClassLoader( null );
         classImporter.setImportProgressListener( null );
         classNames.clear();
+        jarClassNames.clear();
+        long cancelLatencyMs = classImporter.clearCancellation();
+        if (cancelLatencyMs >= 0) {
+            logger.log( Level.CONFIG, "Import cancelled - class loader closed {0} ms after the request",
+                    cancelLatencyMs );
+        }
+        classImporter.freezeModel();
     }
 
     /**
-     * Searches for classes in the given mainClassesDir and its subdirectories. It fills-in {@link #classNames}.
+     * Imports jars from the given paths, which are found in {@link #jarModelCache}.
+     *
+     * @param notCachedJarKeys out parameter: Map[jarFile] = cache key of jars, which have to be imported
+     * @return jars imported from the cache
      */
-    private void findClassNamesInDirectory(File classesDir, Collection<String> subDirNames) {
+    private Set<File> importCachedJars(Collection<File> paths, Map<File, String> notCachedJarKeys) {
+        Set<File> cachedJars = new HashSet<>();
+        if (jarModelCache == null) {
+            return cachedJars;
+        }
+        for (File jarFile : paths) {
+            if (classImporter.isImportCancelled()) {
+                break;
+            }
+            if (!jarFile.isFile()) {
+                continue;
+            }
+            String key;
+            try {
+                key = jarModelCache.computeKey( jarFile, classImporter, classPaths );
+            } catch (IOException e) {
+                logger.log( Level.WARNING, "Problem during computing cache key of {0}: {1}", new Object[]{ jarFile, e } );
+                continue;
+            }
+            List<ClassModel> classModels = jarModelCache.load( key );
+            if (classModels != null) {
+                logger.log( Level.CONFIG, "Loading cached model of {0}", jarFile );
+                classImporter.importClassModels( classModels );
+                cachedJars.add( jarFile );
+            } else {
+                notCachedJarKeys.put( jarFile, key );
+            }
+        }
+        return cachedJars;
+    }
+
+    /**
+     * Stores models of the given, just imported jars in {@link #jarModelCache}.
+     * Jars with classes, which could not be imported, are skipped.
+     */
+    private void cacheImportedJars(Map<File, String> jarKeys) {
+        for (Map.Entry<File, String> jarKey : jarKeys.entrySet()) {
+            Collection<Class_> jarClasses = getImportedClasses( jarClassNames.get( jarKey.getKey() ) );
+            if (jarClasses != null) {
+                jarModelCache.store( jarKey.getValue(), jarClasses );
+            }
+        }
+    }
+
+    /**
+     * Returns fully imported classes with the given names and their inner classes,
+     * or null if some of them were not fully imported.
+     */
+    private Collection<Class_> getImportedClasses(Collection<String> topLevelClassNames) {
+        Collection<Class_> result = new LinkedHashSet<>( topLevelClassNames.size() * 2 );
+        Deque<Class_> classesToCheck = new ArrayDeque<>();
+        for (String className : topLevelClassNames) {
+            Class_ class_ = classImporter.importedClasses.get( className );
+            if (class_ == null) {
+                return null;
+            }
+            classesToCheck.add( class_ );
+        }
+        while (!classesToCheck.isEmpty()) {
+            Class_ class_ = classesToCheck.poll();
+            if (!class_.relationsProcessed) {
+                return null;
+            }
+            if (result.add( class_ )) {
+                classesToCheck.addAll( class_.getRelations( RelationType.InnerClass, RelationDirection.Outbound ) );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Searches for classes in the given mainClassesDir and its subdirectories.
+     * Found top-level classes are passed to the given classNameConsumer.
+     */
+    private void findClassNamesInDirectory(
+            File classesDir, Collection<String> subDirNames, Consumer<String> classNameConsumer) {
         File currPath = classesDir;
         for (String subDirName : subDirNames) {
             currPath = new File( currPath, subDirName );
@@ -104,63 +338,112 @@ public class BaseProjectImporter {
                 // process sub-entries
                 ArrayList<String> newSubDirNames = new ArrayList<>( subDirNames );
                 newSubDirNames.add( dirEntryName );
-                findClassNamesInDirectory( classesDir, newSubDirNames );
+                findClassNamesInDirectory( classesDir, newSubDirNames, classNameConsumer );
             }
         } else
-        if (isTopLevelClass( currPathName )) {
+        if (currPathName.endsWith( classFileSuffix )) {
             // Process file
-            // load top level class
             StringBuilder classNameSB = new StringBuilder( 0x80 );
             for (String subDirName : subDirNames) {
                 classNameSB.append( subDirName ).append( '.' );
             }
             classNameSB.setLength( classNameSB.length() - 7 ); // Remove suffix ".class."
-            classNames.add( classNameSB.toString() );
+            String className = classNameSB.toString();
+            addClassStamp( className, currPath.lastModified() * 31 + currPath.length() );
+            if (isTopLevelClass( currPathName )) {
+                // load top level class
+                classNameConsumer.accept( className );
+            }
         }
     }
 
     /**
-     * Searches for classes in the given jarFile. It fills-in {@link #classNames}.
+     * Searches for classes in the given jarFile - by reading its central directory.
+     * Found top-level classes are passed to the given classNameConsumer.
      */
-    private void findClassNamesInJarFile(File jarFile) throws IOException {
+    private void findClassNamesInJarFile(File jarFile, Consumer<String> classNameConsumer) throws IOException {
+        List<String> jarNames = new ArrayList<>();
+        ZipCentralDirectory.ClassEntryConsumer classEntryConsumer = (className, crc, size) -> {
+            addClassStamp( className, crc * 31 + size );
+            if (className.indexOf( '$' ) < 0) {
+                jarNames.add( className );
+                classNameConsumer.accept( className );
+            }
+        };
+        try {
+            ZipCentralDirectory.readClassEntries( jarFile, classEntryConsumer );
+        } catch (ZipException e) {
+            // Unusual format - i.e. with preamble
+            logger.log( Level.FINE, "Zip central directory not readable directly: {0}", e.getMessage() );
+            findClassEntriesByZipFile( jarFile, classEntryConsumer );
+        }
+        jarClassNames.put( jarFile, jarNames );
+    }
+
+    /**
+     * Passes class entries of the given jarFile to the given consumer - by {@link ZipFile}.
+     */
+    static void findClassEntriesByZipFile(File jarFile, ZipCentralDirectory.ClassEntryConsumer classEntryConsumer)
+            throws IOException {
         try (ZipFile zipFile = new ZipFile( jarFile )) {
             Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
             while (zipEntries.hasMoreElements()) {
-                String entryName = zipEntries.nextElement().getName();
-                if (isTopLevelClass( entryName )) {
-                    classNames.add( entryName.replace( '/', '.' ).substring( 0, entryName.length() - 6 ) ); // Remove ".class"
+                ZipEntry zipEntry = zipEntries.nextElement();
+                String entryName = zipEntry.getName();
+                if (entryName.endsWith( classFileSuffix )) {
+                    String className = entryName.replace( '/', '.' ).substring( 0, entryName.length() - 6 ); // Remove ".class"
+                    classEntryConsumer.accept( className, zipEntry.getCrc(), zipEntry.getSize() );
                 }
             }
         }
     }
 
     /**
-     * Searches for classes on the given paths (jar files or directories).
+     * Searches for classes on the given paths (jar files or directories). It fills-in {@link #classNames}.
      */
     protected void findClassNames(Collection<File> paths) throws IOException {
         for (File path : paths) {
-            findClassNames( path );
+            findClassNames( path, classNames::add );
         }
     }
 
     /**
      * Searches for classes on the given path (jar file or directory).
+     * Found top-level classes are passed to the given classNameConsumer.
+     */
+    protected void findClassNames(File path, Consumer<String> classNameConsumer) throws IOException {
+        checkPathSupported( path );
+
+        if (path.isDirectory()) {
+            findClassNamesInDirectory( path, Collections.emptyList(), classNameConsumer );
+        } else {
+            findClassNamesInJarFile( path, classNameConsumer );
+        }
+    }
+
+    /**
+     * Checks, if the given path exists and it's a jar file or a directory.
+     * If not, exception is thrown.
      */
-    protected void findClassNames(File path) throws IOException {
+    protected static void checkPathSupported(File path) throws IOException {
         if (path == null) {
             throw new IOException( "No path available" );
         }
         checkPathExists( path );
 
-        if (path.isDirectory()) {
-            findClassNamesInDirectory( path, Collections.EMPTY_LIST );
-        } else if (path.getName().endsWith( jarFileName )) {
-            findClassNamesInJarFile( path );
-        } else {
+        if (!path.isDirectory() && !path.getName().endsWith( jarFileName )) {
             throw new IOException( String.format( "Unsupported type of path '%s'", path.getName() ) );
         }
     }
 
+    /**
+     * Adds stamp of class file of the given class to the stamp of its top-level class in {@link #foundClassStamps}.
+     */
+    private void addClassStamp(String className, long classFileStamp) {
+        foundClassStamps.merge( CompiledClassImporter.getTopLevelClassName( className ),
+                classFileStamp * 31 + className.hashCode(), Long::sum );
+    }
+
     private static boolean isTopLevelClass(String entry) {
         return entry.endsWith( classFileSuffix ) && !entry.contains( "$" );
     }
@@ -206,8 +489,21 @@ public class BaseProjectImporter {
 
     /**
      * Initializes class loader according to {@link #classPaths}.
+     * If {@link #metaspaceBudget} is set, the class loader is replaced by a new one each time the budget is exceeded.
      */
     protected void initClassLoader() {
+        classImporter.setClassLoader( createClassLoader() );
+        classImporter.setClassLoaderFactory( metaspaceBudget > 0 ? this::createClassLoader : null,
+                metaspaceBudget > 0 ? MetaspaceBudget.create( metaspaceBudget ) : null );
+    }
+
+    /**
+     * Creates class loader according to {@link #classPaths}.
+     * Unless disabled by {@link ImportSettings#IMPORT_INDEXED_CLASS_LOADER}, it finds classes through index of packages
+     * of jars.
+     */
+    private URLClassLoader createClassLoader() {
+        List<File> classpathFiles = new ArrayList<>( classPaths.size() );
         Collection<URL> classpathURLs = new ArrayList<>( classPaths.size() );
         for (File classPath : classPaths) {
             try {
@@ -215,21 +511,203 @@ public class BaseProjectImporter {
                     logger.warning( String.format( "Classpath entry '%s' doesn't exist", classPath.getPath() ) );
                 }
                 classpathURLs.add( classPath.toURI().toURL() );
+                classpathFiles.add( classPath );
             } catch (MalformedURLException ex) {
                 //System.err.println(ex);
                 logger.log( Level.WARNING,
                         String.format( "Problem during processing classpath entry '%s':", classPath.getPath() ), ex );
             }
         }
-        URLClassLoader classLoader = new URLClassLoader( classpathURLs.toArray( new URL[classpathURLs.size()] ) );
-        classImporter.setClassLoader( classLoader );
+        URL[] urls = classpathURLs.toArray( new URL[classpathURLs.size()] );
+        return ImportSettings.IMPORT_INDEXED_CLASS_LOADER
+                ? new IndexedJarClassLoader( classpathFiles, urls )
+                : new URLClassLoader( urls );
+    }
+
+    /**
+     * Runs actual import: classes are imported while they are still being discovered on the given paths.
+     * Paths are searched in parallel. Jars imported from the cache are searched only for stamps of their classes.
+     */
+    protected void runClassesImport(Collection<File> paths, Collection<File> cachedJars) throws IOException {
+        ClassNamesQueue classNamesQueue = new ClassNamesQueue( CLASS_NAMES_QUEUE_CAPACITY );
+        ExecutorService scanners = Executors.newFixedThreadPool(
+                Math.max( 1, Math.min( paths.size(), classImporter.getThreadsCount() ) ) );
+        List<Future<?>> scans = new ArrayList<>( paths.size() );
+        AtomicInteger remainingScansCount = new AtomicInteger( paths.size() );
+        try {
+            for (File path : paths) {
+                boolean cached = cachedJars.contains( path );
+                Consumer<String> classNameConsumer = className -> {
+                    if (!cached && !classNamesQueue.isAborted()) {
+                        classNames.add( className );
+                        classNamesQueue.put( className );
+                    }
+                };
+                scans.add( scanners.submit( () -> {
+                    try {
+                        if (!classNamesQueue.isAborted()) {
+                            findClassNames( path, classNameConsumer );
+                        }
+                    } catch (IOException | RuntimeException | Error e) {
+                        classNamesQueue.abort();
+                        throw e;
+                    } finally {
+                        if (remainingScansCount.decrementAndGet() == 0) {
+                            classNamesQueue.finish();
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            if (paths.isEmpty()) {
+                classNamesQueue.finish();
+            }
+
+            classImporter.importClasses( classNamesQueue );
+            if (classImporter.getStopReason() != null) {
+                // Discovery of a stopped import isn't awaited - it's aborted
+                return;
+            }
+
+            // Report problems of discovery
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        } catch (InterruptedException e) {
+            classNamesQueue.abort();
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } finally {
+            scanners.shutdown();
+        }
+    }
+
+    /**
+     * Runs actual import in {@link #processesCount} child JVMs - see {@link ImportWorker}.
+     * All classes are discovered first, then they are split into shards of neighbouring classes - one per process.
+     * Models of classes imported by the processes are merged: fully imported versions of classes take precedence
+     * over versions imported only as targets of relations. Classes of a failed process are not imported.
+     */
+    protected void runClassesImportInProcesses(Collection<File> paths, Collection<File> cachedJars)
+            throws IOException {
+        for (File path : paths) {
+            if (classImporter.isImportCancelled()) {
+                classImporter.stopImport( CompiledClassImporter.IMPORT_CANCELLED );
+                return;
+            }
+            findClassNames( path, cachedJars.contains( path ) ? className -> { } : classNames::add );
+        }
+        List<String> allClassNames = new ArrayList<>( classNames );
+        int totalCount = allClassNames.size();
+        int shardsCount = Math.max( 1, Math.min( processesCount, totalCount ) );
+        int threadsCount = Math.max( 1, classImporter.getThreadsCount() / shardsCount );
+        ImportProgressListener progressListener = classImporter.getImportProgressListener();
+        int[] importedCounts = new int[ shardsCount ];
+        Collection<ImportWorker> workers = ConcurrentHashMap.newKeySet();
+
+        ExecutorService readers = Executors.newFixedThreadPool( shardsCount );
+        try {
+            List<Future<ImportWorker.Result>> results = new ArrayList<>( shardsCount );
+            for (int i = 0; i < shardsCount; i++) {
+                int shard = i;
+                List<String> shardClassNames = allClassNames.subList(
+                        (int) ((long) totalCount * shard / shardsCount),
+                        (int) ((long) totalCount * (shard + 1) / shardsCount) );
+                results.add( readers.submit( () -> {
+                    try {
+                        if (classImporter.isImportCancelled()) {
+                            return new ImportWorker.Result( Collections.emptyList(), shardClassNames );
+                        }
+                        ImportWorker worker = new ImportWorker( classImporter.getClass().getName(), classPaths,
+                                shardClassNames, threadsCount );
+                        workers.add( worker );
+                        return worker.readResult( importedCount -> {
+                            if (progressListener != null) {
+                                synchronized (importedCounts) {
+                                    importedCounts[ shard ] = importedCount;
+                                    progressListener.importProgress( Arrays.stream( importedCounts ).sum(), totalCount );
+                                }
+                            }
+                        } );
+                    } catch (IOException e) {
+                        logger.log( classImporter.isImportCancelled() ? Level.CONFIG : Level.SEVERE,
+                                "Problem during import of {0} classes in process: {1}",
+                                new Object[]{ shardClassNames.size(), e } );
+                        return new ImportWorker.Result( Collections.emptyList(), shardClassNames );
+                    }
+                } ) );
+            }
+
+            // Map[className] = model - fully imported version if available
+            Map<String, ClassModel> classModels = new LinkedHashMap<>( totalCount * 2 );
+            List<String> notImportedClassNames = new ArrayList<>();
+            for (Future<ImportWorker.Result> result : results) {
+                awaitWorker( result, workers );
+                for (ClassModel classModel : result.get().classModels) {
+                    classModels.merge( classModel.class_.originalTypeName, classModel,
+                            (oldModel, newModel) -> !oldModel.relationsProcessed ? newModel : oldModel );
+                }
+                notImportedClassNames.addAll( result.get().notImportedClassNames );
+            }
+            classImporter.importWorkerModels( classModels.values(), notImportedClassNames );
+            if (classImporter.isImportCancelled()) {
+                classImporter.stopImport( CompiledClassImporter.IMPORT_CANCELLED );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } finally {
+            readers.shutdown();
+        }
     }
 
     /**
-     * Runs actual import.
+     * Waits for result of a worker - if the import is cancelled, all the workers are destroyed.
      */
-    protected void runClassesImport() {
-        classImporter.importClasses( classNames );
+    private void awaitWorker(Future<ImportWorker.Result> result, Collection<ImportWorker> workers)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                result.get( CANCELLATION_CHECK_MS, TimeUnit.MILLISECONDS );
+                return;
+            } catch (TimeoutException e) {
+                if (classImporter.isImportCancelled()) {
+                    workers.forEach( ImportWorker::destroy );
+                }
+            }
+        }
+    }
+
+    /**
+     * Imports the given classes with the given class paths - in a child JVM, see {@link ImportWorker}.
+     */
+    void importClasses(Collection<String> classPaths, Collection<String> classNames) {
+        this.classPaths = new LinkedHashSet<>( classPaths.size() * 2 );
+        for (String classPath : classPaths) {
+            this.classPaths.add( new File( classPath ) );
+        }
+        initClassLoader();
+        ClassNamesQueue classNamesQueue = new ClassNamesQueue( classNames.size() + 1 );
+        for (String className : classNames) {
+            classNamesQueue.put( className );
+        }
+        classNamesQueue.finish();
+        classImporter.importClasses( classNamesQueue );
     }
 
     /**
@@ -256,6 +734,27 @@ public class BaseProjectImporter {
         return classImporter;
     }
 
+    /**
+     * Sets cache of imported jars; null disables caching.
+     */
+    void setJarModelCache(JarModelCache jarModelCache) {
+        this.jarModelCache = jarModelCache;
+    }
+
+    /**
+     * Sets number of child JVMs importing classes; 0 means import in this JVM.
+     */
+    void setProcessesCount(int processesCount) {
+        this.processesCount = processesCount;
+    }
+
+    /**
+     * Sets budget of metaspace for one class loader in bytes; 0 means one class loader for the whole import.
+     */
+    void setMetaspaceBudget(long metaspaceBudget) {
+        this.metaspaceBudget = metaspaceBudget;
+    }
+
     /**
      * Returns class names to import collected by {@link #collectClassNames(java.io.File, java.util.Collection)}.
      */
@@ -263,6 +762,13 @@ public class BaseProjectImporter {
         return classNames;
     }
 
+    /**
+     * Returns paths imported by {@link #importProject(java.util.Collection)}.
+     */
+    public Collection<File> getImportedPaths() {
+        return importedPaths;
+    }
+
     /**
      * Returns class paths collected by {@link #importProjectInternal(java.io.File)}.
      */
@@ -0,0 +1,442 @@
+package clsvis.process.importer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content of compiled class, read straight from bytes of its class file - without loading the class.<br/>
+ * Only parts required by {@link ClassFileImporter} are read, i.e. code of methods is skipped.
+ * Class names are binary names (i.e. java.util.Map$Entry), type descriptors and signatures are kept as in the file.
+ */
+class ClassFile {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // Constant pool tags
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_NameAndType = 12;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_MethodType = 16;
+    private static final int CONSTANT_Dynamic = 17;
+    private static final int CONSTANT_InvokeDynamic = 18;
+    private static final int CONSTANT_Module = 19;
+    private static final int CONSTANT_Package = 20;
+
+    // Access flags not defined in java.lang.reflect.Modifier
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_BRIDGE = 0x0040;
+    static final int ACC_VARARGS = 0x0080;
+    static final int ACC_SYNTHETIC = 0x1000;
+    static final int ACC_ANNOTATION = 0x2000;
+    static final int ACC_ENUM = 0x4000;
+    static final int ACC_MANDATED = 0x8000;
+
+    private final byte[] bytes;
+    private int pos;
+    /** Offsets of constant pool entries in {@link #bytes}. */
+    private int[] cpOffsets;
+    /** Decoded Utf8 constants. */
+    private String[] cpStrings;
+
+    int accessFlags;
+    String name;
+    String superName;
+    String[] interfaceNames;
+    String signature;
+    boolean hasEnclosingMethod;
+    String enclosingClassName;
+    boolean hasRecord;
+    boolean hasPermittedSubclasses;
+    List<InnerClass> innerClasses = Collections.emptyList();
+    List<Annotation> annotations = Collections.emptyList();
+    List<Member> fields;
+    List<Member> methods;
+
+    private ClassFile(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reads class file from the given bytes.
+     */
+    static ClassFile read(byte[] bytes) throws IOException {
+        ClassFile classFile = new ClassFile( bytes );
+        try {
+            classFile.readClass();
+        } catch (IndexOutOfBoundsException | ClassCastException e) {
+            throw new IOException( "Malformed class file", e );
+        }
+        return classFile;
+    }
+
+    private void readClass() throws IOException {
+        if (readInt() != MAGIC) {
+            throw new IOException( "Not a class file" );
+        }
+        pos += 4; // minor and major version
+        readConstantPool();
+
+        accessFlags = readU2();
+        name = className( readU2() );
+        superName = className( readU2() );
+        interfaceNames = new String[ readU2() ];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceNames[ i ] = className( readU2() );
+        }
+        fields = readMembers();
+        methods = readMembers();
+
+        int attributesCount = readU2();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = utf8( readU2() );
+            int length = readInt();
+            int end = pos + length;
+            switch (attributeName) {
+                case "Signature":
+                    signature = utf8( readU2() );
+                    break;
+                case "InnerClasses":
+                    innerClasses = readInnerClasses();
+                    break;
+                case "EnclosingMethod":
+                    hasEnclosingMethod = true;
+                    enclosingClassName = className( readU2() );
+                    break;
+                case "Record":
+                    hasRecord = true;
+                    break;
+                case "PermittedSubclasses":
+                    hasPermittedSubclasses = true;
+                    break;
+                case "RuntimeVisibleAnnotations":
+                    annotations = readAnnotations();
+                    break;
+            }
+            pos = end;
+        }
+    }
+
+    private void readConstantPool() throws IOException {
+        int count = readU2();
+        cpOffsets = new int[ count ];
+        cpStrings = new String[ count ];
+        for (int i = 1; i < count; i++) {
+            cpOffsets[ i ] = pos;
+            int tag = bytes[ pos++ ];
+            switch (tag) {
+                case CONSTANT_Utf8:
+                    pos += 2 + readU2( pos );
+                    break;
+                case CONSTANT_Class:
+                case CONSTANT_String:
+                case CONSTANT_MethodType:
+                case CONSTANT_Module:
+                case CONSTANT_Package:
+                    pos += 2;
+                    break;
+                case CONSTANT_MethodHandle:
+                    pos += 3;
+                    break;
+                case CONSTANT_Integer:
+                case CONSTANT_Float:
+                case CONSTANT_Fieldref:
+                case CONSTANT_Methodref:
+                case CONSTANT_InterfaceMethodref:
+                case CONSTANT_NameAndType:
+                case CONSTANT_Dynamic:
+                case CONSTANT_InvokeDynamic:
+                    pos += 4;
+                    break;
+                case CONSTANT_Long:
+                case CONSTANT_Double:
+                    pos += 8;
+                    i++; // takes 2 entries
+                    break;
+                default:
+                    throw new IOException( "Unknown constant pool tag " + tag );
+            }
+        }
+    }
+
+    private List<Member> readMembers() {
+        int count = readU2();
+        List<Member> members = new ArrayList<>( count );
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.accessFlags = readU2();
+            member.name = utf8( readU2() );
+            member.descriptor = utf8( readU2() );
+            int attributesCount = readU2();
+            for (int j = 0; j < attributesCount; j++) {
+                String attributeName = utf8( readU2() );
+                int length = readInt();
+                int end = pos + length;
+                switch (attributeName) {
+                    case "Signature":
+                        member.signature = utf8( readU2() );
+                        break;
+                    case "Exceptions":
+                        member.exceptionNames = new String[ readU2() ];
+                        for (int k = 0; k < member.exceptionNames.length; k++) {
+                            member.exceptionNames[ k ] = className( readU2() );
+                        }
+                        break;
+                    case "MethodParameters":
+                        member.parameters = new MethodParameter[ bytes[ pos++ ] & 0xFF ];
+                        for (int k = 0; k < member.parameters.length; k++) {
+                            MethodParameter parameter = new MethodParameter();
+                            int nameIndex = readU2();
+                            parameter.name = nameIndex != 0 ? utf8( nameIndex ) : null;
+                            parameter.accessFlags = readU2();
+                            member.parameters[ k ] = parameter;
+                        }
+                        break;
+                    case "RuntimeVisibleAnnotations":
+                        member.annotations = readAnnotations();
+                        break;
+                    case "RuntimeVisibleParameterAnnotations":
+                        member.parameterAnnotations = newAnnotationLists( bytes[ pos++ ] & 0xFF );
+                        for (int k = 0; k < member.parameterAnnotations.length; k++) {
+                            member.parameterAnnotations[ k ] = readAnnotations();
+                        }
+                        break;
+                    case "AnnotationDefault":
+                        member.annotationDefault = readElementValue();
+                        break;
+                }
+                pos = end;
+            }
+            members.add( member );
+        }
+        return members;
+    }
+
+    private List<InnerClass> readInnerClasses() {
+        int count = readU2();
+        List<InnerClass> result = new ArrayList<>( count );
+        for (int i = 0; i < count; i++) {
+            int innerIndex = readU2();
+            int outerIndex = readU2();
+            int nameIndex = readU2();
+            int flags = readU2();
+            if (innerIndex == 0) {
+                continue;
+            }
+            InnerClass innerClass = new InnerClass();
+            innerClass.name = className( innerIndex );
+            innerClass.outerName = className( outerIndex );
+            innerClass.simpleName = nameIndex != 0 ? utf8( nameIndex ) : null;
+            innerClass.accessFlags = flags;
+            result.add( innerClass );
+        }
+        return result;
+    }
+
+    /**
+     * Returns array of the given count of lists of annotations, i.e. of parameters.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Annotation>[] newAnnotationLists(int count) {
+        return (List<Annotation>[]) new List<?>[ count ];
+    }
+
+    private List<Annotation> readAnnotations() {
+        int count = readU2();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<Annotation> result = new ArrayList<>( count );
+        for (int i = 0; i < count; i++) {
+            result.add( readAnnotation() );
+        }
+        return result;
+    }
+
+    private Annotation readAnnotation() {
+        Annotation annotation = new Annotation();
+        annotation.descriptor = utf8( readU2() );
+        int count = readU2();
+        annotation.elementNames = new ArrayList<>( count );
+        annotation.elementValues = new ArrayList<>( count );
+        for (int i = 0; i < count; i++) {
+            annotation.elementNames.add( utf8( readU2() ) );
+            annotation.elementValues.add( readElementValue() );
+        }
+        return annotation;
+    }
+
+    /**
+     * Reads element value of annotation. Returns boxed primitive or String for constants,
+     * {@link ClassValue}, {@link EnumValue}, {@link Annotation} or Object[] (for arrays).
+     */
+    private Object readElementValue() {
+        char tag = (char) bytes[ pos++ ];
+        switch (tag) {
+            case 'B':
+                return (byte) readInt( cpOffsets[ readU2() ] + 1 );
+            case 'C':
+                return (char) readInt( cpOffsets[ readU2() ] + 1 );
+            case 'S':
+                return (short) readInt( cpOffsets[ readU2() ] + 1 );
+            case 'Z':
+                return readInt( cpOffsets[ readU2() ] + 1 ) != 0;
+            case 'I':
+                return readInt( cpOffsets[ readU2() ] + 1 );
+            case 'F':
+                return Float.intBitsToFloat( readInt( cpOffsets[ readU2() ] + 1 ) );
+            case 'J':
+                return readLong( cpOffsets[ readU2() ] + 1 );
+            case 'D':
+                return Double.longBitsToDouble( readLong( cpOffsets[ readU2() ] + 1 ) );
+            case 's':
+                return utf8( readU2() );
+            case 'e': {
+                EnumValue enumValue = new EnumValue();
+                enumValue.descriptor = utf8( readU2() );
+                enumValue.name = utf8( readU2() );
+                return enumValue;
+            }
+            case 'c': {
+                ClassValue classValue = new ClassValue();
+                classValue.descriptor = utf8( readU2() );
+                return classValue;
+            }
+            case '@':
+                return readAnnotation();
+            case '[': {
+                Object[] values = new Object[ readU2() ];
+                for (int i = 0; i < values.length; i++) {
+                    values[ i ] = readElementValue();
+                }
+                return values;
+            }
+            default:
+                throw new IndexOutOfBoundsException( "Unknown element value tag " + tag );
+        }
+    }
+
+    /**
+     * Returns binary name of class pointed by the given constant pool index, or null for index 0.
+     */
+    private String className(int index) {
+        return index != 0 ? utf8( readU2( cpOffsets[ index ] + 1 ) ).replace( '/', '.' ) : null;
+    }
+
+    /**
+     * Returns Utf8 constant with the given index, decoded from modified UTF-8.
+     */
+    private String utf8(int index) {
+        String result = cpStrings[ index ];
+        if (result != null) {
+            return result;
+        }
+        int offset = cpOffsets[ index ];
+        if (bytes[ offset ] != CONSTANT_Utf8) {
+            throw new ClassCastException( "Utf8 constant expected at " + index );
+        }
+        int length = readU2( offset + 1 );
+        int p = offset + 3, end = p + length;
+        char[] chars = new char[ length ];
+        int charsCount = 0;
+        while (p < end) {
+            int b = bytes[ p++ ] & 0xFF;
+            if (b < 0x80) {
+                chars[ charsCount++ ] = (char) b;
+            } else if (b < 0xE0) {
+                chars[ charsCount++ ] = (char) (((b & 0x1F) << 6) | (bytes[ p++ ] & 0x3F));
+            } else {
+                chars[ charsCount++ ] = (char) (((b & 0x0F) << 12) | ((bytes[ p++ ] & 0x3F) << 6) | (bytes[ p++ ] & 0x3F));
+            }
+        }
+        result = new String( chars, 0, charsCount );
+        cpStrings[ index ] = result;
+        return result;
+    }
+
+    private int readU2() {
+        int result = readU2( pos );
+        pos += 2;
+        return result;
+    }
+
+    private int readU2(int offset) {
+        return ((bytes[ offset ] & 0xFF) << 8) | (bytes[ offset + 1 ] & 0xFF);
+    }
+
+    private int readInt() {
+        int result = readInt( pos );
+        pos += 4;
+        return result;
+    }
+
+    private int readInt(int offset) {
+        return (readU2( offset ) << 16) | readU2( offset + 2 );
+    }
+
+    private long readLong(int offset) {
+        return ((long) readInt( offset ) << 32) | (readInt( offset + 4 ) & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * Field or method.
+     */
+    static class Member {
+
+        int accessFlags;
+        String name;
+        String descriptor;
+        String signature;
+        String[] exceptionNames = new String[ 0 ];
+        /** null if MethodParameters attribute is absent. */
+        MethodParameter[] parameters;
+        List<Annotation> annotations = Collections.emptyList();
+        /** null if RuntimeVisibleParameterAnnotations attribute is absent. */
+        List<Annotation>[] parameterAnnotations;
+        /** null if AnnotationDefault attribute is absent. */
+        Object annotationDefault;
+    } //class
+
+    static class MethodParameter {
+
+        String name;
+        int accessFlags;
+    } //class
+
+    static class InnerClass {
+
+        String name;
+        String outerName;
+        String simpleName;
+        int accessFlags;
+    } //class
+
+    static class Annotation {
+
+        String descriptor;
+        List<String> elementNames;
+        List<Object> elementValues;
+    } //class
+
+    static class EnumValue {
+
+        String descriptor;
+        String name;
+    } //class
+
+    static class ClassValue {
+
+        String descriptor;
+    } //class
+}
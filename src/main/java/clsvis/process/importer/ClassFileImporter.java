@@ -0,0 +1,1270 @@
+package clsvis.process.importer;
+
+import clsvis.model.Annotation_;
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.ElementModifier;
+import clsvis.model.ElementVisibility;
+import clsvis.model.LangElement;
+import clsvis.model.Operation;
+import clsvis.model.ParameterizableElement;
+import clsvis.model.RelationType;
+import clsvis.process.importer.TypeSignature.ArrayType;
+import clsvis.process.importer.TypeSignature.BaseType;
+import clsvis.process.importer.TypeSignature.ClassSignature;
+import clsvis.process.importer.TypeSignature.ClassType;
+import clsvis.process.importer.TypeSignature.MethodSignature;
+import clsvis.process.importer.TypeSignature.TypeParameter;
+import clsvis.process.importer.TypeSignature.TypeVariable;
+import clsvis.process.importer.TypeSignature.Wildcard;
+import java.beans.Introspector;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+
+/**
+ * Imports classes straight from their class files - without loading them.<br/>
+ * It builds the same model as {@link CompiledClassImporter}, with the same ids and names of elements,
+ * but it's faster and lighter on memory, because no classes are defined in the JVM.
+ * Class files are located by the class loader set by {@link #setClassLoader(java.net.URLClassLoader)},
+ * which is only asked for resources.<br/>
+ * Classes, which class files are missing, are represented by classes without members,
+ * so the import works also when some dependencies are not available.
+ */
+public class ClassFileImporter extends CompiledClassImporter {
+
+    private static final Logger logger = Logger.getLogger( ClassFileImporter.class.getName() );
+
+    /** Flags kept by {@link Class#getModifiers()}. */
+    private static final int CLASS_MODIFIERS_MASK = 0x7FFF & ~ClassFile.ACC_SUPER;
+    /** Flags kept by {@link java.lang.reflect.Field#getModifiers()}. */
+    private static final int FIELD_MODIFIERS_MASK = 0x50DF;
+    /** Flags kept by {@link java.lang.reflect.Method#getModifiers()}. */
+    private static final int METHOD_MODIFIERS_MASK = 0x1DFF;
+    /** Flags printed by {@link java.lang.reflect.Method#toGenericString()}. */
+    private static final int METHOD_PRINTED_MODIFIERS = Modifier.methodModifiers();
+    /** Flags printed by {@link java.lang.reflect.Constructor#toGenericString()}. */
+    private static final int CONSTRUCTOR_PRINTED_MODIFIERS = Modifier.constructorModifiers();
+
+    private static final int ACC_MODULE = 0x8000;
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final String STATIC_INITIALIZER_NAME = "<clinit>";
+    private static final String RETENTION_DESCRIPTOR = "Ljava/lang/annotation/Retention;";
+
+    /* FIELDS - caches valid for the current class loader */
+    /** Map[className] = nesting of the class */
+    private final Map<String, ClassNesting> classNestings = new ConcurrentHashMap<>( 0x4000 );
+    /** Map[className] = super class name, empty for classes without super class */
+    private final Map<String, String> superClassNames = new ConcurrentHashMap<>( 0x4000 );
+    /** Map[className] = type parameters of the class */
+    private final Map<String, TypeScope> classTypeScopes = new ConcurrentHashMap<>( 0x1000 );
+    /** Map[annotationTypeName] = annotation type */
+    private final Map<String, AnnotationType> annotationTypes = new ConcurrentHashMap<>( 0x100 );
+
+    @Override
+    protected void importClassAndRelations(String className) throws ClassNotFoundException {
+        Class_ class_ = importedClasses.get( className );
+        if (class_ == null) {
+            ClassFile classFile = readClassFile( className );
+            if (classFile == null) {
+                throw new ClassNotFoundException( className );
+            }
+            class_ = importClassInternal( classFile );
+        }
+        importRelations( class_ );
+    }
+
+    @Override
+    public Class_ importClass(Class clazz) {
+        Class_ class_ = importClassInternal( clazz );
+        importRelations( class_ );
+        return class_;
+    }
+
+    @Override
+    public Class_ importClassInternal(Class clazz) {
+        return importClassInternal( clazz.getName() );
+    }
+
+    @Override
+    protected Class_ importClassInternal(String className) {
+        if (className == null) {
+            return null;
+        }
+        className = getElementClassName( className );
+        if (className == null) {
+            return null;
+        }
+        Class_ cached = importedClasses.get( className );
+        if (cached != null) {
+            return cached;
+        }
+        ClassFile classFile = readClassFile( className );
+        if (classFile == null) {
+            // Missing dependency
+            logger.log( Level.FINE, "Class file not found: {0}", className );
+            String finalClassName = className;
+            return constructClass( className, () -> createMissingClass( finalClassName ), Class_::membersFinished );
+        }
+        return importClassInternal( classFile );
+    }
+
+    private Class_ importClassInternal(ClassFile classFile) {
+        if ((classFile.accessFlags & ACC_MODULE) != 0) {
+            throw new ClassFormatError( "Module descriptor is not a class: " + classFile.name );
+        }
+        if (isAnonymous( classFile.name )) {
+            return null;
+        }
+        return constructClass( classFile.name,
+                () -> createClass( classFile ),
+                class_ -> importClassInternal0( classFile, class_ ) );
+    }
+
+    /**
+     * Returns name of class being element of the given array type, or the given name for non-array types.
+     * Returns null for primitive types.
+     */
+    private static String getElementClassName(String className) {
+        if (!className.startsWith( "[" )) {
+            return className;
+        }
+        int dimensions = className.lastIndexOf( '[' ) + 1;
+        return className.charAt( dimensions ) == 'L'
+                ? className.substring( dimensions + 1, className.length() - 1 ) : null;
+    }
+
+    private Class_ createClass(ClassFile classFile) {
+        int modifiers = getClassModifiers( classFile );
+        ClassNesting nesting = getNesting( classFile.name );
+        Collection<ElementModifier> classModifiers = ElementModifier.setOf( decodeModifiers( modifiers )
+                | bitIf( ElementModifier.Interface, (modifiers & Modifier.INTERFACE) != 0 )
+                | bitIf( ElementModifier.Enum, (modifiers & ClassFile.ACC_ENUM) != 0
+                        && Enum.class.getName().equals( classFile.superName ) )
+                | bitIf( ElementModifier.Annotation, (modifiers & ClassFile.ACC_ANNOTATION) != 0 )
+                | bitIf( ElementModifier.Record, classFile.hasRecord
+                        && "java.lang.Record".equals( classFile.superName ) )
+                | bitIf( ElementModifier.Sealed, classFile.hasPermittedSubclasses )
+                | bitIf( ElementModifier.LocalClass, classFile.hasEnclosingMethod
+                        && !nesting.topLevel && nesting.simpleName != null )
+                | bitIf( ElementModifier.MemberClass, !classFile.hasEnclosingMethod
+                        && nesting.outerName != null )
+                | bitIf( ElementModifier.Synthetic, (modifiers & ClassFile.ACC_SYNTHETIC) != 0 ) );
+
+        ClassSignature signature = getClassSignature( classFile );
+        String className = classFile.name;
+        String canonicalName = getCanonicalName( className );
+        String fullTypeName = canonicalName != null ? canonicalName : className;
+        String simpleName = getSimpleName( className );
+
+        return new Class_(
+                fullTypeName,
+                simpleName,
+                fullTypeName,
+                LangElement.removePackages( simpleName.isEmpty() ? fullTypeName : simpleName ),
+                className,
+                getTypeParametersString( signature.typeParameters ),
+                classModifiers,
+                getKind( classModifiers, classFile ),
+                getVisibility( classModifiers ) );
+    }
+
+    private Class_ createMissingClass(String className) {
+        String canonicalName = getCanonicalName( className );
+        String fullTypeName = canonicalName != null ? canonicalName : className;
+        String simpleName = getSimpleName( className );
+        return new Class_( fullTypeName, simpleName, fullTypeName,
+                LangElement.removePackages( simpleName.isEmpty() ? fullTypeName : simpleName ), className, "",
+                Collections.emptyList(), ElementKind.Class, ElementVisibility.Package );
+    }
+
+    private void importClassInternal0(ClassFile classFile, Class_ class_) {
+        String className = classFile.name;
+        ClassSignature signature = getClassSignature( classFile );
+        TypeScope typeScope = getClassTypeScope( classFile );
+        boolean isInterface = (classFile.accessFlags & Modifier.INTERFACE) != 0;
+
+        // Store relation with super class
+        if (!isInterface && classFile.superName != null) {
+            ClassType superClass = new ClassType( classFile.superName, null, null );
+            Class_ superClass_ = importClassInternal( classFile.superName );
+            class_.addRelation( RelationType.SuperClass, superClass_ );
+            class_.addMember( createElement( "extends", "extends", superClass, signature.superClass,
+                    Collections.emptyList(), ElementKind.Extends, ElementVisibility.Local ) );
+            // Process parameterized super class as dependency
+            importTypeParameters( signature.superClass, superClass, class_.typeParameters, typeScope );
+        }
+        // Process eventual type params
+        for (TypeParameter typeParameter : signature.typeParameters) {
+            importTypeParameters( new TypeVariable( typeParameter.name ), new ClassType( className, null, null ),
+                    class_.typeParameters, typeScope );
+        }
+        // Import super interfaces
+        ClassType[] superInterfaces = new ClassType[ classFile.interfaceNames.length ];
+        for (int i = 0; i < superInterfaces.length; i++) {
+            superInterfaces[ i ] = new ClassType( classFile.interfaceNames[ i ], null, null );
+        }
+        ClassType[] superGenericInterfaces = signature.interfaces.length == superInterfaces.length
+                ? signature.interfaces : superInterfaces;
+        for (int i = 0; i < superInterfaces.length; i++) {
+            class_.addMember( createElement( "implements" + (i + 1), "implements" + (i + 1),
+                    superInterfaces[ i ], superGenericInterfaces[ i ],
+                    Collections.emptyList(), ElementKind.Implements, ElementVisibility.Local ) );
+        }
+        for (String superInterfaceName : classFile.interfaceNames) {
+            class_.addSuperInterface( importClassInternal( superInterfaceName ) );
+        }
+        // Process parameterized interfaces as dependencies
+        for (int i = 0; i < superInterfaces.length; i++) {
+            importTypeParameters( superGenericInterfaces[ i ], superInterfaces[ i ], class_.typeParameters, typeScope );
+        }
+        // Import inner classes - compositions
+        for (ClassFile.InnerClass innerClass : classFile.innerClasses) {
+            if (!className.equals( innerClass.outerName ) || className.equals( innerClass.name )) {
+                continue;
+            }
+            try {
+                Class_ innerClass_ = importClassInternal( innerClass.name );
+                if (innerClass_ != null) {
+                    class_.addRelation( RelationType.InnerClass, innerClass_ );
+                }
+            } catch (Throwable t) {
+                // Error during importing inner class doesn't affect parent
+                processThrowable( Level.WARNING, t, innerClass.name );
+            }
+        }
+
+        // Import remaining members
+        List<ClassFile.Member> fields = new ArrayList<>( classFile.fields );
+        importMethods( classFile, fields, class_, typeScope );
+        importFields( fields, class_, typeScope );
+        importAnnotations( classFile.annotations, class_.annotations );
+
+        // Additional cleanup
+        class_.membersFinished();
+    }
+
+    /**
+     * Imports fields and breaks them down into constants and attributes.
+     */
+    private void importFields(List<ClassFile.Member> fields, Class_ class_, TypeScope typeScope) {
+        for (ClassFile.Member field : fields) {
+            int modifiers = decodeFieldModifiers( field );
+            TypeSignature type = TypeSignature.parseFieldSignature( field.descriptor );
+            TypeSignature genericType = getFieldGenericType( field, type );
+            ElementKind kind = ElementKind.Fields;
+
+            // Check if it is constant
+            if ((modifiers & CONSTANT_BITS) == CONSTANT_BITS) {
+                // Remove constant designator - it's a trash in that context
+                modifiers &= ~CONSTANT_BITS;
+                kind = ElementKind.Constants;
+            }
+            Collection<ElementModifier> elementModifiers = ElementModifier.setOf( modifiers );
+            ParameterizableElement attribute = createElement( getFieldId( field, type, class_ ), field.name,
+                    type, genericType, elementModifiers, kind, getVisibility( elementModifiers ) );
+
+            class_.addMember( attribute );
+            importAnnotations( field.annotations, attribute.annotations );
+
+            // Process parameterized types as associations
+            importTypeParameters( genericType, type, attribute.typeParameters, typeScope );
+        }
+    }
+
+    /**
+     * Imports methods and constructors. Methods are broken down into properties and operations.
+     * This method removes fields used by properties from <code>fields</code> in-out parameter.
+     */
+    private void importMethods(ClassFile classFile, List<ClassFile.Member> fields, Class_ class_,
+            TypeScope classTypeScope) {
+
+        Set<ClassFile.Member> methodsToIgnore = new HashSet<>();
+        MemberIndex<ClassFile.Member> methodIndex = null;
+        MemberIndex<ClassFile.Member> fieldIndex = null;
+
+        // Looking for properties
+        for (ClassFile.Member method : classFile.methods) {
+            String name = method.name;
+            if (name.startsWith( "<" ) || !method.descriptor.startsWith( "()" )) {
+                continue;
+            }
+            int modifiers = decodeMethodModifiers( method, classFile );
+
+            // Is it getter (non-static, without params) ?
+            Matcher accessorMatcher = getterPattern.matcher( name );
+            boolean getterFound
+                    = accessorMatcher.matches()
+                    && (modifiers & ElementModifier.Static.bit()) == 0;
+            if (!getterFound) {
+                continue;
+            }
+            // Property found
+            MethodSignature descriptor = TypeSignature.parseMethodSignature( method.descriptor );
+            if (methodIndex == null) {
+                methodIndex = new MemberIndex<>( classFile.methods, ClassFileImporter::getMethodKey );
+                fieldIndex = new MemberIndex<>( classFile.fields, member -> member.name );
+            }
+            Collection<Annotation_> annotations = new LinkedHashSet<>();
+            importAnnotations( method.annotations, annotations );
+            // Look for eventual matching setter
+            int getterVisibility = modifiers & VISIBILITY_BITS;
+            String propertyName = accessorMatcher.group( 2 );
+            String returnDescriptor = method.descriptor.substring( 2 );
+            ClassFile.Member setter = methodIndex.getFirst( "set" + propertyName + "(" + returnDescriptor + ")" );
+            boolean setterFound = false;
+            if (setter != null) {
+                int setterModifiers = decodeMethodModifiers( setter, classFile );
+                setterFound
+                        = (setterModifiers & ElementModifier.Static.bit()) == 0
+                        && (setterModifiers & VISIBILITY_BITS) == getterVisibility;
+                if (setterFound) {
+                    modifiers |= setterModifiers;
+                    importAnnotations( setter.annotations, annotations );
+                    methodsToIgnore.add( setter );
+                }
+            }
+
+            // Is it read-only property?
+            if (!setterFound) {
+                modifiers |= ElementModifier.ReadOnly.bit();
+            }
+
+            // Look for eventual matching attribute
+            String attributeName = Introspector.decapitalize( propertyName );
+            ClassFile.Member attribute = fieldIndex.getFirst( attributeName );
+            if (attribute != null && attribute.descriptor.equals( returnDescriptor )) {
+                modifiers |= decodeFieldModifiers( attribute );
+                importAnnotations( attribute.annotations, annotations );
+                fields.remove( attribute );
+            }
+
+            // Remove visibility modifiers and set the one from getter
+            modifiers = modifiers & ~VISIBILITY_BITS | getterVisibility;
+
+            // Create property
+            Collection<ElementModifier> elementModifiers = ElementModifier.setOf( modifiers );
+            MethodSignature signature = getMethodSignature( method, descriptor );
+            TypeScope typeScope = new TypeScope( signature.typeParameters, classTypeScope, null );
+            ParameterizableElement property = createElement(
+                    getMethodId( classFile, method, descriptor, signature, false ), attributeName,
+                    descriptor.returnType, signature.returnType,
+                    elementModifiers, ElementKind.Properties, getVisibility( elementModifiers ) );
+            property.annotations.addAll( annotations );
+            class_.addMember( property );
+
+            // Remove getter from further processing
+            methodsToIgnore.add( method );
+
+            // Process parameterized types as associations
+            importTypeParameters( signature.returnType, descriptor.returnType, property.typeParameters, typeScope );
+        }
+
+        // Processing remaining operations and constructors
+        for (ClassFile.Member method : classFile.methods) {
+            if (methodsToIgnore.contains( method ) || STATIC_INITIALIZER_NAME.equals( method.name )) {
+                continue;
+            }
+            boolean isConstructor = CONSTRUCTOR_NAME.equals( method.name );
+            importOperation( classFile, method, isConstructor,
+                    ElementModifier.setOf( isConstructor
+                            ? decodeConstructorModifiers( method ) : decodeMethodModifiers( method, classFile ) ),
+                    class_, classTypeScope );
+        }
+    }
+
+    /**
+     * Common function for import all operations (methods and constructors).
+     */
+    private void importOperation(ClassFile classFile, ClassFile.Member method, boolean isConstructor,
+            Collection<ElementModifier> modifiers, Class_ class_, TypeScope classTypeScope) {
+        MethodSignature descriptor = TypeSignature.parseMethodSignature( method.descriptor );
+        MethodSignature signature = getMethodSignature( method, descriptor );
+        TypeScope typeScope = new TypeScope( signature.typeParameters, classTypeScope, null );
+        boolean isVarArgs = (method.accessFlags & ClassFile.ACC_VARARGS) != 0;
+
+        // Process parameters
+        int paramsCount = descriptor.parameters.length;
+        boolean realParameterData = method.parameters != null && method.parameters.length == paramsCount;
+        TypeSignature[] genericParamTypes = getAllGenericParameterTypes( method, descriptor, signature,
+                realParameterData );
+        List<ClassFile.Annotation>[] paramsAnnotations = getParameterAnnotations( method, paramsCount );
+        ArrayList<ParameterizableElement> parameters = new ArrayList<>( paramsCount );
+        for (int i = 0; i < paramsCount; i++) {
+            ClassFile.MethodParameter methodParam = realParameterData ? method.parameters[ i ] : null;
+            String paramName = methodParam != null && methodParam.name != null && !methodParam.name.isEmpty()
+                    ? methodParam.name : "arg" + i;
+            int paramFlags = methodParam != null ? methodParam.accessFlags : 0;
+            Collection<ElementModifier> paramModifiers = ElementModifier.setOf( decodeModifiers( paramFlags )
+                    | bitIf( ElementModifier.Implicit, (paramFlags & ClassFile.ACC_MANDATED) != 0 )
+                    | bitIf( ElementModifier.Synthetic, (paramFlags & ClassFile.ACC_SYNTHETIC) != 0 )
+                    | bitIf( ElementModifier.VarArgs, isVarArgs && i == paramsCount - 1 ) );
+
+            ParameterizableElement parameter = createElement( paramName, paramName,
+                    descriptor.parameters[ i ], genericParamTypes[ i ],
+                    paramModifiers, ElementKind.Parameters, ElementVisibility.Local );
+            importAnnotations( paramsAnnotations[ i ], parameter.annotations );
+            parameters.add( parameter );
+
+            // Process parameterized type as dependency
+            importTypeParameters( genericParamTypes[ i ], descriptor.parameters[ i ], parameter.typeParameters,
+                    typeScope );
+        }
+        // Process throws
+        String[] exceptionNames = method.exceptionNames;
+        ArrayList<ParameterizableElement> throwables = new ArrayList<>( exceptionNames.length );
+        for (int i = 0; i < exceptionNames.length; i++) {
+            ClassType exceptionType = new ClassType( exceptionNames[ i ], null, null );
+            throwables.add( createElement(
+                    String.format( "[%d] %s", (i + 1), getCanonicalName( exceptionNames[ i ] ) ),
+                    "e" + (i + 1), exceptionType, exceptionType, Collections.emptyList(),
+                    ElementKind.Throws, ElementVisibility.Local ) );
+        }
+        // Create operation
+        TypeSignature methodType = isConstructor ? new BaseType( "void" ) : descriptor.returnType;
+        TypeSignature methodGenericType = isConstructor ? methodType : signature.returnType;
+        String[] typeNames = getTypeNames( methodType, methodGenericType );
+        Operation operation = new Operation(
+                getMethodId( classFile, method, descriptor, signature, isConstructor ),
+                isConstructor ? getSimpleName( classFile.name ) : method.name,
+                typeNames[ 0 ], typeNames[ 1 ], typeNames[ 2 ], modifiers,
+                isConstructor ? ElementKind.Constructors : ElementKind.Methods, getVisibility( modifiers ),
+                parameters.isEmpty() ? Collections.emptyList() : parameters,
+                throwables.isEmpty() ? Collections.emptyList() : throwables );
+        importAnnotations( method.annotations, operation.annotations );
+        class_.addMember( operation );
+
+        // Process parameterized type as dependency
+        importTypeParameters( methodGenericType, methodType, operation.typeParameters, typeScope );
+    }
+
+    /**
+     * Returns generic types of all parameters - the same way as reflection does,
+     * also for signatures without synthetic and mandated parameters.
+     */
+    private static TypeSignature[] getAllGenericParameterTypes(ClassFile.Member method, MethodSignature descriptor,
+            MethodSignature signature, boolean realParameterData) {
+        TypeSignature[] types = descriptor.parameters;
+        TypeSignature[] genericTypes = signature.parameters;
+        if (method.signature == null) {
+            return types;
+        }
+        if (realParameterData) {
+            TypeSignature[] results = new TypeSignature[ types.length ];
+            int genericIdx = 0;
+            for (int i = 0; i < results.length; i++) {
+                int paramFlags = method.parameters[ i ].accessFlags;
+                results[ i ] = (paramFlags & (ClassFile.ACC_SYNTHETIC | ClassFile.ACC_MANDATED)) != 0
+                        || genericIdx >= genericTypes.length ? types[ i ] : genericTypes[ genericIdx++ ];
+            }
+            return results;
+        }
+        return genericTypes.length == types.length ? genericTypes : types;
+    }
+
+    /**
+     * Returns annotations of parameters, shifted down in case of missing implicit leading parameters.
+     */
+    private static List<ClassFile.Annotation>[] getParameterAnnotations(ClassFile.Member method, int paramsCount) {
+        List<ClassFile.Annotation>[] results = ClassFile.newAnnotationLists( paramsCount );
+        List<ClassFile.Annotation>[] declared = method.parameterAnnotations;
+        int shift = declared != null ? paramsCount - declared.length : paramsCount;
+        for (int i = 0; i < paramsCount; i++) {
+            results[ i ] = i >= shift && i - shift < declared.length
+                    ? declared[ i - shift ] : Collections.emptyList();
+        }
+        return results;
+    }
+
+    /**
+     * Returns name of the given method followed by descriptor of its parameters - i.e. "setName(Ljava/lang/String;)".
+     */
+    private static String getMethodKey(ClassFile.Member method) {
+        return method.name + method.descriptor.substring( 0, method.descriptor.indexOf( ')' ) + 1 );
+    }
+
+    private void importAnnotations(List<ClassFile.Annotation> declaredAnnotations,
+            Collection<Annotation_> annotations) {
+        for (ClassFile.Annotation declaredAnnotation : declaredAnnotations) {
+            String typeName = getAnnotationTypeName( declaredAnnotation );
+            AnnotationType annotationType = typeName != null ? getAnnotationType( typeName ) : null;
+            if (annotationType == null || !annotationType.runtimeRetention) {
+                // The same as reflection: missing types and not visible at runtime are skipped
+                continue;
+            }
+            String[] typeNames = getTypeNames( new ClassType( typeName, null, null ), null );
+            annotations.add( Annotation_.of(
+                    getAnnotationString( declaredAnnotation, typeName, annotationType ),
+                    "@" + getSimpleName( typeName ),
+                    typeNames[ 0 ], typeNames[ 1 ], typeNames[ 2 ] ) );
+        }
+    }
+
+    private static String getAnnotationTypeName(ClassFile.Annotation annotation) {
+        TypeSignature type = TypeSignature.parseFieldSignature( annotation.descriptor );
+        return type instanceof ClassType ? ((ClassType) type).name : null;
+    }
+
+    /**
+     * Returns string representation of the annotation in form of {@link java.lang.annotation.Annotation#toString()}.
+     */
+    private String getAnnotationString(ClassFile.Annotation annotation, String typeName,
+            AnnotationType annotationType) {
+        Map<String, Object> values = new LinkedHashMap<>( annotationType.memberDefaults );
+        for (int i = 0; i < annotation.elementNames.size(); i++) {
+            String elementName = annotation.elementNames.get( i );
+            if (annotationType == AnnotationType.UNKNOWN || annotationType.memberNames.contains( elementName )) {
+                values.put( elementName, annotation.elementValues.get( i ) );
+            }
+        }
+
+        StringBuilder sb = new StringBuilder( 0x80 );
+        sb.append( '@' ).append( typeName ).append( '(' );
+        boolean loneValue = values.size() == 1;
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            if (sb.charAt( sb.length() - 1 ) != '(') {
+                sb.append( ", " );
+            }
+            if (!loneValue || !"value".equals( e.getKey() )) {
+                sb.append( e.getKey() ).append( '=' );
+            }
+            appendElementValue( sb, e.getValue() );
+        }
+        return sb.append( ')' ).toString();
+    }
+
+    private void appendElementValue(StringBuilder sb, Object value) {
+        if (value instanceof String) {
+            sb.append( '"' );
+            for (char c : ((String) value).toCharArray()) {
+                sb.append( quote( c ) );
+            }
+            sb.append( '"' );
+        } else if (value instanceof Character) {
+            sb.append( '\'' ).append( quote( (Character) value ) ).append( '\'' );
+        } else if (value instanceof Float) {
+            float f = (Float) value;
+            sb.append( Float.isNaN( f ) ? "0.0f/0.0f" : Float.isInfinite( f ) ? (f < 0 ? "-1.0f/0.0f" : "1.0f/0.0f")
+                    : Float.toString( f ) + "f" );
+        } else if (value instanceof Double) {
+            double d = (Double) value;
+            sb.append( Double.isNaN( d ) ? "0.0/0.0" : Double.isInfinite( d ) ? (d < 0 ? "-1.0/0.0" : "1.0/0.0")
+                    : Double.toString( d ) );
+        } else if (value instanceof Long) {
+            sb.append( value ).append( 'L' );
+        } else if (value instanceof Byte) {
+            sb.append( String.format( "(byte)0x%02x", value ) );
+        } else if (value instanceof ClassFile.ClassValue) {
+            TypeSignature type = TypeSignature.parseFieldSignature( ((ClassFile.ClassValue) value).descriptor );
+            sb.append( getTypeName( type ) ).append( ".class" );
+        } else if (value instanceof ClassFile.EnumValue) {
+            sb.append( ((ClassFile.EnumValue) value).name );
+        } else if (value instanceof ClassFile.Annotation) {
+            ClassFile.Annotation annotation = (ClassFile.Annotation) value;
+            String typeName = getAnnotationTypeName( annotation );
+            AnnotationType annotationType = typeName != null ? getAnnotationType( typeName ) : null;
+            sb.append( getAnnotationString( annotation, typeName,
+                    annotationType != null ? annotationType : AnnotationType.UNKNOWN ) );
+        } else if (value instanceof Object[]) {
+            sb.append( '{' );
+            Object[] values = (Object[]) value;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append( ", " );
+                }
+                appendElementValue( sb, values[ i ] );
+            }
+            sb.append( '}' );
+        } else {
+            sb.append( value );
+        }
+    }
+
+    /**
+     * Escapes a character the same way as {@link java.lang.annotation.Annotation#toString()} does.
+     */
+    private static String quote(char c) {
+        switch (c) {
+            case '\b':
+                return "\\b";
+            case '\f':
+                return "\\f";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            case '\'':
+                return "\\'";
+            case '\"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            default:
+                return c >= ' ' && c <= '~' ? String.valueOf( c ) : String.format( "\\u%04x", (int) c );
+        }
+    }
+
+    private AnnotationType getAnnotationType(String typeName) {
+        AnnotationType annotationType = annotationTypes.get( typeName );
+        if (annotationType == null) {
+            ClassFile classFile = readClassFile( typeName );
+            annotationType = classFile != null && (classFile.accessFlags & ClassFile.ACC_ANNOTATION) != 0
+                    ? new AnnotationType( classFile ) : AnnotationType.UNKNOWN;
+            annotationTypes.putIfAbsent( typeName, annotationType );
+        }
+        return annotationType != AnnotationType.UNKNOWN ? annotationType : null;
+    }
+
+    /**
+     * Imports names of classes used by the given type as type arguments, bounds or array elements.
+     */
+    private void importTypeParameters(TypeSignature declaredType, TypeSignature classExclusion,
+            Collection<String> typeParameters, TypeScope typeScope) {
+        if (!declaredType.isClass()) {
+            importTypeParameters( declaredType, getBinaryName( classExclusion ), typeParameters, typeScope,
+                    new ArrayList<>( 2 ) );
+        }
+    }
+
+    private void importTypeParameters(TypeSignature declaredType, String classExclusion,
+            Collection<String> typeParameters, TypeScope typeScope, List<String> variablesHistory) {
+        if (declaredType.isClass()) {
+            TypeSignature type = declaredType instanceof ArrayType
+                    ? ((ArrayType) declaredType).getElementType() : declaredType;
+            if (type instanceof ClassType) {
+                String typeName = ((ClassType) type).name;
+                if (!classExclusion.equals( typeName ) && !typeParameters.contains( typeName )
+                        && !isAnonymous( typeName )) {
+                    typeParameters.add( typeName );
+                }
+            }
+        } else if (declaredType instanceof ClassType) {
+            ClassType parameterizedType = (ClassType) declaredType;
+            importTypeParameters( new ClassType( parameterizedType.name, null, null ), classExclusion,
+                    typeParameters, typeScope, variablesHistory );
+            for (TypeSignature actualTypeArg : parameterizedType.arguments) {
+                importTypeParameters( actualTypeArg, classExclusion, typeParameters, typeScope, variablesHistory );
+            }
+        } else if (declaredType instanceof Wildcard) {
+            importTypeParameters( ((Wildcard) declaredType).bound, classExclusion, typeParameters, typeScope,
+                    variablesHistory );
+        } else if (declaredType instanceof ArrayType) {
+            importTypeParameters( ((ArrayType) declaredType).componentType, classExclusion, typeParameters,
+                    typeScope, variablesHistory );
+        } else if (declaredType instanceof TypeVariable) {
+            String variableName = ((TypeVariable) declaredType).name;
+            if (variablesHistory.contains( variableName )) {
+                return;
+            }
+            // History is a stack of walked variables - no copy is needed
+            variablesHistory.add( variableName );
+            for (TypeSignature bound : typeScope.getBounds( variableName )) {
+                importTypeParameters( bound, classExclusion, typeParameters, typeScope, variablesHistory );
+            }
+            variablesHistory.remove( variablesHistory.size() - 1 );
+        }
+    }
+
+    private ElementKind getKind(Collection<ElementModifier> modifiers, ClassFile classFile) {
+        if (modifiers.contains( ElementModifier.Annotation )) {
+            return ElementKind.AnnotationType;
+        }
+        if (modifiers.contains( ElementModifier.Interface )) {
+            return ElementKind.Interface;
+        }
+        if (modifiers.contains( ElementModifier.Enum )) {
+            return ElementKind.Enum;
+        }
+        // Check if throwable
+        String className = classFile.name;
+        String superClassName = classFile.superName;
+        while (superClassName != null && !Object.class.getName().equals( superClassName )) {
+            className = superClassName;
+            superClassName = getSuperClassName( className );
+        }
+        if (Throwable.class.getName().equals( className )) {
+            return ElementKind.Throwable;
+        }
+        return ElementKind.Class;
+    }
+
+    /* MODIFIERS */
+
+    /**
+     * Returns modifiers of class, as returned by {@link Class#getModifiers()}.
+     */
+    private static int getClassModifiers(ClassFile classFile) {
+        int modifiers = classFile.accessFlags;
+        for (ClassFile.InnerClass innerClass : classFile.innerClasses) {
+            if (classFile.name.equals( innerClass.name )) {
+                modifiers = innerClass.accessFlags;
+                break;
+            }
+        }
+        return modifiers & CLASS_MODIFIERS_MASK;
+    }
+
+    private static int decodeFieldModifiers(ClassFile.Member field) {
+        int modifiers = field.accessFlags & FIELD_MODIFIERS_MASK;
+        return decodeModifiers( modifiers )
+                | bitIf( ElementModifier.Synthetic, (modifiers & ClassFile.ACC_SYNTHETIC) != 0 );
+    }
+
+    private static int decodeConstructorModifiers(ClassFile.Member constructor) {
+        int modifiers = constructor.accessFlags & METHOD_MODIFIERS_MASK;
+        return decodeModifiers( modifiers )
+                | bitIf( ElementModifier.Synthetic, (modifiers & ClassFile.ACC_SYNTHETIC) != 0 );
+    }
+
+    private static int decodeMethodModifiers(ClassFile.Member method, ClassFile classFile) {
+        int modifiers = method.accessFlags & METHOD_MODIFIERS_MASK;
+        return decodeModifiers( modifiers )
+                | bitIf( ElementModifier.Synthetic, (modifiers & ClassFile.ACC_SYNTHETIC) != 0 )
+                | bitIf( ElementModifier.Bridge, (modifiers & ClassFile.ACC_BRIDGE) != 0 )
+                | bitIf( ElementModifier.Default, isDefault( method, classFile ) );
+    }
+
+    private static boolean isDefault(ClassFile.Member method, ClassFile classFile) {
+        return (method.accessFlags & (Modifier.ABSTRACT | Modifier.PUBLIC | Modifier.STATIC)) == Modifier.PUBLIC
+                && (classFile.accessFlags & Modifier.INTERFACE) != 0;
+    }
+
+    /* IDS OF MEMBERS */
+
+    /**
+     * Returns id of field in form of {@link java.lang.reflect.Field#toString()}.
+     */
+    private String getFieldId(ClassFile.Member field, TypeSignature type, Class_ class_) {
+        int modifiers = field.accessFlags & FIELD_MODIFIERS_MASK;
+        return (modifiers == 0 ? "" : Modifier.toString( modifiers ) + " ")
+                + getTypeName( type ) + " " + class_.originalTypeName + "." + field.name;
+    }
+
+    /**
+     * Returns id of method or constructor in form of {@link java.lang.reflect.Method#toGenericString()}.
+     */
+    private String getMethodId(ClassFile classFile, ClassFile.Member method, MethodSignature descriptor,
+            MethodSignature signature, boolean isConstructor) {
+        StringBuilder sb = new StringBuilder( 0x80 );
+        int modifiers = method.accessFlags & METHOD_MODIFIERS_MASK
+                & (isConstructor ? CONSTRUCTOR_PRINTED_MODIFIERS : METHOD_PRINTED_MODIFIERS);
+        boolean isDefault = !isConstructor && isDefault( method, classFile );
+        if (modifiers != 0 && !isDefault) {
+            sb.append( Modifier.toString( modifiers ) ).append( ' ' );
+        } else {
+            int accessModifiers = modifiers & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE);
+            if (accessModifiers != 0) {
+                sb.append( Modifier.toString( accessModifiers ) ).append( ' ' );
+            }
+            if (isDefault) {
+                sb.append( "default " );
+            }
+            modifiers &= ~(Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE);
+            if (modifiers != 0) {
+                sb.append( Modifier.toString( modifiers ) ).append( ' ' );
+            }
+        }
+
+        if (signature.typeParameters.length > 0) {
+            sb.append( '<' );
+            for (TypeParameter typeParameter : signature.typeParameters) {
+                sb.append( typeParameter.name );
+                TypeSignature[] bounds = typeParameter.bounds;
+                if (bounds.length != 1 || !(bounds[ 0 ] instanceof ClassType && ((ClassType) bounds[ 0 ]).isObject())) {
+                    sb.append( " extends " );
+                    for (TypeSignature bound : bounds) {
+                        sb.append( getTypeName( bound ) ).append( " & " );
+                    }
+                    sb.setLength( sb.length() - 3 );
+                }
+                sb.append( ',' );
+            }
+            sb.setLength( sb.length() - 1 );
+            sb.append( "> " );
+        }
+
+        if (!isConstructor) {
+            sb.append( getTypeName( signature.returnType ) ).append( ' ' );
+        }
+        sb.append( classFile.name );
+        if (!isConstructor) {
+            sb.append( '.' ).append( method.name );
+        }
+
+        sb.append( '(' );
+        TypeSignature[] params = signature.parameters;
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                sb.append( ',' );
+            }
+            String param = getTypeName( params[ i ] );
+            if ((method.accessFlags & ClassFile.ACC_VARARGS) != 0 && i == params.length - 1) {
+                param = param.replaceFirst( "\\[\\]$", "..." );
+            }
+            sb.append( param );
+        }
+        sb.append( ')' );
+
+        if (signature.exceptions.length > 0) {
+            sb.append( " throws " );
+            for (TypeSignature exception : signature.exceptions) {
+                sb.append( getTypeName( exception ) ).append( ',' );
+            }
+            sb.setLength( sb.length() - 1 );
+        } else if (method.exceptionNames.length > 0) {
+            sb.append( " throws " ).append( String.join( ",", method.exceptionNames ) );
+        }
+        return sb.toString();
+    }
+
+    /* SIGNATURES */
+
+    private ClassSignature getClassSignature(ClassFile classFile) {
+        if (classFile.signature != null) {
+            try {
+                return TypeSignature.parseClassSignature( classFile.signature );
+            } catch (RuntimeException e) {
+                logger.log( Level.FINER, "Wrong signature of class {0}: {1}",
+                        new Object[]{ classFile.name, e.toString() } );
+            }
+        }
+        ClassSignature signature = new ClassSignature();
+        signature.typeParameters = new TypeParameter[ 0 ];
+        signature.superClass = classFile.superName != null ? new ClassType( classFile.superName, null, null ) : null;
+        signature.interfaces = new ClassType[ classFile.interfaceNames.length ];
+        for (int i = 0; i < signature.interfaces.length; i++) {
+            signature.interfaces[ i ] = new ClassType( classFile.interfaceNames[ i ], null, null );
+        }
+        return signature;
+    }
+
+    private static MethodSignature getMethodSignature(ClassFile.Member method, MethodSignature descriptor) {
+        if (method.signature != null) {
+            try {
+                return TypeSignature.parseMethodSignature( method.signature );
+            } catch (RuntimeException e) {
+                logger.log( Level.FINER, "Wrong signature of method {0}: {1}",
+                        new Object[]{ method.name, e.toString() } );
+            }
+        }
+        return descriptor;
+    }
+
+    private static TypeSignature getFieldGenericType(ClassFile.Member field, TypeSignature type) {
+        if (field.signature != null) {
+            try {
+                return TypeSignature.parseFieldSignature( field.signature );
+            } catch (RuntimeException e) {
+                logger.log( Level.FINER, "Wrong signature of field {0}: {1}",
+                        new Object[]{ field.name, e.toString() } );
+            }
+        }
+        return type;
+    }
+
+    private String getTypeParametersString(TypeParameter[] typeParameters) {
+        if (typeParameters.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder( 0x100 );
+        sb.append( "&lt;" );
+        for (TypeParameter typeParameter : typeParameters) {
+            sb.append( typeParameter.name );
+            TypeSignature bound = typeParameter.bounds[ 0 ];
+            if (!(bound instanceof ClassType && ((ClassType) bound).isObject())) {
+                sb.append( " extends " ).append( getTypeName( bound ) );
+            }
+            sb.append( ", " );
+        }
+        sb.setLength( sb.length() - 2 );
+        sb.append( '>' );
+        return sb.toString();
+    }
+
+    /* TYPE NAMES */
+
+    /**
+     * Creates element with names of types computed the same way as by
+     * {@link LangElement#LangElement(java.lang.String, java.lang.String, java.lang.Class, java.lang.reflect.Type,
+     * java.util.Collection, clsvis.model.ElementKind, clsvis.model.ElementVisibility)}.
+     */
+    private ParameterizableElement createElement(String id, String name, TypeSignature type,
+            TypeSignature genericType, Collection<ElementModifier> modifiers, ElementKind kind,
+            ElementVisibility visibility) {
+        String[] typeNames = getTypeNames( type, genericType );
+        return new ParameterizableElement( id, name, typeNames[ 0 ], typeNames[ 1 ], typeNames[ 2 ],
+                modifiers, kind, visibility );
+    }
+
+    /**
+     * Returns full, short and original name of the given type.
+     *
+     * @param genericType generic type or null, if the same as type
+     */
+    private String[] getTypeNames(TypeSignature type, TypeSignature genericType) {
+        boolean isClass = genericType == null || genericType.isClass();
+        String fullTypeName = null;
+        if (isClass) {
+            fullTypeName = getCanonicalName( type );
+            if (fullTypeName == null) {
+                fullTypeName = getBinaryName( type ); // anonymous class
+            }
+        } else {
+            fullTypeName = getTypeName( genericType );
+        }
+        String shortTypeName = isClass ? getSimpleName( type ) : fullTypeName;
+        if (shortTypeName.isEmpty()) {
+            shortTypeName = fullTypeName; // anonymous class
+        }
+        TypeSignature elementType = type instanceof ArrayType ? ((ArrayType) type).getElementType() : type;
+        String originalTypeName = elementType instanceof ClassType && !isAnonymous( ((ClassType) elementType).name )
+                ? getBinaryName( type ) : null;
+        return new String[]{ fullTypeName, LangElement.removePackages( shortTypeName ), originalTypeName };
+    }
+
+    /**
+     * Returns name of the given type in form of {@link java.lang.reflect.Type#getTypeName()}.
+     */
+    private String getTypeName(TypeSignature type) {
+        if (type instanceof BaseType) {
+            return ((BaseType) type).name;
+        }
+        if (type instanceof ArrayType) {
+            return getTypeName( ((ArrayType) type).componentType ) + "[]";
+        }
+        if (type instanceof TypeVariable) {
+            return ((TypeVariable) type).name;
+        }
+        if (type instanceof Wildcard) {
+            Wildcard wildcard = (Wildcard) type;
+            if (wildcard.indicator == '-') {
+                return "? super " + getTypeName( wildcard.bound );
+            }
+            return wildcard.bound instanceof ClassType && ((ClassType) wildcard.bound).isObject()
+                    ? "?" : "? extends " + getTypeName( wildcard.bound );
+        }
+        ClassType classType = (ClassType) type;
+        if (classType.isClass()) {
+            return classType.name;
+        }
+        // Parameterized type
+        StringBuilder sb = new StringBuilder( 0x40 );
+        if (classType.owner != null) {
+            sb.append( getTypeName( classType.owner ) ).append( '$' )
+                    .append( classType.name.replace( classType.owner.name + "$", "" ) );
+        } else {
+            ClassNesting nesting = getNesting( classType.name );
+            if (!nesting.topLevel && nesting.outerName != null) {
+                sb.append( nesting.outerName ).append( '$' ).append( nesting.simpleName );
+            } else {
+                sb.append( classType.name );
+            }
+        }
+        if (classType.arguments.length > 0) {
+            sb.append( '<' );
+            for (TypeSignature argument : classType.arguments) {
+                sb.append( getTypeName( argument ) ).append( ", " );
+            }
+            sb.setLength( sb.length() - 2 );
+            sb.append( '>' );
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns name of the given erased type in form of {@link Class#getName()}.
+     */
+    private static String getBinaryName(TypeSignature type) {
+        if (type instanceof ArrayType) {
+            StringBuilder sb = new StringBuilder( 0x40 );
+            while (type instanceof ArrayType) {
+                sb.append( '[' );
+                type = ((ArrayType) type).componentType;
+            }
+            if (type instanceof ClassType) {
+                return sb.append( 'L' ).append( ((ClassType) type).name ).append( ';' ).toString();
+            }
+            return sb.append( getPrimitiveDescriptor( ((BaseType) type).name ) ).toString();
+        }
+        return type instanceof BaseType ? ((BaseType) type).name : ((ClassType) type).name;
+    }
+
+    private static char getPrimitiveDescriptor(String name) {
+        return "boolean".equals( name ) ? 'Z' : "long".equals( name ) ? 'J' : Character.toUpperCase( name.charAt( 0 ) );
+    }
+
+    /**
+     * Returns canonical name of the given erased type or null, if it doesn't have it.
+     */
+    private String getCanonicalName(TypeSignature type) {
+        if (type instanceof BaseType) {
+            return ((BaseType) type).name;
+        }
+        if (type instanceof ArrayType) {
+            String componentName = getCanonicalName( ((ArrayType) type).componentType );
+            return componentName != null ? componentName + "[]" : null;
+        }
+        return getCanonicalName( ((ClassType) type).name );
+    }
+
+    /**
+     * Returns canonical name of the given class or null, if it doesn't have it (local and anonymous classes).
+     */
+    private String getCanonicalName(String className) {
+        ClassNesting nesting = getNesting( className );
+        if (nesting.topLevel) {
+            return className;
+        }
+        if (nesting.outerName == null || nesting.simpleName == null) {
+            return null; // local or anonymous class
+        }
+        String outerName = getCanonicalName( nesting.outerName );
+        return outerName != null ? outerName + '.' + nesting.simpleName : null;
+    }
+
+    private String getSimpleName(TypeSignature type) {
+        if (type instanceof BaseType) {
+            return ((BaseType) type).name;
+        }
+        if (type instanceof ArrayType) {
+            return getSimpleName( ((ArrayType) type).componentType ) + "[]";
+        }
+        return getSimpleName( ((ClassType) type).name );
+    }
+
+    /**
+     * Returns simple name of the given class, empty for anonymous classes.
+     */
+    private String getSimpleName(String className) {
+        ClassNesting nesting = getNesting( className );
+        if (nesting.topLevel) {
+            return className.substring( className.lastIndexOf( '.' ) + 1 );
+        }
+        return nesting.simpleName != null ? nesting.simpleName : "";
+    }
+
+    private boolean isAnonymous(String className) {
+        ClassNesting nesting = getNesting( className );
+        return !nesting.topLevel && nesting.simpleName == null;
+    }
+
+    /**
+     * Returns nesting of the given class - from InnerClasses attributes of already read class files,
+     * or from the class file of the given class.
+     */
+    private ClassNesting getNesting(String className) {
+        ClassNesting nesting = classNestings.get( className );
+        if (nesting != null) {
+            return nesting;
+        }
+        if (className.indexOf( '$' ) < 0) {
+            return ClassNesting.TOP_LEVEL;
+        }
+        try {
+            readClassFile( className );
+        } catch (ImportException e) {
+            logger.log( Level.FINER, "Problem during reading nesting of class {0}", className );
+        }
+        nesting = classNestings.get( className );
+        if (nesting == null) {
+            // Class file not available - guess from the name
+            int separatorIdx = className.lastIndexOf( '$' );
+            String simpleName = className.substring( separatorIdx + 1 );
+            nesting = simpleName.isEmpty() || Character.isDigit( simpleName.charAt( 0 ) )
+                    ? new ClassNesting( null, null ) : new ClassNesting( className.substring( 0, separatorIdx ), simpleName );
+            classNestings.putIfAbsent( className, nesting );
+        }
+        return nesting;
+    }
+
+    /* CLASS FILES */
+
+    /**
+     * Reads class file of the given class by the class loader, and registers nesting of classes described in it.
+     *
+     * @return class file or null, if not found
+     */
+    private ClassFile readClassFile(String className) {
+        ClassLoader classLoader = getClassLoader() != null ? getClassLoader() : ClassLoader.getSystemClassLoader();
+        ClassFile classFile;
+        try (InputStream in = classLoader.getResourceAsStream( className.replace( '.', '/' ) + ".class" )) {
+            if (in == null) {
+                return null;
+            }
+            classFile = ClassFile.read( readAllBytes( in ) );
+        } catch (IOException e) {
+            throw new ImportException( e );
+        }
+
+        superClassNames.putIfAbsent( classFile.name, classFile.superName != null ? classFile.superName : "" );
+        for (ClassFile.InnerClass innerClass : classFile.innerClasses) {
+            classNestings.putIfAbsent( innerClass.name,
+                    new ClassNesting( innerClass.outerName, innerClass.simpleName ) );
+        }
+        classNestings.putIfAbsent( classFile.name, ClassNesting.TOP_LEVEL );
+        return classFile;
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream( Math.max( in.available(), 0x400 ) );
+        byte[] buffer = new byte[ 0x2000 ];
+        int count;
+        while ((count = in.read( buffer )) > 0) {
+            out.write( buffer, 0, count );
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns name of super class of the given class, or null if not available.
+     */
+    private String getSuperClassName(String className) {
+        String superClassName = superClassNames.get( className );
+        if (superClassName == null && readClassFile( className ) != null) {
+            superClassName = superClassNames.get( className );
+        }
+        return superClassName != null && !superClassName.isEmpty() ? superClassName : null;
+    }
+
+    /**
+     * Returns scope of type variables declared by the given class.
+     */
+    private TypeScope getClassTypeScope(ClassFile classFile) {
+        TypeScope typeScope = classTypeScopes.get( classFile.name );
+        if (typeScope == null) {
+            typeScope = new TypeScope( getClassSignature( classFile ).typeParameters, null,
+                    classFile.hasEnclosingMethod ? classFile.enclosingClassName : getNesting( classFile.name ).outerName );
+            classTypeScopes.putIfAbsent( classFile.name, typeScope );
+        }
+        return typeScope;
+    }
+
+    private TypeScope getClassTypeScope(String className) {
+        TypeScope typeScope = classTypeScopes.get( className );
+        if (typeScope == null) {
+            ClassFile classFile = readClassFile( className );
+            typeScope = classFile != null ? getClassTypeScope( classFile ) : null;
+        }
+        return typeScope;
+    }
+
+    @Override
+    public void setClassLoader(URLClassLoader classLoader) {
+        super.setClassLoader( classLoader );
+        classNestings.clear();
+        superClassNames.clear();
+        classTypeScopes.clear();
+        annotationTypes.clear();
+    }
+
+
+    /**
+     * Place of class in nesting hierarchy, as described by InnerClasses attribute.
+     */
+    private static class ClassNesting {
+
+        static final ClassNesting TOP_LEVEL = new ClassNesting( null, null, true );
+
+        /** Declaring class of member class; null for top-level, local and anonymous classes. */
+        final String outerName;
+        /** Simple name of nested class; null for anonymous and top-level classes. */
+        final String simpleName;
+        final boolean topLevel;
+
+        ClassNesting(String outerName, String simpleName) {
+            this( outerName, simpleName, false );
+        }
+
+        private ClassNesting(String outerName, String simpleName, boolean topLevel) {
+            this.outerName = outerName;
+            this.simpleName = simpleName;
+            this.topLevel = topLevel;
+        }
+    } //class
+
+    /**
+     * Type variables declared by class or method, with reference to the enclosing scope.
+     */
+    private class TypeScope {
+
+        private final TypeParameter[] typeParameters;
+        private final TypeScope parent;
+        private final String enclosingClassName;
+
+        TypeScope(TypeParameter[] typeParameters, TypeScope parent, String enclosingClassName) {
+            this.typeParameters = typeParameters;
+            this.parent = parent;
+            this.enclosingClassName = enclosingClassName;
+        }
+
+        TypeSignature[] getBounds(String variableName) {
+            for (TypeParameter typeParameter : typeParameters) {
+                if (typeParameter.name.equals( variableName )) {
+                    return typeParameter.bounds;
+                }
+            }
+            TypeScope enclosing = parent != null ? parent
+                    : enclosingClassName != null ? getClassTypeScope( enclosingClassName ) : null;
+            return enclosing != null ? enclosing.getBounds( variableName ) : new TypeSignature[ 0 ];
+        }
+    } //class
+
+    /**
+     * Members and retention of annotation type, required to build string representation of annotations.
+     */
+    private static class AnnotationType {
+
+        static final AnnotationType UNKNOWN = new AnnotationType();
+
+        final Set<String> memberNames = new HashSet<>();
+        /** The same kind of map as used by reflection - to get the same order of members. */
+        final Map<String, Object> memberDefaults = new HashMap<>( 0 );
+        final boolean runtimeRetention;
+
+        private AnnotationType() {
+            runtimeRetention = false;
+        }
+
+        AnnotationType(ClassFile classFile) {
+            for (ClassFile.Member method : classFile.methods) {
+                int flags = method.accessFlags;
+                if ((flags & Modifier.PUBLIC) != 0 && (flags & Modifier.ABSTRACT) != 0
+                        && (flags & ClassFile.ACC_SYNTHETIC) == 0 && method.descriptor.startsWith( "()" )) {
+                    memberNames.add( method.name );
+                    if (method.annotationDefault != null) {
+                        memberDefaults.put( method.name, method.annotationDefault );
+                    }
+                }
+            }
+            boolean runtime = "java.lang.annotation.Retention".equals( classFile.name )
+                    || "java.lang.annotation.Inherited".equals( classFile.name );
+            for (ClassFile.Annotation annotation : classFile.annotations) {
+                if (RETENTION_DESCRIPTOR.equals( annotation.descriptor )) {
+                    int valueIdx = annotation.elementNames.indexOf( "value" );
+                    runtime = valueIdx >= 0 && annotation.elementValues.get( valueIdx ) instanceof ClassFile.EnumValue
+                            && "RUNTIME".equals( ((ClassFile.EnumValue) annotation.elementValues.get( valueIdx )).name );
+                }
+            }
+            runtimeRetention = runtime;
+        }
+    } //class
+}
@@ -0,0 +1,287 @@
+package clsvis.process.importer;
+
+import clsvis.model.Annotation_;
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.ElementModifier;
+import clsvis.model.ElementVisibility;
+import clsvis.model.LangElement;
+import clsvis.model.Operation;
+import clsvis.model.ParameterizableElement;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class to save and load model of imported classes in binary form.<br/>
+ * Relations are saved as names of their outbound targets, so classes can be loaded independently of the targets.
+ * Each string is saved only once - next occurrences are references to the first one.
+ */
+final class ClassModelIO {
+
+    private static final int MAGIC = 0xC15715;
+    /** Has to be increased on every change of the format or of the imported model. */
+    static final int VERSION = 2;
+
+    private static final ElementKind[] KINDS = ElementKind.values();
+    private static final ElementVisibility[] VISIBILITIES = ElementVisibility.values();
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+
+    private static final int NULL_STRING = -1;
+    private static final int NEW_STRING = -2;
+
+    private static final byte ELEMENT = 0;
+    private static final byte OPERATION = 1;
+
+    private ClassModelIO() {
+    }
+
+    /**
+     * Loaded class with names of targets of its outbound relations.
+     */
+    static final class ClassModel {
+
+        final Class_ class_;
+        final Map<RelationType, List<String>> relations = new EnumMap<>( RelationType.class );
+        /** Value of {@link Class_#relationsProcessed} - false for classes imported only as targets of relations */
+        boolean relationsProcessed;
+
+        ClassModel(Class_ class_) {
+            this.class_ = class_;
+        }
+    } //class
+
+    /**
+     * Saves the given classes to the given stream.
+     */
+    static void save(Collection<Class_> classes, OutputStream out) throws IOException {
+        Writer writer = new Writer( new DataOutputStream( out ) );
+        writer.out.writeInt( MAGIC );
+        writer.out.writeInt( VERSION );
+        writer.out.writeInt( classes.size() );
+        for (Class_ class_ : classes) {
+            writer.writeClass( class_ );
+        }
+        writer.out.flush();
+    }
+
+    /**
+     * Loads classes from the given stream.
+     */
+    static List<ClassModel> load(InputStream in) throws IOException {
+        Reader reader = new Reader( new DataInputStream( in ) );
+        if (reader.in.readInt() != MAGIC || reader.in.readInt() != VERSION) {
+            throw new IOException( "Unsupported format of class model" );
+        }
+        int classesCount = reader.in.readInt();
+        List<ClassModel> classModels = new ArrayList<>( classesCount );
+        for (int i = 0; i < classesCount; i++) {
+            classModels.add( reader.readClass() );
+        }
+        return classModels;
+    }
+
+
+    private static class Writer {
+
+        final DataOutputStream out;
+        private final Map<String, Integer> stringIndexes = new HashMap<>( 0x1000 );
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeClass(Class_ class_) throws IOException {
+            writeNames( class_ );
+            out.writeBoolean( class_.relationsProcessed );
+            writeString( class_.getTypeParametersStr() );
+            writeModifiers( class_.modifiers );
+            out.writeByte( class_.kind.ordinal() );
+            out.writeByte( class_.visibility.ordinal() );
+            writeAnnotations( class_.annotations );
+            // members
+            List<ParameterizableElement> members = new ArrayList<>();
+            for (List<ParameterizableElement> kindMembers : class_.membersMap.values()) {
+                members.addAll( kindMembers );
+            }
+            writeElements( members );
+            // outbound relations
+            for (RelationType relType : RELATION_TYPES) {
+                Collection<Class_> targets = class_.getRelations( relType, RelationDirection.Outbound );
+                out.writeInt( targets.size() );
+                for (Class_ target : targets) {
+                    writeString( target.originalTypeName );
+                }
+            }
+        }
+
+        private void writeElements(Collection<ParameterizableElement> elements) throws IOException {
+            out.writeInt( elements.size() );
+            for (ParameterizableElement element : elements) {
+                boolean isOperation = element instanceof Operation;
+                out.writeByte( isOperation ? OPERATION : ELEMENT );
+                writeNames( element );
+                writeModifiers( element.modifiers );
+                out.writeByte( element.kind.ordinal() );
+                out.writeByte( element.visibility.ordinal() );
+                writeAnnotations( element.annotations );
+                if (isOperation) {
+                    Operation operation = (Operation) element;
+                    writeElements( operation.parameters );
+                    writeElements( operation.throwables );
+                }
+            }
+        }
+
+        private void writeAnnotations(Collection<Annotation_> annotations) throws IOException {
+            out.writeInt( annotations.size() );
+            for (Annotation_ annotation : annotations) {
+                writeNames( annotation );
+            }
+        }
+
+        private void writeNames(LangElement element) throws IOException {
+            writeString( element.id );
+            writeString( element.name );
+            writeString( element.fullTypeName );
+            writeString( element.shortTypeName );
+            writeString( element.originalTypeName );
+        }
+
+        private void writeModifiers(Collection<ElementModifier> modifiers) throws IOException {
+            out.writeInt( ElementModifier.toBits( modifiers ) );
+        }
+
+        private void writeString(String str) throws IOException {
+            if (str == null) {
+                out.writeInt( NULL_STRING );
+                return;
+            }
+            Integer index = stringIndexes.putIfAbsent( str, stringIndexes.size() );
+            if (index != null) {
+                out.writeInt( index );
+                return;
+            }
+            byte[] bytes = str.getBytes( StandardCharsets.UTF_8 );
+            out.writeInt( NEW_STRING );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    } //class
+
+
+    private static class Reader {
+
+        final DataInputStream in;
+        private final List<String> strings = new ArrayList<>( 0x1000 );
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        ClassModel readClass() throws IOException {
+            String id = readString();
+            String name = readString();
+            String fullTypeName = readString();
+            String shortTypeName = readString();
+            String originalTypeName = readString();
+            boolean relationsProcessed = in.readBoolean();
+            String typeParametersStr = readString();
+            Collection<ElementModifier> modifiers = readModifiers();
+            ElementKind kind = KINDS[ in.readByte() ];
+            ElementVisibility visibility = VISIBILITIES[ in.readByte() ];
+            Class_ class_ = new Class_( id, name, fullTypeName, shortTypeName, originalTypeName, typeParametersStr,
+                    modifiers, kind, visibility );
+            class_.annotations = readAnnotations();
+            class_.typeParameters = Collections.emptyList();
+            for (ParameterizableElement member : readElements()) {
+                class_.addMember( member );
+            }
+            ClassModel classModel = new ClassModel( class_ );
+            classModel.relationsProcessed = relationsProcessed;
+            for (RelationType relType : RELATION_TYPES) {
+                int targetsCount = in.readInt();
+                if (targetsCount > 0) {
+                    List<String> targets = new ArrayList<>( targetsCount );
+                    for (int i = 0; i < targetsCount; i++) {
+                        targets.add( readString() );
+                    }
+                    classModel.relations.put( relType, targets );
+                }
+            }
+            return classModel;
+        }
+
+        private List<ParameterizableElement> readElements() throws IOException {
+            int elementsCount = in.readInt();
+            if (elementsCount == 0) {
+                return Collections.emptyList();
+            }
+            List<ParameterizableElement> elements = new ArrayList<>( elementsCount );
+            for (int i = 0; i < elementsCount; i++) {
+                boolean isOperation = in.readByte() == OPERATION;
+                String id = readString();
+                String name = readString();
+                String fullTypeName = readString();
+                String shortTypeName = readString();
+                String originalTypeName = readString();
+                Collection<ElementModifier> modifiers = readModifiers();
+                ElementKind kind = KINDS[ in.readByte() ];
+                ElementVisibility visibility = VISIBILITIES[ in.readByte() ];
+                Collection<Annotation_> annotations = readAnnotations();
+                ParameterizableElement element = isOperation
+                        ? new Operation( id, name, fullTypeName, shortTypeName, originalTypeName, modifiers,
+                                kind, visibility, readElements(), readElements() )
+                        : new ParameterizableElement( id, name, fullTypeName, shortTypeName, originalTypeName,
+                                modifiers, kind, visibility );
+                element.annotations = annotations;
+                element.typeParameters = Collections.emptyList();
+                elements.add( element );
+            }
+            return elements;
+        }
+
+        private Collection<Annotation_> readAnnotations() throws IOException {
+            int annotationsCount = in.readInt();
+            if (annotationsCount == 0) {
+                return Collections.emptyList();
+            }
+            Collection<Annotation_> annotations = new ArrayList<>( annotationsCount );
+            for (int i = 0; i < annotationsCount; i++) {
+                annotations.add( Annotation_.of( readString(), readString(), readString(), readString(), readString() ) );
+            }
+            return annotations;
+        }
+
+        private Collection<ElementModifier> readModifiers() throws IOException {
+            return ElementModifier.setOf( in.readInt() );
+        }
+
+        private String readString() throws IOException {
+            int index = in.readInt();
+            if (index == NULL_STRING) {
+                return null;
+            }
+            if (index != NEW_STRING) {
+                return strings.get( index );
+            }
+            byte[] bytes = new byte[ in.readInt() ];
+            in.readFully( bytes );
+            String str = new String( bytes, StandardCharsets.UTF_8 );
+            strings.add( str );
+            return str;
+        }
+    } //class
+}
@@ -0,0 +1,107 @@
+package clsvis.process.importer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded queue of names of classes to import - filled by discovery of classes and drained by import at the same
+ * time.<br/>
+ * Total count of classes is known after the discovery is finished - see {@link #finish()}.
+ * If import fails, the queue is aborted - discovery and import stop as soon as possible.
+ */
+class ClassNamesQueue {
+
+    /** Marker of the end of the queue - compared by identity. */
+    private static final String END = new String( "END" );
+    /** Max. time of waiting for the queue, before it's checked whether it's aborted */
+    private static final long WAIT_TIMEOUT_MS = 100;
+
+    private final BlockingQueue<String> queue;
+    private final AtomicInteger discoveredCount = new AtomicInteger();
+    private volatile boolean finished;
+    private volatile boolean aborted;
+
+    ClassNamesQueue(int capacity) {
+        queue = new ArrayBlockingQueue<>( capacity );
+    }
+
+    /**
+     * Adds the given class name, waiting for space in the queue if needed.
+     * Class name is ignored, if the queue is aborted.
+     */
+    void put(String className) {
+        if (offer( className )) {
+            discoveredCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Marks the end of discovery.
+     */
+    void finish() {
+        finished = true;
+        offer( END );
+    }
+
+    /**
+     * Aborts processing of the queue.
+     */
+    void abort() {
+        aborted = true;
+        queue.clear();
+        queue.offer( END );
+    }
+
+    /**
+     * Returns next class name, waiting for it if needed.
+     * Waiting consumers notice abort of the queue within {@link #WAIT_TIMEOUT_MS}.
+     *
+     * @return class name, or null if there are no more classes or the queue is aborted
+     */
+    String take() {
+        try {
+            while (!aborted) {
+                String className = queue.poll( WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS );
+                if (className == END) {
+                    // For remaining consumers - there is space for it, as it was just taken
+                    queue.offer( END );
+                    return null;
+                }
+                if (className != null) {
+                    return aborted ? null : className;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        }
+    }
+
+    /**
+     * Returns total count of classes, or {@link ImportProgressListener#UNKNOWN_COUNT} if discovery is not finished.
+     */
+    int getTotalCount() {
+        return finished ? discoveredCount.get() : ImportProgressListener.UNKNOWN_COUNT;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    private boolean offer(String className) {
+        try {
+            while (!aborted) {
+                if (queue.offer( className, WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS )) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        }
+    }
+}
@@ -2,22 +2,31 @@ package clsvis.process.importer;
 
 import clsvis.Utils;
 import clsvis.model.Annotation_;
+import clsvis.model.ClassGraph;
 import clsvis.model.Class_;
 import clsvis.model.ElementKind;
 import clsvis.model.ElementModifier;
 import clsvis.model.ElementVisibility;
 import clsvis.model.Operation;
 import clsvis.model.ParameterizableElement;
+import clsvis.model.ProjectSnapshot;
 import clsvis.model.RelationDirection;
 import clsvis.model.RelationType;
+import clsvis.model.SymbolTable;
+import clsvis.process.analysis.HierarchyIndex;
+import clsvis.process.importer.ClassModelIO.ClassModel;
+import clsvis.process.search.MemberSearchIndex;
 import java.beans.Introspector;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
@@ -26,17 +35,33 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.net.URLClassLoader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -46,6 +71,9 @@ import java.util.regex.Pattern;
  * Imports class and its all membersMap from compiled code.
  * Before importClass(es) methods are invoked, class loader should be set by invocation of
  * {@link #setClassLoader(java.lang.ClassLoader)}.<br/>
+ * Top-level classes can be imported in parallel - see {@link #setThreadsCount(int)} - also while they are still
+ * being discovered - see {@link ClassNamesQueue}.
+ * Each {@link Class_} is created only once, even if requested by many threads at the same time.<br/>
  *
  * @author Jonatan Kazmierczak [Jonatan (at) Son-of-God.info]
  */
@@ -59,31 +87,43 @@ public class CompiledClassImporter {
     /* CONSTANTS */
     private static final Logger logger = Logger.getLogger( CompiledClassImporter.class.getName() );
 
-    private static final Set<ElementModifier> generalModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Public, ElementModifier.Protected, ElementModifier.Private,
-            ElementModifier.Abstract, ElementModifier.Static, ElementModifier.Final,
-            ElementModifier.Transient, ElementModifier.Volatile, ElementModifier.Synchronized,
-            ElementModifier.Native, ElementModifier.Strict ) );
-    private static final Set<ElementModifier> constantModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Static, ElementModifier.Final ) );
-    private static final Set<ElementModifier> classModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Interface, ElementModifier.Enum, ElementModifier.Annotation,
-            ElementModifier.Record, ElementModifier.Sealed,
-            ElementModifier.LocalClass, ElementModifier.MemberClass,
-            ElementModifier.Synthetic ) );
-    public static final Set<ElementModifier> fieldModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Synthetic ) );
-    public static final Set<ElementModifier> constructorModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Synthetic ) );
-    private static final Set<ElementModifier> methodModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Synthetic, ElementModifier.Bridge, ElementModifier.Default ) );
-    public static final Set<ElementModifier> parameterModifiers = Collections.unmodifiableSet( EnumSet.of(
-            ElementModifier.Implicit, ElementModifier.Synthetic, ElementModifier.VarArgs ) );
+    /** Reason of stopping of a cancelled import - see {@link #getStopReason()}. */
+    public static final String IMPORT_CANCELLED = "cancelled";
+
+    /** Flags of {@link Modifier} decoded by {@link #decodeModifiers(int)}. */
+    private static final int GENERAL_MODIFIERS_MASK = 0xFFF;
+    private static final int[] generalModifierFlags = {
+        Modifier.PUBLIC, Modifier.PROTECTED, Modifier.PRIVATE, Modifier.ABSTRACT, Modifier.STATIC, Modifier.FINAL,
+        Modifier.TRANSIENT, Modifier.VOLATILE, Modifier.SYNCHRONIZED, Modifier.NATIVE, Modifier.STRICT };
+    private static final ElementModifier[] generalModifiers = {
+        ElementModifier.Public, ElementModifier.Protected, ElementModifier.Private, ElementModifier.Abstract,
+        ElementModifier.Static, ElementModifier.Final, ElementModifier.Transient, ElementModifier.Volatile,
+        ElementModifier.Synchronized, ElementModifier.Native, ElementModifier.Strict };
+    /** Table[flags &amp; GENERAL_MODIFIERS_MASK] = bits of modifiers - see {@link ElementModifier#setOf(int)} */
+    private static final int[] generalModifierBits = new int[ GENERAL_MODIFIERS_MASK + 1 ];
+    /** Bits of modifiers designating constant. */
+    protected static final int CONSTANT_BITS = ElementModifier.Static.bit() | ElementModifier.Final.bit();
+    protected static final int VISIBILITY_BITS = ElementModifier.toBits( ElementModifier.visibilityModifiers );
+    /** {@link Class#isRecord()} and {@link Class#isSealed()}, or null if not supported by the running JVM. */
+    private static final MethodHandle isRecordHandle = findClassPredicate( "isRecord" );
+    private static final MethodHandle isSealedHandle = findClassPredicate( "isSealed" );
+
+    /** Relations added during construction of class. */
+    private static final Set<RelationType> IMMUTABLE_RELATIONS = Collections.unmodifiableSet( EnumSet.of(
+            RelationType.SuperClass, RelationType.SuperInterface, RelationType.InnerClass ) );
 
     /** Map[ElementKind] = RelationType */
     private static final EnumMap<ElementKind, RelationType> memberKindRelations = new EnumMap<>( ElementKind.class );
 
     static {
+        for (int flags = 0; flags <= GENERAL_MODIFIERS_MASK; flags++) {
+            for (int i = 0; i < generalModifierFlags.length; i++) {
+                if ((flags & generalModifierFlags[ i ]) != 0) {
+                    generalModifierBits[ flags ] |= generalModifiers[ i ].bit();
+                }
+            }
+        }
+
         ElementKind[] memberKinds = { ElementKind.Constants, ElementKind.Fields, ElementKind.Properties,
             ElementKind.Constructors, ElementKind.Methods };
         RelationType[] relationTypes = { RelationType.Association, RelationType.Association, RelationType.Association,
@@ -94,63 +134,205 @@ public class CompiledClassImporter {
     }
 
     /* FIELDS */
-    // modifiers processors
-    /** Map[ElementModifier] = Method */
-    private final Map<ElementModifier, Method> generalModifierProcessors = new EnumMap<>( ElementModifier.class );
-    /** Map[MemberClassName][ElementModifier] = Method */
-    private final Map<String, Map<ElementModifier, Method>> elementModifierProcessors = new HashMap<>( 5, 1 );
-
-    private final Map<String, Class_> importedClasses = new HashMap<>();
-    private final Collection<String> notImportedClassNames = new HashSet<>();
+    protected final Map<String, Class_> importedClasses = new ConcurrentHashMap<>( 0x4000 );
+    /** Graph of all created classes - also of those removed from {@link #importedClasses} due to problems. */
+    protected final ClassGraph classGraph = new ClassGraph();
+    /** Snapshot of imported classes with its indexes, published by the last {@link #freezeModel()}. */
+    private volatile PublishedModel publishedModel = new PublishedModel( ProjectSnapshot.EMPTY,
+            MemberSearchIndex.build( ProjectSnapshot.EMPTY ), HierarchyIndex.build( ProjectSnapshot.EMPTY ) );
+    /** Guards the model against freezing, while it's modified by import - imports hold its read lock */
+    private final ReadWriteLock modelLock = new ReentrantReadWriteLock();
+    /** Map[className] = latch released when members of the class are imported. */
+    private final Map<String, CountDownLatch> classesUnderConstruction = new ConcurrentHashMap<>();
+    private final Collection<String> notImportedClassNames = ConcurrentHashMap.newKeySet();
+    /**
+     * Map[annotation] = imported annotation - {@link Annotation#toString()} is costly, so it's done once per distinct
+     * annotation. It's valid only for the current class loader.
+     */
+    private final Map<Annotation, Annotation_> importedAnnotations = new ConcurrentHashMap<>();
+    /**
+     * Map[generic type] = names of classes used by the type - the same generic types (i.e. Map&lt;String, Object&gt;)
+     * are used by many members, so they are walked once. It's valid only for the current class loader.
+     */
+    private final Map<Type, String[]> typeParameterNames = new ConcurrentHashMap<>( 0x1000 );
     private URLClassLoader classLoader;
+    /** Guards {@link #classLoader} against replacement while classes are imported - see {@link #rotateClassLoader()} */
+    private final ReadWriteLock classLoaderLock = new ReentrantReadWriteLock();
+    /** Creates class loader replacing the current one, when {@link #metaspaceBudget} is exceeded */
+    private Supplier<URLClassLoader> classLoaderFactory;
+    private MetaspaceBudget metaspaceBudget;
+    private int threadsCount = 1;
+    /** Limit of heap in percents of its maximal size; 0 means no limit */
+    private int heapLimitPercent = ImportSettings.IMPORT_HEAP_LIMIT_PERCENT;
+    /** Governor of heap during import of classes, or null */
+    private volatile MemoryGovernor memoryGovernor;
+    /** If true, classes only referenced by imported ones are not created - see {@link #isImportStopped()} */
+    private volatile boolean memoryPressure;
+    /** Reason of stopping the import before all classes were imported, or null */
+    private volatile String stopReason;
+    /** If true, the import is stopped before the next class - see {@link #cancelImport()} */
+    private volatile boolean cancelled;
+    private volatile long cancelRequestNanos;
+    private final AtomicInteger skippedRelationsCount = new AtomicInteger();
 
     private ImportProgressListener importProgressListener;
 
+    private static MethodHandle findClassPredicate(String name) {
+        try {
+            return MethodHandles.publicLookup().findVirtual( Class.class, name, MethodType.methodType( boolean.class ) );
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
     /**
-     * Initiates modifiers processors.
+     * Imports the given classes.
+     * If {@link #threadsCount} is greater than 1, classes are imported in parallel.
      */
-    public CompiledClassImporter() {
-        // Initialize generalModifierProcessors
-        for (ElementModifier em : generalModifiers) {
-            generalModifierProcessors.put( em, createMemberMethod( em.name(), Modifier.class, Integer.TYPE ) );
+    public void importClasses(Collection<String> classNames) {
+        int totalCount = classNames.size();
+        startImport();
+        try {
+            if (threadsCount > 1 && totalCount > 1) {
+                importClassesInParallel( new ArrayList<>( classNames ) );
+                return;
+            }
+
+            int importedCount = 0;
+            for (String className : classNames) {
+                if (isImportStopped()) {
+                    break;
+                }
+                importTopLevelClass( className );
+                if (importProgressListener != null) {
+                    importProgressListener.importProgress( ++importedCount, totalCount );
+                }
+            }
+        } finally {
+            finishImport();
         }
-        // Initialize elementModifierProcessors
-        initModifierProcessors( classModifiers, Class.class );
-        initModifierProcessors( fieldModifiers, Field.class );
-        initModifierProcessors( constructorModifiers, Constructor.class );
-        initModifierProcessors( methodModifiers, Method.class );
-        initModifierProcessors( parameterModifiers, Parameter.class );
     }
 
-    private void initModifierProcessors(Collection<ElementModifier> elementModifiers, Class clazz) {
-        Map<ElementModifier, Method> modifierProcessors = new EnumMap<>( ElementModifier.class );
-        elementModifierProcessors.put( clazz.getName(), modifierProcessors );
-        for (ElementModifier em : elementModifiers) {
-            modifierProcessors.put( em, createMemberMethod( em.name(), clazz ) );
+    /**
+     * Imports the given classes using {@link #threadsCount} threads.
+     */
+    private void importClassesInParallel(List<String> classNames) {
+        ForkJoinPool pool = new ForkJoinPool( threadsCount );
+        try {
+            pool.invoke( new ImportClassesAction( classNames, 0, classNames.size(), new AtomicInteger() ) );
+        } finally {
+            pool.shutdown();
         }
     }
 
-    private static Method createMemberMethod(String suffix, Class memberClass, Class... paramTypes) {
+    /**
+     * Imports classes taken from the given queue, while it's still being filled.
+     * If {@link #threadsCount} is greater than 1, classes are imported in parallel.
+     * If import fails, the queue is aborted.
+     */
+    void importClasses(ClassNamesQueue classNamesQueue) {
+        startImport();
         try {
-            return memberClass.getMethod( "is" + suffix, paramTypes );
-        } catch (Exception e) {
-            throw new UnsupportedOperationException( "Expected method is not supported", e );
+            if (threadsCount == 1) {
+                importClasses( classNamesQueue, new AtomicInteger() );
+            } else {
+                importClassesInParallel( classNamesQueue );
+            }
+        } finally {
+            finishImport();
         }
     }
 
     /**
-     * Imports the given classes.
+     * Imports classes taken from the given queue using {@link #threadsCount} threads.
      */
-    public void importClasses(Collection<String> classNames) {
-        int totalCount = classNames.size();
-        int importedCount = 0;
-        notImportedClassNames.clear();
+    private void importClassesInParallel(ClassNamesQueue classNamesQueue) {
+        AtomicInteger importedCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool( threadsCount );
+        try {
+            List<Future<?>> workers = new ArrayList<>( threadsCount );
+            for (int i = 0; i < threadsCount; i++) {
+                workers.add( pool.submit( () -> importClasses( classNamesQueue, importedCount ) ) );
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            classNamesQueue.abort();
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-        for (String className : classNames) {
+    /**
+     * Imports classes taken from the given queue, until it's empty.
+     */
+    private void importClasses(ClassNamesQueue classNamesQueue, AtomicInteger importedCount) {
+        try {
+            for (String className; (className = classNamesQueue.take()) != null;) {
+                if (isImportStopped()) {
+                    // Discovery of classes is stopped as well
+                    classNamesQueue.abort();
+                    break;
+                }
+                importTopLevelClass( className );
+                if (importProgressListener != null) {
+                    importProgressListener.importProgress(
+                            importedCount.incrementAndGet(), classNamesQueue.getTotalCount() );
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            classNamesQueue.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Imports the given top-level class, while the class loader can't be replaced.
+     * Then the class loader is replaced, if its {@link #metaspaceBudget} is exceeded.
+     */
+    private void importTopLevelClass(String className) {
+        classLoaderLock.readLock().lock();
+        try {
             importClass( className );
-            if (importProgressListener != null) {
-                importProgressListener.importProgress( ++importedCount, totalCount );
+        } finally {
+            classLoaderLock.readLock().unlock();
+        }
+        if (metaspaceBudget != null && metaspaceBudget.isExceeded()) {
+            rotateClassLoader();
+        }
+    }
+
+    /**
+     * Replaces the class loader by a new one, once classes being imported by the other threads are done.
+     * Imported classes are kept only as models, so classes loaded by the replaced class loader can be unloaded.
+     */
+    private void rotateClassLoader() {
+        classLoaderLock.writeLock().lock();
+        try {
+            // Another thread could replace it already
+            if (!metaspaceBudget.isExceeded()) {
+                return;
             }
+            URLClassLoader oldClassLoader = classLoader;
+            setClassLoader( classLoaderFactory.get() );
+            metaspaceBudget.reset();
+            logger.log( Level.CONFIG, "Class loader replaced after import of {0} classes", importedClasses.size() );
+            try {
+                oldClassLoader.close();
+            } catch (IOException e) {
+                logger.log( Level.WARNING, "Problem during closing class loader", e );
+            }
+        } finally {
+            classLoaderLock.writeLock().unlock();
         }
     }
 
@@ -159,8 +341,7 @@ public class CompiledClassImporter {
      */
     public void importClass(String className) {
         try {
-            Class clazz = Class.forName( className, false, classLoader );
-            importClass( clazz );
+            importClassAndRelations( className );
             // Exceptions from importClass don't stop the import process
         } catch (ClassNotFoundException e) {
             // Class added for loading cannot be load - serious damage
@@ -175,22 +356,153 @@ public class CompiledClassImporter {
             notImportedClassNames.add( className );
         } catch (Error e) {
             if (e instanceof OutOfMemoryError) {
-                // Try to restore some memory
-                importedClasses.clear();
-                notImportedClassNames.clear();
+                // Partial model of the class is released - classes imported so far are kept
+                shedCaches();
                 processThrowable( Level.SEVERE, e, className );
-                System.exit( 1 );
+                notImportedClassNames.add( className );
+                stopImport( "out of memory" );
+                return;
             }
             processThrowable( Level.SEVERE, e, className );
             throw e;
         }
     }
 
+    /**
+     * Prepares import of classes: clears results of the previous one and starts governing memory.
+     */
+    private void startImport() {
+        notImportedClassNames.clear();
+        stopReason = null;
+        skippedRelationsCount.set( 0 );
+        memoryPressure = false;
+        memoryGovernor = MemoryGovernor.create( heapLimitPercent );
+        modelLock.readLock().lock();
+    }
+
+    private void finishImport() {
+        modelLock.readLock().unlock();
+        MemoryGovernor governor = memoryGovernor;
+        memoryGovernor = null;
+        memoryPressure = false;
+        if (governor != null) {
+            governor.close();
+        }
+        if (stopReason != null) {
+            logger.log( Level.WARNING, "Import stopped ({0}) - {1} classes imported, {2} relations skipped",
+                    new Object[]{ stopReason, importedClasses.size(), skippedRelationsCount.get() } );
+        }
+    }
+
+    /**
+     * Checks before import of the next class, whether the import is cancelled,
+     * and applies back-pressure of {@link #memoryGovernor}:
+     * under pressure caches are shed and classes only referenced by imported ones are not created;
+     * above the limit the import is stopped.
+     *
+     * @return true, if the import is stopped
+     */
+    private boolean isImportStopped() {
+        MemoryGovernor governor = memoryGovernor;
+        if (cancelled) {
+            stopImport( IMPORT_CANCELLED );
+        } else if (governor != null) {
+            if (governor.isExceeded()) {
+                stopImport( String.format( "heap limit of %d MB exceeded", governor.getLimit() >> 20 ) );
+            } else if (governor.isUnderPressure()) {
+                if (!memoryPressure) {
+                    logger.log( Level.WARNING, "Heap usage close to its limit - relations to not imported classes "
+                            + "are skipped" );
+                    memoryPressure = true;
+                }
+                shedCaches();
+            }
+        }
+        return stopReason != null;
+    }
+
+    private void shedCaches() {
+        importedAnnotations.clear();
+        typeParameterNames.clear();
+    }
+
+    /**
+     * Stops the import with the given reason - classes imported so far are kept.
+     */
+    void stopImport(String reason) {
+        if (stopReason == null) {
+            stopReason = reason;
+        }
+    }
+
+    /**
+     * Cancels the running import: it's stopped before the next class and classes imported so far are kept.
+     * Cancellation holds until {@link BaseProjectImporter#cleanupAfterImport()} - it can be requested from any thread,
+     * also before the import starts.
+     */
+    public void cancelImport() {
+        if (!cancelled) {
+            cancelRequestNanos = System.nanoTime();
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Returns true, if the import is cancelled.
+     */
+    public boolean isImportCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Clears cancellation of the import.
+     *
+     * @return time since the cancellation request in ms, or -1 if the import was not cancelled
+     */
+    long clearCancellation() {
+        if (!cancelled) {
+            return -1;
+        }
+        cancelled = false;
+        return (System.nanoTime() - cancelRequestNanos) / 1_000_000;
+    }
+
+    /**
+     * Returns reason of stopping the last import before all classes were imported, or null if it was complete.
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Returns count of relations skipped by the last import under memory pressure.
+     */
+    public int getSkippedRelationsCount() {
+        return skippedRelationsCount.get();
+    }
+
+    /**
+     * Loads and imports the given class with its relations.
+     */
+    protected void importClassAndRelations(String className) throws ClassNotFoundException {
+        importClass( Class.forName( className, false, classLoader ) );
+    }
+
     /**
      * Imports the given class.
      */
     public Class_ importClass(Class clazz) {
         Class_ class_ = importClassInternal( clazz );
+        importRelations( class_ );
+        return class_;
+    }
+
+    /**
+     * Imports relations of the given class, its members and inner classes.
+     */
+    protected void importRelations(Class_ class_) {
+        // Members could be still imported by another thread
+        awaitMembers( class_.originalTypeName );
 
         // Relations of class members
         for (Map.Entry<ElementKind, RelationType> memberKindRelation : memberKindRelations.entrySet()) {
@@ -207,11 +519,182 @@ public class CompiledClassImporter {
 
         // Cleanup of the class_
         class_.relationsFinished();
+        if (importProgressListener != null) {
+            importProgressListener.classImported( class_ );
+        }
+    }
 
-        return class_;
+    /**
+     * Replaces the given top-level classes (with their inner classes) by their new versions.
+     * Relations of the other classes are redirected to the new versions, or removed if classes don't exist anymore.
+     * Before invocation, class loader should be replaced by a new one.
+     *
+     * @param removedClassNames names of classes which were removed or modified
+     * @param newClassNames names of classes which were added or modified
+     */
+    public void reimportClasses(Collection<String> removedClassNames, Collection<String> newClassNames) {
+        modelLock.readLock().lock();
+        try {
+            // Detach old classes with their inner classes
+            Collection<Class_> oldClasses = new LinkedHashSet<>();
+            Deque<Class_> classesToCheck = new ArrayDeque<>();
+            for (String className : removedClassNames) {
+                Class_ class_ = importedClasses.get( className );
+                if (class_ != null) {
+                    classesToCheck.add( class_ );
+                }
+            }
+            while (!classesToCheck.isEmpty()) {
+                Class_ class_ = classesToCheck.poll();
+                if (oldClasses.add( class_ )) {
+                    classesToCheck.addAll( class_.getRelations( RelationType.InnerClass, RelationDirection.Outbound ) );
+                }
+            }
+            // Map[RelationType][sourceClass] = names of target classes
+            Map<RelationType, Map<Class_, List<String>>> relationsToRestore = new EnumMap<>( RelationType.class );
+            for (Class_ oldClass : oldClasses) {
+                importedClasses.remove( oldClass.originalTypeName );
+            }
+            for (Class_ oldClass : oldClasses) {
+                for (Map.Entry<RelationType, Collection<Class_>> relation : oldClass.detach().entrySet()) {
+                    for (Class_ sourceClass : relation.getValue()) {
+                        if (!oldClasses.contains( sourceClass )) {
+                            relationsToRestore.computeIfAbsent( relation.getKey(), relType -> new HashMap<>() )
+                                    .computeIfAbsent( sourceClass, source -> new ArrayList<>() )
+                                    .add( oldClass.originalTypeName );
+                        }
+                    }
+                }
+            }
+            for (Class_ oldClass : oldClasses) {
+                classGraph.remove( oldClass );
+            }
+
+            importClasses( newClassNames );
+
+            // Redirect relations to new versions of classes
+            Set<String> existingClassNames = new HashSet<>( newClassNames );
+            for (Map.Entry<RelationType, Map<Class_, List<String>>> relation : relationsToRestore.entrySet()) {
+                RelationType relType = relation.getKey();
+                for (Map.Entry<Class_, List<String>> sourceRelations : relation.getValue().entrySet()) {
+                    Class_ sourceClass = sourceRelations.getKey();
+                    for (String targetType : sourceRelations.getValue()) {
+                        Class_ targetClass = importedClasses.get( targetType );
+                        if (targetClass == null && stopReason != null
+                                && existingClassNames.contains( getTopLevelClassName( targetType ) )) {
+                            // Not imported by the stopped import - it's kept as referenced class till the next reload
+                            targetClass = importReferencedClass( targetType );
+                        }
+                        if (targetClass == null) {
+                            continue; // class removed
+                        }
+                        if (relType == RelationType.SuperInterface) {
+                            sourceClass.addSuperInterface( targetClass );
+                        } else {
+                            sourceClass.addRelation( relType, targetClass );
+                        }
+                    }
+                }
+            }
+        } finally {
+            modelLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns class with the given name, importing it without its relations, or null if it can't be imported.
+     */
+    private Class_ importReferencedClass(String className) {
+        try {
+            return importClassInternal( className );
+        } catch (Throwable t) {
+            processThrowable( Level.WARNING, t, className );
+            return null;
+        }
+    }
+
+    /**
+     * Returns name of top-level class of the given class.
+     */
+    static String getTopLevelClassName(String className) {
+        int innerClassIdx = className.indexOf( '$', className.lastIndexOf( '.' ) + 1 );
+        return innerClassIdx < 0 ? className : className.substring( 0, innerClassIdx );
+    }
+
+    /**
+     * Registers classes loaded from a model and restores their relations.
+     * Classes already imported are not replaced. Targets of relations not available in the model are imported.
+     */
+    void importClassModels(Collection<ClassModel> classModels) {
+        modelLock.readLock().lock();
+        try {
+            List<ClassModel> registeredModels = new ArrayList<>( classModels.size() );
+            for (ClassModel classModel : classModels) {
+                if (importedClasses.putIfAbsent( classModel.class_.originalTypeName, classModel.class_ ) == null) {
+                    classGraph.add( classModel.class_ );
+                    registeredModels.add( classModel );
+                }
+            }
+            // Relations set during construction of class come first
+            for (ClassModel classModel : registeredModels) {
+                Class_ class_ = classModel.class_;
+                for (RelationType relType : IMMUTABLE_RELATIONS) {
+                    addModelRelations( class_, classModel.relations.get( relType ), relType );
+                }
+                class_.membersFinished();
+            }
+            for (ClassModel classModel : registeredModels) {
+                Class_ class_ = classModel.class_;
+                for (Map.Entry<RelationType, List<String>> relation : classModel.relations.entrySet()) {
+                    if (!IMMUTABLE_RELATIONS.contains( relation.getKey() )) {
+                        addModelRelations( class_, relation.getValue(), relation.getKey() );
+                    }
+                }
+                if (classModel.relationsProcessed) {
+                    class_.relationsFinished();
+                    if (importProgressListener != null) {
+                        importProgressListener.classImported( class_ );
+                    }
+                }
+            }
+        } finally {
+            modelLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registers classes imported by child processes - see {@link ImportWorker}.
+     *
+     * @param notImportedClassNames names of classes, which could not be imported by the processes
+     */
+    void importWorkerModels(Collection<ClassModel> classModels, Collection<String> notImportedClassNames) {
+        this.notImportedClassNames.clear();
+        this.notImportedClassNames.addAll( notImportedClassNames );
+        importClassModels( classModels );
     }
 
-    private Class_ importClassInternal(String className) {
+    private void addModelRelations(Class_ class_, List<String> targetTypes, RelationType relType) {
+        if (targetTypes == null) {
+            return;
+        }
+        for (String targetType : targetTypes) {
+            if (relType == RelationType.SuperInterface) {
+                try {
+                    class_.addSuperInterface( importClassInternal( targetType ) );
+                } catch (Throwable t) {
+                    processThrowable( Level.WARNING, t, "Problem during retrieving relation: {0} -> {1}",
+                            class_.originalTypeName, targetType );
+                }
+            } else {
+                addRelation( class_, targetType, relType );
+            }
+        }
+    }
+
+    /**
+     * Returns class with the given name, importing it if needed.
+     */
+    protected Class_ importClassInternal(String className) {
         if (className == null) {
             return null;
         }
@@ -229,7 +712,7 @@ public class CompiledClassImporter {
     }
 
     /**
-     * Invocation wrapper for {@link #importClassInternal0(java.lang.Class)}.
+     * Invocation wrapper for {@link #importClassInternal0(java.lang.Class, clsvis.model.Class_)}.
      */
     public Class_ importClassInternal(Class clazz) {
         clazz = Utils.getClassType( clazz );
@@ -243,29 +726,76 @@ public class CompiledClassImporter {
             return cached;
         }
 
+        Class finalClazz = clazz;
+        return constructClass( className,
+                () -> createClass( finalClazz ),
+                class_ -> importClassInternal0( finalClazz, class_ ) );
+    }
+
+    /**
+     * Creates and registers class with the given name, unless it was already registered by another invocation.
+     * Only the invocation which created the class, builds it by the given classBuilder.
+     * Threads interested in its members have to wait for them by {@link #awaitMembers(java.lang.String)}.
+     *
+     * @return registered class, which can be still under construction
+     */
+    protected Class_ constructClass(String className, Supplier<Class_> classFactory, Consumer<Class_> classBuilder) {
+        Class_[] created = new Class_[ 1 ];
+        Class_ class_ = importedClasses.computeIfAbsent( className, key -> {
+            created[ 0 ] = classFactory.get();
+            classGraph.add( created[ 0 ] );
+            classesUnderConstruction.put( key, new CountDownLatch( 1 ) );
+            return created[ 0 ];
+        } );
+        if (class_ != created[ 0 ]) {
+            return class_;
+        }
+
         try {
-            return importClassInternal0( clazz );
+            classBuilder.accept( class_ );
+            return class_;
         } catch (RuntimeException | Error e) {
             importedClasses.remove( className );
             throw e;
+        } finally {
+            classesUnderConstruction.remove( className ).countDown();
         }
     }
 
-    private Class_ importClassInternal0(Class clazz) {
-        // Process class
-        Collection<Field> declaredFields = new LinkedHashSet<>( Arrays.asList( clazz.getDeclaredFields() ) );
-        Collection<Method> declaredMethods = Arrays.asList( clazz.getDeclaredMethods() );
-        Collection<ElementModifier> classModifiers = decodeModifiers( clazz.getModifiers(), clazz );
+    /**
+     * Waits until members of the class with the given name are imported, if it is under construction by another
+     * thread.
+     */
+    protected void awaitMembers(String className) {
+        CountDownLatch latch = classesUnderConstruction.get( className );
+        if (latch == null) {
+            return;
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        }
+    }
+
+    private Class_ createClass(Class clazz) {
+        Collection<ElementModifier> classModifiers = ElementModifier.setOf( decodeModifiers( clazz ) );
         String classCanonicalName = clazz.getCanonicalName();
 
-        Class_ class_ = new Class_(
+        return new Class_(
                 classCanonicalName != null ? classCanonicalName : clazz.getName(),
                 clazz.getSimpleName(),
                 clazz,
                 classModifiers,
                 getKind( classModifiers, clazz ),
                 getVisibility( classModifiers ) );
-        importedClasses.put( clazz.getName(), class_ );
+    }
+
+    private void importClassInternal0(Class clazz, Class_ class_) {
+        // Process class
+        Collection<Field> declaredFields = new LinkedHashSet<>( Arrays.asList( clazz.getDeclaredFields() ) );
+        Collection<Method> declaredMethods = Arrays.asList( clazz.getDeclaredMethods() );
 
         // Store relation with super class
         Class superClass = clazz.getSuperclass();
@@ -326,8 +856,6 @@ public class CompiledClassImporter {
 
         // Additional cleanup
         class_.membersFinished();
-
-        return class_;
     }
 
     /**
@@ -338,17 +866,15 @@ public class CompiledClassImporter {
             Collection<Field> fields,
             Class_ class_) {
 
-        Set<ElementModifier> constantDesignator = constantModifiers;
-
         for (Field field : fields) {
             String name = field.getName();
-            Collection<ElementModifier> elementModifiers = decodeModifiers( field.getModifiers(), field );
+            int modifiers = decodeModifiers( field );
             ParameterizableElement attribute;
 
             // Check if it is constant
-            if (elementModifiers.containsAll( constantDesignator )) {
+            if ((modifiers & CONSTANT_BITS) == CONSTANT_BITS) {
                 // Remove constant designator - it's a trash in that context
-                elementModifiers.removeAll( constantDesignator );
+                Collection<ElementModifier> elementModifiers = ElementModifier.setOf( modifiers & ~CONSTANT_BITS );
                 // Create constant
                 attribute = new ParameterizableElement(
                         field.toString(), name, field.getType(), field.getGenericType(), elementModifiers,
@@ -357,6 +883,7 @@ public class CompiledClassImporter {
                 // Create attribute
                 // FIX: should use field.toGenericString() as id, but it fails sometimes
                 // - i.e. on com.sun.tools.internal.xjc.api.impl.j2s.JAXBModelImpl
+                Collection<ElementModifier> elementModifiers = ElementModifier.setOf( modifiers );
                 attribute = new ParameterizableElement(
                         field.toString(), name, field.getType(), field.getGenericType(), elementModifiers,
                         ElementKind.Fields, getVisibility( elementModifiers ) );
@@ -370,7 +897,7 @@ public class CompiledClassImporter {
         } //loop: fields
     }
 
-    private static final Pattern getterPattern = Pattern.compile( "(get|is)(\\p{Upper}\\w*)" );
+    protected static final Pattern getterPattern = Pattern.compile( "(get|is)(\\p{Upper}\\w*)" );
 
     /**
      * Imports methods and breaks them down into properties and operations.
@@ -385,67 +912,65 @@ public class CompiledClassImporter {
             Class_ class_) {
 
         HashSet<Method> methodsToIgnore = new HashSet<>();
+        MemberIndex<Method> methodIndex = null;
+        MemberIndex<Field> fieldIndex = null;
 
         // Looking for properties
         for (Method method : methods) {
             String name = method.getName();
-            Collection<ElementModifier> elementModifiers = decodeModifiers( method.getModifiers(), method );
-            Collection<Annotation_> annotations = new LinkedHashSet<>();
-            importAnnotations( method.getDeclaredAnnotations(), annotations );
 
             // Is it getter (non-static, without params) ?
             Matcher accessorMatcher = getterPattern.matcher( name );
-            boolean getterFound
-                    = accessorMatcher.matches()
-                    && method.getParameterTypes().length == 0
-                    && !elementModifiers.contains( ElementModifier.Static );
+            if (!accessorMatcher.matches() || method.getParameterCount() != 0) {
+                continue;
+            }
+            int modifiers = decodeModifiers( method );
+            boolean getterFound = (modifiers & ElementModifier.Static.bit()) == 0;
             if (getterFound) {
                 // Property found
+                Collection<Annotation_> annotations = new LinkedHashSet<>();
+                importAnnotations( method.getDeclaredAnnotations(), annotations );
+                if (methodIndex == null) {
+                    methodIndex = new MemberIndex<>( methods, CompiledClassImporter::getMethodKey );
+                    fieldIndex = new MemberIndex<>( fields, Field::getName );
+                }
                 // Look for eventual matching setter
-                EnumSet<ElementModifier> getterVisibility = EnumSet.copyOf( ElementModifier.visibilityModifiers );
-                getterVisibility.retainAll( elementModifiers );
+                int getterVisibility = modifiers & VISIBILITY_BITS;
                 String propertyName = accessorMatcher.group( 2 );
-                boolean setterFound;
-                try {
-                    Method setter = clazz.getDeclaredMethod( "set" + propertyName, method.getReturnType() );
-                    Collection<ElementModifier> setterModifiers = decodeModifiers( setter.getModifiers(), setter );
-                    Set<ElementModifier> setterVisibility = EnumSet.copyOf( ElementModifier.visibilityModifiers );
-                    setterVisibility.retainAll( setterModifiers );
+                Method setter = findSetter( methodIndex, "set" + propertyName, method.getReturnType() );
+                boolean setterFound = false;
+                if (setter != null) {
+                    int setterModifiers = decodeModifiers( setter );
                     setterFound
-                            = !setterModifiers.contains( ElementModifier.Static )
-                            && setterVisibility.equals( getterVisibility );
+                            = (setterModifiers & ElementModifier.Static.bit()) == 0
+                            && (setterModifiers & VISIBILITY_BITS) == getterVisibility;
                     if (setterFound) {
-                        elementModifiers.addAll( setterModifiers );
+                        modifiers |= setterModifiers;
                         importAnnotations( setter.getDeclaredAnnotations(), annotations );
                         methodsToIgnore.add( setter );
                     }
-                } catch (NoSuchMethodException e) {
-                    setterFound = false;
                 }
 
                 // Is it read-only property?
                 if (!setterFound) {
-                    elementModifiers.add( ElementModifier.ReadOnly );
+                    modifiers |= ElementModifier.ReadOnly.bit();
                 }
 
                 // Look for eventual matching attribute
                 //TODO: maybe should be limited to private ones?
                 String attributeName = Introspector.decapitalize( propertyName );
-                try {
-                    Field attribute = clazz.getDeclaredField( attributeName );
-                    if (attribute.getType().equals( method.getReturnType() )) {
-                        elementModifiers.addAll( decodeModifiers( attribute.getModifiers(), attribute ) );
-                        importAnnotations( attribute.getDeclaredAnnotations(), annotations );
-                        fields.remove( attribute );
-                    }
-                } catch (NoSuchFieldException | SecurityException ignore) {
+                Field attribute = fieldIndex.getFirst( attributeName );
+                if (attribute != null && attribute.getType().equals( method.getReturnType() )) {
+                    modifiers |= decodeModifiers( attribute );
+                    importAnnotations( attribute.getDeclaredAnnotations(), annotations );
+                    fields.remove( attribute );
                 }
 
                 // Remove visibility modifiers and set the one from getter
-                elementModifiers.removeAll( ElementModifier.visibilityModifiers );
-                elementModifiers.addAll( getterVisibility );
+                modifiers = modifiers & ~VISIBILITY_BITS | getterVisibility;
 
                 // Create property
+                Collection<ElementModifier> elementModifiers = ElementModifier.setOf( modifiers );
                 ParameterizableElement property = new ParameterizableElement(
                         method.toGenericString(), attributeName, method.getReturnType(), method.getGenericReturnType(),
                         elementModifiers, ElementKind.Properties, getVisibility( elementModifiers ) );
@@ -470,7 +995,7 @@ public class CompiledClassImporter {
                     method.getName(),
                     method.getReturnType(),
                     method.getGenericReturnType(),
-                    decodeModifiers( method.getModifiers(), method ),
+                    ElementModifier.setOf( decodeModifiers( method ) ),
                     method,
                     ElementKind.Methods,
                     class_ );
@@ -479,6 +1004,26 @@ public class CompiledClassImporter {
         methodsToIgnore.clear();
     }
 
+    private static String getMethodKey(Method method) {
+        return method.getName() + '/' + method.getParameterCount();
+    }
+
+    /**
+     * Returns declared method with the given name and single parameter of the given type, or null if not found.
+     * As {@link Class#getDeclaredMethod(java.lang.String, java.lang.Class...)},
+     * if there are more such methods, the one with the most specific return type is chosen.
+     */
+    private static Method findSetter(MemberIndex<Method> methodIndex, String name, Class parameterType) {
+        Method result = null;
+        for (Method method : methodIndex.get( name + "/1" )) {
+            if (method.getParameterTypes()[ 0 ] == parameterType
+                    && (result == null || result.getReturnType().isAssignableFrom( method.getReturnType() ))) {
+                result = method;
+            }
+        }
+        return result;
+    }
+
     private void importConstructors(
             Class clazz,
             Constructor[] declaredConstructors,
@@ -490,7 +1035,7 @@ public class CompiledClassImporter {
                     clazz.getSimpleName(),
                     void.class,
                     void.class,
-                    decodeModifiers( method.getModifiers(), method ),
+                    ElementModifier.setOf( decodeModifiers( method ) ),
                     method,
                     ElementKind.Constructors,
                     class_ );
@@ -517,7 +1062,7 @@ public class CompiledClassImporter {
                     = new ParameterizableElement(
                             methodParam.getName(),
                             methodParam.getName(), methodParam.getType(), methodParam.getParameterizedType(),
-                            decodeModifiers( methodParam.getModifiers(), methodParam ),
+                            ElementModifier.setOf( decodeModifiers( methodParam ) ),
                             ElementKind.Parameters, ElementVisibility.Local );
             // Protection from AIOOBE caused by wrong signatures
             importAnnotations( methodParam.getAnnotations(), parameter.annotations );
@@ -550,62 +1095,83 @@ public class CompiledClassImporter {
 
     private void importAnnotations(Annotation[] declaredAnnotations, Collection<Annotation_> annotations) {
         for (Annotation declaredAnnotation : declaredAnnotations) {
-            Class<? extends Annotation> type = declaredAnnotation.annotationType();
-            Annotation_ annotation
-                    = new Annotation_( declaredAnnotation.toString(), "@" + type.getSimpleName(), type );
+            Annotation_ annotation = importedAnnotations.get( declaredAnnotation );
+            if (annotation == null) {
+                Class<? extends Annotation> type = declaredAnnotation.annotationType();
+                annotation = Annotation_.of( declaredAnnotation.toString(), "@" + type.getSimpleName(), type );
+                importedAnnotations.putIfAbsent( declaredAnnotation, annotation );
+            }
             annotations.add( annotation );
         }
     }
 
-    private static void importTypeParameters(
+    private void importTypeParameters(
             Type declaredType, Class classExclusion, Collection<String> typeParameters) {
         if (declaredType instanceof Type && !(declaredType instanceof Class)) {
-            importTypeParameters( declaredType, classExclusion, typeParameters, Collections.EMPTY_LIST );
+            String exclusionName = classExclusion.getName();
+            for (String typeName : getTypeParameterNames( declaredType )) {
+                if (!exclusionName.equals( typeName ) && !typeParameters.contains( typeName )) {
+                    typeParameters.add( typeName );
+                }
+            }
         }
     }
 
-    private static void importTypeParameters(
-            Type declaredType, Class classExclusion, Collection<String> typeParameters, Collection<Type> history) {
+    /**
+     * Returns names of classes used by the given generic type - raw types, type arguments and bounds,
+     * in order of appearance.
+     */
+    String[] getTypeParameterNames(Type declaredType) {
+        String[] names = typeParameterNames.get( declaredType );
+        if (names == null) {
+            // Types are small - lists are cheaper than hash sets here
+            List<String> namesList = new ArrayList<>( 4 );
+            collectTypeParameterNames( declaredType, namesList, new ArrayList<>( 8 ) );
+            names = namesList.toArray( new String[ namesList.size() ] );
+            String[] previousNames = typeParameterNames.putIfAbsent( declaredType, names );
+            if (previousNames != null) {
+                names = previousNames;
+            }
+        }
+        return names;
+    }
 
-        if (history.contains( declaredType )) {
+    /**
+     * Walks the given generic type, collecting names of used classes.
+     * Each type is walked once - it breaks cycles of recursive bounds (i.e. E extends Enum&lt;E&gt;).
+     */
+    private static void collectTypeParameterNames(Type declaredType, List<String> names, List<Type> visited) {
+        if (visited.contains( declaredType )) {
             return;
         }
-
-        ArrayList<Type> lHistory = new ArrayList<>( history );
-        lHistory.add( declaredType );
+        visited.add( declaredType );
 
         if (declaredType instanceof Class) {
             Class type = Utils.getClassType( (Class) declaredType );
-            if (type == null) {
-                return;
-            }
-            String typeName = type.getName();
-            if (!classExclusion.getName().equals( typeName ) && !typeParameters.contains( typeName )) {
-                typeParameters.add( typeName );
+            if (type != null && !names.contains( type.getName() )) {
+                names.add( SymbolTable.intern( type.getName() ) );
             }
         } else if (declaredType instanceof ParameterizedType) {
             ParameterizedType parameterizedType = (ParameterizedType) declaredType;
-            importTypeParameters( parameterizedType.getRawType(), classExclusion, typeParameters, lHistory );
+            collectTypeParameterNames( parameterizedType.getRawType(), names, visited );
             for (Type actualTypeArg : parameterizedType.getActualTypeArguments()) {
-                importTypeParameters( actualTypeArg, classExclusion, typeParameters, lHistory );
+                collectTypeParameterNames( actualTypeArg, names, visited );
             }
         } else if (declaredType instanceof WildcardType) {
             WildcardType wildcardType = (WildcardType) declaredType;
             // Take lower bounds if exist (upper=Object - ignored), upper bounds otherwise
-            boolean lowerBoundsExist = wildcardType.getLowerBounds().length > 0;
-            Type[] bounds = lowerBoundsExist
-                    ? wildcardType.getLowerBounds() : wildcardType.getUpperBounds();
+            Type[] lowerBounds = wildcardType.getLowerBounds();
+            Type[] bounds = lowerBounds.length > 0 ? lowerBounds : wildcardType.getUpperBounds();
             for (Type actualTypeArg : bounds) {
-                importTypeParameters( actualTypeArg, classExclusion, typeParameters, lHistory );
+                collectTypeParameterNames( actualTypeArg, names, visited );
             }
         } else if (declaredType instanceof GenericArrayType) {
             GenericArrayType genericArrayType = (GenericArrayType) declaredType;
-            importTypeParameters( genericArrayType.getGenericComponentType(), classExclusion, typeParameters, lHistory );
+            collectTypeParameterNames( genericArrayType.getGenericComponentType(), names, visited );
         } else if (declaredType instanceof TypeVariable) {
             TypeVariable typeVariable = (TypeVariable) declaredType;
-            Type[] bounds = typeVariable.getBounds();
-            for (Type actualTypeArg : bounds) {
-                importTypeParameters( actualTypeArg, classExclusion, typeParameters, lHistory );
+            for (Type actualTypeArg : typeVariable.getBounds()) {
+                collectTypeParameterNames( actualTypeArg, names, visited );
             }
         }
         // Other Type specializations don't contain info about real types - ignored
@@ -631,7 +1197,7 @@ public class CompiledClassImporter {
         return ElementKind.Class;
     }
 
-    private static ElementVisibility getVisibility(Collection<ElementModifier> modifiers) {
+    protected static ElementVisibility getVisibility(Collection<ElementModifier> modifiers) {
         if (modifiers.contains( ElementModifier.Public )) {
             return ElementVisibility.Public;
         }
@@ -645,35 +1211,67 @@ public class CompiledClassImporter {
     }
 
     /**
-     * Decodes modifiers coded in integer value.
+     * Decodes modifiers coded in integer value - see {@link Modifier}.
+     *
+     * @return bits of modifiers - see {@link ElementModifier#setOf(int)}
      */
-    private Collection<ElementModifier> decodeModifiers(
-            Integer modifiers, Object element) {
-        Collection<ElementModifier> elementModifiers = EnumSet.noneOf( ElementModifier.class );
+    protected static int decodeModifiers(int modifiers) {
+        return generalModifierBits[ modifiers & GENERAL_MODIFIERS_MASK ];
+    }
 
-        for (Map.Entry<ElementModifier, Method> e : generalModifierProcessors.entrySet()) {
-            try {
-                if (Boolean.TRUE.equals( e.getValue().invoke( null, modifiers ) )) {
-                    elementModifiers.add( e.getKey() );
-                }
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                // Ignore
-                logger.log( Level.WARNING, "Unexpected exception during checking modifiers", ex );
-            }
-        }
+    /**
+     * Returns bit of the given modifier if the condition is met, otherwise 0.
+     */
+    protected static int bitIf(ElementModifier modifier, boolean condition) {
+        return condition ? modifier.bit() : 0;
+    }
 
-        for (Map.Entry<ElementModifier, Method> e : elementModifierProcessors.get( element.getClass().getName() ).entrySet()) {
-            try {
-                if (Boolean.TRUE.equals( e.getValue().invoke( element ) )) {
-                    elementModifiers.add( e.getKey() );
-                }
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                // Ignore
-                logger.log( Level.WARNING, "Unexpected exception during checking modifiers", ex );
-            }
+    private static int decodeModifiers(Class clazz) {
+        return decodeModifiers( clazz.getModifiers() )
+                | bitIf( ElementModifier.Interface, clazz.isInterface() )
+                | bitIf( ElementModifier.Enum, clazz.isEnum() )
+                | bitIf( ElementModifier.Annotation, clazz.isAnnotation() )
+                | bitIf( ElementModifier.Record, isClass( isRecordHandle, clazz ) )
+                | bitIf( ElementModifier.Sealed, isClass( isSealedHandle, clazz ) )
+                | bitIf( ElementModifier.LocalClass, clazz.isLocalClass() )
+                | bitIf( ElementModifier.MemberClass, clazz.isMemberClass() )
+                | bitIf( ElementModifier.Synthetic, clazz.isSynthetic() );
+    }
+
+    private static boolean isClass(MethodHandle predicate, Class clazz) {
+        if (predicate == null) {
+            return false;
+        }
+        try {
+            return (boolean) predicate.invokeExact( clazz );
+        } catch (Throwable e) {
+            logger.log( Level.WARNING, "Unexpected exception during checking modifiers", e );
+            return false;
         }
+    }
+
+    static int decodeModifiers(Field field) {
+        return decodeModifiers( field.getModifiers() )
+                | bitIf( ElementModifier.Synthetic, field.isSynthetic() );
+    }
 
-        return elementModifiers;
+    private static int decodeModifiers(Constructor constructor) {
+        return decodeModifiers( constructor.getModifiers() )
+                | bitIf( ElementModifier.Synthetic, constructor.isSynthetic() );
+    }
+
+    static int decodeModifiers(Method method) {
+        return decodeModifiers( method.getModifiers() )
+                | bitIf( ElementModifier.Synthetic, method.isSynthetic() )
+                | bitIf( ElementModifier.Bridge, method.isBridge() )
+                | bitIf( ElementModifier.Default, method.isDefault() );
+    }
+
+    private static int decodeModifiers(Parameter parameter) {
+        return decodeModifiers( parameter.getModifiers() )
+                | bitIf( ElementModifier.Implicit, parameter.isImplicit() )
+                | bitIf( ElementModifier.Synthetic, parameter.isSynthetic() )
+                | bitIf( ElementModifier.VarArgs, parameter.isVarArgs() );
     }
 
     private void addRelations(Class_ class_, Collection<? extends ParameterizableElement> elements, RelationType relType) {
@@ -690,18 +1288,30 @@ public class CompiledClassImporter {
                 addRelations( class_, operation.parameters, RelationType.Dependency );
                 addRelations( class_, operation.throwables, RelationType.DependencyThrows );
             }
-            // Cleanup
-            element.typeParameters.clear();
-            element.typeParameters = Collections.EMPTY_LIST;
-            if (element.annotations.isEmpty()) {
-                element.annotations = Collections.EMPTY_LIST;
+            // Cleanup - frozen elements are shared by snapshots
+            if (!element.isFrozen()) {
+                element.typeParameters = Collections.EMPTY_LIST;
+                if (element.annotations.isEmpty()) {
+                    element.annotations = Collections.EMPTY_LIST;
+                }
             }
         } //loop
     }
 
     private void addRelation(Class_ class_, String targetType, RelationType relType) {
         try {
-            Class_ targetClass = importClassInternal( targetType );
+            Class_ targetClass;
+            if (memoryPressure || cancelled) {
+                targetClass = targetType != null ? importedClasses.get( targetType ) : null;
+                if (targetClass == null && targetType != null) {
+                    if (!cancelled) {
+                        skippedRelationsCount.incrementAndGet();
+                    }
+                    return;
+                }
+            } else {
+                targetClass = importClassInternal( targetType );
+            }
             if (targetClass != null && targetClass != class_) {
                 class_.addRelation( relType, targetClass );
             }
@@ -716,7 +1326,7 @@ public class CompiledClassImporter {
      * Process given throwable in context of the given className:<br/>
      * removes class from {@link #importedClasses} and logs throwable.
      */
-    private void processThrowable(Level level, Throwable throwable, String className) {
+    protected void processThrowable(Level level, Throwable throwable, String className) {
         importedClasses.remove( className );
         processThrowable( level, throwable, "Problem during importing class: {0}", className, null );
     }
@@ -761,6 +1371,68 @@ public class CompiledClassImporter {
         return importedClasses.values();
     }
 
+    /**
+     * Returns graph of imported classes.
+     */
+    public ClassGraph getClassGraph() {
+        return classGraph;
+    }
+
+    /**
+     * Freezes imported classes into a new snapshot and publishes it with its indexes - see {@link #getSnapshot()}.
+     * <br/>
+     * It must not be invoked during import - imports started meanwhile wait till it's finished.
+     *
+     * @throws IllegalStateException if classes are being imported
+     */
+    public ProjectSnapshot freezeModel() {
+        if (!modelLock.writeLock().tryLock()) {
+            throw new IllegalStateException( "Model can't be frozen during import" );
+        }
+        try {
+            long startTime = System.nanoTime();
+            ProjectSnapshot newSnapshot = ProjectSnapshot.freeze( classGraph, importedClasses.values() );
+            logger.log( Level.CONFIG, "Model of {0} classes frozen in {1} ms",
+                    new Object[]{ newSnapshot.size(), (System.nanoTime() - startTime) / 1_000_000 } );
+            startTime = System.nanoTime();
+            MemberSearchIndex newMemberIndex = MemberSearchIndex.build( newSnapshot );
+            logger.log( Level.CONFIG, "Index of {0} members built in {1} ms",
+                    new Object[]{ newMemberIndex.size(), (System.nanoTime() - startTime) / 1_000_000 } );
+            startTime = System.nanoTime();
+            HierarchyIndex newHierarchyIndex = HierarchyIndex.build( newSnapshot );
+            logger.log( Level.CONFIG, "Hierarchy of {0} classes indexed in {1} ms",
+                    new Object[]{ newSnapshot.size(), (System.nanoTime() - startTime) / 1_000_000 } );
+            publishedModel = new PublishedModel( newSnapshot, newMemberIndex, newHierarchyIndex );
+            return newSnapshot;
+        } finally {
+            modelLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns immutable snapshot of imported classes published after the last import.
+     * It can be traversed by any thread without locking, also during the next import.
+     */
+    public ProjectSnapshot getSnapshot() {
+        return publishedModel.snapshot;
+    }
+
+    /**
+     * Returns index of members of classes of the snapshot published after the last import - see
+     * {@link #getSnapshot()}.
+     */
+    public MemberSearchIndex getMemberIndex() {
+        return publishedModel.memberIndex;
+    }
+
+    /**
+     * Returns index of the type hierarchy of classes of the snapshot published after the last import - see
+     * {@link #getSnapshot()}.
+     */
+    public HierarchyIndex getHierarchyIndex() {
+        return publishedModel.hierarchyIndex;
+    }
+
     /**
      * Returns root of all imported classes tree - representation of Object class.
      */
@@ -784,6 +1456,13 @@ public class CompiledClassImporter {
         return notImportedClassNames.size();
     }
 
+    /**
+     * Returns names of classes, which could not be imported.
+     */
+    Collection<String> getNotImportedClassNames() {
+        return notImportedClassNames;
+    }
+
     /**
      * Returns classLoader currently used to load classes by importClass(es) methods.
      */
@@ -796,6 +1475,27 @@ public class CompiledClassImporter {
      */
     public void setClassLoader(URLClassLoader classLoader) {
         this.classLoader = classLoader;
+        // Annotations and types keep their classes loaded
+        importedAnnotations.clear();
+        typeParameterNames.clear();
+    }
+
+    /**
+     * Sets factory of class loaders replacing the current one, when metaspace filled by its classes exceeds the given
+     * budget. It applies to top-level classes imported by importClasses methods.
+     *
+     * @param metaspaceBudget budget of metaspace for one class loader; null means one class loader for the import
+     */
+    void setClassLoaderFactory(Supplier<URLClassLoader> classLoaderFactory, MetaspaceBudget metaspaceBudget) {
+        this.classLoaderFactory = classLoaderFactory;
+        this.metaspaceBudget = metaspaceBudget;
+    }
+
+    /**
+     * Returns listener receiving notifications about import progress, or null.
+     */
+    public ImportProgressListener getImportProgressListener() {
+        return importProgressListener;
     }
 
     /**
@@ -804,4 +1504,82 @@ public class CompiledClassImporter {
     public void setImportProgressListener(ImportProgressListener importProgressListener) {
         this.importProgressListener = importProgressListener;
     }
+
+    /**
+     * Returns number of threads used by {@link #importClasses(java.util.Collection)}.
+     */
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of threads used by {@link #importClasses(java.util.Collection)}; 1 means sequential import.
+     */
+    public void setThreadsCount(int threadsCount) {
+        this.threadsCount = Math.max( 1, threadsCount );
+    }
+
+    /**
+     * Sets limit of heap for import of classes in percents of its maximal size; 0 means no limit.
+     */
+    public void setHeapLimitPercent(int heapLimitPercent) {
+        this.heapLimitPercent = Math.max( 0, heapLimitPercent );
+    }
+
+
+    /**
+     * Snapshot of imported classes with its indexes - published at once, so readers never see indexes
+     * of another snapshot.
+     */
+    private static final class PublishedModel {
+
+        final ProjectSnapshot snapshot;
+        final MemberSearchIndex memberIndex;
+        final HierarchyIndex hierarchyIndex;
+
+        PublishedModel(ProjectSnapshot snapshot, MemberSearchIndex memberIndex, HierarchyIndex hierarchyIndex) {
+            this.snapshot = snapshot;
+            this.memberIndex = memberIndex;
+            this.hierarchyIndex = hierarchyIndex;
+        }
+    } //class
+
+    /**
+     * Imports range of top-level classes - splits it between workers of the pool.
+     */
+    private class ImportClassesAction extends RecursiveAction {
+
+        private static final int MAX_CLASSES_PER_TASK = 16;
+
+        private final List<String> classNames;
+        private final int from, to;
+        private final AtomicInteger importedCount;
+
+        ImportClassesAction(List<String> classNames, int from, int to, AtomicInteger importedCount) {
+            this.classNames = classNames;
+            this.from = from;
+            this.to = to;
+            this.importedCount = importedCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MAX_CLASSES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new ImportClassesAction( classNames, from, middle, importedCount ),
+                        new ImportClassesAction( classNames, middle, to, importedCount ) );
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (isImportStopped()) {
+                    return;
+                }
+                importTopLevelClass( classNames.get( i ) );
+                if (importProgressListener != null) {
+                    importProgressListener.importProgress( importedCount.incrementAndGet(), classNames.size() );
+                }
+            }
+        }
+    } //class
 }
@@ -1,5 +1,7 @@
 package clsvis.process.importer;
 
+import clsvis.model.Class_;
+
 /**
  * Listener receiving notifications about import progress.
  *
@@ -7,8 +9,21 @@ package clsvis.process.importer;
  */
 public interface ImportProgressListener {
 
+    /** Total count of classes, which are still being discovered. */
+    int UNKNOWN_COUNT = -1;
+
     /**
      * Notification about import progress: importedCount out of totalCount.
+     * Classes can be imported before all of them are discovered - then totalCount is {@link #UNKNOWN_COUNT}.
      */
     public void importProgress(int importedCount, int totalCount);
+
+    /**
+     * Notification about class imported with all its relations ({@link Class_#relationsProcessed}) - it's invoked
+     * by importing threads, after the class is finished, so it can be handed off to other threads.
+     * Inbound relations of the class can be still added - they are read consistently by
+     * {@link Class_#getRelations(clsvis.model.RelationType, clsvis.model.RelationDirection)}.
+     */
+    default void classImported(Class_ class_) {
+    }
 }
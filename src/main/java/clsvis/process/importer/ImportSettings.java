@@ -0,0 +1,49 @@
+package clsvis.process.importer;
+
+import java.io.File;
+
+/**
+ * Settings of the import process.<br/>
+ * Values can be overridden by system properties, i.e. <code>-Dclsvis.import.threads=1</code>.
+ */
+public interface ImportSettings {
+
+    /** Number of threads importing classes in parallel; 1 means sequential import. */
+    int IMPORT_THREADS = Integer.getInteger( "clsvis.import.threads", Runtime.getRuntime().availableProcessors() );
+
+    /** If true, classes are read straight from class files by {@link ClassFileImporter}, without loading them. */
+    boolean IMPORT_CLASS_FILES = Boolean.getBoolean( "clsvis.import.classFiles" );
+
+    /** Directory of the cache of imported jars. */
+    String IMPORT_CACHE_DIR = System.getProperty( "clsvis.import.cacheDir",
+            System.getProperty( "user.home" ) + File.separator + ".clsvis" + File.separator + "cache" );
+
+    /** Maximal size of the cache of imported jars in MB; 0 disables the cache. */
+    int IMPORT_CACHE_SIZE_MB = Integer.getInteger( "clsvis.import.cacheSize", 256 );
+
+    /**
+     * Metaspace in MB, which can be filled by classes loaded by one class loader;
+     * when exceeded, next classes are imported by a new class loader. 0 means one class loader for the whole import.
+     */
+    int IMPORT_METASPACE_BUDGET_MB = Integer.getInteger( "clsvis.import.metaspaceBudget", 0 );
+
+    /**
+     * Limit of heap during import in percents of its maximal size; close to it, caches are shed and relations to
+     * not imported classes are skipped; above it, the import is stopped with classes imported so far.
+     * 0 means no limit.
+     */
+    int IMPORT_HEAP_LIMIT_PERCENT = Integer.getInteger( "clsvis.import.heapLimit", 90 );
+
+    /**
+     * If true, classes are found through index of packages of jars on the class path, instead of probing all jars;
+     * the index is kept for the session.
+     */
+    boolean IMPORT_INDEXED_CLASS_LOADER
+            = Boolean.parseBoolean( System.getProperty( "clsvis.import.indexedClassLoader", "true" ) );
+
+    /** Number of child JVMs importing shards of classes; 0 means import in the application JVM. */
+    int IMPORT_PROCESSES = Integer.getInteger( "clsvis.import.processes", 0 );
+
+    /** Options of child JVMs importing classes, separated by spaces - i.e. <code>-Xmx2g</code>. */
+    String IMPORT_PROCESS_OPTIONS = System.getProperty( "clsvis.import.processOptions", "" );
+}
@@ -0,0 +1,191 @@
+package clsvis.process.importer;
+
+import clsvis.process.importer.ClassModelIO.ClassModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Import of a shard of classes in a child JVM - it isolates the application from crashes and memory limits of the
+ * import.<br/>
+ * The parent sends the importer type, class paths and names of classes to import over standard input of the child.
+ * The child imports them by its own {@link BaseProjectImporter}, reporting progress over standard output,
+ * and then it streams back model of all imported classes in the format of {@link ClassModelIO}.
+ * Standard error of the child (its log) is passed to the parent.
+ */
+final class ImportWorker {
+
+    private static final Logger logger = Logger.getLogger( ImportWorker.class.getName() );
+
+    private static final byte PROGRESS = 1;
+    private static final byte RESULT = 2;
+    /** Count of imported classes between progress reports. */
+    private static final int PROGRESS_STEP = 0x40;
+
+    /**
+     * Result of import of a shard.
+     */
+    static final class Result {
+
+        final List<ClassModel> classModels;
+        final List<String> notImportedClassNames;
+
+        Result(List<ClassModel> classModels, List<String> notImportedClassNames) {
+            this.classModels = classModels;
+            this.notImportedClassNames = notImportedClassNames;
+        }
+    } //class
+
+    private final Process process;
+
+    /**
+     * Starts child JVM importing the given classes by importer of the given type.
+     *
+     * @param threadsCount count of threads importing classes in the child
+     */
+    ImportWorker(String classImporterName, Collection<File> classPaths, Collection<String> classNames,
+            int threadsCount) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add( System.getProperty( "java.home" ) + File.separator + "bin" + File.separator + "java" );
+        for (String option : ImportSettings.IMPORT_PROCESS_OPTIONS.trim().split( "\\s+" )) {
+            if (!option.isEmpty()) {
+                command.add( option );
+            }
+        }
+        // Import settings are inherited - except those of the parent
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith( "clsvis." ) && !name.equals( "clsvis.import.processes" )) {
+                command.add( "-D" + name + '=' + System.getProperty( name ) );
+            }
+        }
+        command.add( "-Dclsvis.import.threads=" + threadsCount );
+        command.add( "-cp" );
+        command.add( System.getProperty( "java.class.path" ) );
+        command.add( ImportWorker.class.getName() );
+
+        process = new ProcessBuilder( command ).redirectError( ProcessBuilder.Redirect.INHERIT ).start();
+        try (DataOutputStream out = new DataOutputStream( new BufferedOutputStream( process.getOutputStream() ) )) {
+            out.writeUTF( classImporterName );
+            writeStrings( out, classPaths.stream().map( File::getPath ).collect( Collectors.toList() ) );
+            writeStrings( out, classNames );
+        } catch (IOException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads result of the import, passing counts of imported classes to the given progress consumer.
+     *
+     * @throws IOException if the child failed
+     */
+    Result readResult(IntConsumer progressConsumer) throws IOException {
+        try (DataInputStream in = new DataInputStream( new BufferedInputStream( process.getInputStream() ) )) {
+            byte recordType;
+            while ((recordType = in.readByte()) == PROGRESS) {
+                progressConsumer.accept( in.readInt() );
+            }
+            if (recordType != RESULT) {
+                throw new IOException( "Unexpected output of import process: " + recordType );
+            }
+            List<String> notImportedClassNames = readStrings( in );
+            List<ClassModel> classModels = ClassModelIO.load( in );
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException( "Import process finished with exit code " + exitCode );
+            }
+            return new Result( classModels, notImportedClassNames );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException( e );
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Destroys the child JVM - its result is not read anymore.
+     */
+    void destroy() {
+        process.destroyForcibly();
+    }
+
+    /**
+     * Entry point of the child JVM.
+     */
+    public static void main(String[] args) {
+        // Standard output is reserved for the result - i.e. static initializers could print there
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream( new FileOutputStream( FileDescriptor.out ), 0x10000 ) );
+        System.setOut( System.err );
+        try {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( System.in ) );
+            String classImporterName = in.readUTF();
+            List<String> classPaths = readStrings( in );
+            List<String> classNames = readStrings( in );
+
+            BaseProjectImporter projectImporter = new BaseProjectImporter(
+                    (CompiledClassImporter) Class.forName( classImporterName ).getConstructor().newInstance() );
+            CompiledClassImporter classImporter = projectImporter.getClassImporter();
+            int[] reportedCount = new int[ 1 ];
+            classImporter.setImportProgressListener( (importedCount, totalCount) -> {
+                synchronized (out) {
+                    if (importedCount - reportedCount[ 0 ] >= PROGRESS_STEP) {
+                        reportedCount[ 0 ] = importedCount;
+                        writeProgress( out, importedCount );
+                    }
+                }
+            } );
+            projectImporter.importClasses( classPaths, classNames );
+
+            synchronized (out) {
+                out.writeByte( RESULT );
+                writeStrings( out, classImporter.getNotImportedClassNames() );
+                ClassModelIO.save( classImporter.getImportedClasses(), out );
+            }
+            out.flush();
+            System.exit( 0 );
+        } catch (Throwable t) {
+            logger.log( Level.SEVERE, "Import process failed", t );
+            System.exit( 1 );
+        }
+    }
+
+    private static void writeProgress(DataOutputStream out, int importedCount) {
+        try {
+            out.writeByte( PROGRESS );
+            out.writeInt( importedCount );
+            out.flush();
+        } catch (IOException e) {
+            throw new ImportException( e );
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        out.writeInt( strings.size() );
+        for (String str : strings) {
+            out.writeUTF( str );
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> strings = new ArrayList<>( count );
+        for (int i = 0; i < count; i++) {
+            strings.add( in.readUTF() );
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,274 @@
+package clsvis.process.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Class loader of the import, which finds classes through index of packages of jars on its class path.<br/>
+ * {@link URLClassLoader} probes class path entries one by one - with hundreds of jars, each class costs hundreds of
+ * failed lookups. Here only jars with classes of the package of the class are checked, in order of the class path,
+ * so the first class found wins as before. Directories on the class path are always checked.<br/>
+ * Packages of jars are read from their central directories and cached for the session, until jars are modified.
+ * Classes not found in the indexed entries (i.e. in jars referenced by Class-Path of manifests) and other
+ * resources are found by {@link URLClassLoader}.
+ */
+final class IndexedJarClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private static final Logger logger = Logger.getLogger( IndexedJarClassLoader.class.getName() );
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final int[] NO_POSITIONS = {};
+
+    /**
+     * Packages of classes of a jar - valid while the jar is not modified.
+     */
+    private static final class JarPackages {
+
+        final long stamp;
+        final String[] packages;
+
+        JarPackages(long stamp, String[] packages) {
+            this.stamp = stamp;
+            this.packages = packages;
+        }
+    } //class
+
+    /** Map[jarFile] = packages of the jar - shared by class loaders of the session */
+    private static final Map<File, JarPackages> jarPackagesCache = new ConcurrentHashMap<>();
+
+    private final File[] classPaths;
+    /** Jar files opened on demand - guarded by the array */
+    private final JarFile[] jarFiles;
+    private final ProtectionDomain[] protectionDomains;
+    /** Map[package] = positions of jars with classes of the package, ascending */
+    private final Map<String, int[]> packagePositions = new HashMap<>( 0x1000 );
+    /** Positions of directories, ascending */
+    private final int[] directoryPositions;
+
+    IndexedJarClassLoader(List<File> classPaths, URL[] classPathUrls) {
+        super( classPathUrls );
+        this.classPaths = classPaths.toArray( new File[ classPaths.size() ] );
+        jarFiles = new JarFile[ this.classPaths.length ];
+        protectionDomains = new ProtectionDomain[ this.classPaths.length ];
+        int[] directories = new int[ this.classPaths.length ];
+        int directoriesCount = 0;
+        for (int position = 0; position < this.classPaths.length; position++) {
+            File classPath = this.classPaths[ position ];
+            if (classPath.isDirectory()) {
+                directories[ directoriesCount++ ] = position;
+            } else if (classPath.isFile()) {
+                for (String packageName : getJarPackages( classPath ).packages) {
+                    int[] positions = packagePositions.getOrDefault( packageName, NO_POSITIONS );
+                    positions = Arrays.copyOf( positions, positions.length + 1 );
+                    positions[ positions.length - 1 ] = position;
+                    packagePositions.put( packageName, positions );
+                }
+            }
+        }
+        directoryPositions = Arrays.copyOf( directories, directoriesCount );
+    }
+
+    /**
+     * Returns packages of the given jar - from the cache if the jar was not modified.
+     */
+    private static JarPackages getJarPackages(File jarFile) {
+        long stamp = jarFile.lastModified() * 31 + jarFile.length();
+        JarPackages jarPackages = jarPackagesCache.get( jarFile );
+        if (jarPackages != null && jarPackages.stamp == stamp) {
+            return jarPackages;
+        }
+        Set<String> packages = new HashSet<>();
+        ZipCentralDirectory.ClassEntryConsumer classEntryConsumer
+                = (className, crc, size) -> packages.add( getPackageName( className ) );
+        try {
+            try {
+                ZipCentralDirectory.readClassEntries( jarFile, classEntryConsumer );
+            } catch (ZipException e) {
+                // Unusual format - i.e. with preamble
+                packages.clear();
+                BaseProjectImporter.findClassEntriesByZipFile( jarFile, classEntryConsumer );
+            }
+        } catch (IOException e) {
+            // Not readable by URLClassLoader either
+            logger.log( Level.WARNING, "Problem during indexing {0}: {1}", new Object[]{ jarFile, e } );
+            packages.clear();
+        }
+        jarPackages = new JarPackages( stamp, packages.toArray( new String[ packages.size() ] ) );
+        jarPackagesCache.put( jarFile, jarPackages );
+        return jarPackages;
+    }
+
+    private static String getPackageName(String className) {
+        int lastDotIdx = className.lastIndexOf( '.' );
+        return lastDotIdx < 0 ? "" : className.substring( 0, lastDotIdx );
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        String entryName = name.replace( '.', '/' ) + CLASS_SUFFIX;
+        int position = findPosition( getPackageName( name ), entryName );
+        if (position < 0) {
+            return super.findClass( name );
+        }
+        byte[] bytes;
+        try {
+            bytes = readEntry( position, entryName );
+        } catch (IOException e) {
+            throw new ClassNotFoundException( name, e );
+        }
+        String packageName = getPackageName( name );
+        if (!packageName.isEmpty() && getDefinedPackage( packageName ) == null) {
+            try {
+                definePackage( packageName, null, null, null, null, null, null, null );
+            } catch (IllegalArgumentException ignore) {
+                // Defined concurrently by another thread
+            }
+        }
+        return defineClass( name, bytes, 0, bytes.length, getProtectionDomain( position ) );
+    }
+
+    @Override
+    public URL findResource(String name) {
+        if (name.endsWith( CLASS_SUFFIX )) {
+            int lastSlashIdx = name.lastIndexOf( '/' );
+            String packageName = lastSlashIdx < 0 ? "" : name.substring( 0, lastSlashIdx ).replace( '/', '.' );
+            int position = findPosition( packageName, name );
+            if (position >= 0) {
+                try {
+                    URL classPathUrl = classPaths[ position ].toURI().toURL();
+                    return classPaths[ position ].isDirectory()
+                            ? new URL( classPathUrl, name )
+                            : new URL( "jar:" + classPathUrl + "!/" + name );
+                } catch (MalformedURLException e) {
+                    logger.log( Level.WARNING, "Problem during creating URL of {0}: {1}", new Object[]{ name, e } );
+                }
+            }
+        }
+        return super.findResource( name );
+    }
+
+    /**
+     * Returns position of the first class path entry containing the given entry of the given package, or -1.
+     */
+    private int findPosition(String packageName, String entryName) {
+        int[] jarPositions = packagePositions.getOrDefault( packageName, NO_POSITIONS );
+        int jarIdx = 0;
+        int directoryIdx = 0;
+        while (jarIdx < jarPositions.length || directoryIdx < directoryPositions.length) {
+            boolean directoryFirst = jarIdx == jarPositions.length
+                    || directoryIdx < directoryPositions.length
+                    && directoryPositions[ directoryIdx ] < jarPositions[ jarIdx ];
+            if (directoryFirst) {
+                int position = directoryPositions[ directoryIdx++ ];
+                if (new File( classPaths[ position ], entryName ).isFile()) {
+                    return position;
+                }
+            } else {
+                int position = jarPositions[ jarIdx++ ];
+                try {
+                    if (getJarFile( position ).getEntry( entryName ) != null) {
+                        return position;
+                    }
+                } catch (IOException e) {
+                    logger.log( Level.FINE, "Problem during opening {0}: {1}",
+                            new Object[]{ classPaths[ position ], e } );
+                }
+            }
+        }
+        return -1;
+    }
+
+    private byte[] readEntry(int position, String entryName) throws IOException {
+        File classPath = classPaths[ position ];
+        if (classPath.isDirectory()) {
+            return java.nio.file.Files.readAllBytes( new File( classPath, entryName ).toPath() );
+        }
+        JarFile jarFile = getJarFile( position );
+        ZipEntry entry = jarFile.getEntry( entryName );
+        try (InputStream in = jarFile.getInputStream( entry )) {
+            byte[] bytes = new byte[ entry.getSize() >= 0 ? (int) entry.getSize() : 0x1000 ];
+            int length = 0;
+            // Known size is read exactly - available() of inflating stream doesn't tell, whether it's at the end
+            while (length != entry.getSize()) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf( bytes, bytes.length * 2 );
+                }
+                int readCount = in.read( bytes, length, bytes.length - length );
+                if (readCount < 0) {
+                    break;
+                }
+                length += readCount;
+            }
+            return length == bytes.length ? bytes : Arrays.copyOf( bytes, length );
+        }
+    }
+
+    private JarFile getJarFile(int position) throws IOException {
+        synchronized (jarFiles) {
+            if (jarFiles[ position ] == null) {
+                jarFiles[ position ] = new JarFile( classPaths[ position ], false );
+            }
+            return jarFiles[ position ];
+        }
+    }
+
+    private ProtectionDomain getProtectionDomain(int position) {
+        synchronized (protectionDomains) {
+            if (protectionDomains[ position ] == null) {
+                URL classPathUrl;
+                try {
+                    classPathUrl = classPaths[ position ].toURI().toURL();
+                } catch (MalformedURLException e) {
+                    classPathUrl = null;
+                }
+                protectionDomains[ position ] = new ProtectionDomain(
+                        new CodeSource( classPathUrl, (Certificate[]) null ), null, this, null );
+            }
+            return protectionDomains[ position ];
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException problem = null;
+        synchronized (jarFiles) {
+            for (int i = 0; i < jarFiles.length; i++) {
+                if (jarFiles[ i ] != null) {
+                    try {
+                        jarFiles[ i ].close();
+                    } catch (IOException e) {
+                        problem = e;
+                    }
+                    jarFiles[ i ] = null;
+                }
+            }
+        }
+        super.close();
+        if (problem != null) {
+            throw problem;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package clsvis.process.importer;
+
+import clsvis.model.Class_;
+import clsvis.process.importer.ClassModelIO.ClassModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of models of imported jars.<br/>
+ * Model of a jar is stored under a key computed from the content of the jar, the importer and the class path
+ * (types of classes can depend on their super classes from other jars).
+ * When the total size of the cache exceeds the limit, the least recently used models are removed.<br/>
+ * Problems with the cache are logged, but they never break the import.
+ */
+class JarModelCache {
+
+    private static final Logger logger = Logger.getLogger( JarModelCache.class.getName() );
+
+    private static final String modelFileSuffix = ".model";
+
+    private final File cacheDir;
+    private final long maxSize;
+
+    /**
+     * @param maxSize maximal total size of cached models in bytes
+     */
+    JarModelCache(File cacheDir, long maxSize) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns cache configured by {@link ImportSettings}, or null if the cache is disabled.
+     */
+    static JarModelCache createDefault() {
+        return ImportSettings.IMPORT_CACHE_SIZE_MB > 0
+                ? new JarModelCache(
+                        new File( ImportSettings.IMPORT_CACHE_DIR ), (long) ImportSettings.IMPORT_CACHE_SIZE_MB << 20 )
+                : null;
+    }
+
+    /**
+     * Computes key of the given jar imported by the given importer with the given class path.
+     */
+    String computeKey(File jarFile, CompiledClassImporter classImporter, Collection<File> classPaths)
+            throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance( "SHA-256" );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException( e );
+        }
+        digest.update( (ClassModelIO.VERSION + " " + classImporter.getClass().getName() + '\n')
+                .getBytes( StandardCharsets.UTF_8 ) );
+        // Class path changes are detected by size and modification time - it's cheap
+        for (File classPath : classPaths) {
+            digest.update( (classPath.getAbsolutePath() + ' ' + classPath.length() + ' ' + classPath.lastModified() + '\n')
+                    .getBytes( StandardCharsets.UTF_8 ) );
+        }
+        byte[] buffer = new byte[ 0x10000 ];
+        try (InputStream in = Files.newInputStream( jarFile.toPath() )) {
+            for (int readCount; (readCount = in.read( buffer )) > 0;) {
+                digest.update( buffer, 0, readCount );
+            }
+        }
+        StringBuilder key = new StringBuilder( 64 );
+        for (byte b : digest.digest()) {
+            key.append( String.format( "%02x", b ) );
+        }
+        return key.toString();
+    }
+
+    /**
+     * Loads model stored under the given key.
+     *
+     * @return loaded classes, or null if not found or not readable
+     */
+    List<ClassModel> load(String key) {
+        File modelFile = getModelFile( key );
+        if (!modelFile.isFile()) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(
+                new BufferedInputStream( Files.newInputStream( modelFile.toPath() ) ) )) {
+            List<ClassModel> classModels = ClassModelIO.load( in );
+            // Mark as recently used
+            modelFile.setLastModified( System.currentTimeMillis() );
+            return classModels;
+        } catch (IOException | RuntimeException e) {
+            logger.log( Level.WARNING, "Problem during loading cached model {0}: {1}", new Object[]{ modelFile, e } );
+            modelFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores model of the given classes under the given key and evicts the least recently used models,
+     * if the cache is too big.
+     */
+    void store(String key, Collection<Class_> classes) {
+        File modelFile = getModelFile( key );
+        File tempFile = null;
+        try {
+            Files.createDirectories( cacheDir.toPath() );
+            tempFile = File.createTempFile( key, ".tmp", cacheDir );
+            try (OutputStream out = new GZIPOutputStream(
+                    new BufferedOutputStream( Files.newOutputStream( tempFile.toPath() ) ) )) {
+                ClassModelIO.save( classes, out );
+            }
+            Files.move( tempFile.toPath(), modelFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        } catch (IOException | RuntimeException e) {
+            logger.log( Level.WARNING, "Problem during storing cached model {0}: {1}", new Object[]{ modelFile, e } );
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Removes the least recently used models, until the cache fits in {@link #maxSize}.
+     */
+    private void evict() {
+        File[] modelFiles = cacheDir.listFiles( (dir, name) -> name.endsWith( modelFileSuffix ) );
+        if (modelFiles == null) {
+            return;
+        }
+        long totalSize = 0;
+        for (File modelFile : modelFiles) {
+            totalSize += modelFile.length();
+        }
+        Arrays.sort( modelFiles, Comparator.comparingLong( File::lastModified ) );
+        for (int i = 0; totalSize > maxSize && i < modelFiles.length; i++) {
+            long size = modelFiles[ i ].length();
+            if (modelFiles[ i ].delete()) {
+                logger.log( Level.FINE, "Evicted cached model {0}", modelFiles[ i ] );
+                totalSize -= size;
+            }
+        }
+    }
+
+    private File getModelFile(String key) {
+        return new File( cacheDir, key + modelFileSuffix );
+    }
+}
@@ -0,0 +1,72 @@
+package clsvis.process.importer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Index of declared members of a class by key - i.e. by name of field or by name and arity of method.<br/>
+ * It's built in one pass over the members, so matching of members (i.e. setters and fields of properties)
+ * is a hash lookup, instead of a linear scan or a reflective call throwing exception when not found.
+ *
+ * @param <M> type of member
+ */
+final class MemberIndex<M> {
+
+    /** Map[key] = member or List of members with the same key */
+    private final Map<String, Object> membersByKey;
+
+    MemberIndex(Collection<? extends M> members, Function<? super M, String> keyFunction) {
+        membersByKey = new HashMap<>( members.size() * 4 / 3 + 1 );
+        for (M member : members) {
+            membersByKey.merge( keyFunction.apply( member ), member, MemberIndex::addMember );
+        }
+    }
+
+    private static Object addMember(Object members, Object member) {
+        List<Object> list;
+        if (members instanceof MemberList) {
+            list = (MemberList) members;
+        } else {
+            list = new MemberList();
+            list.add( members );
+        }
+        list.add( member );
+        return list;
+    }
+
+    /**
+     * Returns members with the given key, in order of declaration.
+     */
+    @SuppressWarnings("unchecked") // only members are indexed
+    List<M> get(String key) {
+        Object members = membersByKey.get( key );
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        return members instanceof MemberList ? (List<M>) members : Collections.singletonList( (M) members );
+    }
+
+    /**
+     * Returns the first member with the given key, or null if there is no such member.
+     */
+    @SuppressWarnings("unchecked") // only members are indexed
+    M getFirst(String key) {
+        Object members = membersByKey.get( key );
+        return members instanceof MemberList ? (M) ((MemberList) members).get( 0 ) : (M) members;
+    }
+
+    /**
+     * List of members with the same key - distinguishable from a member, which can be a List itself.
+     */
+    private static final class MemberList extends ArrayList<Object> {
+
+        MemberList() {
+            super( 2 );
+        }
+    } //class
+}
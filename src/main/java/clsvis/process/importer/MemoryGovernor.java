@@ -0,0 +1,94 @@
+package clsvis.process.importer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Governor of heap used by the import - it watches the heap pool holding long-living objects (old generation)
+ * through its thresholds of usage after GC.<br/>
+ * Above the pressure threshold the import sheds its caches and doesn't create classes only referenced by imported
+ * ones; above the limit the import is stopped with the model imported so far.
+ * Thresholds are set only during the import - see {@link #close()}.
+ */
+final class MemoryGovernor implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger( MemoryGovernor.class.getName() );
+
+    /** Pressure threshold in percents of the limit. */
+    private static final int PRESSURE_PERCENT = 80;
+
+    private final MemoryPoolMXBean heapPool;
+    private final long pressureThreshold;
+    private final long limit;
+    private final long previousUsageThreshold;
+    private final long previousCollectionUsageThreshold;
+
+    private MemoryGovernor(MemoryPoolMXBean heapPool, long limit) {
+        this.heapPool = heapPool;
+        this.limit = limit;
+        pressureThreshold = limit / 100 * PRESSURE_PERCENT;
+        previousUsageThreshold = heapPool.getUsageThreshold();
+        previousCollectionUsageThreshold = heapPool.getCollectionUsageThreshold();
+        heapPool.setUsageThreshold( pressureThreshold );
+        heapPool.setCollectionUsageThreshold( limit );
+    }
+
+    /**
+     * Creates governor with limit of the given percent of the maximal size of the heap pool of long-living objects.
+     *
+     * @return governor, or null if the percent is 0 or the JVM doesn't report such heap pool
+     */
+    static MemoryGovernor create(int limitPercent) {
+        if (limitPercent <= 0) {
+            return null;
+        }
+        // Only pools of long-living objects support both thresholds - i.e. "G1 Old Gen", "PS Old Gen"
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported()) {
+                long maxSize = pool.getUsage().getMax();
+                if (maxSize <= 0) {
+                    maxSize = Runtime.getRuntime().maxMemory();
+                }
+                return new MemoryGovernor( pool, maxSize / 100 * Math.min( limitPercent, 100 ) );
+            }
+        }
+        logger.log( Level.WARNING, "Heap pool with thresholds not reported by the JVM - heap limit ignored" );
+        return null;
+    }
+
+    /**
+     * Returns true, if live objects fill more than the pressure threshold - caches should be shed and only classes
+     * needed by the import should be created.<br/>
+     * Cheap check of the usage threshold comes first; usage after the last GC decides, as garbage is included before.
+     */
+    boolean isUnderPressure() {
+        return heapPool.isUsageThresholdExceeded() && heapPool.getCollectionUsage().getUsed() >= pressureThreshold;
+    }
+
+    /**
+     * Returns true, if live objects filled more than the limit after the last GC - the import should be stopped.
+     */
+    boolean isExceeded() {
+        return heapPool.isCollectionUsageThresholdExceeded();
+    }
+
+    /**
+     * Returns the limit in bytes.
+     */
+    long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Restores thresholds of the heap pool.
+     */
+    @Override
+    public void close() {
+        heapPool.setUsageThreshold( previousUsageThreshold );
+        heapPool.setCollectionUsageThreshold( previousCollectionUsageThreshold );
+    }
+}
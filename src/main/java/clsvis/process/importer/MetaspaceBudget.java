@@ -0,0 +1,58 @@
+package clsvis.process.importer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Budget of metaspace, which can be filled by classes loaded by one class loader.<br/>
+ * Growth of the metaspace is measured since the last {@link #reset()} - space of classes of released class loaders
+ * is reclaimed by GC later, when the JVM needs it.
+ */
+final class MetaspaceBudget {
+
+    private static final Logger logger = Logger.getLogger( MetaspaceBudget.class.getName() );
+
+    private static final String METASPACE_POOL_NAME = "Metaspace";
+
+    private final MemoryPoolMXBean metaspacePool;
+    private final long budget;
+    private volatile long baseline;
+
+    private MetaspaceBudget(MemoryPoolMXBean metaspacePool, long budget) {
+        this.metaspacePool = metaspacePool;
+        this.budget = budget;
+        reset();
+    }
+
+    /**
+     * Creates budget of the given size in bytes.
+     *
+     * @return budget, or null if metaspace is not reported by the JVM
+     */
+    static MetaspaceBudget create(long budget) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.NON_HEAP && METASPACE_POOL_NAME.equals( pool.getName() )) {
+                return new MetaspaceBudget( pool, budget );
+            }
+        }
+        logger.log( Level.WARNING, "Metaspace not reported by the JVM - budget of {0} B ignored", budget );
+        return null;
+    }
+
+    /**
+     * Returns true, if the metaspace grew by more than the budget since the last {@link #reset()}.
+     */
+    boolean isExceeded() {
+        return metaspacePool.getUsage().getUsed() - baseline > budget;
+    }
+
+    /**
+     * Starts measuring growth of the metaspace from its current usage.
+     */
+    void reset() {
+        baseline = metaspacePool.getUsage().getUsed();
+    }
+}
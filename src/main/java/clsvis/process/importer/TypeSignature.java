@@ -0,0 +1,340 @@
+package clsvis.process.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Type read from descriptor or generic signature of class file - equivalent of {@link java.lang.reflect.Type}.<br/>
+ * Signatures are parsed the same way as by the reflection, so they can be rendered the same way, too.
+ */
+abstract class TypeSignature {
+
+    static final ClassType OBJECT = new ClassType( Object.class.getName(), null, null );
+
+    /**
+     * Returns true, if the type is represented by {@link Class} in the reflection - without type arguments.
+     */
+    abstract boolean isClass();
+
+    /**
+     * Primitive type or void.
+     */
+    static class BaseType extends TypeSignature {
+
+        final String name;
+
+        BaseType(String name) {
+            this.name = name;
+        }
+
+        @Override
+        boolean isClass() {
+            return true;
+        }
+    } //class
+
+    /**
+     * Class type - eventually parameterized.
+     */
+    static class ClassType extends TypeSignature {
+
+        /** Binary name of the raw class. */
+        final String name;
+        /** Type arguments; null for not parameterized type. */
+        final TypeSignature[] arguments;
+        /** Explicit owner type, if present in signature. */
+        final ClassType owner;
+
+        ClassType(String name, TypeSignature[] arguments, ClassType owner) {
+            this.name = name;
+            this.arguments = arguments;
+            this.owner = owner;
+        }
+
+        @Override
+        boolean isClass() {
+            return arguments == null;
+        }
+
+        boolean isObject() {
+            return isClass() && OBJECT.name.equals( name );
+        }
+    } //class
+
+    static class ArrayType extends TypeSignature {
+
+        final TypeSignature componentType;
+
+        ArrayType(TypeSignature componentType) {
+            this.componentType = componentType;
+        }
+
+        @Override
+        boolean isClass() {
+            return componentType.isClass();
+        }
+
+        /**
+         * Returns type of array elements, which is not an array.
+         */
+        TypeSignature getElementType() {
+            TypeSignature type = componentType;
+            while (type instanceof ArrayType) {
+                type = ((ArrayType) type).componentType;
+            }
+            return type;
+        }
+    } //class
+
+    static class TypeVariable extends TypeSignature {
+
+        final String name;
+
+        TypeVariable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        boolean isClass() {
+            return false;
+        }
+    } //class
+
+    static class Wildcard extends TypeSignature {
+
+        /** One of: '*' (unbounded), '+' (upper bound), '-' (lower bound). */
+        final char indicator;
+        final TypeSignature bound;
+
+        Wildcard(char indicator, TypeSignature bound) {
+            this.indicator = indicator;
+            this.bound = bound;
+        }
+
+        @Override
+        boolean isClass() {
+            return false;
+        }
+    } //class
+
+    /**
+     * Declaration of type parameter of class or method.
+     */
+    static class TypeParameter {
+
+        final String name;
+        final TypeSignature[] bounds;
+
+        TypeParameter(String name, TypeSignature[] bounds) {
+            this.name = name;
+            this.bounds = bounds;
+        }
+    } //class
+
+    static class ClassSignature {
+
+        TypeParameter[] typeParameters;
+        ClassType superClass;
+        ClassType[] interfaces;
+    } //class
+
+    /**
+     * Signature or descriptor of method.
+     */
+    static class MethodSignature {
+
+        TypeParameter[] typeParameters;
+        TypeSignature[] parameters;
+        TypeSignature returnType;
+        TypeSignature[] exceptions;
+    } //class
+
+
+    /**
+     * Parses the given class signature.
+     */
+    static ClassSignature parseClassSignature(String signature) {
+        Parser parser = new Parser( signature );
+        ClassSignature result = new ClassSignature();
+        result.typeParameters = parser.parseTypeParameters();
+        result.superClass = (ClassType) parser.parseType();
+        List<ClassType> interfaces = new ArrayList<>();
+        while (parser.hasMore()) {
+            interfaces.add( (ClassType) parser.parseType() );
+        }
+        result.interfaces = interfaces.toArray( new ClassType[ interfaces.size() ] );
+        return result;
+    }
+
+    /**
+     * Parses the given method signature or descriptor.
+     */
+    static MethodSignature parseMethodSignature(String signature) {
+        Parser parser = new Parser( signature );
+        MethodSignature result = new MethodSignature();
+        result.typeParameters = parser.parseTypeParameters();
+        parser.expect( '(' );
+        List<TypeSignature> parameters = new ArrayList<>();
+        while (!parser.skip( ')' )) {
+            parameters.add( parser.parseType() );
+        }
+        result.parameters = parameters.toArray( new TypeSignature[ parameters.size() ] );
+        result.returnType = parser.parseType();
+        List<TypeSignature> exceptions = new ArrayList<>( 0 );
+        while (parser.skip( '^' )) {
+            exceptions.add( parser.parseType() );
+        }
+        result.exceptions = exceptions.toArray( new TypeSignature[ exceptions.size() ] );
+        return result;
+    }
+
+    /**
+     * Parses the given field signature or descriptor.
+     */
+    static TypeSignature parseFieldSignature(String signature) {
+        return new Parser( signature ).parseType();
+    }
+
+
+    /**
+     * Recursive descent parser of signatures, as defined in JVMS 4.7.9.1.
+     */
+    private static class Parser {
+
+        private static final TypeParameter[] NO_TYPE_PARAMETERS = new TypeParameter[ 0 ];
+
+        private final String signature;
+        private int pos;
+
+        Parser(String signature) {
+            this.signature = signature;
+        }
+
+        boolean hasMore() {
+            return pos < signature.length();
+        }
+
+        boolean skip(char c) {
+            if (hasMore() && signature.charAt( pos ) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!skip( c )) {
+                throw new IllegalArgumentException(
+                        String.format( "'%c' expected at %d in signature '%s'", c, pos, signature ) );
+            }
+        }
+
+        TypeParameter[] parseTypeParameters() {
+            if (!skip( '<' )) {
+                return NO_TYPE_PARAMETERS;
+            }
+            List<TypeParameter> typeParameters = new ArrayList<>();
+            while (!skip( '>' )) {
+                String name = parseIdentifier();
+                List<TypeSignature> bounds = new ArrayList<>( 1 );
+                expect( ':' );
+                if (signature.charAt( pos ) != ':') {
+                    bounds.add( parseType() ); // class bound
+                }
+                while (skip( ':' )) {
+                    bounds.add( parseType() ); // interface bound
+                }
+                if (bounds.isEmpty()) {
+                    bounds.add( OBJECT );
+                }
+                typeParameters.add( new TypeParameter( name, bounds.toArray( new TypeSignature[ bounds.size() ] ) ) );
+            }
+            return typeParameters.toArray( new TypeParameter[ typeParameters.size() ] );
+        }
+
+        TypeSignature parseType() {
+            char c = signature.charAt( pos++ );
+            switch (c) {
+                case 'B':
+                    return new BaseType( "byte" );
+                case 'C':
+                    return new BaseType( "char" );
+                case 'D':
+                    return new BaseType( "double" );
+                case 'F':
+                    return new BaseType( "float" );
+                case 'I':
+                    return new BaseType( "int" );
+                case 'J':
+                    return new BaseType( "long" );
+                case 'S':
+                    return new BaseType( "short" );
+                case 'Z':
+                    return new BaseType( "boolean" );
+                case 'V':
+                    return new BaseType( "void" );
+                case '[':
+                    return new ArrayType( parseType() );
+                case 'T': {
+                    String name = parseIdentifier();
+                    expect( ';' );
+                    return new TypeVariable( name );
+                }
+                case 'L':
+                    return parseClassType();
+                default:
+                    throw new IllegalArgumentException(
+                            String.format( "Unexpected '%c' at %d in signature '%s'", c, pos - 1, signature ) );
+            }
+        }
+
+        /**
+         * Parses class type the same way as {@code sun.reflect.generics.visitor.Reifier} does:
+         * owner is present only after the first type with arguments.
+         */
+        private ClassType parseClassType() {
+            int start = pos;
+            while (";<.".indexOf( signature.charAt( pos ) ) < 0) {
+                pos++;
+            }
+            String name = signature.substring( start, pos ).replace( '/', '.' );
+            ClassType result = new ClassType( name, parseTypeArguments(), null );
+            while (skip( '.' )) {
+                name = name + '$' + parseIdentifier();
+                TypeSignature[] arguments = parseTypeArguments();
+                result = new ClassType( name,
+                        arguments != null ? arguments : (result.arguments != null ? new TypeSignature[ 0 ] : null),
+                        result.arguments != null ? result : null );
+            }
+            expect( ';' );
+            return result;
+        }
+
+        private TypeSignature[] parseTypeArguments() {
+            if (!skip( '<' )) {
+                return null;
+            }
+            List<TypeSignature> arguments = new ArrayList<>( 2 );
+            while (!skip( '>' )) {
+                if (skip( '*' )) {
+                    arguments.add( new Wildcard( '*', OBJECT ) );
+                } else if (skip( '+' )) {
+                    arguments.add( new Wildcard( '+', parseType() ) );
+                } else if (skip( '-' )) {
+                    arguments.add( new Wildcard( '-', parseType() ) );
+                } else {
+                    arguments.add( parseType() );
+                }
+            }
+            return arguments.toArray( new TypeSignature[ arguments.size() ] );
+        }
+
+        private String parseIdentifier() {
+            int start = pos;
+            while (";<>:.".indexOf( signature.charAt( pos ) ) < 0) {
+                pos++;
+            }
+            return signature.substring( start, pos );
+        }
+    } //class
+}
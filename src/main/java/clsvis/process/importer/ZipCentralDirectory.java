@@ -0,0 +1,174 @@
+package clsvis.process.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.ZipException;
+
+/**
+ * Reader of class entries of jar file - it walks central directory of the zip file directly.<br/>
+ * It's a lightweight alternative of enumerating {@link java.util.zip.ZipFile#entries()}:
+ * no inflater is set up, no {@link java.util.zip.ZipEntry} is created,
+ * and names of entries are decoded only for class files.
+ * Names are decoded as UTF-8, the same way as by {@link java.util.zip.ZipFile#ZipFile(java.io.File)}.<br/>
+ * Central directory is read into heap, not memory-mapped: mapped buffer is released only by GC,
+ * so the jar file would stay locked (i.e. on Windows) after reading.
+ */
+final class ZipCentralDirectory {
+
+    /**
+     * Consumer of class entries found in jar file.
+     */
+    @FunctionalInterface
+    interface ClassEntryConsumer {
+
+        /**
+         * @param className binary name of class (i.e. "a.b.C$D")
+         * @param crc CRC-32 of the class file
+         * @param size size of the class file; 0xFFFFFFFF for zip64 entries
+         */
+        void accept(String className, long crc, long size);
+    } //class
+
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_END_LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final byte[] CLASS_SUFFIX = ".class".getBytes( StandardCharsets.US_ASCII );
+
+    private ZipCentralDirectory() {
+    }
+
+    /**
+     * Passes all class entries of the given jar file to the given consumer.
+     *
+     * @throws ZipException if the file is not a zip file or its format is not supported
+     */
+    static void readClassEntries(File jarFile, ClassEntryConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open( jarFile.toPath(), StandardOpenOption.READ )) {
+            long fileSize = channel.size();
+            // Find end of central directory record - followed by comment of unknown size
+            long tailSize = Math.min( fileSize, END_SIZE + MAX_COMMENT_SIZE + ZIP64_END_LOCATOR_SIZE );
+            ByteBuffer tail = read( channel, fileSize - tailSize, tailSize, jarFile );
+            int endPos = (int) tailSize - END_SIZE;
+            while (endPos >= 0 && tail.getInt( endPos ) != END_SIGNATURE) {
+                endPos--;
+            }
+            if (endPos < 0) {
+                throw new ZipException( "End of central directory not found: " + jarFile );
+            }
+            long entriesCount = tail.getShort( endPos + 10 ) & 0xFFFF;
+            long directorySize = tail.getInt( endPos + 12 ) & ZIP64_MAGIC;
+            long directoryOffset = tail.getInt( endPos + 16 ) & ZIP64_MAGIC;
+
+            int locatorPos = endPos - ZIP64_END_LOCATOR_SIZE;
+            if (locatorPos >= 0 && tail.getInt( locatorPos ) == ZIP64_END_LOCATOR_SIGNATURE) {
+                long zip64EndOffset = tail.getLong( locatorPos + 8 );
+                if (zip64EndOffset < 0 || zip64EndOffset + ZIP64_END_SIZE > fileSize) {
+                    throw new ZipException( "Invalid zip64 end of central directory: " + jarFile );
+                }
+                ByteBuffer zip64End = read( channel, zip64EndOffset, ZIP64_END_SIZE, jarFile );
+                if (zip64End.getInt( 0 ) != ZIP64_END_SIGNATURE) {
+                    throw new ZipException( "Invalid zip64 end of central directory: " + jarFile );
+                }
+                entriesCount = zip64End.getLong( 32 );
+                directorySize = zip64End.getLong( 40 );
+                directoryOffset = zip64End.getLong( 48 );
+            }
+            if (directoryOffset + directorySize > fileSize || directorySize > Integer.MAX_VALUE) {
+                throw new ZipException( "Invalid central directory: " + jarFile );
+            }
+
+            ByteBuffer directory = read( channel, directoryOffset, directorySize, jarFile );
+            // Validation first - consumer shouldn't receive entries of invalid file
+            readEntries( directory, entriesCount, null, jarFile );
+            readEntries( directory, entriesCount, consumer, jarFile );
+        }
+    }
+
+    /**
+     * Walks the given central directory, passing class entries to the given consumer.
+     * If consumer is null, the directory is only validated.
+     */
+    private static void readEntries(
+            ByteBuffer directory, long entriesCount, ClassEntryConsumer consumer, File jarFile)
+            throws ZipException {
+        int directorySize = directory.limit();
+        int pos = 0;
+        for (long i = 0; i < entriesCount; i++) {
+            if (pos + CENTRAL_HEADER_SIZE > directorySize || directory.getInt( pos ) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException( "Invalid central directory header: " + jarFile );
+            }
+            int nameLength = directory.getShort( pos + 28 ) & 0xFFFF;
+            int extraLength = directory.getShort( pos + 30 ) & 0xFFFF;
+            int commentLength = directory.getShort( pos + 32 ) & 0xFFFF;
+            int namePos = pos + CENTRAL_HEADER_SIZE;
+            if (namePos + nameLength > directorySize) {
+                throw new ZipException( "Invalid central directory header: " + jarFile );
+            }
+            if (consumer != null && endsWith( directory, namePos, nameLength, CLASS_SUFFIX )) {
+                consumer.accept(
+                        decodeClassName( directory, namePos, nameLength - CLASS_SUFFIX.length ),
+                        directory.getInt( pos + 16 ) & ZIP64_MAGIC,
+                        directory.getInt( pos + 24 ) & ZIP64_MAGIC );
+            }
+            pos = namePos + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private static boolean endsWith(ByteBuffer buffer, int pos, int length, byte[] suffix) {
+        if (length < suffix.length) {
+            return false;
+        }
+        int suffixPos = pos + length - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (buffer.get( suffixPos + i ) != suffix[ i ]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes name of class file without suffix, replacing '/' by '.'.
+     */
+    private static String decodeClassName(ByteBuffer buffer, int pos, int length) {
+        char[] chars = new char[ length ];
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get( pos + i );
+            if (b < 0) {
+                // Not ASCII - slow path
+                byte[] bytes = new byte[ length ];
+                for (int j = 0; j < length; j++) {
+                    bytes[ j ] = buffer.get( pos + j );
+                }
+                return new String( bytes, StandardCharsets.UTF_8 ).replace( '/', '.' );
+            }
+            chars[ i ] = b == '/' ? '.' : (char) b;
+        }
+        return new String( chars );
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, long size, File jarFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( (int) size );
+        while (buffer.hasRemaining()) {
+            if (channel.read( buffer, position + buffer.position() ) < 0) {
+                throw new ZipException( "Unexpected end of file: " + jarFile );
+            }
+        }
+        buffer.flip();
+        buffer.order( ByteOrder.LITTLE_ENDIAN );
+        return buffer;
+    }
+}
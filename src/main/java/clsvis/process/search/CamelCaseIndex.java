@@ -0,0 +1,223 @@
+package clsvis.process.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Index of simple names of classes for IDE-style lookups: by prefix ("Compiled") or by humps of camel case
+ * ("CCI", "ComClaImp" → CompiledClassImporter).<br/>
+ * Names are identified by their rows - positions in the indexed list. Rows are sorted twice: by names ignoring case
+ * and by initials of humps of names - prefix of the query, or of its initials, gives range of candidates
+ * found by binary search.<br/>
+ * Matches are ranked: equal name, prefix, prefix ignoring case, camel humps; then shorter names first.<br/>
+ * Index is immutable - it can be queried by many threads.
+ */
+public final class CamelCaseIndex {
+
+    private static final int RANK_EQUAL = 0;
+    private static final int RANK_PREFIX = 1;
+    private static final int RANK_PREFIX_IGNORING_CASE = 2;
+    private static final int RANK_CAMEL_HUMPS = 3;
+    /** Count of candidates checked between checks of interruption. */
+    private static final int INTERRUPTION_CHECK_INTERVAL = 0x400;
+
+    private final String[] names;
+    /** Names in lower case, sorted - with their rows in {@link #rowsByLowerName} */
+    private final String[] lowerNames;
+    private final int[] rowsByLowerName;
+    /** Initials of humps of names, sorted - with their rows in {@link #rowsByInitials} */
+    private final String[] initials;
+    private final int[] rowsByInitials;
+
+    /**
+     * Builds index of the given simple names.
+     */
+    public CamelCaseIndex(List<String> names) {
+        this.names = names.toArray( new String[ names.size() ] );
+        String[] rowLowerNames = new String[ this.names.length ];
+        String[] rowInitials = new String[ this.names.length ];
+        for (int row = 0; row < this.names.length; row++) {
+            rowLowerNames[ row ] = this.names[ row ].toLowerCase();
+            rowInitials[ row ] = getInitials( this.names[ row ] );
+        }
+        rowsByLowerName = sortRows( rowLowerNames );
+        lowerNames = new String[ this.names.length ];
+        rowsByInitials = sortRows( rowInitials );
+        initials = new String[ this.names.length ];
+        for (int i = 0; i < this.names.length; i++) {
+            lowerNames[ i ] = rowLowerNames[ rowsByLowerName[ i ] ];
+            initials[ i ] = rowInitials[ rowsByInitials[ i ] ];
+        }
+    }
+
+    private static int[] sortRows(String[] keys) {
+        Integer[] rows = new Integer[ keys.length ];
+        for (int row = 0; row < rows.length; row++) {
+            rows[ row ] = row;
+        }
+        Arrays.sort( rows, Comparator.comparing( row -> keys[ row ] ) );
+        int[] sortedRows = new int[ rows.length ];
+        for (int i = 0; i < rows.length; i++) {
+            sortedRows[ i ] = rows[ i ];
+        }
+        return sortedRows;
+    }
+
+    /**
+     * Returns true, if a hump of camel case starts at the given position of the given name: at upper case letter,
+     * at digits or after underscore.
+     */
+    private static boolean isHumpStart(String name, int position) {
+        if (position == 0) {
+            return true;
+        }
+        char c = name.charAt( position );
+        char prev = name.charAt( position - 1 );
+        return Character.isUpperCase( c ) || Character.isDigit( c ) && !Character.isDigit( prev )
+                || prev == '_' && c != '_';
+    }
+
+    /**
+     * Returns first letters of humps of the given name, in upper case.
+     */
+    private static String getInitials(String name) {
+        StringBuilder sb = new StringBuilder( 8 );
+        for (int i = 0; i < name.length(); i++) {
+            if (isHumpStart( name, i )) {
+                sb.append( Character.toUpperCase( name.charAt( i ) ) );
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns count of indexed names.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Finds names matching the given query and returns rows of the best of them, best first.<br/>
+     * Prefix matches are found first - the best of them are passed to the given consumer before camel humps are
+     * checked. Search stops, when the current thread is interrupted.
+     *
+     * @param maxCount max. count of returned rows
+     * @param partialResults consumer of the best rows found so far, or null
+     * @return rows of the best matching names, or null if the search was interrupted
+     */
+    public int[] find(String query, int maxCount, Consumer<int[]> partialResults) {
+        if (query.isEmpty()) {
+            return new int[ 0 ];
+        }
+        // Match entries: rank << 56 | length of name << 32 | row - the best have the lowest values
+        long[] matches = new long[ 0x100 ];
+        int matchesCount = 0;
+
+        // Prefix ignoring case
+        String lowerQuery = query.toLowerCase();
+        int from = lowerBound( lowerNames, lowerQuery );
+        int to = lowerBound( lowerNames, lowerQuery + Character.MAX_VALUE );
+        for (int i = from; i < to; i++) {
+            if ((i - from) % INTERRUPTION_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            int row = rowsByLowerName[ i ];
+            String name = names[ row ];
+            int rank = name.equals( query ) ? RANK_EQUAL
+                    : name.startsWith( query ) ? RANK_PREFIX : RANK_PREFIX_IGNORING_CASE;
+            if (matchesCount == matches.length) {
+                matches = Arrays.copyOf( matches, matchesCount * 2 );
+            }
+            matches[ matchesCount++ ] = toMatch( rank, name, row );
+        }
+
+        // Camel humps - a single hump is a prefix
+        String[] queryHumps = getHumps( query );
+        if (queryHumps.length > 1) {
+            if (partialResults != null) {
+                partialResults.accept( getBestRows( matches, matchesCount, maxCount ) );
+            }
+            String queryInitials = getInitials( query );
+            from = lowerBound( initials, queryInitials );
+            to = lowerBound( initials, queryInitials + Character.MAX_VALUE );
+            for (int i = from; i < to; i++) {
+                if ((i - from) % INTERRUPTION_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+                int row = rowsByInitials[ i ];
+                String name = names[ row ];
+                if (matchesHumps( name, queryHumps ) && !name.regionMatches( true, 0, query, 0, query.length() )) {
+                    if (matchesCount == matches.length) {
+                        matches = Arrays.copyOf( matches, matchesCount * 2 );
+                    }
+                    matches[ matchesCount++ ] = toMatch( RANK_CAMEL_HUMPS, name, row );
+                }
+            }
+        }
+        return getBestRows( matches, matchesCount, maxCount );
+    }
+
+    private static long toMatch(int rank, String name, int row) {
+        return (long) rank << 56 | (long) Math.min( name.length(), 0xFFFFFF ) << 32 | row;
+    }
+
+    private static int[] getBestRows(long[] matches, int matchesCount, int maxCount) {
+        long[] sortedMatches = Arrays.copyOf( matches, matchesCount );
+        Arrays.sort( sortedMatches );
+        int[] rows = new int[ Math.min( matchesCount, maxCount ) ];
+        for (int i = 0; i < rows.length; i++) {
+            rows[ i ] = (int) sortedMatches[ i ];
+        }
+        return rows;
+    }
+
+    /**
+     * Returns index of the first of the given sorted keys, which is not lower than the given key.
+     */
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[ mid ].compareTo( key ) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String[] getHumps(String name) {
+        String[] humps = new String[ name.length() ];
+        int humpsCount = 0;
+        int humpStart = 0;
+        for (int i = 1; i <= name.length(); i++) {
+            if (i == name.length() || isHumpStart( name, i )) {
+                humps[ humpsCount++ ] = name.substring( humpStart, i );
+                humpStart = i;
+            }
+        }
+        return Arrays.copyOf( humps, humpsCount );
+    }
+
+    /**
+     * Returns true, if each of the given humps of query is a prefix (ignoring case) of the corresponding hump
+     * of the given name - initials of the name start with initials of the query.
+     */
+    private static boolean matchesHumps(String name, String[] queryHumps) {
+        int humpIdx = 0;
+        for (int i = 0; i < name.length() && humpIdx < queryHumps.length; i++) {
+            if (isHumpStart( name, i )) {
+                String queryHump = queryHumps[ humpIdx++ ];
+                if (!name.regionMatches( true, i, queryHump, 0, queryHump.length() )) {
+                    return false;
+                }
+            }
+        }
+        return humpIdx == queryHumps.length;
+    }
+}
@@ -0,0 +1,346 @@
+package clsvis.process.search;
+
+import clsvis.model.Annotation_;
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.LangElement;
+import clsvis.model.Operation;
+import clsvis.model.ParameterizableElement;
+import clsvis.model.ProjectSnapshot;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of members of classes frozen in a {@link ProjectSnapshot} - it finds members across the project,
+ * i.e. "methods named close throwing IOException" or "fields of type ExecutorService".<br/>
+ * Members are identified by ids - their positions in the index, in order of classes of the snapshot.
+ * Each term (field and value, i.e. name "close") has a posting list of ids of members having it; posting lists
+ * are stored in one shared array (CSR), ascending - as ints instead of references to members.
+ * Values of each field are sorted and found by binary search - their positions give ids of terms.<br/>
+ * Types are indexed by full and simple names - both "java.io.IOException" and "IOException" can be queried.
+ * Query is conjunctive: all given criteria have to match. Its results can be requested by pages - the intersection
+ * of posting lists stops, when the page is filled.<br/>
+ * Index is immutable - it can be queried by many threads.
+ */
+public final class MemberSearchIndex {
+
+    /**
+     * Indexed field of members.
+     */
+    public enum Field {
+        /** Kind of member - name of {@link ElementKind}, i.e. "Methods" */
+        Kind,
+        Name,
+        /** Type of field/property, or type returned by operation */
+        Type,
+        ParameterType,
+        ThrowsType,
+        AnnotationType;
+
+        /**
+         * Returns criterion of query: this field has the given value.
+         */
+        public Criterion is(String value) {
+            return new Criterion( this, value );
+        }
+    } //enum
+
+    /**
+     * Criterion of query: the field has the value.
+     */
+    public static final class Criterion {
+
+        public final Field field;
+        public final String value;
+
+        Criterion(Field field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return field + "=" + value;
+        }
+    } //class
+
+    private static final Field[] FIELDS = Field.values();
+    private static final Set<ElementKind> MEMBER_KINDS = EnumSet.of(
+            ElementKind.Constants, ElementKind.Fields, ElementKind.Properties,
+            ElementKind.Constructors, ElementKind.Methods );
+    private static final int[] NO_IDS = {};
+
+    private final ProjectSnapshot snapshot;
+    private final List<Class_> classes;
+    private final ParameterizableElement[] members;
+    /** Positions of classes declaring members in {@link #classes} */
+    private final int[] memberClasses;
+    /** Values of terms: values of field f are stored sorted in range [fieldOffsets[f], fieldOffsets[f + 1]) */
+    private final String[] termValues;
+    private final int[] fieldOffsets;
+    /** Ids of members having term t are stored in range [postingOffsets[t], postingOffsets[t + 1]) of postings */
+    private final int[] postingOffsets;
+    private final int[] postings;
+
+    private MemberSearchIndex(ProjectSnapshot snapshot) {
+        this.snapshot = snapshot;
+        classes = snapshot.getClasses();
+        List<ParameterizableElement> memberList = new ArrayList<>( classes.size() * 8 );
+        int[] classPositions = new int[ classes.size() * 8 ];
+        for (int position = 0; position < classes.size(); position++) {
+            Class_ class_ = classes.get( position );
+            for (ElementKind kind : MEMBER_KINDS) {
+                for (ParameterizableElement member : snapshot.getMembers( class_, kind )) {
+                    if (memberList.size() == classPositions.length) {
+                        classPositions = Arrays.copyOf( classPositions, classPositions.length * 2 );
+                    }
+                    classPositions[ memberList.size() ] = position;
+                    memberList.add( member );
+                }
+            }
+        }
+        members = memberList.toArray( new ParameterizableElement[ memberList.size() ] );
+        memberClasses = Arrays.copyOf( classPositions, members.length );
+
+        // Pass 1: temporary ids of distinct terms of each member
+        List<Map<String, Integer>> fieldTerms = new ArrayList<>( FIELDS.length );
+        for (Field field : FIELDS) {
+            fieldTerms.add( new HashMap<>() );
+        }
+        int[] memberTermIds = new int[ members.length * 4 ];
+        int[] memberEnds = new int[ members.length ];
+        int[] lastMembers = new int[ 0x400 ];
+        int termsCount = 0;
+        int idsCount = 0;
+        List<String> values = new ArrayList<>();
+        for (int id = 0; id < members.length; id++) {
+            for (Field field : FIELDS) {
+                values.clear();
+                addValues( members[ id ], field, values );
+                Map<String, Integer> terms = fieldTerms.get( field.ordinal() );
+                for (String value : values) {
+                    Integer termId = terms.get( value );
+                    if (termId == null) {
+                        termId = termsCount++;
+                        terms.put( value, termId );
+                        if (termId == lastMembers.length) {
+                            lastMembers = Arrays.copyOf( lastMembers, termId * 2 );
+                        }
+                        lastMembers[ termId ] = -1;
+                    }
+                    if (lastMembers[ termId ] != id) {
+                        lastMembers[ termId ] = id;
+                        if (idsCount == memberTermIds.length) {
+                            memberTermIds = Arrays.copyOf( memberTermIds, idsCount * 2 );
+                        }
+                        memberTermIds[ idsCount++ ] = termId;
+                    }
+                }
+            }
+            memberEnds[ id ] = idsCount;
+        }
+
+        // Terms sorted by fields and values - their positions become their ids
+        termValues = new String[ termsCount ];
+        fieldOffsets = new int[ FIELDS.length + 1 ];
+        int[] termIds = new int[ termsCount ];
+        for (Field field : FIELDS) {
+            Map<String, Integer> terms = fieldTerms.get( field.ordinal() );
+            String[] sortedValues = terms.keySet().toArray( new String[ terms.size() ] );
+            Arrays.sort( sortedValues );
+            int offset = fieldOffsets[ field.ordinal() ];
+            for (int i = 0; i < sortedValues.length; i++) {
+                termValues[ offset + i ] = sortedValues[ i ];
+                termIds[ terms.get( sortedValues[ i ] ) ] = offset + i;
+            }
+            fieldOffsets[ field.ordinal() + 1 ] = offset + sortedValues.length;
+        }
+
+        // Pass 2: posting lists - ids of members are added in ascending order
+        postingOffsets = new int[ termsCount + 1 ];
+        for (int i = 0; i < idsCount; i++) {
+            postingOffsets[ termIds[ memberTermIds[ i ] ] + 1 ]++;
+        }
+        for (int termId = 0; termId < termsCount; termId++) {
+            postingOffsets[ termId + 1 ] += postingOffsets[ termId ];
+        }
+        int[] fillPositions = Arrays.copyOf( postingOffsets, termsCount );
+        postings = new int[ idsCount ];
+        for (int id = 0, i = 0; id < members.length; id++) {
+            for (; i < memberEnds[ id ]; i++) {
+                postings[ fillPositions[ termIds[ memberTermIds[ i ] ] ]++ ] = id;
+            }
+        }
+    }
+
+    /**
+     * Builds index of members of classes frozen in the given snapshot.
+     */
+    public static MemberSearchIndex build(ProjectSnapshot snapshot) {
+        return new MemberSearchIndex( snapshot );
+    }
+
+    /**
+     * Adds values of the given field of the given member to the given list - duplicates are allowed.
+     */
+    private static void addValues(ParameterizableElement member, Field field, List<String> values) {
+        switch (field) {
+            case Kind:
+                values.add( member.kind.name() );
+                break;
+            case Name:
+                values.add( member.name );
+                break;
+            case Type:
+                if (!(member instanceof Operation) || member.kind == ElementKind.Methods) {
+                    addTypeNames( member, values );
+                }
+                break;
+            case ParameterType:
+                if (member instanceof Operation) {
+                    for (ParameterizableElement parameter : ((Operation) member).parameters) {
+                        addTypeNames( parameter, values );
+                    }
+                }
+                break;
+            case ThrowsType:
+                if (member instanceof Operation) {
+                    for (ParameterizableElement throwable : ((Operation) member).throwables) {
+                        addTypeNames( throwable, values );
+                    }
+                }
+                break;
+            case AnnotationType:
+                for (Annotation_ annotation : member.annotations) {
+                    addTypeNames( annotation, values );
+                }
+                break;
+        }
+    }
+
+    /**
+     * Adds full and simple name of type of the given element - without array dimensions and type arguments.
+     */
+    private static void addTypeNames(LangElement element, List<String> values) {
+        String typeName = element.originalTypeName != null ? element.originalTypeName : element.fullTypeName;
+        if (typeName.startsWith( "[" )) {
+            // Binary name of array, i.e. [[Ljava.lang.String;
+            typeName = typeName.substring( typeName.lastIndexOf( '[' ) + 1 );
+            typeName = typeName.startsWith( "L" ) ? typeName.substring( 1, typeName.length() - 1 ) : typeName;
+        }
+        int typeArgumentsIdx = typeName.indexOf( '<' );
+        if (typeArgumentsIdx >= 0) {
+            typeName = typeName.substring( 0, typeArgumentsIdx );
+        }
+        int arrayIdx = typeName.indexOf( '[' );
+        if (arrayIdx >= 0) {
+            typeName = typeName.substring( 0, arrayIdx );
+        }
+        values.add( typeName );
+        int simpleNameIdx = Math.max( typeName.lastIndexOf( '.' ), typeName.lastIndexOf( '$' ) ) + 1;
+        if (simpleNameIdx > 0) {
+            values.add( typeName.substring( simpleNameIdx ) );
+        }
+    }
+
+    /**
+     * Returns the snapshot of indexed classes.
+     */
+    public ProjectSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns count of indexed members.
+     */
+    public int size() {
+        return members.length;
+    }
+
+    /**
+     * Returns member with the given id.
+     */
+    public ParameterizableElement getMember(int id) {
+        return members[ id ];
+    }
+
+    /**
+     * Returns class declaring member with the given id.
+     */
+    public Class_ getDeclaringClass(int id) {
+        return classes.get( memberClasses[ id ] );
+    }
+
+    /**
+     * Returns ids of members matching all the given criteria, ascending - only the given page of them.
+     *
+     * @param offset count of matching members skipped before the page
+     * @param limit max. count of members in the page
+     */
+    public int[] find(int offset, int limit, Criterion... criteria) {
+        int[] ids = intersect( criteria, (int) Math.min( (long) offset + limit, Integer.MAX_VALUE ) );
+        return offset >= ids.length ? NO_IDS : Arrays.copyOfRange( ids, offset, ids.length );
+    }
+
+    /**
+     * Returns count of members matching all the given criteria.
+     */
+    public int count(Criterion... criteria) {
+        return intersect( criteria, Integer.MAX_VALUE ).length;
+    }
+
+    /**
+     * Returns ids of the first members matching all the given criteria, ascending.
+     *
+     * @param maxCount max. count of returned ids
+     */
+    private int[] intersect(Criterion[] criteria, int maxCount) {
+        if (criteria.length == 0) {
+            throw new IllegalArgumentException( "No criteria of query" );
+        }
+        // Terms as (postings count << 32 | term id) - sorted from the shortest posting list
+        long[] terms = new long[ criteria.length ];
+        for (int i = 0; i < criteria.length; i++) {
+            int field = criteria[ i ].field.ordinal();
+            int termId = Arrays.binarySearch( termValues, fieldOffsets[ field ], fieldOffsets[ field + 1 ],
+                    criteria[ i ].value );
+            if (termId < 0) {
+                return NO_IDS;
+            }
+            terms[ i ] = (long) (postingOffsets[ termId + 1 ] - postingOffsets[ termId ]) << 32 | termId;
+        }
+        Arrays.sort( terms );
+
+        // Each id of the shortest posting list is searched in the others
+        int firstTermId = (int) terms[ 0 ];
+        int[] froms = new int[ terms.length ];
+        for (int i = 1; i < terms.length; i++) {
+            froms[ i ] = postingOffsets[ (int) terms[ i ] ];
+        }
+        int[] ids = new int[ Math.min( postingOffsets[ firstTermId + 1 ] - postingOffsets[ firstTermId ], maxCount ) ];
+        int idsCount = 0;
+        candidates:
+        for (int j = postingOffsets[ firstTermId ]; j < postingOffsets[ firstTermId + 1 ] && idsCount < maxCount; j++) {
+            int id = postings[ j ];
+            for (int i = 1; i < terms.length; i++) {
+                int to = postingOffsets[ (int) terms[ i ] + 1 ];
+                int found = Arrays.binarySearch( postings, froms[ i ], to, id );
+                if (found < 0) {
+                    froms[ i ] = -found - 1;
+                    if (froms[ i ] == to) {
+                        break candidates;
+                    }
+                    continue candidates;
+                }
+                froms[ i ] = found + 1;
+            }
+            ids[ idsCount++ ] = id;
+        }
+        return idsCount == ids.length ? ids : Arrays.copyOf( ids, idsCount );
+    }
+}
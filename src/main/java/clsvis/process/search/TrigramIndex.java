@@ -0,0 +1,306 @@
+package clsvis.process.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of texts by their trigrams (substrings of 3 chars) - it finds texts containing a substring
+ * without scanning all of them.<br/>
+ * Texts are identified by their rows - positions in the indexed list. Rows of texts containing each trigram
+ * (posting lists) are stored in one shared array (CSR), ascending. A query is resolved by intersection of posting
+ * lists of its trigrams, starting from the shortest one; remaining candidates are verified, as trigrams
+ * of a text can be found in it in different order. Queries shorter than a trigram are resolved by scanning.<br/>
+ * Index is immutable - it can be queried by many threads.
+ */
+public final class TrigramIndex {
+
+    private static final int[] NO_ROWS = {};
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private final String[] texts;
+    /** Open-addressing hash table: trigramKeys[slot] = trigram (see {@link #toKey}), or 0 if the slot is free */
+    private final long[] trigramKeys;
+    /** trigramIds[slot] = id of trigram stored in the slot */
+    private final int[] trigramIds;
+    /** Rows of texts containing trigram with id t are stored in range [postingOffsets[t], postingOffsets[t + 1]) */
+    private final int[] postingOffsets;
+    private final int[] postings;
+
+    /**
+     * Builds index of the given texts.
+     */
+    public TrigramIndex(List<String> texts) {
+        this.texts = texts.toArray( new String[ texts.size() ] );
+        // Pass 1: ids of distinct trigrams of each row
+        TextsTrigrams trigrams = new TextsTrigrams( new long[ 0x400 ], new int[ 0x400 ], 0, this.texts );
+        trigramKeys = trigrams.keys;
+        trigramIds = trigrams.keyIds;
+
+        // Pass 2: posting lists - rows are added in ascending order
+        postingOffsets = new int[ trigrams.trigramsCount + 1 ];
+        for (int id = 0; id < trigrams.trigramsCount; id++) {
+            postingOffsets[ id + 1 ] = postingOffsets[ id ] + trigrams.counts[ id ];
+        }
+        postings = trigrams.buildPostings( postingOffsets, null );
+    }
+
+    /**
+     * Builds index of texts of the given index with the given texts inserted.
+     */
+    private TrigramIndex(TrigramIndex index, int[] insertedRows, List<String> insertedTexts) {
+        if (insertedRows.length != insertedTexts.size()) {
+            throw new IllegalArgumentException( "Count of rows differs from count of texts: "
+                    + insertedRows.length + " != " + insertedTexts.size() );
+        }
+        texts = new String[ index.texts.length + insertedRows.length ];
+        // Map[row of the given index] = row of this index
+        int[] shiftedRows = new int[ index.texts.length ];
+        for (int row = 0, oldRow = 0, i = 0; row < texts.length; row++) {
+            if (i < insertedRows.length && insertedRows[ i ] == row) {
+                texts[ row ] = insertedTexts.get( i++ );
+            } else {
+                shiftedRows[ oldRow ] = row;
+                texts[ row ] = index.texts[ oldRow++ ];
+            }
+        }
+        // Pass 1: ids of distinct trigrams of inserted rows - new trigrams are added to a copy of the hash table
+        int oldTrigramsCount = index.postingOffsets.length - 1;
+        TextsTrigrams trigrams = new TextsTrigrams( index.trigramKeys.clone(), index.trigramIds.clone(),
+                oldTrigramsCount, insertedTexts.toArray( new String[ insertedTexts.size() ] ) );
+        trigramKeys = trigrams.keys;
+        trigramIds = trigrams.keyIds;
+
+        // Pass 2: posting lists of inserted rows, merged with shifted posting lists of the given index
+        int[] insertedOffsets = new int[ trigrams.trigramsCount + 1 ];
+        postingOffsets = new int[ trigrams.trigramsCount + 1 ];
+        for (int id = 0; id < trigrams.trigramsCount; id++) {
+            insertedOffsets[ id + 1 ] = insertedOffsets[ id ] + trigrams.counts[ id ];
+            int oldCount = id < oldTrigramsCount ? index.postingOffsets[ id + 1 ] - index.postingOffsets[ id ] : 0;
+            postingOffsets[ id + 1 ] = postingOffsets[ id ] + oldCount + trigrams.counts[ id ];
+        }
+        int[] insertedPostings = trigrams.buildPostings( insertedOffsets, insertedRows );
+        postings = new int[ postingOffsets[ trigrams.trigramsCount ] ];
+        for (int id = 0, p = 0; id < trigrams.trigramsCount; id++) {
+            int from = id < oldTrigramsCount ? index.postingOffsets[ id ] : 0;
+            int to = id < oldTrigramsCount ? index.postingOffsets[ id + 1 ] : 0;
+            for (int i = insertedOffsets[ id ]; from < to || i < insertedOffsets[ id + 1 ];) {
+                postings[ p++ ] = i == insertedOffsets[ id + 1 ]
+                        || from < to && shiftedRows[ index.postings[ from ] ] < insertedPostings[ i ]
+                        ? shiftedRows[ index.postings[ from++ ] ]
+                        : insertedPostings[ i++ ];
+            }
+        }
+    }
+
+    /**
+     * Returns index of texts of this index with the given texts inserted - without reindexing of texts
+     * of this index. Their rows are shifted by the inserted rows; only trigrams of the inserted texts are found.
+     *
+     * @param insertedRows rows of the inserted texts in the returned index, ascending
+     * @param insertedTexts texts to be inserted, in order of their rows
+     */
+    public TrigramIndex insert(int[] insertedRows, List<String> insertedTexts) {
+        return new TrigramIndex( this, insertedRows, insertedTexts );
+    }
+
+    /**
+     * Returns trigram starting at the given position of the given text, as non-zero key.
+     */
+    private static long toKey(CharSequence text, int position) {
+        return 1L << 48 | (long) text.charAt( position ) << 32 | (long) text.charAt( position + 1 ) << 16
+                | text.charAt( position + 2 );
+    }
+
+    /**
+     * Returns slot of the given key in the given hash table, or free slot, where it should be stored.
+     */
+    private static int findSlot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[ slot ] != 0 && keys[ slot ] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns count of indexed texts.
+     */
+    public int size() {
+        return texts.length;
+    }
+
+    /**
+     * Returns rows of texts containing the given query, ascending.
+     */
+    public int[] find(String query) {
+        if (query.length() < TRIGRAM_LENGTH) {
+            return filter( null, query );
+        }
+        // Trigrams of the query as (postings count << 32 | id) - sorted from the shortest posting list
+        long[] trigrams = new long[ query.length() - TRIGRAM_LENGTH + 1 ];
+        for (int i = 0; i < trigrams.length; i++) {
+            int slot = findSlot( trigramKeys, toKey( query, i ) );
+            if (trigramKeys[ slot ] == 0) {
+                return NO_ROWS;
+            }
+            int id = trigramIds[ slot ];
+            trigrams[ i ] = (long) (postingOffsets[ id + 1 ] - postingOffsets[ id ]) << 32 | id;
+        }
+        Arrays.sort( trigrams );
+
+        // Intersection of posting lists
+        int firstId = (int) trigrams[ 0 ];
+        int[] rows = Arrays.copyOfRange( postings, postingOffsets[ firstId ], postingOffsets[ firstId + 1 ] );
+        int rowsCount = rows.length;
+        for (int i = 1; i < trigrams.length && rowsCount > 0; i++) {
+            if (trigrams[ i ] == trigrams[ i - 1 ]) {
+                continue;
+            }
+            int id = (int) trigrams[ i ];
+            int from = postingOffsets[ id ];
+            int to = postingOffsets[ id + 1 ];
+            int newRowsCount = 0;
+            if (to - from > rowsCount * 16) {
+                // Much longer posting list - rows are searched in it
+                for (int j = 0; j < rowsCount && from < to; j++) {
+                    int found = Arrays.binarySearch( postings, from, to, rows[ j ] );
+                    if (found >= 0) {
+                        rows[ newRowsCount++ ] = rows[ j ];
+                        from = found + 1;
+                    } else {
+                        from = -found - 1;
+                    }
+                }
+            } else {
+                for (int j = 0; j < rowsCount && from < to;) {
+                    if (rows[ j ] < postings[ from ]) {
+                        j++;
+                    } else if (rows[ j ] > postings[ from ]) {
+                        from++;
+                    } else {
+                        rows[ newRowsCount++ ] = rows[ j++ ];
+                        from++;
+                    }
+                }
+            }
+            rowsCount = newRowsCount;
+        }
+        return filter( Arrays.copyOf( rows, rowsCount ), query );
+    }
+
+    /**
+     * Returns those of the given rows (ascending), whose texts contain the given query.
+     * It's used to verify candidates - or to refine results of the previous query, contained in the given one.
+     *
+     * @param rows rows to check, or null to check all
+     */
+    public int[] filter(int[] rows, String query) {
+        int rowsCount = rows != null ? rows.length : texts.length;
+        int[] filteredRows = new int[ rowsCount ];
+        int filteredRowsCount = 0;
+        for (int i = 0; i < rowsCount; i++) {
+            int row = rows != null ? rows[ i ] : i;
+            if (texts[ row ].contains( query )) {
+                filteredRows[ filteredRowsCount++ ] = row;
+            }
+        }
+        return filteredRowsCount == 0 ? NO_ROWS : Arrays.copyOf( filteredRows, filteredRowsCount );
+    }
+
+    /**
+     * Ids of distinct trigrams of each of given texts, with hash table of all known trigrams.
+     */
+    private static final class TextsTrigrams {
+
+        /** Hash table of distinct trigrams - at most half full: keys[slot] = trigram, or 0 if the slot is free */
+        long[] keys;
+        /** keyIds[slot] = id of trigram stored in the slot */
+        int[] keyIds;
+        int trigramsCount;
+        /** counts[id] = count of texts containing trigram with the id */
+        int[] counts;
+        /** Ids of trigrams of text t are stored in range [textEnds[t - 1], textEnds[t]) */
+        final int[] textTrigramIds;
+        final int[] textEnds;
+
+        /**
+         * Collects trigrams of the given texts; new trigrams are added to the given hash table of trigrams.
+         */
+        TextsTrigrams(long[] keys, int[] keyIds, int trigramsCount, String[] texts) {
+            this.keys = keys;
+            this.keyIds = keyIds;
+            this.trigramsCount = trigramsCount;
+            int maxTrigramsCount = 0;
+            for (String text : texts) {
+                maxTrigramsCount += Math.max( text.length() - TRIGRAM_LENGTH + 1, 0 );
+            }
+            textTrigramIds = new int[ maxTrigramsCount ];
+            textEnds = new int[ texts.length ];
+            counts = new int[ Math.max( trigramsCount * 2, 0x100 ) ];
+            int[] lastTexts = new int[ counts.length ];
+            Arrays.fill( lastTexts, -1 );
+            int idsCount = 0;
+            for (int t = 0; t < texts.length; t++) {
+                String text = texts[ t ];
+                for (int i = 0; i + TRIGRAM_LENGTH <= text.length(); i++) {
+                    int id = findId( toKey( text, i ) );
+                    if (id == counts.length) {
+                        counts = Arrays.copyOf( counts, id * 2 );
+                        lastTexts = Arrays.copyOf( lastTexts, id * 2 );
+                        Arrays.fill( lastTexts, id, lastTexts.length, -1 );
+                    }
+                    if (lastTexts[ id ] != t) {
+                        lastTexts[ id ] = t;
+                        counts[ id ]++;
+                        textTrigramIds[ idsCount++ ] = id;
+                    }
+                }
+                textEnds[ t ] = idsCount;
+            }
+        }
+
+        /**
+         * Returns id of the given trigram, adding it to the hash table if needed.
+         */
+        private int findId(long key) {
+            int slot = findSlot( keys, key );
+            if (keys[ slot ] != 0) {
+                return keyIds[ slot ];
+            }
+            int id = trigramsCount++;
+            keys[ slot ] = key;
+            keyIds[ slot ] = id;
+            if (trigramsCount * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldKeyIds = keyIds;
+                keys = new long[ oldKeys.length * 2 ];
+                keyIds = new int[ keys.length ];
+                for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+                    if (oldKeys[ oldSlot ] != 0) {
+                        int newSlot = findSlot( keys, oldKeys[ oldSlot ] );
+                        keys[ newSlot ] = oldKeys[ oldSlot ];
+                        keyIds[ newSlot ] = oldKeyIds[ oldSlot ];
+                    }
+                }
+            }
+            return id;
+        }
+
+        /**
+         * Returns posting lists of the collected texts at the given offsets - rows are added in ascending order.
+         *
+         * @param rows Map[text] = its row, ascending - or null, if rows are positions of texts
+         */
+        int[] buildPostings(int[] offsets, int[] rows) {
+            int[] fillPositions = Arrays.copyOf( offsets, trigramsCount );
+            int[] postings = new int[ offsets[ trigramsCount ] ];
+            for (int t = 0, i = 0; t < textEnds.length; t++) {
+                for (; i < textEnds[ t ]; i++) {
+                    postings[ fillPositions[ textTrigramIds[ i ] ]++ ] = rows != null ? rows[ t ] : t;
+                }
+            }
+            return postings;
+        }
+    } //class
+}
@@ -0,0 +1,83 @@
+package clsvis.gui.model;
+
+import clsvis.model.Class_;
+import clsvis.process.importer.CompiledClassImporterTest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ClassesTableModel}.
+ */
+public class ClassesTableModelTest {
+
+    private static List<Class_> classes_;
+
+    @BeforeClass
+    public static void importClasses() throws Exception {
+        classes_ = new ArrayList<>( CompiledClassImporterTest.importJUnitClasses( "org.junit" ).getSnapshot()
+                .getClasses() );
+    }
+
+    @Test
+    public void testAddRowsEqualsConstruction() {
+        assertAddRowsEqualsConstruction( "" );
+    }
+
+    @Test
+    public void testAddRowsToFilteredRowsEqualsConstruction() {
+        assertAddRowsEqualsConstruction( "Runner" );
+        assertAddRowsEqualsConstruction( "xyz" );
+    }
+
+    /**
+     * Asserts, that classes added in batches are presented like by a model of all classes - and that events about
+     * inserted rows bring rows presented by the model.
+     */
+    private static void assertAddRowsEqualsConstruction(String filter) {
+        List<Class_> shuffledClasses_ = new ArrayList<>( classes_ );
+        Collections.shuffle( shuffledClasses_, new Random( 1 ) );
+        ClassesTableModel model = new ClassesTableModel( shuffledClasses_.subList( 0, shuffledClasses_.size() / 3 ) );
+        model.setFilter( filter );
+        List<Class_> presentedClasses_ = getRows( model );
+        TableModelListener listener = e -> {
+            assertEquals( TableModelEvent.INSERT, e.getType() );
+            for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+                presentedClasses_.add( row, model.getRow( row ) );
+            }
+        };
+        model.addTableModelListener( listener );
+        for (int from = 0; from < shuffledClasses_.size(); from += 100) {
+            // Batches overlap with presented classes
+            model.addRows( shuffledClasses_.subList( Math.max( from - 10, 0 ),
+                    Math.min( from + 100, shuffledClasses_.size() ) ) );
+            assertEquals( getRows( model ), presentedClasses_ );
+        }
+
+        model.removeTableModelListener( listener );
+
+        ClassesTableModel expectedModel = new ClassesTableModel( classes_ );
+        expectedModel.setFilter( filter );
+        assertEquals( getRows( expectedModel ), getRows( model ) );
+        // Rows are found by the index of full names, with added rows inserted
+        model.setFilter( "" );
+        model.setFilter( filter );
+        assertEquals( getRows( expectedModel ), getRows( model ) );
+        assertTrue( filter.isEmpty() || model.getRowCount() < classes_.size() );
+    }
+
+    private static List<Class_> getRows(ClassesTableModel model) {
+        List<Class_> rows = new ArrayList<>( model.getRowCount() );
+        for (int row = 0; row < model.getRowCount(); row++) {
+            rows.add( model.getRow( row ) );
+        }
+        return rows;
+    }
+}
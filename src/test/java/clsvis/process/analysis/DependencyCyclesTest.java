@@ -0,0 +1,135 @@
+package clsvis.process.analysis;
+
+import clsvis.model.Class_;
+import clsvis.model.ProjectSnapshot;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import clsvis.process.analysis.DependencyCycles.Cycle;
+import clsvis.process.analysis.DependencyCycles.Granularity;
+import clsvis.process.importer.CompiledClassImporterTest;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests of {@link DependencyCycles}.
+ */
+public class DependencyCyclesTest {
+
+    private static ProjectSnapshot snapshot;
+
+    @BeforeClass
+    public static void importClasses() throws Exception {
+        snapshot = CompiledClassImporterTest.importJUnitClasses( "org.junit.runner" ).getSnapshot();
+    }
+
+    @Test
+    public void testCyclesEqualReachability() {
+        DependencyCycles cycles = DependencyCycles.find( snapshot, DependencyCycles.DEPENDENCY_RELATIONS );
+        for (Granularity granularity : Granularity.values()) {
+            List<Cycle> granularityCycles = cycles.getCycles( granularity );
+            assertFalse( granularity.toString(), granularityCycles.isEmpty() );
+            Set<String> cycleNames = new HashSet<>();
+            for (Cycle cycle : granularityCycles) {
+                assertEquals( granularity, cycle.granularity );
+                assertTrue( cycle.names.size() > 1 );
+                for (String name : cycle.names) {
+                    assertTrue( name, cycleNames.add( name ) );
+                    // Node is in the cycle, if it's reachable from the first node and vice versa
+                    assertTrue( cycle.toString(), reaches( cycle.names.get( 0 ), name, granularity, cycles ) );
+                    assertTrue( cycle.toString(), reaches( name, cycle.names.get( 0 ), granularity, cycles ) );
+                }
+                assertPathIsClosed( cycle, cycles.getRelationTypes() );
+            }
+            // Nodes not in cycles are not in any cycle
+            for (Class_ class_ : snapshot.getClasses()) {
+                String name = nodeName( class_, granularity );
+                if (!cycleNames.contains( name )) {
+                    for (Class_ relatedClass : outbound( class_, cycles.getRelationTypes() )) {
+                        String relatedName = nodeName( relatedClass, granularity );
+                        assertFalse( name + " -> " + relatedName, !relatedName.equals( name )
+                                && reaches( relatedName, name, granularity, cycles ) );
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFilterByRelationTypes() {
+        DependencyCycles all = DependencyCycles.find( snapshot, DependencyCycles.DEPENDENCY_RELATIONS );
+        DependencyCycles associations = DependencyCycles.find(
+                snapshot, Collections.singleton( RelationType.Association ) );
+        assertEquals( Collections.singleton( RelationType.Association ), associations.getRelationTypes() );
+        for (Granularity granularity : Granularity.values()) {
+            assertTrue( associations.getCycles( granularity ).size() <= all.getCycles( granularity ).size() );
+            for (Cycle cycle : associations.getCycles( granularity )) {
+                assertPathIsClosed( cycle, associations.getRelationTypes() );
+            }
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testWithoutRelationTypes() {
+        DependencyCycles.find( snapshot, Collections.emptySet() );
+    }
+
+    /**
+     * Asserts, that each class of path of the given cycle depends on a class of the next node.
+     */
+    private static void assertPathIsClosed(Cycle cycle, Set<RelationType> relationTypes) {
+        assertTrue( cycle.path.size() > 1 );
+        for (int i = 0; i < cycle.path.size(); i++) {
+            String name = nodeName( cycle.path.get( i ), cycle.granularity );
+            assertTrue( cycle.toString(), cycle.names.contains( name ) );
+            String nextName = nodeName( cycle.path.get( (i + 1) % cycle.path.size() ), cycle.granularity );
+            assertTrue( cycle.toString(), outbound( cycle.path.get( i ), relationTypes ).stream()
+                    .anyMatch( relatedClass -> nodeName( relatedClass, cycle.granularity ).equals( nextName ) ) );
+        }
+    }
+
+    private static boolean reaches(String fromName, String toName, Granularity granularity,
+            DependencyCycles cycles) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>( Collections.singleton( fromName ) );
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (name.equals( toName )) {
+                return true;
+            }
+            if (visited.add( name )) {
+                for (Class_ class_ : snapshot.getClasses()) {
+                    if (nodeName( class_, granularity ).equals( name )) {
+                        for (Class_ relatedClass : outbound( class_, cycles.getRelationTypes() )) {
+                            queue.add( nodeName( relatedClass, granularity ) );
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Set<Class_> outbound(Class_ class_, Set<RelationType> relationTypes) {
+        Set<Class_> relatedClasses = new HashSet<>();
+        for (RelationType relationType : relationTypes) {
+            relatedClasses.addAll( snapshot.getRelations( class_, relationType, RelationDirection.Outbound ) );
+        }
+        return relatedClasses;
+    }
+
+    private static String nodeName(Class_ class_, Granularity granularity) {
+        String name = class_.originalTypeName;
+        return granularity == Granularity.Class
+                ? name.split( "\\$" )[ 0 ]
+                : name.substring( 0, Math.max( name.lastIndexOf( '.' ), 0 ) );
+    }
+}
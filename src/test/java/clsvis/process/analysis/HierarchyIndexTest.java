@@ -0,0 +1,121 @@
+package clsvis.process.analysis;
+
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.ProjectSnapshot;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import clsvis.process.importer.CompiledClassImporter;
+import clsvis.process.importer.CompiledClassImporterTest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests of {@link HierarchyIndex}.
+ */
+public class HierarchyIndexTest {
+
+    private static CompiledClassImporter classImporter;
+    private static HierarchyIndex index;
+
+    @BeforeClass
+    public static void importClasses() {
+        classImporter = CompiledClassImporterTest.importClasses( org.junit.runner.JUnitCore.class,
+                org.junit.runners.BlockJUnit4ClassRunner.class, java.util.ArrayList.class, java.util.TreeMap.class );
+        index = classImporter.getHierarchyIndex();
+    }
+
+    @Test
+    public void testIsSubtypeEqualsWalk() {
+        ProjectSnapshot snapshot = index.getSnapshot();
+        assertSame( classImporter.getSnapshot(), snapshot );
+        assertTrue( snapshot.size() > 100 );
+        for (Class_ subType : snapshot.getClasses()) {
+            Set<Class_> superTypes = walkSuperTypes( snapshot, subType );
+            for (Class_ superType : snapshot.getClasses()) {
+                assertEquals( subType + " <: " + superType,
+                        superTypes.contains( superType ), index.isSubtype( subType, superType ) );
+            }
+        }
+    }
+
+    @Test
+    public void testGetSubtypesEqualsWalk() {
+        ProjectSnapshot snapshot = index.getSnapshot();
+        for (Class_ type : snapshot.getClasses()) {
+            List<Class_> expectedSubtypes = new ArrayList<>();
+            List<Class_> expectedSubclasses = new ArrayList<>();
+            for (Class_ subType : snapshot.getClasses()) {
+                if (subType != type && walkSuperTypes( snapshot, subType ).contains( type )) {
+                    expectedSubtypes.add( subType );
+                    if (!isInterface( type )) {
+                        expectedSubclasses.add( subType );
+                    }
+                }
+            }
+            assertEquals( type.toString(), expectedSubtypes, index.getSubtypes( type ) );
+            List<Class_> subclasses = new ArrayList<>( index.getSubclasses( type ) );
+            subclasses.sort( null );
+            assertEquals( type.toString(), expectedSubclasses, subclasses );
+        }
+    }
+
+    @Test
+    public void testImplementorsOfCollection() {
+        Class_ collection = findClass( "java.util.Collection" );
+        Class_ arrayList = findClass( "java.util.ArrayList" );
+        Class_ list = findClass( "java.util.List" );
+        assertTrue( index.isSubtype( arrayList, collection ) );
+        assertTrue( index.isSubtype( list, collection ) );
+        assertFalse( index.isSubtype( collection, list ) );
+        assertFalse( index.isSubtype( findClass( "java.util.TreeMap" ), collection ) );
+        assertTrue( index.getSubtypes( collection ).contains( arrayList ) );
+        assertTrue( index.getSubclasses( findClass( "java.util.AbstractList" ) ).contains( arrayList ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testClassNotInSnapshot() {
+        new CompiledClassImporter().getHierarchyIndex().getSubtypes( findClass( "java.util.List" ) );
+    }
+
+    private static Class_ findClass(String name) {
+        for (Class_ class_ : index.getSnapshot().getClasses()) {
+            if (class_.originalTypeName.equals( name )) {
+                return class_;
+            }
+        }
+        throw new AssertionError( "Class not imported: " + name );
+    }
+
+    private static boolean isInterface(Class_ class_) {
+        return class_.kind == ElementKind.Interface || class_.kind == ElementKind.AnnotationType;
+    }
+
+    /**
+     * Returns the given type with all its super classes and super interfaces, found by walk of relations.
+     */
+    private static Set<Class_> walkSuperTypes(ProjectSnapshot snapshot, Class_ type) {
+        Set<Class_> superTypes = new HashSet<>();
+        Deque<Class_> queue = new ArrayDeque<>();
+        queue.add( type );
+        while (!queue.isEmpty()) {
+            Class_ class_ = queue.poll();
+            if (superTypes.add( class_ )) {
+                queue.addAll( snapshot.getRelations( class_, RelationType.SuperClass, RelationDirection.Outbound ) );
+                queue.addAll(
+                        snapshot.getRelations( class_, RelationType.SuperInterface, RelationDirection.Outbound ) );
+            }
+        }
+        return superTypes;
+    }
+}
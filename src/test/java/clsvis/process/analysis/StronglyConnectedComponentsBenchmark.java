@@ -0,0 +1,65 @@
+package clsvis.process.analysis;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Time of finding of {@link StronglyConnectedComponents} of a random graph of 100k nodes (classes),
+ * with the given count of edges per node (dependencies).
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class StronglyConnectedComponentsBenchmark {
+
+    private static final int NODES_COUNT = 100_000;
+
+    @Param( { "5", "20" } )
+    public int edgesPerNode;
+
+    private int[] offsets;
+    private int[] targets;
+
+    @Setup
+    public void setup() {
+        Random random = new Random( 7 );
+        offsets = new int[ NODES_COUNT + 1 ];
+        targets = new int[ NODES_COUNT * edgesPerNode ];
+        for (int node = 0; node < NODES_COUNT; node++) {
+            offsets[ node + 1 ] = offsets[ node ] + edgesPerNode;
+            for (int i = offsets[ node ]; i < offsets[ node + 1 ]; i++) {
+                // Mostly dependencies on "lower layers", with some going back - so there are big cycles
+                targets[ i ] = random.nextInt( 50 ) == 0
+                        ? random.nextInt( NODES_COUNT ) : random.nextInt( node + 1 );
+            }
+        }
+    }
+
+    @Benchmark
+    public int stronglyConnectedComponents() {
+        return new StronglyConnectedComponents( offsets, targets ).getComponentsCount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder()
+                .include( StronglyConnectedComponentsBenchmark.class.getSimpleName() )
+                .build() ).run();
+    }
+}
@@ -0,0 +1,89 @@
+package clsvis.process.analysis;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link StronglyConnectedComponents}.
+ */
+public class StronglyConnectedComponentsTest {
+
+    @Test
+    public void testSmallGraph() {
+        // 0 -> 1 -> 2 -> 0, 2 -> 3, 3 -> 4 -> 3, 5
+        int[][] edges = { { 1 }, { 2 }, { 0, 3 }, { 4 }, { 3 }, {} };
+        StronglyConnectedComponents components = toComponents( edges );
+        assertEquals( 3, components.getComponentsCount() );
+        assertEquals( components.getComponent( 0 ), components.getComponent( 1 ) );
+        assertEquals( components.getComponent( 0 ), components.getComponent( 2 ) );
+        assertEquals( components.getComponent( 3 ), components.getComponent( 4 ) );
+        // Reverse topological order
+        assertTrue( components.getComponent( 0 ) > components.getComponent( 3 ) );
+        assertTrue( components.getComponent( 5 ) != components.getComponent( 0 ) );
+    }
+
+    @Test
+    public void testLongChainDoesNotOverflowStack() {
+        int nodesCount = 1_000_000;
+        int[] offsets = new int[ nodesCount + 1 ];
+        int[] targets = new int[ nodesCount ];
+        for (int node = 0; node < nodesCount; node++) {
+            offsets[ node + 1 ] = node + 1;
+            targets[ node ] = (node + 1) % nodesCount;
+        }
+        StronglyConnectedComponents components = new StronglyConnectedComponents( offsets, targets );
+        assertEquals( 1, components.getComponentsCount() );
+        // Broken ring - chain of single nodes
+        targets[ nodesCount - 1 ] = nodesCount - 1;
+        components = new StronglyConnectedComponents( offsets, targets );
+        assertEquals( nodesCount, components.getComponentsCount() );
+    }
+
+    @Test
+    public void testRandomGraphEqualsReachability() {
+        Random random = new Random( 7 );
+        for (int test = 0; test < 20; test++) {
+            int nodesCount = 1 + random.nextInt( 40 );
+            int[][] edges = new int[ nodesCount ][];
+            for (int node = 0; node < nodesCount; node++) {
+                edges[ node ] = random.ints( random.nextInt( 3 ), 0, nodesCount ).toArray();
+            }
+            StronglyConnectedComponents components = toComponents( edges );
+            boolean[][] reachable = new boolean[ nodesCount ][ nodesCount ];
+            for (int node = 0; node < nodesCount; node++) {
+                markReachable( edges, node, reachable[ node ] );
+            }
+            for (int node1 = 0; node1 < nodesCount; node1++) {
+                for (int node2 = 0; node2 < nodesCount; node2++) {
+                    boolean sameComponent = components.getComponent( node1 ) == components.getComponent( node2 );
+                    assertEquals( Arrays.deepToString( edges ),
+                            reachable[ node1 ][ node2 ] && reachable[ node2 ][ node1 ], sameComponent );
+                    if (!sameComponent && reachable[ node1 ][ node2 ]) {
+                        assertTrue( components.getComponent( node1 ) > components.getComponent( node2 ) );
+                    }
+                }
+            }
+        }
+    }
+
+    private static void markReachable(int[][] edges, int node, boolean[] reachable) {
+        if (!reachable[ node ]) {
+            reachable[ node ] = true;
+            for (int target : edges[ node ]) {
+                markReachable( edges, target, reachable );
+            }
+        }
+    }
+
+    private static StronglyConnectedComponents toComponents(int[][] edges) {
+        int[] offsets = new int[ edges.length + 1 ];
+        for (int node = 0; node < edges.length; node++) {
+            offsets[ node + 1 ] = offsets[ node ] + edges[ node ].length;
+        }
+        int[] targets = Arrays.stream( edges ).flatMapToInt( Arrays::stream ).toArray();
+        return new StronglyConnectedComponents( offsets, targets );
+    }
+}
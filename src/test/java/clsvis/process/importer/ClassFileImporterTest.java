@@ -0,0 +1,30 @@
+package clsvis.process.importer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ClassFileImporter}.
+ */
+public class ClassFileImporterTest {
+
+    /**
+     * Classes of JDK are skipped - reflection hides some of their members.
+     */
+    @Test
+    public void testClassFileImportEqualsReflectionImport() throws Exception {
+        List<String> reflection = withoutJdk( CompiledClassImporterTest.importJUnit( new CompiledClassImporter(), 1 ) );
+        List<String> classFiles = withoutJdk( CompiledClassImporterTest.importJUnit( new ClassFileImporter(), 4 ) );
+        assertTrue( reflection.size() > 1000 );
+        assertEquals( reflection, classFiles );
+    }
+
+    private static List<String> withoutJdk(List<String> lines) {
+        return lines.stream()
+                .filter( line -> !line.startsWith( "java." ) && !line.startsWith( "jdk." ) && !line.startsWith( "sun." ) )
+                .collect( Collectors.toList() );
+    }
+}
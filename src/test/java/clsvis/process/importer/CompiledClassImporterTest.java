@@ -0,0 +1,509 @@
+package clsvis.process.importer;
+
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.Operation;
+import clsvis.model.ParameterizableElement;
+import clsvis.model.ProjectSnapshot;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of {@link CompiledClassImporter}.
+ */
+public class CompiledClassImporterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testParallelImportEqualsSequential() throws Exception {
+        List<String> sequential = importJUnit( 1 );
+        List<String> parallel = importJUnit( 4 );
+        assertTrue( sequential.size() > 100 );
+        assertEquals( sequential, parallel );
+    }
+
+    @Test
+    public void testCachedImportEqualsImport() throws Exception {
+        JarModelCache jarModelCache = new JarModelCache( temporaryFolder.getRoot(), 1 << 30 );
+        List<String> imported = importJUnit( new CompiledClassImporter(), 1, jarModelCache );
+        assertEquals( 1, temporaryFolder.getRoot().list().length );
+        List<String> cached = importJUnit( new CompiledClassImporter(), 1, jarModelCache );
+        assertEquals( imported, cached );
+
+        // Too small cache keeps nothing
+        File smallCacheDir = temporaryFolder.newFolder();
+        importJUnit( new CompiledClassImporter(), 1, new JarModelCache( smallCacheDir, 0 ) );
+        assertEquals( 0, smallCacheDir.list().length );
+    }
+
+    @Test
+    public void testImportByRotatedClassLoadersEqualsImport() throws Exception {
+        List<String> imported = importJUnit( 1 );
+        // Tiny budget - class loader is replaced after nearly each class
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.setMetaspaceBudget( 1 );
+        projectImporter.getClassImporter().setThreadsCount( 2 );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( jarOf( org.junit.Test.class ) ) );
+        projectImporter.cleanupAfterImport();
+        assertEquals( imported, dump( projectImporter.getClassImporter().getImportedClasses() ) );
+    }
+
+    @Test
+    public void testReimportByRotatedClassLoadersEqualsImport() throws Exception {
+        File classesDir = extractJUnitClasses();
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( classesDir ) );
+        projectImporter.cleanupAfterImport();
+        CompiledClassImporter classImporter = projectImporter.getClassImporter();
+        List<String> imported = dump( classImporter.getImportedClasses() );
+
+        // All classes modified - they are re-imported in parallel, with tiny budget
+        for (File packageDir : new File( classesDir, "org/junit/runner" ).listFiles( File::isDirectory )) {
+            for (File classFile : packageDir.listFiles()) {
+                classFile.setLastModified( System.currentTimeMillis() + 10_000 );
+            }
+        }
+        projectImporter.setMetaspaceBudget( 1 );
+        classImporter.setThreadsCount( 2 );
+        Set<ClassLoader> classLoaders = Collections.newSetFromMap( new IdentityHashMap<>() );
+        classImporter.setImportProgressListener( (importedCount, totalCount) -> {
+            synchronized (classLoaders) {
+                classLoaders.add( classImporter.getClassLoader() );
+            }
+        } );
+        assertTrue( projectImporter.reimportProject() > 10 );
+        projectImporter.cleanupAfterImport();
+        assertTrue( classLoaders.size() > 1 );
+        assertEquals( imported, dump( classImporter.getImportedClasses() ) );
+    }
+
+    @Test
+    public void testImportInProcessesEqualsImport() throws Exception {
+        List<String> imported = importJUnit( 1 );
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.setProcessesCount( 2 );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( jarOf( org.junit.Test.class ) ) );
+        projectImporter.cleanupAfterImport();
+        assertEquals( imported, dump( projectImporter.getClassImporter().getImportedClasses() ) );
+    }
+
+    @Test
+    public void testReimportOfModifiedClassesEqualsImport() throws Exception {
+        File classesDir = extractJUnitClasses();
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( classesDir ) );
+        projectImporter.cleanupAfterImport();
+        List<String> imported = dump( projectImporter.getClassImporter().getImportedClasses() );
+
+        // Modification of top-level and inner classes
+        long modificationTime = System.currentTimeMillis() + 10_000;
+        new File( classesDir, "org/junit/runner/Description.class" ).setLastModified( modificationTime );
+        new File( classesDir, "org/junit/runners/model/FrameworkMethod$1.class" ).setLastModified( modificationTime );
+        assertEquals( 2, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+        assertEquals( imported, dump( projectImporter.getClassImporter().getImportedClasses() ) );
+
+        assertEquals( 0, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+    }
+
+    @Test
+    public void testReimportAfterCancelledReimportEqualsImport() throws Exception {
+        File classesDir = extractJUnitClasses();
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( classesDir ) );
+        projectImporter.cleanupAfterImport();
+        CompiledClassImporter classImporter = projectImporter.getClassImporter();
+        List<String> imported = dump( classImporter.getImportedClasses() );
+
+        long modificationTime = System.currentTimeMillis() + 10_000;
+        new File( classesDir, "org/junit/runner/Description.class" ).setLastModified( modificationTime );
+        new File( classesDir, "org/junit/runners/model/FrameworkMethod$1.class" ).setLastModified( modificationTime );
+        classImporter.cancelImport();
+        assertEquals( 2, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+        assertEquals( CompiledClassImporter.IMPORT_CANCELLED, classImporter.getStopReason() );
+
+        // Classes not imported by the cancelled reload are imported by the next one
+        assertEquals( 2, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+        assertEquals( imported, dump( classImporter.getImportedClasses() ) );
+        assertEquals( 0, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+    }
+
+    @Test
+    public void testReimportAfterCancelledImportEqualsImport() throws Exception {
+        List<String> imported = importJUnit( 1 );
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        CompiledClassImporter classImporter = projectImporter.getClassImporter();
+        classImporter.setImportProgressListener( (importedCount, totalCount) -> {
+            if (importedCount == 50) {
+                classImporter.cancelImport();
+            }
+        } );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( jarOf( org.junit.Test.class ) ) );
+        projectImporter.cleanupAfterImport();
+        assertEquals( CompiledClassImporter.IMPORT_CANCELLED, classImporter.getStopReason() );
+
+        assertTrue( projectImporter.reimportProject() > 50 );
+        projectImporter.cleanupAfterImport();
+        assertEquals( imported, dump( classImporter.getImportedClasses() ) );
+        assertEquals( 0, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByReimport() throws Exception {
+        File classesDir = extractJUnitClasses();
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( classesDir ) );
+        projectImporter.cleanupAfterImport();
+        CompiledClassImporter classImporter = projectImporter.getClassImporter();
+        ProjectSnapshot snapshot = classImporter.getSnapshot();
+        List<String> frozen = dump( snapshot );
+        assertEquals( dump( classImporter.getImportedClasses() ), frozen );
+
+        new File( classesDir, "org/junit/runner/Description.class" )
+                .setLastModified( System.currentTimeMillis() + 10_000 );
+        assertEquals( 1, projectImporter.reimportProject() );
+        projectImporter.cleanupAfterImport();
+        assertEquals( frozen, dump( snapshot ) );
+        assertNotSame( snapshot, classImporter.getSnapshot() );
+        assertEquals( dump( classImporter.getImportedClasses() ), dump( classImporter.getSnapshot() ) );
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByImportOfUnprocessedClass() throws Exception {
+        CompiledClassImporter classImporter = newClassImporter();
+        classImporter.importClasses( Arrays.asList( "org.junit.runner.JUnitCore" ) );
+        classImporter.freezeModel();
+        ProjectSnapshot snapshot = classImporter.getSnapshot();
+        List<String> frozen = dump( snapshot );
+        Class_ request = snapshot.getClasses().stream()
+                .filter( class_ -> class_.originalTypeName.equals( "org.junit.runner.Request" ) )
+                .findFirst().get();
+        assertFalse( snapshot.isRelationsProcessed( request ) );
+        List<ParameterizableElement> elements = new ArrayList<>();
+        elements.add( request );
+        for (ElementKind kind : ElementKind.values()) {
+            for (ParameterizableElement member : snapshot.getMembers( request, kind )) {
+                elements.add( member );
+                if (member instanceof Operation) {
+                    elements.addAll( ((Operation) member).parameters );
+                }
+            }
+        }
+        Map<ParameterizableElement, Collection<String>> typeParameters = new IdentityHashMap<>();
+        for (ParameterizableElement element : elements) {
+            assertTrue( element.isFrozen() );
+            if (!element.typeParameters.isEmpty()) {
+                typeParameters.put( element, element.typeParameters );
+            }
+        }
+        assertFalse( typeParameters.isEmpty() );
+
+        classImporter.importClasses( Arrays.asList( "org.junit.runner.Request" ) );
+        assertTrue( request.relationsProcessed );
+        assertEquals( frozen, dump( snapshot ) );
+        typeParameters.forEach( (element, elementTypeParameters) ->
+                assertSame( elementTypeParameters, element.typeParameters ) );
+    }
+
+    @Test
+    public void testSnapshotRelationsAreSorted() throws Exception {
+        CompiledClassImporter classImporter = new CompiledClassImporter();
+        importJUnit( classImporter, 1 );
+        // Relations of classes are sorted after freezing, on request
+        ProjectSnapshot snapshot = classImporter.getSnapshot();
+        for (Class_ class_ : snapshot.getClasses()) {
+            for (RelationDirection relDirection : RelationDirection.values()) {
+                for (RelationType relType : RelationType.values()) {
+                    List<Class_> expected = new ArrayList<>( class_.getRelations( relType, relDirection ) );
+                    expected.removeIf( relatedClass -> !snapshot.contains( relatedClass ) );
+                    assertEquals( class_ + " " + relDirection + " " + relType,
+                            expected, snapshot.getRelations( class_, relType, relDirection ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFreezeModelDuringImportFails() throws Exception {
+        CompiledClassImporter classImporter = new CompiledClassImporter();
+        classImporter.setClassLoader(
+                new URLClassLoader( new URL[ 0 ], CompiledClassImporterTest.class.getClassLoader() ) );
+        List<Exception> exceptions = new ArrayList<>();
+        classImporter.setImportProgressListener( (importedCount, totalCount) -> {
+            try {
+                classImporter.freezeModel();
+            } catch (IllegalStateException e) {
+                exceptions.add( e );
+            }
+        } );
+        classImporter.importClasses( Arrays.asList( "org.junit.runner.JUnitCore", "org.junit.runner.Result" ) );
+        assertEquals( 2, exceptions.size() );
+        assertEquals( 0, classImporter.getSnapshot().size() );
+        classImporter.freezeModel();
+        assertTrue( classImporter.getSnapshot().size() > 2 );
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsReadOnly() throws Exception {
+        CompiledClassImporter classImporter = new CompiledClassImporter();
+        importJUnit( classImporter, 1 );
+        Class_ class_ = classImporter.getSnapshot().getClasses().get( 0 );
+        class_.annotations.clear();
+        classImporter.getSnapshot().getClasses().remove( 0 );
+    }
+
+    @Test(timeout = 30_000)
+    public void testCancelledImportKeepsImportedClasses() throws Exception {
+        List<String> imported = importJUnit( 1 );
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        CompiledClassImporter classImporter = projectImporter.getClassImporter();
+        classImporter.setThreadsCount( 2 );
+        classImporter.setImportProgressListener( (importedCount, totalCount) -> {
+            if (importedCount == 50) {
+                classImporter.cancelImport();
+            }
+        } );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( jarOf( org.junit.Test.class ) ) );
+        // Latency of the cancellation is only logged - it depends on the machine
+        projectImporter.cleanupAfterImport();
+
+        assertEquals( CompiledClassImporter.IMPORT_CANCELLED, classImporter.getStopReason() );
+        assertFalse( classImporter.isImportCancelled() );
+        Collection<Class_> importedClasses = classImporter.getImportedClasses();
+        assertTrue( importedClasses.size() >= 50 );
+        assertTrue( importedClasses.size() < imported.size() );
+    }
+
+    @Test(timeout = 30_000)
+    public void testCancelledImportFromSlowQueueFinishes() throws Exception {
+        CompiledClassImporter classImporter = newClassImporter();
+        classImporter.setThreadsCount( 4 );
+        classImporter.setImportProgressListener( (importedCount, totalCount) -> {
+            if (importedCount == 2) {
+                classImporter.cancelImport();
+            }
+        } );
+        // Discovery is slower than import - workers wait for class names, when the import is cancelled
+        ClassNamesQueue classNamesQueue = new ClassNamesQueue( 0x10 );
+        Thread discovery = new Thread( () -> {
+            classNamesQueue.put( "org.junit.runner.JUnitCore" );
+            classNamesQueue.put( "org.junit.runner.Result" );
+            try {
+                while (!classImporter.isImportCancelled()) {
+                    Thread.sleep( 10 );
+                }
+                for (String className : Arrays.asList( "org.junit.runner.Request",
+                        "org.junit.runner.Description", "org.junit.runner.Computer" )) {
+                    Thread.sleep( 50 );
+                    classNamesQueue.put( className );
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            classNamesQueue.finish();
+        } );
+        discovery.start();
+        classImporter.importClasses( classNamesQueue );
+        discovery.join();
+
+        assertEquals( CompiledClassImporter.IMPORT_CANCELLED, classImporter.getStopReason() );
+        assertTrue( classNamesQueue.isAborted() );
+    }
+
+    private static List<String> importJUnit(int threadsCount) throws URISyntaxException {
+        return importJUnit( new CompiledClassImporter(), threadsCount );
+    }
+
+    /**
+     * Imports junit jar (with hamcrest on class path) by the given importer.
+     */
+    static List<String> importJUnit(CompiledClassImporter classImporter, int threadsCount) throws URISyntaxException {
+        return importJUnit( classImporter, threadsCount, null );
+    }
+
+    /**
+     * Imports junit jar (with hamcrest on class path) by the given importer, using the given cache.
+     */
+    private static List<String> importJUnit(CompiledClassImporter classImporter, int threadsCount,
+            JarModelCache jarModelCache) throws URISyntaxException {
+        BaseProjectImporter projectImporter = new BaseProjectImporter( classImporter );
+        projectImporter.setJarModelCache( jarModelCache );
+        projectImporter.getClassImporter().setThreadsCount( threadsCount );
+        projectImporter.addClassPaths( Arrays.asList( jarOf( org.hamcrest.Matcher.class ) ) );
+        projectImporter.importProject( Arrays.asList( jarOf( org.junit.Test.class ) ) );
+        projectImporter.cleanupAfterImport();
+        return dump( projectImporter.getClassImporter().getImportedClasses() );
+    }
+
+    /**
+     * Extracts junit jar into a new directory.
+     */
+    private File extractJUnitClasses() throws Exception {
+        File classesDir = temporaryFolder.newFolder();
+        try (ZipFile zipFile = new ZipFile( jarOf( org.junit.Test.class ) )) {
+            for (ZipEntry zipEntry : Collections.list( zipFile.entries() )) {
+                File file = new File( classesDir, zipEntry.getName() );
+                if (!zipEntry.isDirectory()) {
+                    file.getParentFile().mkdirs();
+                    Files.copy( zipFile.getInputStream( zipEntry ), file.toPath() );
+                }
+            }
+        }
+        return classesDir;
+    }
+
+    /**
+     * Returns a new importer with the given classes (and classes related to them) imported by its own class loader
+     * - with frozen model. It's the fixture of tests of analyses of the model.
+     */
+    public static CompiledClassImporter importClasses(Class<?>... classes) {
+        CompiledClassImporter classImporter = newClassImporter();
+        for (Class<?> clazz : classes) {
+            classImporter.importClass( clazz );
+        }
+        classImporter.freezeModel();
+        return classImporter;
+    }
+
+    /**
+     * Returns a new importer with top-level classes of junit jar, whose names start with the given prefix, imported
+     * like by {@link #importClasses(java.lang.Class...)}. Inner classes are imported with their top-level classes.
+     */
+    public static CompiledClassImporter importJUnitClasses(String namePrefix) throws URISyntaxException, IOException {
+        List<String> classNames = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile( jarOf( org.junit.Test.class ) )) {
+            for (ZipEntry zipEntry : Collections.list( zipFile.entries() )) {
+                String name = zipEntry.getName();
+                if (name.endsWith( ".class" ) && name.indexOf( '$' ) < 0) {
+                    String className = name.substring( 0, name.length() - ".class".length() ).replace( '/', '.' );
+                    if (className.startsWith( namePrefix )) {
+                        classNames.add( className );
+                    }
+                }
+            }
+        }
+        CompiledClassImporter classImporter = newClassImporter();
+        classImporter.importClasses( classNames );
+        classImporter.freezeModel();
+        return classImporter;
+    }
+
+    private static CompiledClassImporter newClassImporter() {
+        CompiledClassImporter classImporter = new CompiledClassImporter();
+        classImporter.setClassLoader(
+                new URLClassLoader( new URL[ 0 ], CompiledClassImporterTest.class.getClassLoader() ) );
+        return classImporter;
+    }
+
+    private static File jarOf(Class<?> clazz) throws URISyntaxException {
+        return new File( clazz.getProtectionDomain().getCodeSource().getLocation().toURI() );
+    }
+
+    /**
+     * Returns sorted, textual representation of the given classes: their members and relations.
+     */
+    static List<String> dump(Collection<Class_> classes) {
+        return dump( classes, null );
+    }
+
+    /**
+     * Returns sorted, textual representation of classes frozen in the given snapshot - like
+     * {@link #dump(java.util.Collection)}.
+     */
+    static List<String> dump(ProjectSnapshot snapshot) {
+        return dump( snapshot.getClasses(), snapshot );
+    }
+
+    private static List<String> dump(Collection<Class_> classes, ProjectSnapshot snapshot) {
+        List<String> lines = new ArrayList<>( classes.size() * 0x10 );
+        for (Class_ class_ : classes) {
+            String prefix = class_.originalTypeName + ' ';
+            boolean relationsProcessed = snapshot != null
+                    ? snapshot.isRelationsProcessed( class_ ) : class_.relationsProcessed;
+            lines.add( prefix + class_.kind + ' ' + class_.modifiers + ' ' + relationsProcessed
+                    + ' ' + class_.getFullNameWithParams() + ' ' + class_.shortTypeName );
+            class_.annotations.forEach( a -> lines.add( prefix + "@ " + a.id ) );
+            for (ElementKind kind : ElementKind.values()) {
+                Collection<ParameterizableElement> members = snapshot != null
+                        ? snapshot.getMembers( class_, kind ) : class_.getMembers( kind );
+                if (members != null) {
+                    for (ParameterizableElement member : members) {
+                        String memberPrefix = prefix + kind + ' ' + member.id + ' ';
+                        lines.add( memberPrefix + member.fullTypeName + ' '
+                                + member.shortTypeName + ' ' + member.originalTypeName + ' ' + member.modifiers );
+                        member.annotations.forEach( a -> lines.add( memberPrefix + "@ " + a.id ) );
+                        if (member instanceof Operation) {
+                            Operation operation = (Operation) member;
+                            for (ParameterizableElement param : operation.parameters) {
+                                lines.add( memberPrefix + "param " + param.id + ' ' + param.fullTypeName + ' '
+                                        + param.shortTypeName + ' ' + param.originalTypeName + ' ' + param.modifiers );
+                                param.annotations.forEach( a -> lines.add( memberPrefix + "param @ " + a.id ) );
+                            }
+                            for (ParameterizableElement throwable : operation.throwables) {
+                                lines.add( memberPrefix + "throws " + throwable.id + ' ' + throwable.shortTypeName );
+                            }
+                        }
+                    }
+                }
+            }
+            for (RelationDirection direction : RelationDirection.values()) {
+                for (RelationType type : RelationType.values()) {
+                    Collection<Class_> targets = snapshot != null
+                            ? snapshot.getRelations( class_, type, direction ) : class_.getRelations( type, direction );
+                    for (Class_ target : targets) {
+                        lines.add( prefix + direction + ' ' + type + ' ' + target.originalTypeName );
+                    }
+                }
+            }
+        }
+        lines.sort( null );
+        return lines;
+    }
+}
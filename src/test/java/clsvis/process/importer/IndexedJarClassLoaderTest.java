@@ -0,0 +1,96 @@
+package clsvis.process.importer;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.tools.ToolProvider;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of {@link IndexedJarClassLoader}.
+ */
+public class IndexedJarClassLoaderTest {
+
+    private static final String CLASS_NAME = "a.b.C";
+    private static final String ENTRY_NAME = "a/b/C.class";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private File jarFile1;
+    private File jarFile2;
+    private File otherJarFile;
+
+    @Before
+    public void setUp() throws Exception {
+        // Class not visible to the parent class loader
+        File sourceFile = new File( temporaryFolder.newFolder( "src", "a", "b" ), "C.java" );
+        Files.write( sourceFile.toPath(), "package a.b; public class C {}".getBytes( "UTF-8" ) );
+        directory = temporaryFolder.newFolder( "classes" );
+        assertEquals( 0, ToolProvider.getSystemJavaCompiler().run( null, null, null,
+                "-d", directory.getPath(), sourceFile.getPath() ) );
+        byte[] classBytes = Files.readAllBytes( new File( directory, ENTRY_NAME ).toPath() );
+        jarFile1 = createJar( "1.jar", ENTRY_NAME, classBytes );
+        jarFile2 = createJar( "2.jar", ENTRY_NAME, classBytes );
+        otherJarFile = createJar( "other.jar", "a/D.class", new byte[ 0 ] );
+    }
+
+    private File createJar(String name, String entryName, byte[] bytes) throws Exception {
+        File jarFile = temporaryFolder.newFile( name );
+        try (ZipOutputStream out = new ZipOutputStream( Files.newOutputStream( jarFile.toPath() ) )) {
+            out.putNextEntry( new ZipEntry( entryName ) );
+            out.write( bytes );
+            out.closeEntry();
+        }
+        return jarFile;
+    }
+
+    private static IndexedJarClassLoader createClassLoader(File... classPaths) throws Exception {
+        List<File> classPathList = Arrays.asList( classPaths );
+        URL[] urls = new URL[ classPaths.length ];
+        for (int i = 0; i < urls.length; i++) {
+            urls[ i ] = classPaths[ i ].toURI().toURL();
+        }
+        return new IndexedJarClassLoader( classPathList, urls );
+    }
+
+    private static File getLocation(Class<?> clazz) throws Exception {
+        return new File( clazz.getProtectionDomain().getCodeSource().getLocation().toURI() );
+    }
+
+    @Test
+    public void testFirstClassWins() throws Exception {
+        for (File[] classPaths : new File[][]{
+            { otherJarFile, jarFile1, jarFile2, directory },
+            { otherJarFile, jarFile2, jarFile1, directory },
+            { otherJarFile, directory, jarFile2, jarFile1 }, }) {
+            try (IndexedJarClassLoader classLoader = createClassLoader( classPaths )) {
+                Class<?> clazz = classLoader.loadClass( CLASS_NAME );
+                assertEquals( classPaths[ 1 ], getLocation( clazz ) );
+                assertEquals( "a.b", clazz.getPackage().getName() );
+                try (URLClassLoader urlClassLoader = new URLClassLoader( classLoader.getURLs() )) {
+                    assertEquals( urlClassLoader.getResource( ENTRY_NAME ), classLoader.getResource( ENTRY_NAME ) );
+                }
+            }
+        }
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testClassNotFound() throws Exception {
+        try (IndexedJarClassLoader classLoader = createClassLoader( otherJarFile, jarFile1 )) {
+            assertNull( classLoader.getResource( "a/b/D.class" ) );
+            classLoader.loadClass( "a.b.D" );
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package clsvis.process.importer;
+
+import clsvis.model.ElementModifier;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of decoding of modifiers of fields and methods of JDK classes:
+ * precomputed table of {@link CompiledClassImporter} vs reflective calls of {@link Modifier} predicates.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ModifierDecodingBenchmark {
+
+    private static final Class[] CLASSES = {
+        Object.class, String.class, StringBuilder.class, Integer.class, Math.class, Thread.class,
+        ArrayList.class, java.util.HashMap.class, java.util.TreeMap.class, java.util.Collections.class,
+        java.util.concurrent.ConcurrentHashMap.class, java.io.File.class, java.net.URI.class };
+
+    private final List<Field> fields = new ArrayList<>();
+    private final List<Method> methods = new ArrayList<>();
+    /** Map[ElementModifier] = Modifier.isXxx(int) - as processed before the table was introduced */
+    private final Map<ElementModifier, Method> generalModifierProcessors = new EnumMap<>( ElementModifier.class );
+    private final Map<ElementModifier, Method> fieldModifierProcessors = new EnumMap<>( ElementModifier.class );
+    private final Map<ElementModifier, Method> methodModifierProcessors = new EnumMap<>( ElementModifier.class );
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        for (Class clazz : CLASSES) {
+            fields.addAll( Arrays.asList( clazz.getDeclaredFields() ) );
+            methods.addAll( Arrays.asList( clazz.getDeclaredMethods() ) );
+        }
+        for (ElementModifier modifier : EnumSet.of(
+                ElementModifier.Public, ElementModifier.Protected, ElementModifier.Private,
+                ElementModifier.Abstract, ElementModifier.Static, ElementModifier.Final,
+                ElementModifier.Transient, ElementModifier.Volatile, ElementModifier.Synchronized,
+                ElementModifier.Native, ElementModifier.Strict )) {
+            generalModifierProcessors.put( modifier, Modifier.class.getMethod( "is" + modifier.name(), int.class ) );
+        }
+        fieldModifierProcessors.put( ElementModifier.Synthetic, Field.class.getMethod( "isSynthetic" ) );
+        for (ElementModifier modifier : EnumSet.of(
+                ElementModifier.Synthetic, ElementModifier.Bridge, ElementModifier.Default )) {
+            methodModifierProcessors.put( modifier, Method.class.getMethod( "is" + modifier.name() ) );
+        }
+    }
+
+    @Benchmark
+    public void table(Blackhole blackhole) {
+        for (Field field : fields) {
+            blackhole.consume( ElementModifier.setOf( CompiledClassImporter.decodeModifiers( field ) ) );
+        }
+        for (Method method : methods) {
+            blackhole.consume( ElementModifier.setOf( CompiledClassImporter.decodeModifiers( method ) ) );
+        }
+    }
+
+    @Benchmark
+    public void reflection(Blackhole blackhole) throws ReflectiveOperationException {
+        for (Field field : fields) {
+            blackhole.consume( decodeReflectively( field.getModifiers(), field, fieldModifierProcessors ) );
+        }
+        for (Method method : methods) {
+            blackhole.consume( decodeReflectively( method.getModifiers(), method, methodModifierProcessors ) );
+        }
+    }
+
+    private Collection<ElementModifier> decodeReflectively(
+            Integer modifiers, Object element, Map<ElementModifier, Method> elementModifierProcessors)
+            throws IllegalAccessException, InvocationTargetException {
+        Collection<ElementModifier> elementModifiers = EnumSet.noneOf( ElementModifier.class );
+        for (Map.Entry<ElementModifier, Method> e : generalModifierProcessors.entrySet()) {
+            if (Boolean.TRUE.equals( e.getValue().invoke( null, modifiers ) )) {
+                elementModifiers.add( e.getKey() );
+            }
+        }
+        for (Map.Entry<ElementModifier, Method> e : elementModifierProcessors.entrySet()) {
+            if (Boolean.TRUE.equals( e.getValue().invoke( element ) )) {
+                elementModifiers.add( e.getKey() );
+            }
+        }
+        return elementModifiers;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder()
+                .include( ModifierDecodingBenchmark.class.getSimpleName() )
+                .build() ).run();
+    }
+}
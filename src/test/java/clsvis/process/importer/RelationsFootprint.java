@@ -0,0 +1,145 @@
+package clsvis.process.importer;
+
+import clsvis.model.Class_;
+import clsvis.model.RelationDirection;
+import clsvis.model.RelationType;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**
+ * Retained heap of relations of imported classes: compact int arrays of {@link Class_} vs sets of related classes,
+ * which were kept by each class before - 14 TreeSets per direction and 2 HashSets of relations to check.<br/>
+ * Sets are rebuilt from relations of the imported classes, in the state which they had after import.
+ * Retained sizes are measured by {@link GraphLayout}, without the related classes themselves.<br/>
+ * Classes of jars from the class path of the measurement are imported: junit, hamcrest, jmh-core, jopt-simple
+ * and commons-math3.
+ */
+public class RelationsFootprint {
+
+    private static final Set<RelationType> CHECKABLE_RELATIONS
+            = EnumSet.of( RelationType.InnerClass, RelationType.Association, RelationType.Dependency );
+    private static final Set<RelationType> IMMUTABLE_RELATIONS
+            = EnumSet.of( RelationType.SuperClass, RelationType.SuperInterface, RelationType.InnerClass );
+    private static final String[] RELATION_ARRAY_FIELDS = {
+        "outboundRelations", "addedOutboundRelations", "inboundRelations", "addedInboundRelations" };
+
+    public static void main(String[] args) throws Exception {
+        BaseProjectImporter projectImporter = new BaseProjectImporter( new CompiledClassImporter() );
+        projectImporter.setJarModelCache( null );
+        projectImporter.importProject( Arrays.asList( jarOf( org.junit.Test.class ),
+                jarOf( org.hamcrest.Matcher.class ), jarOf( org.openjdk.jmh.Main.class ),
+                jarOf( joptsimple.OptionParser.class ), jarOf( org.apache.commons.math3.util.FastMath.class ) ) );
+        projectImporter.cleanupAfterImport();
+        List<Class_> classes = new ArrayList<>( projectImporter.getClassImporter().getImportedClasses() );
+        long relationsCount = 0;
+        for (Class_ class_ : classes) {
+            for (RelationType relType : RelationType.values()) {
+                relationsCount += class_.getRelations( relType, RelationDirection.Outbound ).size();
+            }
+        }
+
+        // Relations kept by classes now
+        List<Object> relationArrays = new ArrayList<>( classes.size() * RELATION_ARRAY_FIELDS.length );
+        for (String fieldName : RELATION_ARRAY_FIELDS) {
+            Field field = Class_.class.getDeclaredField( fieldName );
+            field.setAccessible( true );
+            for (Class_ class_ : classes) {
+                Object relations = field.get( class_ );
+                if (relations != null) {
+                    relationArrays.add( relations );
+                }
+            }
+        }
+        // Fields of Class_ referencing relations: 4 arrays, 2 counts and flag of sorting
+        long fieldsSize = 4 * VM.current().sizeOfField( "oop" ) + 2 * VM.current().sizeOfField( "int" )
+                + VM.current().sizeOfField( "boolean" );
+        long arraysSize = GraphLayout.parseInstance( relationArrays.toArray() ).totalSize()
+                + fieldsSize * classes.size();
+
+        // Relations kept by classes before - related classes are shared
+        List<Object> relationSets = new ArrayList<>( classes.size() * 2 );
+        for (Class_ class_ : classes) {
+            relationSets.add( buildRelationsMap( class_ ) );
+            relationSets.add( buildRelationsToCheck( class_ ) );
+        }
+        List<Object> sharedObjects = new ArrayList<>( classes );
+        sharedObjects.add( Collections.EMPTY_LIST );
+        sharedObjects.addAll( Arrays.asList( RelationType.values() ) );
+        sharedObjects.addAll( Arrays.asList( RelationDirection.values() ) );
+        long setsSize = GraphLayout.parseInstance( relationSets.toArray() )
+                .subtract( GraphLayout.parseInstance( sharedObjects.toArray() ) ).totalSize()
+                + 2 * VM.current().sizeOfField( "oop" ) * classes.size();
+
+        System.out.printf( "%d classes, %d relations%n", classes.size(), relationsCount );
+        System.out.printf( "Sets:   %,d bytes, %d bytes per class%n", setsSize, setsSize / classes.size() );
+        System.out.printf( "Arrays: %,d bytes, %d bytes per class%n", arraysSize, arraysSize / classes.size() );
+        System.out.printf( "Ratio:  %.1f%n", (double) setsSize / arraysSize );
+    }
+
+    /**
+     * Returns relations of the given class kept in sets: Map[direction][type] = related classes.
+     */
+    private static Map<RelationDirection, Map<RelationType, Collection<Class_>>> buildRelationsMap(Class_ class_) {
+        Map<RelationDirection, Map<RelationType, Collection<Class_>>> relationsMap
+                = new EnumMap<>( RelationDirection.class );
+        for (RelationDirection relDirection : RelationDirection.values()) {
+            Map<RelationType, Collection<Class_>> relationsSideMap = new EnumMap<>( RelationType.class );
+            for (RelationType relType : RelationType.values()) {
+                relationsSideMap.put( relType, new TreeSet<>( class_.getRelations( relType, relDirection ) ) );
+            }
+            relationsMap.put( relDirection, relationsSideMap );
+        }
+        // After members: super class, super interfaces and inner classes are listed
+        Map<RelationType, Collection<Class_>> outboundMap = relationsMap.get( RelationDirection.Outbound );
+        for (RelationType relType : IMMUTABLE_RELATIONS) {
+            Collection<Class_> classesSet = outboundMap.get( relType );
+            outboundMap.put( relType, classesSet.isEmpty() ? Collections.EMPTY_LIST : new ArrayList<>( classesSet ) );
+        }
+        // After relations: outer class is listed, empty outbound relations are dropped
+        if (class_.relationsProcessed) {
+            Map<RelationType, Collection<Class_>> inboundMap = relationsMap.get( RelationDirection.Inbound );
+            Collection<Class_> outerClassesSet = inboundMap.get( RelationType.InnerClass );
+            inboundMap.put( RelationType.InnerClass,
+                    outerClassesSet.isEmpty() ? Collections.EMPTY_LIST : new ArrayList<>( outerClassesSet ) );
+            for (RelationType relType : RelationType.values()) {
+                if (outboundMap.get( relType ).isEmpty()) {
+                    outboundMap.put( relType, Collections.EMPTY_LIST );
+                }
+            }
+        }
+        return relationsMap;
+    }
+
+    /**
+     * Returns classes related to the given class by checkable relations: Map[direction] = related classes.
+     */
+    private static Map<RelationDirection, Collection<Class_>> buildRelationsToCheck(Class_ class_) {
+        Map<RelationDirection, Collection<Class_>> relationsToCheck = new EnumMap<>( RelationDirection.class );
+        for (RelationDirection relDirection : RelationDirection.values()) {
+            Collection<Class_> classesToCheck = new HashSet<>();
+            for (RelationType relType : CHECKABLE_RELATIONS) {
+                classesToCheck.addAll( class_.getRelations( relType, relDirection ) );
+            }
+            relationsToCheck.put( relDirection, classesToCheck );
+        }
+        return relationsToCheck;
+    }
+
+    private static File jarOf(Class<?> clazz) throws URISyntaxException {
+        return new File( clazz.getProtectionDomain().getCodeSource().getLocation().toURI() );
+    }
+}
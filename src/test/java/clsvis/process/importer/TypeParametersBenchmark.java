@@ -0,0 +1,147 @@
+package clsvis.process.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of extraction of classes used by generic types of members:
+ * memoized walk of {@link CompiledClassImporter} vs recursion copying history of walked types.<br/>
+ * Classes of jars from the class path of the benchmark are walked - more generic libraries can be added to it.
+ * Each operation uses a new importer - types are memoized only within the operation, as within an import.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TypeParametersBenchmark {
+
+    private final List<Type> genericTypes = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> classNames = new ArrayList<>();
+        for (String path : System.getProperty( "java.class.path" ).split( File.pathSeparator )) {
+            if (path.endsWith( BaseProjectImporter.jarFileName )) {
+                ZipCentralDirectory.readClassEntries( new File( path ), (className, crc, size) -> classNames.add( className ) );
+            }
+        }
+        for (String className : classNames) {
+            try {
+                addGenericTypes( Class.forName( className, false, getClass().getClassLoader() ) );
+            } catch (ClassNotFoundException | LinkageError | TypeNotPresentException e) {
+                // Class not usable - skipped
+            }
+        }
+    }
+
+    private void addGenericTypes(Class clazz) {
+        for (Field field : clazz.getDeclaredFields()) {
+            addGenericType( field.getGenericType() );
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            addGenericType( method.getGenericReturnType() );
+            for (Type parameterType : method.getGenericParameterTypes()) {
+                addGenericType( parameterType );
+            }
+        }
+    }
+
+    private void addGenericType(Type type) {
+        if (!(type instanceof Class)) {
+            genericTypes.add( type );
+        }
+    }
+
+    @Benchmark
+    public void memoized(Blackhole blackhole) {
+        CompiledClassImporter importer = new CompiledClassImporter();
+        for (Type type : genericTypes) {
+            blackhole.consume( importer.getTypeParameterNames( type ) );
+        }
+    }
+
+    @Benchmark
+    public void historyCopying(Blackhole blackhole) {
+        for (Type type : genericTypes) {
+            Collection<String> typeParameters = new ArrayList<>( 2 );
+            importTypeParameters( type, typeParameters, Collections.EMPTY_LIST );
+            blackhole.consume( typeParameters );
+        }
+    }
+
+    /**
+     * Walk of generic type as done before memoization.
+     */
+    private static void importTypeParameters(
+            Type declaredType, Collection<String> typeParameters, Collection<Type> history) {
+        if (history.contains( declaredType )) {
+            return;
+        }
+        ArrayList<Type> lHistory = new ArrayList<>( history );
+        lHistory.add( declaredType );
+
+        if (declaredType instanceof Class) {
+            Class type = (Class) declaredType;
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (!type.isAnonymousClass() && !type.isPrimitive() && !typeParameters.contains( type.getName() )) {
+                typeParameters.add( type.getName() );
+            }
+        } else if (declaredType instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) declaredType;
+            importTypeParameters( parameterizedType.getRawType(), typeParameters, lHistory );
+            for (Type actualTypeArg : parameterizedType.getActualTypeArguments()) {
+                importTypeParameters( actualTypeArg, typeParameters, lHistory );
+            }
+        } else if (declaredType instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) declaredType;
+            Type[] bounds = wildcardType.getLowerBounds().length > 0
+                    ? wildcardType.getLowerBounds() : wildcardType.getUpperBounds();
+            for (Type actualTypeArg : bounds) {
+                importTypeParameters( actualTypeArg, typeParameters, lHistory );
+            }
+        } else if (declaredType instanceof GenericArrayType) {
+            importTypeParameters( ((GenericArrayType) declaredType).getGenericComponentType(), typeParameters,
+                    lHistory );
+        } else if (declaredType instanceof TypeVariable) {
+            for (Type actualTypeArg : ((TypeVariable) declaredType).getBounds()) {
+                importTypeParameters( actualTypeArg, typeParameters, lHistory );
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder()
+                .include( TypeParametersBenchmark.class.getSimpleName() )
+                .build() ).run();
+    }
+}
@@ -0,0 +1,65 @@
+package clsvis.process.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of discovery of classes in jars: {@link ZipCentralDirectory} vs {@link java.util.zip.ZipFile}.<br/>
+ * Jars from the class path of the benchmark are read. Allocations can be compared by <code>-prof gc</code>.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ZipCentralDirectoryBenchmark {
+
+    private final List<File> jarFiles = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (String path : System.getProperty( "java.class.path" ).split( File.pathSeparator )) {
+            if (path.endsWith( BaseProjectImporter.jarFileName )) {
+                jarFiles.add( new File( path ) );
+            }
+        }
+    }
+
+    @Benchmark
+    public void zipCentralDirectory(Blackhole blackhole) throws IOException {
+        for (File jarFile : jarFiles) {
+            ZipCentralDirectory.readClassEntries( jarFile, (className, crc, size) -> blackhole.consume( className ) );
+        }
+    }
+
+    @Benchmark
+    public void zipFile(Blackhole blackhole) throws IOException {
+        for (File jarFile : jarFiles) {
+            BaseProjectImporter.findClassEntriesByZipFile( jarFile, (className, crc, size) -> blackhole.consume( className ) );
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder()
+                .include( ZipCentralDirectoryBenchmark.class.getSimpleName() )
+                .build() ).run();
+    }
+}
@@ -0,0 +1,71 @@
+package clsvis.process.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of {@link ZipCentralDirectory}.
+ */
+public class ZipCentralDirectoryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testClassEntriesEqualZipFileEntries() throws Exception {
+        for (Class<?> clazz : new Class<?>[]{ org.junit.Test.class, org.hamcrest.Matcher.class }) {
+            File jarFile = new File( clazz.getProtectionDomain().getCodeSource().getLocation().toURI() );
+            List<String> entries = readClassEntries( jarFile );
+            assertTrue( entries.size() > 20 );
+            assertEquals( readClassEntriesByZipFile( jarFile ), entries );
+        }
+    }
+
+    @Test
+    public void testNonAsciiNamesAndComment() throws Exception {
+        File jarFile = temporaryFolder.newFile( "test.jar" );
+        try (ZipOutputStream out = new ZipOutputStream( Files.newOutputStream( jarFile.toPath() ) )) {
+            for (String name : new String[]{ "a/", "a/B.class", "a/B$1.class", "a/Zażółć.class", "a/C.txt" }) {
+                out.putNextEntry( new ZipEntry( name ) );
+                out.write( name.getBytes( "UTF-8" ) );
+                out.closeEntry();
+            }
+            out.setComment( "Comment" );
+        }
+        List<String> entries = readClassEntries( jarFile );
+        assertEquals( 3, entries.size() );
+        assertEquals( readClassEntriesByZipFile( jarFile ), entries );
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotZipFile() throws Exception {
+        File file = temporaryFolder.newFile( "test.jar" );
+        try (OutputStream out = Files.newOutputStream( file.toPath() )) {
+            out.write( new byte[ 100 ] );
+        }
+        readClassEntries( file );
+    }
+
+    private static List<String> readClassEntries(File jarFile) throws IOException {
+        List<String> entries = new ArrayList<>();
+        ZipCentralDirectory.readClassEntries( jarFile, (className, crc, size) -> entries.add( className + ' ' + crc + ' ' + size ) );
+        return entries;
+    }
+
+    private static List<String> readClassEntriesByZipFile(File jarFile) throws IOException {
+        List<String> entries = new ArrayList<>();
+        BaseProjectImporter.findClassEntriesByZipFile( jarFile, (className, crc, size) -> entries.add( className + ' ' + crc + ' ' + size ) );
+        return entries;
+    }
+}
@@ -0,0 +1,68 @@
+package clsvis.process.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Tests of {@link CamelCaseIndex}.
+ */
+public class CamelCaseIndexTest {
+
+    private static final List<String> NAMES = Arrays.asList(
+            "CompiledClassImporter", "ClassFileImporter", "Class_", "ClassGraph", "CamelCaseIndex",
+            "SideGraphLayoutBuilder", "StructureBuilder", "Compiled", "compiler", "URLClassLoader", "Base64Codec" );
+
+    private final CamelCaseIndex index = new CamelCaseIndex( NAMES );
+
+    private List<String> find(String query) {
+        List<String> names = new ArrayList<>();
+        for (int row : index.find( query, 10, null )) {
+            names.add( NAMES.get( row ) );
+        }
+        return names;
+    }
+
+    @Test
+    public void testCamelHumps() {
+        assertEquals( Arrays.asList( "CamelCaseIndex", "CompiledClassImporter" ), find( "CCI" ) );
+        assertEquals( Arrays.asList( "CompiledClassImporter" ), find( "ComClaImp" ) );
+        assertEquals( Arrays.asList( "CompiledClassImporter" ), find( "compCI" ) );
+        assertEquals( Arrays.asList( "SideGraphLayoutBuilder" ), find( "SGLB" ) );
+        assertEquals( Arrays.asList( "URLClassLoader" ), find( "URLCL" ) );
+        assertEquals( Arrays.asList( "Base64Codec" ), find( "B64C" ) );
+        assertEquals( Arrays.asList(), find( "CIC" ) );
+    }
+
+    @Test
+    public void testRanking() {
+        // Equal, prefix, prefix ignoring case - shorter first, then camel humps
+        assertEquals( Arrays.asList( "Compiled", "CompiledClassImporter" ), find( "Compiled" ) );
+        assertEquals( Arrays.asList( "ClassGraph" ), find( "ClaG" ) );
+        assertEquals( Arrays.asList( "Class_", "ClassGraph", "ClassFileImporter" ), find( "Class" ) );
+        assertEquals( Arrays.asList( "compiler", "Compiled", "CompiledClassImporter" ), find( "compile" ) );
+    }
+
+    @Test
+    public void testMaxCountAndPartialResults() {
+        List<int[]> partialResults = new ArrayList<>();
+        int[] rows = index.find( "CC", 1, partialResults::add );
+        assertEquals( 1, rows.length );
+        assertEquals( 1, partialResults.size() );
+        assertArrayEquals( new int[ 0 ], partialResults.get( 0 ) );
+    }
+
+    @Test
+    public void testInterruptedSearch() {
+        Thread.currentThread().interrupt();
+        try {
+            assertNull( index.find( "C", 10, null ) );
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
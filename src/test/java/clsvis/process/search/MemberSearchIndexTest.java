@@ -0,0 +1,140 @@
+package clsvis.process.search;
+
+import clsvis.model.Annotation_;
+import clsvis.model.Class_;
+import clsvis.model.ElementKind;
+import clsvis.model.LangElement;
+import clsvis.model.Operation;
+import clsvis.model.ParameterizableElement;
+import clsvis.process.importer.CompiledClassImporter;
+import clsvis.process.importer.CompiledClassImporterTest;
+import clsvis.process.search.MemberSearchIndex.Criterion;
+import clsvis.process.search.MemberSearchIndex.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests of {@link MemberSearchIndex}.
+ */
+public class MemberSearchIndexTest {
+
+    private static CompiledClassImporter classImporter;
+    private static MemberSearchIndex index;
+
+    @BeforeClass
+    public static void importClasses() {
+        classImporter = CompiledClassImporterTest.importClasses( org.junit.runner.JUnitCore.class,
+                org.junit.Assert.class, org.junit.runners.BlockJUnit4ClassRunner.class,
+                org.junit.rules.TemporaryFolder.class );
+        index = classImporter.getMemberIndex();
+    }
+
+    @Test
+    public void testIndexContainsMembersOfSnapshot() {
+        assertSame( classImporter.getSnapshot(), index.getSnapshot() );
+        assertTrue( index.size() > 1000 );
+        int id = 0;
+        for (Class_ class_ : index.getSnapshot().getClasses()) {
+            for (ElementKind kind : Arrays.asList( ElementKind.Constants, ElementKind.Fields, ElementKind.Properties,
+                    ElementKind.Constructors, ElementKind.Methods )) {
+                for (ParameterizableElement member : index.getSnapshot().getMembers( class_, kind )) {
+                    assertSame( member, index.getMember( id ) );
+                    assertSame( class_, index.getDeclaringClass( id++ ) );
+                }
+            }
+        }
+        assertEquals( index.size(), id );
+    }
+
+    @Test
+    public void testFindEqualsScan() {
+        assertFindEqualsScan( member -> member.name.equals( "run" ),
+                Field.Name.is( "run" ) );
+        assertFindEqualsScan( member -> member.name.equals( "evaluate" ) && throwsType( member, "Throwable" ),
+                Field.Name.is( "evaluate" ), Field.ThrowsType.is( "Throwable" ) );
+        assertFindEqualsScan( member -> member.kind == ElementKind.Methods
+                && parameterType( member, "org.junit.runner.notification.RunNotifier" ),
+                Field.Kind.is( "Methods" ), Field.ParameterType.is( "org.junit.runner.notification.RunNotifier" ) );
+        assertFindEqualsScan( member -> member.kind == ElementKind.Constructors && parameterType( member, "Class" ),
+                Field.ParameterType.is( "Class" ), Field.Kind.is( "Constructors" ) );
+        assertFindEqualsScan( member -> annotationType( member, "java.lang.Deprecated" ),
+                Field.AnnotationType.is( "java.lang.Deprecated" ) );
+        assertFindEqualsScan( member -> annotationType( member, "Deprecated" ) && member.kind == ElementKind.Methods,
+                Field.AnnotationType.is( "Deprecated" ), Field.Kind.is( "Methods" ) );
+        assertFindEqualsScan(
+                member -> member.kind != ElementKind.Constructors && "boolean".equals( member.fullTypeName ),
+                Field.Type.is( "boolean" ) );
+        assertFindEqualsScan( member -> false,
+                Field.Name.is( "run" ), Field.Name.is( "noSuchName" ) );
+    }
+
+    @Test
+    public void testFindReturnsPages() {
+        Criterion[] criteria = { Field.Kind.is( "Methods" ), Field.Type.is( "String" ) };
+        int count = index.count( criteria );
+        assertTrue( count > 20 );
+        int[] all = index.find( 0, Integer.MAX_VALUE, criteria );
+        assertEquals( count, all.length );
+        List<Integer> paged = new ArrayList<>();
+        for (int offset = 0; offset < count; offset += 7) {
+            for (int id : index.find( offset, 7, criteria )) {
+                paged.add( id );
+            }
+        }
+        assertArrayEquals( all, paged.stream().mapToInt( Integer::intValue ).toArray() );
+        assertEquals( 0, index.find( count, 7, criteria ).length );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testFindWithoutCriteria() {
+        index.count();
+    }
+
+    private static void assertFindEqualsScan(Predicate<ParameterizableElement> predicate, Criterion... criteria) {
+        List<Integer> scanned = new ArrayList<>();
+        for (int id = 0; id < index.size(); id++) {
+            if (predicate.test( index.getMember( id ) )) {
+                scanned.add( id );
+            }
+        }
+        int[] expected = scanned.stream().mapToInt( Integer::intValue ).toArray();
+        assertArrayEquals( Arrays.toString( criteria ), expected, index.find( 0, index.size(), criteria ) );
+        assertEquals( expected.length, index.count( criteria ) );
+    }
+
+    private static boolean throwsType(ParameterizableElement member, String typeName) {
+        return member instanceof Operation && ((Operation) member).throwables.stream()
+                .anyMatch( throwable -> hasType( throwable, typeName ) );
+    }
+
+    private static boolean parameterType(ParameterizableElement member, String typeName) {
+        return member instanceof Operation && ((Operation) member).parameters.stream()
+                .anyMatch( parameter -> hasType( parameter, typeName ) );
+    }
+
+    private static boolean annotationType(ParameterizableElement member, String typeName) {
+        for (Annotation_ annotation : member.annotations) {
+            if (hasType( annotation, typeName )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true, if the given element has type of the given full or simple name (not an array).
+     */
+    private static boolean hasType(LangElement element, String typeName) {
+        String originalTypeName = element.originalTypeName;
+        return originalTypeName != null && (originalTypeName.equals( typeName )
+                || originalTypeName.endsWith( "." + typeName ) || originalTypeName.endsWith( "$" + typeName ));
+    }
+}
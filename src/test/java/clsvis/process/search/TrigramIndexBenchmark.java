@@ -0,0 +1,65 @@
+package clsvis.process.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Latency of filtering of 100k class names by a substring, as typed into the classes table filter:
+ * {@link TrigramIndex} vs scan of all names.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TrigramIndexBenchmark {
+
+    private static final int NAMES_COUNT = 100_000;
+
+    @Param( { "Run", "Runner", "runner.Description", "Statement$" } )
+    public String query;
+
+    private final List<String> names = new ArrayList<>( NAMES_COUNT );
+    private TrigramIndex index;
+
+    @Setup
+    public void setup() throws Exception {
+        List<String> classNames = TrigramIndexTest.readClassNames( org.junit.Test.class );
+        for (int i = 0; names.size() < NAMES_COUNT; i++) {
+            names.add( "module" + i % 1000 + '.' + classNames.get( i % classNames.size() ) );
+        }
+        index = new TrigramIndex( names );
+    }
+
+    @Benchmark
+    public int[] trigramIndex() {
+        return index.find( query );
+    }
+
+    @Benchmark
+    public int[] scan() {
+        return index.filter( null, query );
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder()
+                .include( TrigramIndexBenchmark.class.getSimpleName() )
+                .build() ).run();
+    }
+}
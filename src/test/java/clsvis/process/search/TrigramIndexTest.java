@@ -0,0 +1,107 @@
+package clsvis.process.search;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests of {@link TrigramIndex}.
+ */
+public class TrigramIndexTest {
+
+    @Test
+    public void testFindEqualsScan() throws Exception {
+        List<String> names = readClassNames( org.junit.Test.class );
+        TrigramIndex index = new TrigramIndex( names );
+        assertEquals( names.size(), index.size() );
+        for (String query : new String[]{
+            "", "j", "un", "org", "junit.runner", "Runner", "runner.Run", "Test", "$1", "nit.nit", "xyz", "aaaa" }) {
+            assertArrayEquals( query, scan( names, query ), index.find( query ) );
+        }
+        // Every substring of some names
+        for (String name : names.subList( 0, 20 )) {
+            for (int from = 0; from < name.length(); from += 3) {
+                String query = name.substring( from, Math.min( from + 7, name.length() ) );
+                assertArrayEquals( query, scan( names, query ), index.find( query ) );
+            }
+        }
+    }
+
+    @Test
+    public void testFilterRefinesResults() throws Exception {
+        List<String> names = readClassNames( org.junit.Test.class );
+        TrigramIndex index = new TrigramIndex( names );
+        int[] rows = index.find( "Run" );
+        assertArrayEquals( scan( names, "Runner" ), index.filter( rows, "Runner" ) );
+        assertArrayEquals( scan( names, "Runner" ), index.filter( null, "Runner" ) );
+    }
+
+    @Test
+    public void testRepeatedTrigrams() {
+        TrigramIndex index = new TrigramIndex( Arrays.asList( "aaa", "aaaa", "abab", "baba", "" ) );
+        assertArrayEquals( new int[]{ 0, 1 }, index.find( "aaa" ) );
+        assertArrayEquals( new int[]{ 1 }, index.find( "aaaa" ) );
+        assertArrayEquals( new int[]{ 2 }, index.find( "abab" ) );
+        assertArrayEquals( new int[]{ 2, 3 }, index.find( "bab" ) );
+        assertArrayEquals( new int[]{ 0, 1, 2, 3, 4 }, index.find( "" ) );
+    }
+
+    @Test
+    public void testInsertEqualsBuild() throws Exception {
+        List<String> names = readClassNames( org.junit.Test.class );
+        names.add( "xyz.Xyz" );
+        names.sort( null );
+        // Every third name and the name with unique trigrams are inserted
+        List<String> initialNames = new ArrayList<>();
+        List<String> insertedNames = new ArrayList<>();
+        int[] insertedRows = new int[ names.size() ];
+        int insertedCount = 0;
+        for (int row = 0; row < names.size(); row++) {
+            if (row % 3 == 1 || names.get( row ).startsWith( "xyz" )) {
+                insertedNames.add( names.get( row ) );
+                insertedRows[ insertedCount++ ] = row;
+            } else {
+                initialNames.add( names.get( row ) );
+            }
+        }
+        TrigramIndex index = new TrigramIndex( initialNames )
+                .insert( Arrays.copyOf( insertedRows, insertedCount ), insertedNames );
+        assertEquals( names.size(), index.size() );
+        for (String query : new String[]{ "", "un", "junit.runner", "Runner", "Test", "$1", "xyz", "Xyz", "aaaa" }) {
+            assertArrayEquals( query, scan( names, query ), index.find( query ) );
+        }
+        // Insertion into empty index
+        index = new TrigramIndex( Collections.emptyList() ).insert( new int[]{ 0, 1 }, Arrays.asList( "abab", "bab" ) );
+        assertArrayEquals( new int[]{ 0, 1 }, index.find( "bab" ) );
+        assertArrayEquals( new int[]{ 0 }, index.find( "aba" ) );
+    }
+
+    private static int[] scan(List<String> texts, String query) {
+        return texts.stream().filter( text -> text.contains( query ) ).mapToInt( texts::indexOf ).toArray();
+    }
+
+    /**
+     * Returns names of classes from the jar of the given class, sorted.
+     */
+    static List<String> readClassNames(Class<?> clazz) throws Exception {
+        List<String> names = new ArrayList<>();
+        File jarFile = new File( clazz.getProtectionDomain().getCodeSource().getLocation().toURI() );
+        try (ZipFile zipFile = new ZipFile( jarFile )) {
+            for (ZipEntry zipEntry : Collections.list( zipFile.entries() )) {
+                String name = zipEntry.getName();
+                if (name.endsWith( ".class" )) {
+                    names.add( name.substring( 0, name.length() - ".class".length() ).replace( '/', '.' ) );
+                }
+            }
+        }
+        names.sort( null );
+        return names;
+    }
+}